@@ -0,0 +1,207 @@
+package net.microfalx.talos.core;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * An output stream which decouples the producers (any thread) from the I/O.
+ * <p>
+ * Producers append copies of the written bytes into a lock-free queue and return immediately. A single writer
+ * thread drains the queue and writes the data in batches, flushing the target when enough data was written or
+ * after a short delay. {@link #flush()} only wakes up the writer, use {@link #sync()} to wait for all pending
+ * data to reach the target.
+ * <p>
+ * To keep memory bounded, producers are slowed down when too much data is pending. Once the writer fails, the
+ * failure is reported to the producers instead.
+ * <p>
+ * When the target is a {@link LogFile.Writer}, the data is tagged with the {@link LogContext} of the producer.
+ */
+public final class AsyncOutputStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long FLUSH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long MAXIMUM_PENDING = 16 * 1024 * 1024;
+
+    private final OutputStream target;
+    private final LogFile.Writer logWriter;
+    private final Queue<Chunk> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong requested = new AtomicLong();
+    private final Thread writer;
+
+    private volatile boolean closed;
+    private volatile boolean terminated;
+    private volatile boolean syncRequested;
+    private volatile IOException failure;
+
+    public static AsyncOutputStream create(OutputStream target, String name) {
+        return new AsyncOutputStream(target, name);
+    }
+
+    private AsyncOutputStream(OutputStream target, String name) {
+        requireNonNull(target);
+        requireNonNull(name);
+        // the log writer buffers (and compresses) the data in blocks
+        this.logWriter = target instanceof LogFile.Writer ? (LogFile.Writer) target : null;
+        this.target = logWriter != null ? target : new BufferedOutputStream(target, BUFFER_SIZE);
+        this.writer = new Thread(this::run, name);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        requireNonNull(b);
+        if (closed) throw new IOException("Stream closed");
+        if (failure != null) throw failure;
+        if (len == 0) return;
+        byte[] data = new byte[len];
+        System.arraycopy(b, off, data, 0, len);
+        while (pending.get() > MAXIMUM_PENDING && !closed && failure == null && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        if (failure != null) throw failure;
+        Chunk chunk = new Chunk(data, LogContext.get());
+        queue.add(chunk);
+        // a chunk added after the stream was closed (and drained) would be lost
+        if (terminated && queue.remove(chunk)) throw new IOException("Stream closed");
+        requested.addAndGet(len);
+        if (pending.addAndGet(len) >= BUFFER_SIZE) LockSupport.unpark(writer);
+    }
+
+    /**
+     * Wakes up the writer, without waiting for the data to be written.
+     */
+    @Override
+    public void flush() {
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Waits until all the data written so far reaches the target.
+     *
+     * @throws IOException if the writer failed to write the data
+     */
+    public void sync() throws IOException {
+        awaitWritten();
+        if (failure != null) throw failure;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        awaitWritten();
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // the chunks which raced with the writer shutting down are written by the closing thread
+        terminated = true;
+        Chunk chunk;
+        while ((chunk = queue.poll()) != null) {
+            writeChunk(chunk);
+        }
+        target.close();
+        if (failure != null) throw failure;
+    }
+
+    private void awaitWritten() {
+        long expected = requested.get();
+        syncRequested = true;
+        try {
+            while (written.get() < expected && writer.isAlive()) {
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        } finally {
+            syncRequested = false;
+        }
+    }
+
+    private void run() {
+        try {
+            drain();
+        } catch (Throwable e) {
+            setFailure(e);
+        }
+    }
+
+    private void drain() {
+        long lastFlush = System.nanoTime();
+        long drained = 0;
+        while (!closed || !queue.isEmpty()) {
+            Chunk chunk;
+            while ((chunk = queue.poll()) != null) {
+                writeChunk(chunk);
+                drained += chunk.data.length;
+            }
+            long now = System.nanoTime();
+            if (drained > written.get() && (syncRequested || now - lastFlush >= FLUSH_INTERVAL)) {
+                flushTarget();
+                written.set(drained);
+                lastFlush = now;
+            }
+            if (queue.isEmpty() && !closed) LockSupport.parkNanos(this, FLUSH_INTERVAL);
+        }
+        flushTarget();
+        written.set(drained);
+    }
+
+    private void writeChunk(Chunk chunk) {
+        try {
+            if (failure == null) {
+                if (logWriter != null) {
+                    logWriter.write(chunk.context, chunk.data, 0, chunk.data.length);
+                } else {
+                    target.write(chunk.data);
+                }
+            }
+        } catch (Throwable e) {
+            setFailure(e);
+        }
+        pending.addAndGet(-chunk.data.length);
+    }
+
+    private void flushTarget() {
+        try {
+            if (failure == null) target.flush();
+        } catch (Throwable e) {
+            setFailure(e);
+        }
+    }
+
+    private void setFailure(Throwable throwable) {
+        if (failure != null) return;
+        failure = throwable instanceof IOException ? (IOException) throwable
+                : new IOException("Failed to write (" + writer.getName() + ")", throwable);
+    }
+
+    private static class Chunk {
+
+        private final byte[] data;
+        private final LogContext context;
+
+        private Chunk(byte[] data, LogContext context) {
+            this.data = data;
+            this.context = context;
+        }
+    }
+}
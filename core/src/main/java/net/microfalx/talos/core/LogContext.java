@@ -0,0 +1,83 @@
+package net.microfalx.talos.core;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Holds the module and the mojo executed by the current thread, used to tag the captured output.
+ */
+public final class LogContext {
+
+    /**
+     * The context of threads which do not execute a module.
+     */
+    public static final LogContext NONE = new LogContext(null, null);
+
+    private static final ThreadLocal<LogContext> CURRENT = ThreadLocal.withInitial(() -> NONE);
+
+    private final String moduleId;
+    private final String mojoId;
+
+    /**
+     * Returns the context of the current thread.
+     *
+     * @return a non-null instance
+     */
+    public static LogContext get() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Changes the context of the current thread.
+     *
+     * @param moduleId the module identifier, null if not available
+     * @param mojoId   the mojo identifier, null if not available
+     */
+    public static void set(String moduleId, String mojoId) {
+        LogContext context = CURRENT.get();
+        if (!Objects.equals(context.moduleId, moduleId) || !Objects.equals(context.mojoId, mojoId)) {
+            CURRENT.set(moduleId == null && mojoId == null ? NONE : new LogContext(moduleId, mojoId));
+        }
+    }
+
+    /**
+     * Removes the context of the current thread.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    private LogContext(String moduleId, String mojoId) {
+        this.moduleId = moduleId;
+        this.mojoId = mojoId;
+    }
+
+    public String getModuleId() {
+        return moduleId;
+    }
+
+    public String getMojoId() {
+        return mojoId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LogContext that = (LogContext) o;
+        return Objects.equals(moduleId, that.moduleId) && Objects.equals(mojoId, that.mojoId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(moduleId, mojoId);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", LogContext.class.getSimpleName() + "[", "]")
+                .add("moduleId='" + moduleId + "'")
+                .add("mojoId='" + mojoId + "'")
+                .toString();
+    }
+}
@@ -0,0 +1,978 @@
+package net.microfalx.talos.core;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * A log file which is stored compressed, in independent blocks, with an index of lines and offsets.
+ * <p>
+ * The log is written with a {@link Writer}: the data is split in blocks (at line boundaries when possible), each
+ * block is compressed individually and the index of all blocks is appended when the writer is closed. A log can be
+ * read from any line or offset by decompressing only the blocks which hold the data. Logs which were not closed
+ * (the index is missing) are indexed by scanning the block headers.
+ * <p>
+ * The data can be tagged with a {@link LogContext} when it is written. Consecutive data with the same module and mojo
+ * is registered as a {@link Segment} and stored with the index, which allows the output of a single module (or mojo)
+ * to be read without filtering the whole log.
+ * <p>
+ * While the log is written, each line is classified and warnings, errors, exceptions and test failures are
+ * registered as {@link Marker markers} (with their line and module) and stored with the index. This allows the
+ * problems of a build to be located without reading the log.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class LogFile implements Closeable {
+
+    private static final int MAGIC = 0x544c4f47;
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 8;
+    private static final int BLOCK_HEADER_SIZE = 12;
+    private static final int FOOTER_SIZE = 12;
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final int MAXIMUM_BLOCK_SIZE = 4 * BLOCK_SIZE;
+    private static final int END_OF_BLOCKS = -1;
+    private static final int MAXIMUM_MARKERS = 10_000;
+    private static final int MAXIMUM_LINE_PREFIX = 1024;
+    private static final int LINE_TEXT = 0;
+    private static final int LINE_ESCAPE = 1;
+    private static final int LINE_SEQUENCE = 2;
+    private static final Marker.Type[] MARKER_TYPES = Marker.Type.values();
+    private static final byte[] WARNING_PREFIX = bytes("[WARNING]");
+    private static final byte[] WARN_PREFIX = bytes("[WARN]");
+    private static final byte[] ERROR_PREFIX = bytes("[ERROR]");
+    private static final byte[] TEST_FAILURE = bytes("<<< FAILURE!");
+    private static final byte[] TEST_ERROR = bytes("<<< ERROR!");
+    private static final byte[] CAUSED_BY = bytes("Caused by: ");
+    private static final byte[] EXCEPTION_IN_THREAD = bytes("Exception in thread ");
+    private static final byte[] EXCEPTION_SUFFIX = bytes("Exception");
+    private static final byte[] ERROR_SUFFIX = bytes("Error");
+
+    private final RandomAccessFile file;
+    private final int version;
+    private final Block[] blocks;
+    private final List<Segment> segments = new ArrayList<>();
+    private final List<Marker> markers = new ArrayList<>();
+    private final Map<String, int[]> markerCounts = new LinkedHashMap<>();
+    private final long size;
+    private final long lineCount;
+
+    private int cachedBlock = -1;
+    private byte[] cachedData;
+
+    /**
+     * Creates a writer which stores a log into a stream.
+     *
+     * @param outputStream the stream
+     * @return a non-null instance
+     */
+    public static Writer writer(OutputStream outputStream) {
+        return new Writer(outputStream);
+    }
+
+    /**
+     * Opens a log file.
+     *
+     * @param file the file
+     * @return a non-null instance
+     * @throws IOException if the file cannot be opened or it is not a log file
+     */
+    public static LogFile open(File file) throws IOException {
+        requireNonNull(file);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            return new LogFile(randomAccessFile);
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw new IOException("Failed to open log '" + file + "'", e);
+        }
+    }
+
+    private LogFile(RandomAccessFile file) throws IOException {
+        this.file = file;
+        if (file.length() < HEADER_SIZE || file.readInt() != MAGIC) throw new IOException("Invalid log file");
+        version = file.readInt();
+        if (version < 1 || version > VERSION) throw new IOException("Unsupported log file version " + version);
+        Block[] index = readIndex();
+        if (index == null) index = scanIndex();
+        this.blocks = index;
+        Block last = blocks.length > 0 ? blocks[blocks.length - 1] : null;
+        this.size = last != null ? last.offset + last.length : 0;
+        this.lineCount = last != null ? last.firstLine + last.lineCount : 0;
+    }
+
+    /**
+     * Returns the size of the (uncompressed) log.
+     *
+     * @return a positive integer
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of lines (line terminators) in the log.
+     *
+     * @return a positive integer
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the number of compressed blocks.
+     *
+     * @return a positive integer
+     */
+    public int getBlockCount() {
+        return blocks.length;
+    }
+
+    /**
+     * Returns the segments of the log (data written by a module and mojo).
+     * <p>
+     * Segments are only available for logs which were closed (the index is present).
+     *
+     * @return a non-null instance
+     */
+    public List<Segment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Returns the modules which have output in this log, in the order of their first output.
+     *
+     * @return a non-null instance
+     */
+    public Set<String> getModules() {
+        Set<String> modules = new LinkedHashSet<>();
+        for (Segment segment : segments) {
+            modules.add(segment.moduleId);
+        }
+        return modules;
+    }
+
+    /**
+     * Returns a stream over the output of a module (or a mojo of the module).
+     *
+     * @param moduleId the module identifier
+     * @param mojoId   the mojo identifier, null for the whole module
+     * @return a non-null instance
+     */
+    public InputStream getInputStream(String moduleId, String mojoId) {
+        requireNonNull(moduleId);
+        List<Segment> matching = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (moduleId.equals(segment.moduleId) && (mojoId == null || mojoId.equals(segment.mojoId))) {
+                matching.add(segment);
+            }
+        }
+        return new SegmentInputStream(matching);
+    }
+
+    /**
+     * Returns the markers (warnings, errors, etc) of the log, in the order of their lines.
+     * <p>
+     * Only the first markers of each type are stored, use {@link #getMarkerCount(Marker.Type)} to get the number of
+     * markers. Markers are only available for logs which were closed (the index is present).
+     *
+     * @return a non-null instance
+     */
+    public List<Marker> getMarkers() {
+        return Collections.unmodifiableList(markers);
+    }
+
+    /**
+     * Returns the number of markers of a given type.
+     *
+     * @param type the type
+     * @return a positive integer
+     */
+    public int getMarkerCount(Marker.Type type) {
+        requireNonNull(type);
+        int count = 0;
+        for (int[] counts : markerCounts.values()) {
+            count += counts[type.ordinal()];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of markers of a given type registered for a module.
+     *
+     * @param moduleId the module identifier, null for the output which does not belong to a module
+     * @param type     the type
+     * @return a positive integer
+     */
+    public int getMarkerCount(String moduleId, Marker.Type type) {
+        requireNonNull(type);
+        int[] counts = markerCounts.get(moduleId);
+        return counts != null ? counts[type.ordinal()] : 0;
+    }
+
+    /**
+     * Returns the offset (in the uncompressed log) where a line starts.
+     *
+     * @param line the line number, starting with 0
+     * @return the offset
+     * @throws IOException if an I/O error occurs
+     */
+    public long getLineOffset(long line) throws IOException {
+        if (line <= 0) return 0;
+        if (line > lineCount) return size;
+        // the line starts right after the terminator of the previous line
+        int index = findBlockByLine(line);
+        Block block = blocks[index];
+        byte[] data = readBlock(index);
+        long remaining = line - block.firstLine;
+        for (int i = 0; i < block.length; i++) {
+            if (data[i] == '\n' && --remaining == 0) return block.offset + i + 1;
+        }
+        throw new IOException("Corrupted index for line " + line);
+    }
+
+    /**
+     * Returns a stream over the whole (uncompressed) log.
+     *
+     * @return a non-null instance
+     */
+    public InputStream getInputStream() {
+        return getInputStream(0);
+    }
+
+    /**
+     * Returns a stream over the (uncompressed) log, starting with a given offset.
+     *
+     * @param offset the offset
+     * @return a non-null instance
+     */
+    public InputStream getInputStream(long offset) {
+        return new BlockInputStream(Math.max(0, Math.min(offset, size)));
+    }
+
+    /**
+     * Reads a range of lines.
+     *
+     * @param line  the first line, starting with 0
+     * @param count the maximum number of lines
+     * @return a non-null instance
+     * @throws IOException if an I/O error occurs
+     */
+    public List<String> readLines(long line, int count) throws IOException {
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(getInputStream(getLineOffset(line)), StandardCharsets.UTF_8));
+        String value;
+        while (lines.size() < count && (value = reader.readLine()) != null) {
+            lines.add(value);
+        }
+        return lines;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private int findBlockByLine(long line) {
+        int low = 0;
+        int high = blocks.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (blocks[middle].firstLine + blocks[middle].lineCount < line) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int findBlockByOffset(long offset) {
+        int low = 0;
+        int high = blocks.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (blocks[middle].offset + blocks[middle].length <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private byte[] readBlock(int index) throws IOException {
+        if (index == cachedBlock) return cachedData;
+        Block block = blocks[index];
+        byte[] compressed = new byte[block.compressedLength];
+        file.seek(block.position + BLOCK_HEADER_SIZE);
+        file.readFully(compressed);
+        byte[] data = new byte[block.length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < data.length && !inflater.finished()) {
+                int count = inflater.inflate(data, length, data.length - length);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += count;
+            }
+            if (length != data.length) throw new IOException("Truncated block " + index);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted block " + index, e);
+        } finally {
+            inflater.end();
+        }
+        cachedBlock = index;
+        cachedData = data;
+        return data;
+    }
+
+    private Block[] readIndex() throws IOException {
+        long length = file.length();
+        if (length < HEADER_SIZE + FOOTER_SIZE) return null;
+        file.seek(length - FOOTER_SIZE);
+        long indexPosition = file.readLong();
+        if (file.readInt() != MAGIC || indexPosition < HEADER_SIZE || indexPosition >= length) return null;
+        file.seek(indexPosition);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file.getFD())));
+        if (input.readInt() != END_OF_BLOCKS) return null;
+        int count = input.readInt();
+        Block[] index = new Block[count];
+        for (int i = 0; i < count; i++) {
+            index[i] = new Block(input.readLong(), input.readInt(), input.readLong(), input.readInt(),
+                    input.readLong(), input.readInt());
+        }
+        if (version >= 2) readSegments(input);
+        return index;
+    }
+
+    private void readSegments(DataInputStream input) throws IOException {
+        int nameCount = input.readInt();
+        String[] names = new String[nameCount];
+        for (int i = 0; i < nameCount; i++) {
+            names[i] = input.readUTF();
+        }
+        int segmentCount = input.readInt();
+        for (int i = 0; i < segmentCount; i++) {
+            int module = input.readInt();
+            int mojo = input.readInt();
+            segments.add(new Segment(names[module], mojo >= 0 ? names[mojo] : null, input.readLong(), input.readLong()));
+        }
+        if (version >= 3) readMarkers(input, names);
+    }
+
+    private void readMarkers(DataInputStream input, String[] names) throws IOException {
+        int markerCount = input.readInt();
+        for (int i = 0; i < markerCount; i++) {
+            Marker.Type type = MARKER_TYPES[input.readByte()];
+            long line = input.readLong();
+            int module = input.readInt();
+            markers.add(new Marker(type, line, module >= 0 ? names[module] : null));
+        }
+        int moduleCount = input.readInt();
+        for (int i = 0; i < moduleCount; i++) {
+            int module = input.readInt();
+            int[] counts = new int[MARKER_TYPES.length];
+            for (int j = 0; j < counts.length; j++) {
+                counts[j] = input.readInt();
+            }
+            markerCounts.put(module >= 0 ? names[module] : null, counts);
+        }
+    }
+
+    /**
+     * Classifies a line of the log (without the line terminator and ANSI escape sequences).
+     *
+     * @param line   the line
+     * @param length the length of the line
+     * @return the type of the marker, null if the line is not a warning or an error
+     */
+    static Marker.Type classify(byte[] line, int length) {
+        if (startsWith(line, length, WARNING_PREFIX) || startsWith(line, length, WARN_PREFIX)) {
+            return Marker.Type.WARNING;
+        } else if (startsWith(line, length, ERROR_PREFIX)) {
+            boolean failure = indexOf(line, length, TEST_FAILURE) >= 0 || indexOf(line, length, TEST_ERROR) >= 0;
+            return failure ? Marker.Type.TEST_FAILURE : Marker.Type.ERROR;
+        } else if (startsWith(line, length, CAUSED_BY) || startsWith(line, length, EXCEPTION_IN_THREAD)
+                || isExceptionHeader(line, length)) {
+            return Marker.Type.EXCEPTION;
+        } else {
+            return null;
+        }
+    }
+
+    private static boolean isExceptionHeader(byte[] line, int length) {
+        // a qualified class name which ends with Exception or Error, optionally followed by a message
+        int end = indexOf(line, length, (byte) ':');
+        if (end < 0) end = length;
+        if (end == 0 || !Character.isJavaIdentifierStart(line[0])) return false;
+        boolean qualified = false;
+        for (int i = 0; i < end; i++) {
+            byte value = line[i];
+            if (value == '.') {
+                qualified = true;
+            } else if (!Character.isJavaIdentifierPart(value)) {
+                return false;
+            }
+        }
+        return qualified && (endsWith(line, end, EXCEPTION_SUFFIX) || endsWith(line, end, ERROR_SUFFIX));
+    }
+
+    private static boolean startsWith(byte[] line, int length, byte[] prefix) {
+        if (length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean endsWith(byte[] line, int length, byte[] suffix) {
+        if (length < suffix.length) return false;
+        for (int i = 0, start = length - suffix.length; i < suffix.length; i++) {
+            if (line[start + i] != suffix[i]) return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] line, int length, byte value) {
+        for (int i = 0; i < length; i++) {
+            if (line[i] == value) return i;
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] line, int length, byte[] value) {
+        for (int i = 0, last = length - value.length; i <= last; i++) {
+            int j = 0;
+            while (j < value.length && line[i + j] == value[j]) j++;
+            if (j == value.length) return i;
+        }
+        return -1;
+    }
+
+    private Block[] scanIndex() throws IOException {
+        List<Block> index = new ArrayList<>();
+        long length = file.length();
+        long position = HEADER_SIZE;
+        long offset = 0;
+        long line = 0;
+        while (position + BLOCK_HEADER_SIZE <= length) {
+            file.seek(position);
+            int blockLength = file.readInt();
+            int compressedLength = file.readInt();
+            int blockLineCount = file.readInt();
+            if (blockLength < 0 || compressedLength < 0 || position + BLOCK_HEADER_SIZE + compressedLength > length) {
+                break;
+            }
+            index.add(new Block(position, compressedLength, offset, blockLength, line, blockLineCount));
+            position += BLOCK_HEADER_SIZE + compressedLength;
+            offset += blockLength;
+            line += blockLineCount;
+        }
+        return index.toArray(new Block[0]);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static class Block {
+
+        private final long position;
+        private final int compressedLength;
+        private final long offset;
+        private final int length;
+        private final long firstLine;
+        private final int lineCount;
+
+        private Block(long position, int compressedLength, long offset, int length, long firstLine, int lineCount) {
+            this.position = position;
+            this.compressedLength = compressedLength;
+            this.offset = offset;
+            this.length = length;
+            this.firstLine = firstLine;
+            this.lineCount = lineCount;
+        }
+    }
+
+    /**
+     * A range of the log written by a module and mojo.
+     */
+    public static final class Segment {
+
+        private final String moduleId;
+        private final String mojoId;
+        private final long offset;
+        private final long length;
+
+        private Segment(String moduleId, String mojoId, long offset, long length) {
+            this.moduleId = moduleId;
+            this.mojoId = mojoId;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public String getModuleId() {
+            return moduleId;
+        }
+
+        public String getMojoId() {
+            return mojoId;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Segment.class.getSimpleName() + "[", "]")
+                    .add("moduleId='" + moduleId + "'")
+                    .add("mojoId='" + mojoId + "'")
+                    .add("offset=" + offset)
+                    .add("length=" + length)
+                    .toString();
+        }
+    }
+
+    /**
+     * A line of the log which holds a warning or an error.
+     */
+    public static final class Marker {
+
+        private final Type type;
+        private final long line;
+        private final String moduleId;
+
+        private Marker(Type type, long line, String moduleId) {
+            this.type = type;
+            this.line = line;
+            this.moduleId = moduleId;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Returns the line of the marker.
+         *
+         * @return the line number, starting with 0
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * Returns the module which produced the line.
+         *
+         * @return the module identifier, null if the line does not belong to a module
+         */
+        public String getModuleId() {
+            return moduleId;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Marker.class.getSimpleName() + "[", "]")
+                    .add("type=" + type)
+                    .add("line=" + line)
+                    .add("moduleId='" + moduleId + "'")
+                    .toString();
+        }
+
+        public enum Type {
+            WARNING,
+            ERROR,
+            EXCEPTION,
+            TEST_FAILURE
+        }
+    }
+
+    private class SegmentInputStream extends InputStream {
+
+        private final Iterator<Segment> segments;
+        private InputStream inputStream;
+        private long remaining;
+
+        private SegmentInputStream(List<Segment> segments) {
+            this.segments = segments.iterator();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) return -1;
+            int value = inputStream.read();
+            if (value != -1) remaining--;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int count = inputStream.read(b, off, (int) Math.min(len, remaining));
+            if (count > 0) remaining -= count;
+            return count;
+        }
+
+        private boolean fill() {
+            while (inputStream == null || remaining <= 0) {
+                if (!segments.hasNext()) return false;
+                Segment segment = segments.next();
+                inputStream = getInputStream(segment.offset);
+                remaining = segment.length;
+            }
+            return true;
+        }
+    }
+
+    private class BlockInputStream extends InputStream {
+
+        private int index;
+        private byte[] data;
+        private int position;
+
+        private BlockInputStream(long offset) {
+            if (blocks.length == 0 || offset >= size) {
+                index = blocks.length;
+            } else {
+                index = findBlockByOffset(offset);
+                position = (int) (offset - blocks[index].offset);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) return -1;
+            return data[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int count = Math.min(len, data.length - position);
+            System.arraycopy(data, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            while (data == null || position >= data.length) {
+                if (data != null) {
+                    index++;
+                    position = 0;
+                    data = null;
+                }
+                if (index >= blocks.length) return false;
+                data = readBlock(index);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Writes a log, compressed in blocks.
+     * <p>
+     * A block is completed when it reaches its size (at the end of a line), when {@link #flush()} is called or when
+     * the writer is closed.
+     */
+    public static final class Writer extends OutputStream {
+
+        private final DataOutputStream output;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final byte[] block = new byte[MAXIMUM_BLOCK_SIZE];
+        private byte[] compressed = new byte[MAXIMUM_BLOCK_SIZE];
+        private int blockLength;
+        private int blockLineCount;
+
+        private long position;
+        private long[] positions = new long[16];
+        private int[] compressedLengths = new int[16];
+        private int[] lengths = new int[16];
+        private int[] lineCounts = new int[16];
+        private int blockCount;
+        private boolean closed;
+
+        private long size;
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> nameIndexes = new HashMap<>();
+        private int[] segmentModules = new int[16];
+        private int[] segmentMojos = new int[16];
+        private long[] segmentOffsets = new long[16];
+        private long[] segmentLengths = new long[16];
+        private int segmentCount;
+
+        private final byte[] line = new byte[MAXIMUM_LINE_PREFIX];
+        private int lineLength;
+        private int lineState = LINE_TEXT;
+        private long lineNumber;
+        private int contextModule = -1;
+        private final Map<Integer, int[]> markerCounts = new LinkedHashMap<>();
+        private final int[] markerTotals = new int[MARKER_TYPES.length];
+        private byte[] markerTypes = new byte[16];
+        private long[] markerLines = new long[16];
+        private int[] markerModules = new int[16];
+        private int markerCount;
+        private volatile Marker firstError;
+
+        private Writer(OutputStream outputStream) {
+            requireNonNull(outputStream);
+            this.output = new DataOutputStream(new BufferedOutputStream(outputStream, BLOCK_SIZE));
+            try {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            position = HEADER_SIZE;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (closed) throw new IOException("Stream closed");
+            size++;
+            append((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            write(LogContext.NONE, b, off, len);
+        }
+
+        /**
+         * Writes data produced in a given context (module and mojo).
+         *
+         * @param context the context
+         * @param b       the data
+         * @param off     the start offset in the data
+         * @param len     the number of bytes to write
+         * @throws IOException if an I/O error occurs
+         */
+        public void write(LogContext context, byte[] b, int off, int len) throws IOException {
+            requireNonNull(context);
+            requireNonNull(b);
+            if (closed) throw new IOException("Stream closed");
+            if (context.getModuleId() != null) {
+                contextModule = intern(context.getModuleId());
+                if (len > 0) {
+                    int mojo = context.getMojoId() != null ? intern(context.getMojoId()) : -1;
+                    int last = segmentCount - 1;
+                    if (last >= 0 && segmentModules[last] == contextModule && segmentMojos[last] == mojo
+                            && segmentOffsets[last] + segmentLengths[last] == size) {
+                        segmentLengths[last] += len;
+                    } else {
+                        addSegment(contextModule, mojo, len);
+                    }
+                }
+            } else {
+                contextModule = -1;
+            }
+            size += len;
+            for (int i = off, end = off + len; i < end; i++) {
+                append(b[i]);
+            }
+        }
+
+        /**
+         * Returns the first error (error, exception or test failure) written so far.
+         * <p>
+         * The method can be called by any thread.
+         *
+         * @return the marker, null if no error was written
+         */
+        public Marker getFirstError() {
+            return firstError;
+        }
+
+        /**
+         * Completes the current block, which makes all the data written so far readable.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        @Override
+        public void flush() throws IOException {
+            writeBlock();
+            output.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                writeBlock();
+                long indexPosition = position;
+                // marks the end of the blocks, for logs scanned without an index
+                output.writeInt(END_OF_BLOCKS);
+                output.writeInt(blockCount);
+                long blockOffset = 0;
+                long blockLine = 0;
+                for (int i = 0; i < blockCount; i++) {
+                    output.writeLong(positions[i]);
+                    output.writeInt(compressedLengths[i]);
+                    output.writeLong(blockOffset);
+                    output.writeInt(lengths[i]);
+                    output.writeLong(blockLine);
+                    output.writeInt(lineCounts[i]);
+                    blockOffset += lengths[i];
+                    blockLine += lineCounts[i];
+                }
+                output.writeInt(names.size());
+                for (String name : names) {
+                    output.writeUTF(name);
+                }
+                output.writeInt(segmentCount);
+                for (int i = 0; i < segmentCount; i++) {
+                    output.writeInt(segmentModules[i]);
+                    output.writeInt(segmentMojos[i]);
+                    output.writeLong(segmentOffsets[i]);
+                    output.writeLong(segmentLengths[i]);
+                }
+                output.writeInt(markerCount);
+                for (int i = 0; i < markerCount; i++) {
+                    output.writeByte(markerTypes[i]);
+                    output.writeLong(markerLines[i]);
+                    output.writeInt(markerModules[i]);
+                }
+                output.writeInt(markerCounts.size());
+                for (Map.Entry<Integer, int[]> entry : markerCounts.entrySet()) {
+                    output.writeInt(entry.getKey());
+                    for (int count : entry.getValue()) {
+                        output.writeInt(count);
+                    }
+                }
+                output.writeLong(indexPosition);
+                output.writeInt(MAGIC);
+            } finally {
+                deflater.end();
+                output.close();
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (blockLength == 0) return;
+            deflater.reset();
+            deflater.setInput(block, 0, blockLength);
+            deflater.finish();
+            int compressedLength = 0;
+            while (!deflater.finished()) {
+                if (compressedLength == compressed.length) compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+            }
+            output.writeInt(blockLength);
+            output.writeInt(compressedLength);
+            output.writeInt(blockLineCount);
+            output.write(compressed, 0, compressedLength);
+            register(compressedLength);
+            position += BLOCK_HEADER_SIZE + compressedLength;
+            blockLength = 0;
+            blockLineCount = 0;
+        }
+
+        private void append(byte value) throws IOException {
+            block[blockLength++] = value;
+            if (value == '\n') {
+                blockLineCount++;
+                endLine();
+                if (blockLength >= BLOCK_SIZE) writeBlock();
+            } else {
+                collect(value);
+                if (blockLength == MAXIMUM_BLOCK_SIZE) writeBlock();
+            }
+        }
+
+        private void collect(byte value) {
+            // keeps the beginning of the line, without ANSI escape sequences
+            switch (lineState) {
+                case LINE_TEXT:
+                    if (value == 27) {
+                        lineState = LINE_ESCAPE;
+                    } else if (value != '\r' && lineLength < line.length) {
+                        line[lineLength++] = value;
+                    }
+                    break;
+                case LINE_ESCAPE:
+                    lineState = value == '[' ? LINE_SEQUENCE : LINE_TEXT;
+                    break;
+                default:
+                    if (value >= '@' && value <= '~') lineState = LINE_TEXT;
+            }
+        }
+
+        private void endLine() {
+            Marker.Type type = classify(line, lineLength);
+            if (type != null) addMarker(type);
+            lineNumber++;
+            lineLength = 0;
+            lineState = LINE_TEXT;
+        }
+
+        private void addMarker(Marker.Type type) {
+            int[] counts = markerCounts.computeIfAbsent(contextModule, k -> new int[MARKER_TYPES.length]);
+            counts[type.ordinal()]++;
+            if (type != Marker.Type.WARNING && firstError == null) {
+                firstError = new Marker(type, lineNumber, contextModule >= 0 ? names.get(contextModule) : null);
+            }
+            if (++markerTotals[type.ordinal()] > MAXIMUM_MARKERS) return;
+            if (markerCount == markerLines.length) {
+                int capacity = markerCount * 2;
+                markerTypes = Arrays.copyOf(markerTypes, capacity);
+                markerLines = Arrays.copyOf(markerLines, capacity);
+                markerModules = Arrays.copyOf(markerModules, capacity);
+            }
+            markerTypes[markerCount] = (byte) type.ordinal();
+            markerLines[markerCount] = lineNumber;
+            markerModules[markerCount++] = contextModule;
+        }
+
+        private int intern(String name) {
+            Integer index = nameIndexes.get(name);
+            if (index == null) {
+                index = names.size();
+                names.add(name);
+                nameIndexes.put(name, index);
+            }
+            return index;
+        }
+
+        private void addSegment(int module, int mojo, int length) {
+            if (segmentCount == segmentModules.length) {
+                int capacity = segmentCount * 2;
+                segmentModules = Arrays.copyOf(segmentModules, capacity);
+                segmentMojos = Arrays.copyOf(segmentMojos, capacity);
+                segmentOffsets = Arrays.copyOf(segmentOffsets, capacity);
+                segmentLengths = Arrays.copyOf(segmentLengths, capacity);
+            }
+            segmentModules[segmentCount] = module;
+            segmentMojos[segmentCount] = mojo;
+            segmentOffsets[segmentCount] = size;
+            segmentLengths[segmentCount++] = length;
+        }
+
+        private void register(int compressedLength) {
+            if (blockCount == positions.length) {
+                int capacity = blockCount * 2;
+                positions = Arrays.copyOf(positions, capacity);
+                compressedLengths = Arrays.copyOf(compressedLengths, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                lineCounts = Arrays.copyOf(lineCounts, capacity);
+            }
+            positions[blockCount] = position;
+            compressedLengths[blockCount] = compressedLength;
+            lengths[blockCount] = blockLength;
+            lineCounts[blockCount++] = blockLineCount;
+        }
+    }
+}
@@ -39,17 +39,20 @@ public class MavenLogger extends AbstractMavenLifecycleParticipant {
     private static final int LOG_LEVEL_OFF = 50;
 
     private final org.slf4j.Logger logger;
-    private final StringBuilder buffer = new StringBuilder(8000);
+    private final ReportBuffer buffer = ReportBuffer.create();
 
     private MavenConfiguration configuration;
 
     private PrintStream originalSystemOutputPrintStream;
     private Resource systemOutputResource;
     private PrintStream systemOutputPrintStream;
+    private AsyncOutputStream systemOutputResourceStream;
+    private LogFile.Writer systemOutputLogWriter;
 
     private PrintStream originalSystemErrorPrintStream;
     private Resource systemErrorResource;
     private PrintStream systemErrorPrintStream;
+    private AsyncOutputStream systemErrorResourceStream;
 
     @Inject
     protected MavenSession session;
@@ -72,11 +75,27 @@ public class MavenLogger extends AbstractMavenLifecycleParticipant {
         return originalSystemOutputPrintStream;
     }
 
+    /**
+     * Returns the captured output, stored as a {@link LogFile}.
+     *
+     * @return a non-null instance
+     */
     public Resource getSystemOutput() {
         flushSystemStreams();
         return systemOutputResource;
     }
 
+    /**
+     * Returns the first error (error, exception or test failure) of the captured output.
+     * <p>
+     * The method does not wait for the pending output, the marker reflects the output written so far.
+     *
+     * @return the marker, null if no error was captured (or the output is not captured)
+     */
+    public LogFile.Marker getFirstError() {
+        return systemOutputLogWriter != null ? systemOutputLogWriter.getFirstError() : null;
+    }
+
     public Resource getSystemError() {
         flushSystemStreams();
         return systemErrorResource;
@@ -121,7 +140,7 @@ public class MavenLogger extends AbstractMavenLifecycleParticipant {
     }
 
     public String getReport() {
-        return buffer.toString();
+        return buffer.getReport();
     }
 
     @Override
@@ -139,27 +158,31 @@ public class MavenLogger extends AbstractMavenLifecycleParticipant {
     }
 
     private void append(String message) {
-        buffer.append(message).append('\n');
+        buffer.append(message);
     }
 
     private void initSystemStreams() {
         Resource stagingDirectory = MavenStorage.getStagingDirectory(configuration.getSession());
-        systemOutputResource = stagingDirectory.resolve(LOGGER_PREFIX + "output.log", Resource.Type.FILE);
+        systemOutputResource = stagingDirectory.resolve(LOGGER_PREFIX + "output.data", Resource.Type.FILE);
         systemErrorResource = stagingDirectory.resolve(LOGGER_PREFIX + "error.log", Resource.Type.FILE);
         debug("Initialize loggers to " + systemOutputResource.toURI());
         try {
-            OutputStream systemOutputResourceStream = systemOutputResource.getOutputStream();
+            // the file is written (compressed) in the background, the console stays synchronous to keep the output ordered
+            systemOutputLogWriter = LogFile.writer(systemOutputResource.getOutputStream());
+            systemOutputResourceStream = AsyncOutputStream.create(systemOutputLogWriter, "Talos Output");
+            OutputStream systemOutputStream = systemOutputResourceStream;
             if (!configuration.isQuiet()) {
-                systemOutputResourceStream = new TeeOutputStream(systemOutputResourceStream, originalSystemOutputPrintStream);
+                systemOutputStream = new TeeOutputStream(systemOutputStream, originalSystemOutputPrintStream);
             }
-            systemOutputPrintStream = new PrintStream(systemOutputResourceStream, true);
+            systemOutputPrintStream = new PrintStream(systemOutputStream, true);
             System.setOut(systemOutputPrintStream);
 
-            OutputStream systemErrorResourceStream = systemErrorResource.getOutputStream();
+            systemErrorResourceStream = AsyncOutputStream.create(systemErrorResource.getOutputStream(), "Talos Error");
+            OutputStream systemErrorStream = systemErrorResourceStream;
             if (!configuration.isQuiet()) {
-                systemErrorResourceStream = new TeeOutputStream(systemErrorResourceStream, originalSystemErrorPrintStream);
+                systemErrorStream = new TeeOutputStream(systemErrorStream, originalSystemErrorPrintStream);
             }
-            systemErrorPrintStream = new PrintStream(systemErrorResourceStream, true);
+            systemErrorPrintStream = new PrintStream(systemErrorStream, true);
             System.setErr(systemErrorPrintStream);
         } catch (IOException e) {
             warn("Failed to initialize system output stream, root cause: {}", getRootCauseMessage(e));
@@ -174,6 +197,12 @@ public class MavenLogger extends AbstractMavenLifecycleParticipant {
     private void flushSystemStreams() {
         systemOutputPrintStream.flush();
         systemErrorPrintStream.flush();
+        try {
+            if (systemOutputResourceStream != null) systemOutputResourceStream.sync();
+            if (systemErrorResourceStream != null) systemErrorResourceStream.sync();
+        } catch (IOException e) {
+            warn("Failed to flush system output stream, root cause: {}", getRootCauseMessage(e));
+        }
     }
 
     void initLogging() {
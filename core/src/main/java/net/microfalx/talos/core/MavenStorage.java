@@ -31,15 +31,19 @@ import static net.microfalx.resource.Resource.Type.DIRECTORY;
  */
 public class MavenStorage {
 
+    public static final String TRENDS_DIRECTORY_NAME = "trends";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(MavenStorage.class);
 
     private static final String STORAGE_DIRECTORY = "talos";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
     private static final Duration MAX_WORKSPACE_RETENTION = Duration.ofDays(3);
 
-    private static final String TRENDS_DIRECTORY_NAME = "trends";
     private static final String SESSIONS_DIRECTORY_NAME = "sessions";
     private static final String STAGING_DIRECTORY_NAME = "staging";
+    private static final String CACHE_DIRECTORY_NAME = "cache";
+    private static final String HISTORY_DIRECTORY_NAME = "history";
+    private static final String TEST_HISTORY_FILE_NAME = "tests.history";
 
     private static Resource storageDirectory;
     private static Resource sessionDirectory;
@@ -74,6 +78,15 @@ public class MavenStorage {
         return getStorageDirectory().resolve(SESSIONS_DIRECTORY_NAME, DIRECTORY);
     }
 
+    /**
+     * Returns the directory used to cache outputs of Mojo executions (shared by all projects).
+     *
+     * @return a non-null instance
+     */
+    public static synchronized Resource getCacheDirectory() {
+        return getStorageDirectory().resolve(CACHE_DIRECTORY_NAME, DIRECTORY);
+    }
+
     /**
      * Returns a staging directory used to collect data related to a build.
      *
@@ -120,9 +133,7 @@ public class MavenStorage {
      */
     public static synchronized Resource getRemoteSessionsDirectory(MavenSession session) {
         requireNonNull(session);
-        return getRemoteStorage(session).resolve(SESSIONS_DIRECTORY_NAME, DIRECTORY)
-                .resolve(getProjectId(session), DIRECTORY)
-                .resolve(getTimestampedName(session), DIRECTORY);
+        return getSessionsDirectory(getRemoteStorage(session), getProjectId(session), getTimestampedName(session));
     }
 
     /**
@@ -140,6 +151,18 @@ public class MavenStorage {
         return trendDirectory;
     }
 
+    /**
+     * Returns the file which holds the duration history of individual tests for a given project.
+     *
+     * @param session the session
+     * @return a non-null instance
+     */
+    public static synchronized Resource getLocalTestHistory(MavenSession session) {
+        requireNonNull(session);
+        return getStorageDirectory().resolve(HISTORY_DIRECTORY_NAME, DIRECTORY)
+                .resolve(getProjectId(session), DIRECTORY).resolve(TEST_HISTORY_FILE_NAME);
+    }
+
     /**
      * Stores trend metrics.
      *
@@ -214,39 +237,90 @@ public class MavenStorage {
     public static Resource getRemoteStorage(MavenSession session) {
         requireNonNull(session);
         if (remoteStorageDirectory == null) {
-            String uri = MavenUtils.getProperty(session, "storage.uri", (String) null);
-            if (isNotEmpty(uri)) {
-                String userName = MavenUtils.getProperty(session, "storage.username", (String) null);
-                String password = MavenUtils.getProperty(session, "storage.password", (String) null);
-                Credential credential = Credential.NA;
-                if (isNotEmpty(userName) && isNotEmpty(password)) {
-                    credential = new UserPasswordCredential(userName, password);
-                }
-                LOGGER.info("Initialize remote storage, uri: {}, username {}", uri, defaultIfEmpty(userName, NA_STRING));
-                String endpoint = null;
-                String s3Bucket = MavenUtils.getProperty(session, "storage.s3.bucket", (String) null);
-                String s3Prefix = MavenUtils.getProperty(session, "storage.s3.prefix", (String) null);
-                if (isNotEmpty(s3Bucket)) {
-                    endpoint = uri;
-                    LOGGER.info("Use S3 bucket '{}', prefix '{}'", s3Bucket, defaultIfEmpty(s3Prefix, NA_STRING));
-                    uri = "s3:/" + removeStartSlash(removeEndSlash(s3Bucket));
-                    if (isNotEmpty(s3Prefix)) uri += "/" + removeStartSlash(removeEndSlash(s3Prefix));
-                }
-                remoteStorageDirectory = ResourceFactory.resolve(parseUri(uri), credential, DIRECTORY);
-                if (endpoint != null) {
-                    remoteStorageDirectory = remoteStorageDirectory.withAttribute(Resource.END_POINT_ATTR, endpoint);
-                }
-                boolean exist = ResourceUtils.exists(remoteStorageDirectory);
-                if (!exist) {
-                    LOGGER.error("Remote storage '{}', credential {} does not exist or cannot be accessed", remoteStorageDirectory, credential);
-                }
-            } else {
-                remoteStorageDirectory = Resource.NULL;
-            }
+            remoteStorageDirectory = getRemoteStorage(MavenUtils.getProperty(session, "storage.uri", (String) null),
+                    MavenUtils.getProperty(session, "storage.username", (String) null),
+                    MavenUtils.getProperty(session, "storage.password", (String) null),
+                    MavenUtils.getProperty(session, "storage.s3.bucket", (String) null),
+                    MavenUtils.getProperty(session, "storage.s3.prefix", (String) null));
         }
         return remoteStorageDirectory;
     }
 
+    /**
+     * Returns a resource used to store session data remotely, outside a Maven session.
+     * <p>
+     * If the remote store is not configured (the URI is empty), the {@link Resource#NULL} is returned.
+     *
+     * @param uri      the URI of the storage (the endpoint for S3)
+     * @param userName the user name, can be null
+     * @param password the password, can be null
+     * @param s3Bucket the S3 bucket, can be null
+     * @param s3Prefix the prefix inside the S3 bucket, can be null
+     * @return a non-null instance
+     */
+    public static Resource getRemoteStorage(String uri, String userName, String password, String s3Bucket, String s3Prefix) {
+        if (isEmpty(uri)) return Resource.NULL;
+        Credential credential = Credential.NA;
+        if (isNotEmpty(userName) && isNotEmpty(password)) {
+            credential = new UserPasswordCredential(userName, password);
+        }
+        LOGGER.info("Initialize remote storage, uri: {}, username {}", uri, defaultIfEmpty(userName, NA_STRING));
+        String endpoint = null;
+        if (isNotEmpty(s3Bucket)) {
+            endpoint = uri;
+            LOGGER.info("Use S3 bucket '{}', prefix '{}'", s3Bucket, defaultIfEmpty(s3Prefix, NA_STRING));
+            uri = "s3:/" + removeStartSlash(removeEndSlash(s3Bucket));
+            if (isNotEmpty(s3Prefix)) uri += "/" + removeStartSlash(removeEndSlash(s3Prefix));
+        }
+        Resource storage = ResourceFactory.resolve(parseUri(uri), credential, DIRECTORY);
+        if (endpoint != null) {
+            storage = storage.withAttribute(Resource.END_POINT_ATTR, endpoint);
+        }
+        boolean exist = ResourceUtils.exists(storage);
+        if (!exist) {
+            LOGGER.error("Remote storage '{}', credential {} does not exist or cannot be accessed", storage, credential);
+        }
+        return storage;
+    }
+
+    /**
+     * Returns the directory which stores the data of a session, inside a (remote) storage.
+     *
+     * @param storage     the storage
+     * @param projectId   the identifier of the project (see {@link #getProjectId(MavenSession)})
+     * @param sessionName the name of the session (see {@link #getSessionName(MavenSession)})
+     * @return a non-null instance
+     */
+    public static Resource getSessionsDirectory(Resource storage, String projectId, String sessionName) {
+        requireNonNull(storage);
+        return storage.resolve(SESSIONS_DIRECTORY_NAME, DIRECTORY).resolve(projectId, DIRECTORY)
+                .resolve(sessionName, DIRECTORY);
+    }
+
+    /**
+     * Returns the identifier of the (top level) project of a session.
+     *
+     * @param session the session
+     * @return a non-null instance
+     */
+    public static String getProjectId(MavenSession session) {
+        if (session.getTopLevelProject() == null) {
+            throw new IllegalArgumentException("The session does not have a project attached");
+        }
+        MavenProject project = session.getTopLevelProject();
+        return project.getGroupId() + "." + project.getArtifactId();
+    }
+
+    /**
+     * Returns the name (a timestamp) of the directory which stores the data of a session.
+     *
+     * @param session the session
+     * @return a non-null instance
+     */
+    public static String getSessionName(MavenSession session) {
+        return getTimestampedName(session);
+    }
+
     /**
      * Returns the directory to store data for trends a given project.
      *
@@ -254,8 +328,19 @@ public class MavenStorage {
      * @return a non-null instance
      */
     public static synchronized Resource getRemoteTrendsDirectory(MavenSession session) {
-        return getRemoteStorage(session).resolve(TRENDS_DIRECTORY_NAME, DIRECTORY)
-                .resolve(getProjectId(session), DIRECTORY);
+        return getTrendsDirectory(getRemoteStorage(session), getProjectId(session));
+    }
+
+    /**
+     * Returns the directory which holds the trends of a project in a storage, outside a Maven session.
+     *
+     * @param storage   the storage
+     * @param projectId the project identifier
+     * @return a non-null instance
+     */
+    public static Resource getTrendsDirectory(Resource storage, String projectId) {
+        requireNonNull(storage);
+        return storage.resolve(TRENDS_DIRECTORY_NAME, DIRECTORY).resolve(projectId, DIRECTORY);
     }
 
     /**
@@ -291,14 +376,6 @@ public class MavenStorage {
         return DATE_FORMATTER.format(startTime);
     }
 
-    private static String getProjectId(MavenSession session) {
-        if (session.getTopLevelProject() == null) {
-            throw new IllegalArgumentException("The session does not have a project attached");
-        }
-        MavenProject project = session.getTopLevelProject();
-        return project.getGroupId() + "." + project.getArtifactId();
-    }
-
     private static String getBuildId(MavenSession session) {
         Hashing hashing = Hashing.create();
         hashing.update(session.getRequest().getBaseDirectory());
@@ -0,0 +1,235 @@
+package net.microfalx.talos.core;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A buffer which accumulates the messages of a report, safe to be used by many threads.
+ * <p>
+ * Each thread appends into its own segment and every message receives a global sequence number, which is used to
+ * merge the segments in the order the messages were logged. Once the messages kept in memory exceed a threshold,
+ * they are spilled to a temporary file. Messages which exceed the maximum size of the report are dropped and only
+ * counted.
+ */
+public final class ReportBuffer {
+
+    private final ThreadLocal<Segment> segment = ThreadLocal.withInitial(this::createSegment);
+    private final List<Segment> segments = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong memorySize = new AtomicLong();
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private long maximumMemorySize = 1024 * 1024;
+    private long maximumSize = 32 * 1024 * 1024;
+    private File spillFile;
+    private Writer spillWriter;
+
+    public static ReportBuffer create() {
+        return new ReportBuffer();
+    }
+
+    private ReportBuffer() {
+    }
+
+    /**
+     * Changes the maximum size (in characters) of the messages kept in memory, before they are spilled to a file.
+     *
+     * @param maximumMemorySize the size
+     * @return self
+     */
+    public ReportBuffer setMaximumMemorySize(long maximumMemorySize) {
+        this.maximumMemorySize = Math.max(0, maximumMemorySize);
+        return this;
+    }
+
+    /**
+     * Changes the maximum size (in characters) of the report.
+     *
+     * @param maximumSize the size
+     * @return self
+     */
+    public ReportBuffer setMaximumSize(long maximumSize) {
+        this.maximumSize = Math.max(0, maximumSize);
+        return this;
+    }
+
+    /**
+     * Returns the size (in characters) of the messages accumulated so far.
+     *
+     * @return a positive integer
+     */
+    public long getSize() {
+        return size.get();
+    }
+
+    /**
+     * Returns the number of messages which were dropped because the report reached its maximum size.
+     *
+     * @return a positive integer
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Appends a message (a line) to the report.
+     *
+     * @param message the message
+     */
+    public void append(String message) {
+        if (message == null) message = "null";
+        int length = message.length() + 1;
+        if (size.addAndGet(length) > maximumSize) {
+            size.addAndGet(-length);
+            dropped.incrementAndGet();
+            return;
+        }
+        // resolved outside the lock, a new segment is registered under the write lock
+        Segment threadSegment = segment.get();
+        lock.readLock().lock();
+        try {
+            threadSegment.add(sequence.getAndIncrement(), message);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (memorySize.addAndGet(length) > maximumMemorySize) spill();
+    }
+
+    /**
+     * Returns the report, with the messages of all threads in the order they were logged.
+     *
+     * @return a non-null instance
+     */
+    public String getReport() {
+        lock.writeLock().lock();
+        try {
+            StringBuilder builder = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 64, size.get() + 64));
+            if (spillWriter != null) {
+                spillWriter.flush();
+                try (Reader reader = Files.newBufferedReader(spillFile.toPath(), StandardCharsets.UTF_8)) {
+                    char[] chars = new char[8192];
+                    int count;
+                    while ((count = reader.read(chars)) != -1) builder.append(chars, 0, count);
+                }
+            }
+            merge(builder);
+            long droppedCount = dropped.get();
+            if (droppedCount > 0) {
+                builder.append("... ").append(droppedCount).append(" messages were omitted, the report is limited to ")
+                        .append(maximumSize).append(" characters\n");
+            }
+            return builder.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read report from " + spillFile, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all messages and releases the spill file, if any.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments) segment.clear();
+            releaseSpill();
+            memorySize.set(0);
+            size.set(0);
+            dropped.set(0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void spill() {
+        lock.writeLock().lock();
+        try {
+            if (memorySize.get() <= maximumMemorySize) return;
+            if (spillWriter == null) {
+                spillFile = File.createTempFile("talos", ".report");
+                spillFile.deleteOnExit();
+                spillWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(spillFile), StandardCharsets.UTF_8));
+            }
+            merge(spillWriter);
+            for (Segment segment : segments) segment.clear();
+            memorySize.set(0);
+        } catch (IOException e) {
+            // keep the messages in memory, the report is still bounded by its maximum size
+            maximumMemorySize = Long.MAX_VALUE;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void merge(Appendable appendable) throws IOException {
+        int[] positions = new int[segments.size()];
+        for (; ; ) {
+            Segment next = null;
+            int nextIndex = -1;
+            for (int i = 0; i < segments.size(); i++) {
+                Segment segment = segments.get(i);
+                if (positions[i] < segment.count && (next == null
+                        || segment.sequences[positions[i]] < next.sequences[positions[nextIndex]])) {
+                    next = segment;
+                    nextIndex = i;
+                }
+            }
+            if (next == null) break;
+            appendable.append(next.messages[positions[nextIndex]++]).append('\n');
+        }
+    }
+
+    private void releaseSpill() {
+        if (spillWriter == null) return;
+        try {
+            spillWriter.close();
+        } catch (IOException e) {
+            // not important
+        }
+        spillFile.delete();
+        spillWriter = null;
+        spillFile = null;
+    }
+
+    private Segment createSegment() {
+        Segment segment = new Segment();
+        lock.writeLock().lock();
+        try {
+            segments.add(segment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return segment;
+    }
+
+    private static class Segment {
+
+        private long[] sequences = new long[64];
+        private String[] messages = new String[64];
+        private int count;
+
+        private void add(long sequence, String message) {
+            if (count == sequences.length) {
+                sequences = Arrays.copyOf(sequences, count * 2);
+                messages = Arrays.copyOf(messages, count * 2);
+            }
+            sequences[count] = sequence;
+            messages[count++] = message;
+        }
+
+        private void clear() {
+            Arrays.fill(messages, 0, count, null);
+            count = 0;
+        }
+    }
+}
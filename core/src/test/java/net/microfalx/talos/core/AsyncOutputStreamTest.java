@@ -0,0 +1,84 @@
+package net.microfalx.talos.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncOutputStreamTest {
+
+    @Test
+    void sync() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AsyncOutputStream stream = AsyncOutputStream.create(target, "Test");
+        stream.write("Hello".getBytes(StandardCharsets.UTF_8));
+        stream.write(' ');
+        stream.write("World".getBytes(StandardCharsets.UTF_8));
+        stream.sync();
+        assertEquals("Hello World", target.toString(StandardCharsets.UTF_8));
+        stream.close();
+    }
+
+    @Test
+    void concurrentWrites() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AsyncOutputStream stream = AsyncOutputStream.create(target, "Test");
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            String prefix = Character.toString((char) ('A' + thread));
+            threads.add(new Thread(() -> {
+                for (int line = 0; line < 1000; line++) {
+                    try {
+                        stream.write((prefix + line + "\n").getBytes(StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) thread.join();
+        stream.close();
+
+        String[] lines = target.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4000, lines.length);
+        int[] next = new int[4];
+        for (String line : lines) {
+            int thread = line.charAt(0) - 'A';
+            assertEquals(next[thread]++, Integer.parseInt(line.substring(1)));
+        }
+    }
+
+    @Test
+    void writeAfterClose() throws IOException {
+        AsyncOutputStream stream = AsyncOutputStream.create(new ByteArrayOutputStream(), "Test");
+        stream.close();
+        assertThrows(IOException.class, () -> stream.write(1));
+    }
+
+    @Test
+    void failingWriter() {
+        OutputStream target = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new IllegalStateException("Disk gone");
+            }
+        };
+        AsyncOutputStream stream = AsyncOutputStream.create(target, "Test");
+        byte[] data = new byte[1024 * 1024];
+        IOException failure = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> assertThrows(IOException.class, () -> {
+            // more than the maximum pending data, the producer would wait for the writer forever
+            for (int i = 0; i < 64; i++) stream.write(data);
+        }));
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+        assertThrows(IOException.class, stream::close);
+    }
+
+}
@@ -0,0 +1,179 @@
+package net.microfalx.talos.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogFileTest {
+
+    private static final int LINE_COUNT = 50_000;
+
+    @TempDir
+    private File directory;
+
+    @Test
+    void readAll() throws IOException {
+        File file = new File(directory, "build.output.data");
+        String log = write(file);
+        try (LogFile logFile = LogFile.open(file)) {
+            assertEquals(log.length(), logFile.getSize());
+            assertEquals(LINE_COUNT, logFile.getLineCount());
+            assertTrue(logFile.getBlockCount() > 1);
+            try (InputStream inputStream = logFile.getInputStream()) {
+                assertEquals(log, new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            assertTrue(file.length() < log.length() / 4);
+        }
+    }
+
+    @Test
+    void readLines() throws IOException {
+        File file = new File(directory, "build.output.data");
+        write(file);
+        try (LogFile logFile = LogFile.open(file)) {
+            assertEquals(List.of("[INFO] Line 0", "[INFO] Line 1"), logFile.readLines(0, 2));
+            assertEquals(List.of("[INFO] Line 1000", "[INFO] Line 1001"), logFile.readLines(1000, 2));
+            assertEquals(List.of("[INFO] Line 12345"), logFile.readLines(12345, 1));
+            assertEquals(List.of("[INFO] Line 49999", "Done"), logFile.readLines(49999, 5));
+            assertEquals(List.of("Done"), logFile.readLines(LINE_COUNT, 5));
+        }
+    }
+
+    @Test
+    void readWithoutIndex() throws IOException {
+        File file = new File(directory, "build.output.data");
+        String log = write(file);
+        byte[] data = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(data, data.length - 20));
+        try (LogFile logFile = LogFile.open(file)) {
+            assertEquals(log.length(), logFile.getSize());
+            assertEquals(LINE_COUNT, logFile.getLineCount());
+            assertEquals(List.of("[INFO] Line 30000"), logFile.readLines(30000, 1));
+        }
+    }
+
+    @Test
+    void segments() throws IOException {
+        File file = new File(directory, "build.output.data");
+        try (LogFile.Writer writer = LogFile.writer(new FileOutputStream(file))) {
+            write(writer, LogContext.NONE, "Build started\n");
+            for (int i = 0; i < 1000; i++) {
+                write(writer, context("core", "compiler"), "core " + i + "\n");
+                write(writer, context("model", i < 500 ? "compiler" : "surefire"), "model " + i + "\n");
+            }
+            write(writer, LogContext.NONE, "Build ended\n");
+        }
+        try (LogFile logFile = LogFile.open(file)) {
+            assertEquals(Set.of("core", "model"), logFile.getModules());
+            assertEquals(2000, logFile.getSegments().size());
+            String core = read(logFile.getInputStream("core", null));
+            assertTrue(core.startsWith("core 0\ncore 1\n"));
+            assertEquals(1000, core.split("\n").length);
+            String model = read(logFile.getInputStream("model", "surefire"));
+            assertTrue(model.startsWith("model 500\nmodel 501\n"));
+            assertEquals(500, model.split("\n").length);
+            assertEquals("", read(logFile.getInputStream("web", null)));
+        }
+    }
+
+    private LogContext context(String moduleId, String mojoId) {
+        LogContext.set(moduleId, mojoId);
+        try {
+            return LogContext.get();
+        } finally {
+            LogContext.clear();
+        }
+    }
+
+    @Test
+    void markers() throws IOException {
+        File file = new File(directory, "build.output.data");
+        LogFile.Marker firstError;
+        try (LogFile.Writer writer = LogFile.writer(new FileOutputStream(file))) {
+            write(writer, LogContext.NONE, "[INFO] Scanning for projects...\n");
+            write(writer, context("core", "compiler"), "\u001B[1;33m[WARNING]\u001B[m Unchecked call\n");
+            write(writer, context("core", "surefire"), "[ERROR] Tests run: 3, Failures: 1 <<< FAILURE! - in CoreTest\n");
+            write(writer, context("core", "surefire"), "java.lang.IllegalStateException: Boom\n");
+            write(writer, context("core", "surefire"), "\tat net.microfalx.Core.run(Core.java:10)\n");
+            write(writer, context("core", "surefire"), "Caused by: java.io.IOException: Closed\n");
+            write(writer, context("model", "compiler"), "[ERROR] Cannot find symbol\r\n");
+            write(writer, context("model", "compiler"), "The compilation Error was reported\n");
+            write(writer, LogContext.NONE, "[ERROR] BUILD FAILURE\n");
+            firstError = writer.getFirstError();
+        }
+        assertEquals(LogFile.Marker.Type.TEST_FAILURE, firstError.getType());
+        assertEquals(2, firstError.getLine());
+        assertEquals("core", firstError.getModuleId());
+        try (LogFile logFile = LogFile.open(file)) {
+            List<LogFile.Marker> markers = logFile.getMarkers();
+            assertEquals(6, markers.size());
+            assertEquals(Arrays.asList(1L, 2L, 3L, 5L, 6L, 8L), markers.stream().map(LogFile.Marker::getLine).collect(Collectors.toList()));
+            assertEquals(1, logFile.getMarkerCount(LogFile.Marker.Type.WARNING));
+            assertEquals(2, logFile.getMarkerCount(LogFile.Marker.Type.ERROR));
+            assertEquals(2, logFile.getMarkerCount(LogFile.Marker.Type.EXCEPTION));
+            assertEquals(1, logFile.getMarkerCount(LogFile.Marker.Type.TEST_FAILURE));
+            assertEquals(2, logFile.getMarkerCount("core", LogFile.Marker.Type.EXCEPTION));
+            assertEquals(1, logFile.getMarkerCount("model", LogFile.Marker.Type.ERROR));
+            assertEquals(1, logFile.getMarkerCount(null, LogFile.Marker.Type.ERROR));
+            assertNull(markers.get(5).getModuleId());
+        }
+    }
+
+    @Test
+    void classify() {
+        assertEquals(LogFile.Marker.Type.WARNING, classify("[WARNING] Deprecated"));
+        assertEquals(LogFile.Marker.Type.ERROR, classify("[ERROR] Failed to execute goal"));
+        assertEquals(LogFile.Marker.Type.TEST_FAILURE, classify("[ERROR] test(Test)  Time elapsed: 0.1 s  <<< ERROR!"));
+        assertEquals(LogFile.Marker.Type.EXCEPTION, classify("org.opentest4j.AssertionFailedError: expected"));
+        assertEquals(LogFile.Marker.Type.EXCEPTION, classify("Exception in thread \"main\" java.lang.Error"));
+        assertNull(classify("[INFO] Building core"));
+        assertNull(classify("An Exception was thrown: no"));
+        assertNull(classify("net.microfalx.Exceptions"));
+    }
+
+    private LogFile.Marker.Type classify(String line) {
+        byte[] data = line.getBytes(StandardCharsets.UTF_8);
+        return LogFile.classify(data, data.length);
+    }
+
+    private void write(LogFile.Writer writer, LogContext context, String text) throws IOException {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        writer.write(context, data, 0, data.length);
+    }
+
+    private String read(InputStream inputStream) throws IOException {
+        try (inputStream) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private String write(File file) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        try (LogFile.Writer writer = LogFile.writer(new FileOutputStream(file))) {
+            for (int i = 0; i < LINE_COUNT; i++) {
+                String line = "[INFO] Line " + i + "\n";
+                builder.append(line);
+                writer.write(line.getBytes(StandardCharsets.UTF_8));
+                if (i == 1000) writer.flush();
+            }
+            writer.write("Done".getBytes(StandardCharsets.UTF_8));
+            builder.append("Done");
+        }
+        return builder.toString();
+    }
+
+}
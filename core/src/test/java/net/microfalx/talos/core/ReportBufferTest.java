@@ -0,0 +1,69 @@
+package net.microfalx.talos.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportBufferTest {
+
+    @Test
+    void append() {
+        ReportBuffer buffer = ReportBuffer.create();
+        buffer.append("Line 1");
+        buffer.append("Line 2");
+        assertEquals("Line 1\nLine 2\n", buffer.getReport());
+        assertEquals(14, buffer.getSize());
+    }
+
+    @Test
+    void spill() {
+        ReportBuffer buffer = ReportBuffer.create().setMaximumMemorySize(20);
+        for (int i = 0; i < 100; i++) {
+            buffer.append("Line " + i);
+        }
+        String[] lines = buffer.getReport().split("\n");
+        assertEquals(100, lines.length);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Line " + i, lines[i]);
+        }
+        buffer.clear();
+        assertEquals("", buffer.getReport());
+    }
+
+    @Test
+    void maximumSize() {
+        ReportBuffer buffer = ReportBuffer.create().setMaximumSize(20);
+        for (int i = 0; i < 10; i++) {
+            buffer.append("Line " + i);
+        }
+        assertEquals(3, buffer.getReport().split("\n").length);
+        assertEquals(8, buffer.getDroppedCount());
+        assertTrue(buffer.getReport().endsWith("8 messages were omitted, the report is limited to 20 characters\n"));
+    }
+
+    @Test
+    void concurrentAppends() throws InterruptedException {
+        ReportBuffer buffer = ReportBuffer.create().setMaximumMemorySize(1000);
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            String prefix = Character.toString((char) ('A' + thread));
+            threads.add(new Thread(() -> {
+                for (int line = 0; line < 1000; line++) buffer.append(prefix + line);
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) thread.join();
+
+        String[] lines = buffer.getReport().split("\n");
+        assertEquals(4000, lines.length);
+        int[] next = new int[4];
+        for (String line : lines) {
+            int thread = line.charAt(0) - 'A';
+            assertEquals(next[thread]++, Integer.parseInt(line.substring(1)));
+        }
+    }
+
+}
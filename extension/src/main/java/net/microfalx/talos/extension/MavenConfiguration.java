@@ -3,6 +3,7 @@ package net.microfalx.talos.extension;
 import net.microfalx.lang.TimeUtils;
 import org.apache.maven.execution.MavenSession;
 
+import java.io.File;
 import java.time.Duration;
 
 import static java.time.Duration.ofMillis;
@@ -52,6 +53,43 @@ public class MavenConfiguration extends net.microfalx.talos.core.MavenConfigurat
         return getProperty(getSession(), "report.html.enabled", true) && !isMavenQuiet();
     }
 
+    /**
+     * Returns whether the HTML report is lazy: a lightweight page which loads each fragment when displayed.
+     *
+     * @return {@code true} if lazy, {@code false} otherwise
+     */
+    public boolean isReportHtmlLazy() {
+        return getProperty(getSession(), "report.html.lazy", false);
+    }
+
+    /**
+     * Returns the maximum number of points displayed for each series of a time series chart.
+     *
+     * @return a positive integer
+     */
+    public int getReportChartPoints() {
+        return getProperty(getSession(), "report.chart.points", 500);
+    }
+
+    /**
+     * Returns the session (<code>build.data</code>) used as baseline for the diff report.
+     *
+     * @return the baseline, null if a diff report is not requested
+     */
+    public File getReportDiffBaseline() {
+        String baseline = getProperty(getSession(), "report.diff.baseline", (String) null);
+        return baseline != null ? new File(baseline) : null;
+    }
+
+    /**
+     * Returns whether the HTML report is generated (and the results are moved) by a separate process, after Maven exits.
+     *
+     * @return {@code true} if in background, {@code false} otherwise
+     */
+    public boolean isReportBackground() {
+        return getProperty(getSession(), "report.background", false);
+    }
+
     /**
      * Returns whether the logs should be included.
      *
@@ -121,4 +159,94 @@ public class MavenConfiguration extends net.microfalx.talos.core.MavenConfigurat
     public Boolean isEnvironmentEnabled() {
         return getProperty(getSession(), "report.environment.enabled", false);
     }
+
+    /**
+     * Returns whether the local repository is analyzed (size, stale snapshots, unused artifacts) at the end of the session.
+     *
+     * @return {@code true} if enabled, {@code false} otherwise
+     */
+    public Boolean isRepositoryAnalysisEnabled() {
+        return getProperty(getSession(), "repository.analysis.enabled", false);
+    }
+
+    /**
+     * Returns whether the local cache for Mojo outputs (compiler and surefire) is enabled.
+     *
+     * @return {@code true} if enabled, {@code false} otherwise
+     */
+    public Boolean isCacheEnabled() {
+        return getProperty(getSession(), "cache.enabled", false);
+    }
+
+    /**
+     * Returns whether the session is compared with the trend baseline to detect performance regressions.
+     *
+     * @return {@code true} if enabled, {@code false} otherwise
+     */
+    public Boolean isRegressionEnabled() {
+        return getProperty(getSession(), "regression.enabled", true);
+    }
+
+    /**
+     * Returns the number of (most recent) trends used as a baseline to detect regressions.
+     *
+     * @return a positive integer
+     */
+    public int getRegressionBaseline() {
+        return getProperty(getSession(), "regression.baseline", 10);
+    }
+
+    /**
+     * Returns the slowdown (in percent) of a regression which fails the build.
+     *
+     * @return a positive integer, 0 if regressions do not fail the build
+     */
+    public int getRegressionFailureThreshold() {
+        return getProperty(getSession(), "regression.fail", 0);
+    }
+
+    /**
+     * Returns whether the dashboard of all projects built on this agent is updated with the trend of the session.
+     *
+     * @return {@code true} if enabled, {@code false} otherwise
+     */
+    public Boolean isDashboardEnabled() {
+        return getProperty(getSession(), "dashboard.enabled", false);
+    }
+
+    /**
+     * Returns whether the duration of individual tests is tracked across builds.
+     *
+     * @return {@code true} if enabled, {@code false} otherwise
+     */
+    public Boolean isTestHistoryEnabled() {
+        return getProperty(getSession(), "tests.history.enabled", true);
+    }
+
+    /**
+     * Returns the maximum number of slowest growing (and most variable) tests reported from the test history.
+     *
+     * @return a positive integer
+     */
+    public int getTestHistoryLimit() {
+        return getProperty(getSession(), "tests.history.limit", 20);
+    }
+
+    /**
+     * Returns the number of unique test failures which keep the full stack trace.
+     *
+     * @return a positive integer
+     */
+    public int getTestFailureDetails() {
+        return getProperty(getSession(), "tests.failure.details", 100);
+    }
+
+    /**
+     * Returns the maximum size (in characters) of all unique test failure stack traces.
+     *
+     * @return a positive integer
+     */
+    public int getTestFailureSize() {
+        return getProperty(getSession(), "tests.failure.size", 1024 * 1024);
+    }
 }
@@ -0,0 +1,475 @@
+package net.microfalx.talos.extension;
+
+import net.microfalx.resource.ResourceUtils;
+import net.microfalx.talos.core.MavenStorage;
+import net.microfalx.talos.core.MavenTracker;
+import net.microfalx.talos.core.MavenUtils;
+import net.microfalx.talos.model.CacheMetrics;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.MojoExecutionEvent;
+import org.apache.maven.plugin.Mojo;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.joor.Reflect;
+import org.joor.ReflectException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofNanos;
+import static java.util.Collections.emptyList;
+import static net.microfalx.talos.core.MavenUtils.formatDuration;
+
+/**
+ * A local cache for the outputs of deterministic Mojo executions.
+ * <p>
+ * Before a supported Mojo is executed, its inputs (sources, classpath, the resolved values of the plugin parameters
+ * and the user properties) are fingerprinted. When the fingerprint matches a previous execution, the outputs are
+ * restored from a local content-addressed store and the Mojo is instructed to skip its work. Otherwise, the outputs
+ * are stored after a successful execution.
+ */
+@Named
+@Singleton
+public class MojoCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MojoCache.class);
+
+    private static final String OBJECTS_DIRECTORY_NAME = "objects";
+    private static final String ENTRIES_DIRECTORY_NAME = "entries";
+    private static final String ENTRY_EXTENSION = ".properties";
+    private static final String DURATION_ATTR = "@duration";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String CLASS_EXTENSION = ".class";
+    private static final String DEFAULT_VALUE_ATTR = "default-value";
+    private static final String TALOS_PROPERTY_PREFIX = "talos.";
+    private static final String[] SYSTEM_PROPERTIES = {"java.version", "java.vendor", "os.name", "os.arch",
+            "file.encoding"};
+
+    private static final Map<String, Goal> goals = new HashMap<>();
+
+    @Inject
+    private MavenSession session;
+
+    private final MavenTracker tracker = new MavenTracker(MojoCache.class);
+    private final CacheMetrics metrics = new CacheMetrics();
+    private final Map<String, Execution> executions = new ConcurrentHashMap<>();
+    private volatile Path directory;
+    private volatile Boolean enabled;
+
+    /**
+     * Returns the metrics of the cache.
+     *
+     * @return a non-null instance
+     */
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns whether the cache is enabled.
+     *
+     * @return {@code true} if enabled, {@code false} otherwise
+     */
+    public boolean isEnabled() {
+        if (enabled == null) enabled = new MavenConfiguration(session).isCacheEnabled();
+        return enabled;
+    }
+
+    void beforeMojoExecution(MojoExecutionEvent event) {
+        if (!isEnabled()) return;
+        MojoExecution mojoExecution = event.getExecution();
+        Goal goal = goals.get(MavenUtils.getGoal(mojoExecution));
+        if (goal == null) return;
+        long startTime = nanoTime();
+        MavenProject project = event.getProject();
+        String key;
+        try {
+            key = getKey(goal, event.getSession(), project, mojoExecution);
+        } catch (Exception e) {
+            tracker.logFailure("Cache Key", e);
+            return;
+        }
+        Path output = Paths.get(goal.output.get(project));
+        Entry entry = loadEntry(key);
+        if (entry != null && restore(goal, entry, output) && skip(goal, event.getMojo())) {
+            metrics.registerHit(entry.duration, entry.size, ofNanos(nanoTime() - startTime));
+            LOGGER.info("Restored '{}' for '{}' from cache, saved {}", goal.name, project.getArtifactId(),
+                    formatDuration(entry.duration));
+        } else {
+            metrics.registerMiss(ofNanos(nanoTime() - startTime));
+            executions.put(getExecutionId(event), new Execution(goal, key, output));
+        }
+    }
+
+    void afterMojoExecutionSuccess(MojoExecutionEvent event) {
+        Execution execution = executions.remove(getExecutionId(event));
+        if (execution == null) return;
+        Duration duration = ofNanos(nanoTime() - execution.startTime);
+        long startTime = nanoTime();
+        try {
+            long size = store(execution, duration);
+            metrics.registerStore(size, ofNanos(nanoTime() - startTime));
+        } catch (IOException e) {
+            tracker.logFailure("Cache Store", e);
+        }
+    }
+
+    void afterExecutionFailure(MojoExecutionEvent event) {
+        executions.remove(getExecutionId(event));
+    }
+
+    private String getKey(Goal goal, MavenSession session, MavenProject project, MojoExecution execution) throws Exception {
+        MessageDigest digest = createDigest();
+        update(digest, project.getGroupId() + ":" + project.getArtifactId());
+        update(digest, MavenUtils.getGoal(execution) + "@" + execution.getExecutionId());
+        update(digest, execution.getPlugin().getVersion());
+        updateConfiguration(digest, new PluginParameterExpressionEvaluator(session, execution), execution.getConfiguration());
+        updateProperties(digest, session);
+        Path output = Paths.get(goal.output.get(project));
+        for (String source : goal.sources.get(project)) {
+            updateFiles(digest, Paths.get(source), output);
+        }
+        for (String element : goal.classpath.get(project)) {
+            Path path = Paths.get(element);
+            if (Files.isDirectory(path)) {
+                updateFiles(digest, path, output);
+            } else if (Files.isRegularFile(path)) {
+                update(digest, element + "@" + Files.size(path) + "@" + Files.getLastModifiedTime(path).toMillis());
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Fingerprints the values of the plugin parameters, resolved the same way Maven injects them into the Mojo.
+     * <p>
+     * The raw configuration holds expressions like <code>${test}</code> or <code>${maven.compiler.release}</code>,
+     * which would match even when the properties behind them changed.
+     */
+    private void updateConfiguration(MessageDigest digest, ExpressionEvaluator evaluator, Xpp3Dom configuration) {
+        if (configuration == null) return;
+        update(digest, configuration.getName());
+        if (configuration.getChildCount() > 0) {
+            for (Xpp3Dom child : configuration.getChildren()) {
+                updateConfiguration(digest, evaluator, child);
+            }
+        } else {
+            String expression = configuration.getValue();
+            if (expression == null) expression = configuration.getAttribute(DEFAULT_VALUE_ATTR);
+            update(digest, evaluate(evaluator, expression));
+        }
+    }
+
+    private void updateProperties(MessageDigest digest, MavenSession session) {
+        Map<String, String> properties = new TreeMap<>();
+        for (String name : session.getUserProperties().stringPropertyNames()) {
+            if (name.startsWith(TALOS_PROPERTY_PREFIX)) continue;
+            properties.put(name, session.getUserProperties().getProperty(name));
+        }
+        for (String name : SYSTEM_PROPERTIES) {
+            properties.putIfAbsent(name, System.getProperty(name));
+        }
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            update(digest, property.getKey() + "=" + property.getValue());
+        }
+    }
+
+    private void updateFiles(MessageDigest digest, Path directory, Path exclude) throws IOException {
+        if (directory.equals(exclude)) return;
+        update(digest, directory.toString());
+        if (!Files.isDirectory(directory)) return;
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(directory)) {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            update(digest, toRelative(directory, file));
+            digest.update(Files.readAllBytes(file));
+        }
+    }
+
+    private boolean restore(Goal goal, Entry entry, Path output) {
+        try {
+            for (String hash : entry.files.values()) {
+                if (!Files.exists(getObject(hash))) return false;
+            }
+            removeStale(goal, entry, output);
+            for (Map.Entry<String, String> file : entry.files.entrySet()) {
+                Path target = output.resolve(file.getKey());
+                Files.createDirectories(target.getParent());
+                Files.copy(getObject(file.getValue()), target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            tracker.logFailure("Cache Restore", e);
+            return false;
+        }
+    }
+
+    private void removeStale(Goal goal, Entry entry, Path output) throws IOException {
+        if (!Files.isDirectory(output)) return;
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(output)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            String relative = toRelative(output, file);
+            if (goal.isOutput(relative, true) && !entry.files.containsKey(relative)) Files.delete(file);
+        }
+    }
+
+    private boolean skip(Goal goal, Mojo mojo) {
+        try {
+            Reflect.on(mojo).set(goal.skipField, true);
+            return true;
+        } catch (ReflectException e) {
+            LOGGER.debug("Cannot skip '{}', field '{}' is not available", goal.name, goal.skipField);
+            return false;
+        }
+    }
+
+    private long store(Execution execution, Duration duration) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(DURATION_ATTR, Long.toString(duration.toMillis()));
+        long size = 0;
+        if (Files.isDirectory(execution.output)) {
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(execution.output)) {
+                files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                String relative = toRelative(execution.output, file);
+                boolean modified = Files.getLastModifiedTime(file).toMillis() >= execution.timestamp;
+                if (!execution.goal.isOutput(relative, modified)) continue;
+                properties.setProperty(relative, storeObject(file));
+                size += Files.size(file);
+            }
+        }
+        Path entry = getEntry(execution.key);
+        Files.createDirectories(entry.getParent());
+        Path temporary = Files.createTempFile(entry.getParent(), "entry", ".tmp");
+        try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+            properties.store(outputStream, null);
+        }
+        Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return size;
+    }
+
+    private String storeObject(Path file) throws IOException {
+        MessageDigest digest = createDigest();
+        try (InputStream inputStream = new DigestInputStream(Files.newInputStream(file), digest)) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        String hash = toHex(digest.digest());
+        Path object = getObject(hash);
+        if (!Files.exists(object)) {
+            Files.createDirectories(object.getParent());
+            Path temporary = Files.createTempFile(object.getParent(), hash, ".tmp");
+            Files.copy(file, temporary, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporary, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return hash;
+    }
+
+    private Entry loadEntry(String key) {
+        Path file = getEntry(key);
+        if (!Files.exists(file)) return null;
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            tracker.logFailure("Cache Load", e);
+            return null;
+        }
+        Entry entry = new Entry();
+        for (String name : properties.stringPropertyNames()) {
+            String value = properties.getProperty(name);
+            if (DURATION_ATTR.equals(name)) {
+                entry.duration = ofMillis(Long.parseLong(value));
+            } else {
+                entry.files.put(name, value);
+            }
+        }
+        for (String hash : entry.files.values()) {
+            try {
+                entry.size += Files.size(getObject(hash));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return entry;
+    }
+
+    private Path getDirectory() {
+        if (directory == null) {
+            directory = ResourceUtils.toFile(MavenStorage.getCacheDirectory()).toPath();
+        }
+        return directory;
+    }
+
+    private Path getEntry(String key) {
+        return getDirectory().resolve(ENTRIES_DIRECTORY_NAME).resolve(key + ENTRY_EXTENSION);
+    }
+
+    private Path getObject(String hash) {
+        return getDirectory().resolve(OBJECTS_DIRECTORY_NAME).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static String getExecutionId(MojoExecutionEvent event) {
+        return MavenUtils.getId(event.getProject()) + "/" + MavenUtils.getGoal(event.getExecution())
+               + "@" + event.getExecution().getExecutionId();
+    }
+
+    private static String toRelative(Path directory, Path file) {
+        return directory.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    private static String evaluate(ExpressionEvaluator evaluator, String expression) {
+        if (expression == null) return null;
+        try {
+            return toString(evaluator.evaluate(expression), expression);
+        } catch (ExpressionEvaluationException e) {
+            return expression;
+        }
+    }
+
+    private static String toString(Object value, String expression) {
+        if (value == null) {
+            return null;
+        } else if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                   || value instanceof Enum || value instanceof File || value instanceof Path) {
+            return value.toString();
+        } else if (value instanceof Object[]) {
+            return toString(Arrays.asList((Object[]) value), expression);
+        } else if (value instanceof Collection) {
+            StringJoiner joiner = new StringJoiner(",", "[", "]");
+            for (Object element : (Collection<?>) value) {
+                joiner.add(toString(element, expression));
+            }
+            return joiner.toString();
+        } else if (value instanceof Map) {
+            Map<String, String> values = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                values.put(String.valueOf(entry.getKey()), toString(entry.getValue(), expression));
+            }
+            return values.toString();
+        } else {
+            // objects like the project or the session are fingerprinted through the sources and the classpath
+            return expression;
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Digest algorithm " + DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    private static void registerGoal(String name, String skipField, PathsProvider sources, PathsProvider classpath,
+                                     PathProvider output, boolean classesOnly) {
+        goals.put(name, new Goal(name, skipField, sources, classpath, output, classesOnly));
+    }
+
+    @FunctionalInterface
+    private interface PathsProvider {
+
+        Collection<String> get(MavenProject project) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface PathProvider {
+
+        String get(MavenProject project);
+    }
+
+    private static class Goal {
+
+        private final String name;
+        private final String skipField;
+        private final PathsProvider sources;
+        private final PathsProvider classpath;
+        private final PathProvider output;
+        private final boolean classesOnly;
+
+        private Goal(String name, String skipField, PathsProvider sources, PathsProvider classpath,
+                     PathProvider output, boolean classesOnly) {
+            this.name = name;
+            this.skipField = skipField;
+            this.sources = sources;
+            this.classpath = classpath;
+            this.output = output;
+            this.classesOnly = classesOnly;
+        }
+
+        private boolean isOutput(String path, boolean modified) {
+            return classesOnly ? path.endsWith(CLASS_EXTENSION) : modified;
+        }
+    }
+
+    private static class Execution {
+
+        private final Goal goal;
+        private final String key;
+        private final Path output;
+        private final long timestamp = currentTimeMillis();
+        private final long startTime = nanoTime();
+
+        private Execution(Goal goal, String key, Path output) {
+            this.goal = goal;
+            this.key = key;
+            this.output = output;
+        }
+    }
+
+    private static class Entry {
+
+        private final Map<String, String> files = new HashMap<>();
+        private Duration duration = Duration.ZERO;
+        private long size;
+    }
+
+    static {
+        registerGoal("compiler:compile", "skipMain", MavenProject::getCompileSourceRoots,
+                MavenProject::getCompileClasspathElements, p -> p.getBuild().getOutputDirectory(), true);
+        registerGoal("compiler:testCompile", "skip", MavenProject::getTestCompileSourceRoots,
+                MavenProject::getTestClasspathElements, p -> p.getBuild().getTestOutputDirectory(), true);
+        registerGoal("surefire:test", "skipTests", p -> emptyList(), MavenProject::getTestClasspathElements,
+                p -> new File(p.getBuild().getDirectory(), "surefire-reports").getPath(), false);
+    }
+}
@@ -1,5 +1,8 @@
 package net.microfalx.talos.extension;
 
+import net.microfalx.talos.core.LogContext;
+import net.microfalx.talos.core.MavenUtils;
+import net.microfalx.talos.junit.SurefireTests;
 import org.apache.maven.execution.AbstractExecutionListener;
 import org.apache.maven.execution.ExecutionEvent;
 import org.slf4j.Logger;
@@ -12,25 +15,32 @@ public class ProfilerExecutionListener extends AbstractExecutionListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(ProfilerExecutionListener.class);
 
     private final ProfilerMetrics profilerMetrics;
+    private final SurefireTests tests;
 
-    public ProfilerExecutionListener(ProfilerMetrics profilerMetrics) {
+    public ProfilerExecutionListener(ProfilerMetrics profilerMetrics, SurefireTests tests) {
         requireNonNull(profilerMetrics);
+        requireNonNull(tests);
         this.profilerMetrics = profilerMetrics;
+        this.tests = tests;
     }
 
     @Override
     public void projectStarted(ExecutionEvent event) {
+        // the project is built by the current thread, its output is tagged with the module
+        LogContext.set(MavenUtils.getId(event.getProject()), null);
         profilerMetrics.projectStart(event.getProject());
     }
 
     @Override
     public void projectSucceeded(ExecutionEvent event) {
         projectStop(event);
+        tests.load(event.getProject());
     }
 
     @Override
     public void projectFailed(ExecutionEvent event) {
         projectStop(event);
+        tests.load(event.getProject());
     }
 
     @Override
@@ -40,5 +50,6 @@ public class ProfilerExecutionListener extends AbstractExecutionListener {
 
     private void projectStop(ExecutionEvent event) {
         profilerMetrics.projectStop(event.getProject(), event.getException());
+        LogContext.clear();
     }
 }
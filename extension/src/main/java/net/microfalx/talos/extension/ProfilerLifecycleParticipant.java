@@ -3,6 +3,7 @@ package net.microfalx.talos.extension;
 import net.microfalx.jvm.ServerMetrics;
 import net.microfalx.jvm.VirtualMachineMetrics;
 import net.microfalx.lang.ConcurrencyUtils;
+import net.microfalx.lang.FormatterUtils;
 import net.microfalx.lang.TimeUtils;
 import net.microfalx.metrics.Timer;
 import net.microfalx.resource.Resource;
@@ -13,14 +14,16 @@ import net.microfalx.talos.core.MavenTracker;
 import net.microfalx.talos.core.MavenUtils;
 import net.microfalx.talos.junit.SurefireTests;
 import net.microfalx.talos.model.*;
+import net.microfalx.talos.report.DashboardGenerator;
+import net.microfalx.talos.report.DiffBuilder;
 import net.microfalx.talos.report.ReportBuilder;
+import net.microfalx.talos.report.ReportGenerator;
+import net.microfalx.talos.report.Template;
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.AbstractMavenLifecycleParticipant;
 import org.apache.maven.MavenExecutionException;
 import org.apache.maven.execution.MavenExecutionRequest;
 import org.apache.maven.execution.MavenSession;
-import org.apache.maven.plugins.surefire.report.ReportTestCase;
-import org.apache.maven.plugins.surefire.report.ReportTestSuite;
 import org.apache.maven.project.MavenProject;
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystemSession;
@@ -34,7 +37,15 @@ import javax.inject.Singleton;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
@@ -42,6 +53,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
@@ -57,6 +69,8 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ProfilerLifecycleParticipant.class);
 
+    private static final String LOCK_EXTENSION = ".lock";
+
     private MavenConfiguration configuration;
     private ProgressListener progressListener;
     private SessionMetrics sessionMetrics;
@@ -79,6 +93,7 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
 
     private final MavenTracker tracker = new MavenTracker(ProfilerLifecycleParticipant.class);
     private Resource report;
+    private Resource trend;
 
     private final CountDownLatch remoteTrendsLatch = new CountDownLatch(1);
 
@@ -99,6 +114,7 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
         tracker.track("Session Start", t -> {
             startTime = ZonedDateTime.now();
             initialize(session);
+            startTemplateWarmUp();
             profilerMetrics.sessionStart();
         });
     }
@@ -113,13 +129,21 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
         tracker.track("Shutdown", t -> {
             METRICS.time("Collect Events", t2 -> collectExtensionEvents());
             METRICS.time("Store Metrics", t2 -> storeMetrics(session));
-            METRICS.time("Generate Report", t2 -> generateHtmlReports(session));
-            METRICS.time("Move Results", t2 -> copyResults(session));
+            boolean background = configuration.isReportBackground() && startReportProcess(session);
+            if (!background) {
+                METRICS.time("Upload Trend", t2 -> uploadTrend(session));
+                if (configuration.isDashboardEnabled()) {
+                    tracker.trackCallable("Update Dashboard", () -> updateDashboard(session));
+                }
+                METRICS.time("Generate Report", t2 -> generateHtmlReports(session));
+                METRICS.time("Move Results", t2 -> copyResults(session));
+            }
             METRICS.time("Cleanup", t2 -> cleanup(session));
             profilerMetrics.print();
             printConsoleReport();
-            openHtmlReport();
+            if (!background) openHtmlReport();
         });
+        failOnRegressions(session);
     }
 
     private void initialize(MavenSession session) {
@@ -130,6 +154,7 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
                 configuration.isProgress(), configuration.isPerformanceEnabled()
         );
         tracker.track("Register Listeners", t -> {
+            tests.reset();
             registerListeners(session);
         });
         tracker.track("Start JVM Tracking", t -> {
@@ -163,9 +188,9 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
             ((DefaultRepositorySystemSession) repositorySession).setTransferListener(transferMetrics);
         }
         // intercepts lifecycle of Maven for performance metrics
-        lifecycleListener.addChainListener(new ProfilerExecutionListener(profilerMetrics));
+        lifecycleListener.addChainListener(new ProfilerExecutionListener(profilerMetrics, tests));
         // displays build progress
-        progressListener = new ProgressListener(session, mavenLogger.getSystemOutputPrintStream());
+        progressListener = new ProgressListener(session, tests, mavenLogger.getSystemOutputPrintStream());
         lifecycleListener.addChainListener(progressListener);
     }
 
@@ -177,13 +202,9 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
 
     private void storeMetrics(MavenSession session) {
         sessionMetrics.setEndTime(ZonedDateTime.now());
-        // attach logs
-        try {
-            if (configuration.isReportLogsEnabled()) {
-                sessionMetrics.setLogs(mavenLogger.getSystemOutput().loadAsString());
-            }
-        } catch (IOException e) {
-            tracker.logFailure("Attach Logs", e);
+        // attach logs (a reference, the log is stored next to the session data)
+        if (configuration.isReportLogsEnabled()) {
+            tracker.track("Attach Logs", t -> sessionMetrics.setLogResource(mavenLogger.getSystemOutput()));
         }
         // store trend metrics
         try {
@@ -192,12 +213,7 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
                 TrendMetrics trendMetrics = TrendMetrics.from(sessionMetrics);
                 trendMetrics.store(outputStream);
             }
-            Resource finalResource = MavenStorage.storeTrend(session, resource);
-            // upload trend metrics
-            upload(() -> {
-                MavenStorage.uploadTrend(session, finalResource);
-                return null;
-            });
+            trend = MavenStorage.storeTrend(session, resource);
         } catch (Exception e) {
             tracker.logFailure("Store Metrics", e);
         }
@@ -205,6 +221,10 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
         // attach all trend metrics to session
         Collection<TrendMetrics> trends = getTrends(session);
         if (trends != null) sessionMetrics.setTrends(trends);
+        if (configuration.isRegressionEnabled()) {
+            tracker.track("Detect Regressions", t -> detectRegressions());
+        }
+        if (configuration.isTestHistoryEnabled()) updateTestHistory(session);
         // store session metrics
         try {
             Resource resource = MavenStorage.getStagingDirectory(session).resolve("build.data", Resource.Type.FILE);
@@ -216,10 +236,96 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
         }
     }
 
+    private void uploadTrend(MavenSession session) {
+        if (trend == null) return;
+        upload(() -> {
+            MavenStorage.uploadTrend(session, trend);
+            return null;
+        });
+    }
+
+    private void detectRegressions() {
+        Collection<RegressionMetrics> regressions = RegressionDetector.create(sessionMetrics)
+                .setBaselineSize(configuration.getRegressionBaseline())
+                .setMinimumDuration(configuration.getMinimumDuration())
+                .detect();
+        sessionMetrics.setRegressions(regressions);
+    }
+
+    private File updateDashboard(MavenSession session) throws IOException {
+        // only the trends of this project (stored or synchronized from the remote storage) are indexed
+        DashboardGenerator generator = DashboardGenerator.create(ResourceUtils.toFile(MavenStorage.getStorageDirectory()));
+        TrendIndex index = generator.update(MavenStorage.getProjectId(session));
+        File file = new File(generator.getDirectory(), DashboardGenerator.DASHBOARD_FILE_NAME);
+        generator.generate(index, Resource.file(file));
+        mavenLogger.debug("Dashboard updated at {}", file.getAbsolutePath());
+        return file;
+    }
+
+    private void updateTestHistory(MavenSession session) {
+        try {
+            Path file = ResourceUtils.toFile(MavenStorage.getLocalTestHistory(session)).toPath();
+            Files.createDirectories(file.getParent());
+            TestHistory history;
+            // builds of the same project running on this agent update the history one at a time
+            try (FileChannel channel = FileChannel.open(file.resolveSibling(file.getFileName() + LOCK_EXTENSION),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                history = loadTestHistory(file);
+                history.add(sessionMetrics.getStartTime(), sessionMetrics.getTestStore())
+                        .retain(ZonedDateTime.now().minus(configuration.getTrendRetention()));
+                storeTestHistory(history, file);
+            }
+            sessionMetrics.setGrowingTests(history.getGrowing(configuration.getTestHistoryLimit()));
+            sessionMetrics.setVariableTests(history.getVariable(configuration.getTestHistoryLimit()));
+        } catch (Exception e) {
+            tracker.logFailure("Update Test History", e);
+        }
+    }
+
+    private TestHistory loadTestHistory(Path file) {
+        if (Files.exists(file)) {
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                return TestHistory.load(inputStream);
+            } catch (IOException e) {
+                tracker.logFailure("Load Test History", e);
+            }
+        }
+        return TestHistory.create();
+    }
+
+    private void storeTestHistory(TestHistory history, Path file) throws IOException {
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+                history.store(outputStream);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void failOnRegressions(MavenSession session) throws MavenExecutionException {
+        int threshold = configuration != null ? configuration.getRegressionFailureThreshold() : 0;
+        if (threshold <= 0 || sessionMetrics == null) return;
+        Collection<RegressionMetrics> regressions = sessionMetrics.getRegressions().stream()
+                .filter(r -> r.getChange() * 100 >= threshold)
+                .collect(Collectors.toList());
+        if (!regressions.isEmpty()) {
+            String names = regressions.stream().map(RegressionMetrics::getName).collect(Collectors.joining(", "));
+            throw new MavenExecutionException("Performance regression above " + threshold + "% detected for " + names,
+                    session.getRequest().getPom());
+        }
+    }
+
     private void updateMetrics(MavenSession session) {
         updateTests(session);
         updateJvm(session);
         updateRepositories(session);
+        if (configuration.isRepositoryAnalysisEnabled()) {
+            METRICS.time("Analyze Repository", t -> analyzeRepository(session));
+        }
     }
 
     private void updateJvm(MavenSession session) {
@@ -231,17 +337,18 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
     }
 
     private void updateTests(MavenSession session) {
+        // most projects were already loaded in the background, when their build ended
         tests.load(session);
         Collection<TestMetrics> testMetrics = new ArrayList<>();
         for (MavenProject project : tests.getProjects()) {
-            Collection<ReportTestSuite> testSuites = tests.getTestSuites(project);
-            for (ReportTestSuite testSuite : testSuites) {
-                for (ReportTestCase testCase : testSuite.getTestCases()) {
-                    testMetrics.add(getTestMetrics(project, testCase));
-                }
-            }
+            testMetrics.addAll(tests.getTests(project));
         }
+        Map<String, String> failureDetails = TestFailures.create()
+                .setMaximumDetails(configuration.getTestFailureDetails())
+                .setMaximumSize(configuration.getTestFailureSize())
+                .process(testMetrics);
         sessionMetrics.setTests(testMetrics);
+        sessionMetrics.setFailureDetails(failureDetails);
     }
 
     private void updateSystemProperties() {
@@ -259,12 +366,15 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
         sessionMetrics.setRemoteRepositories(MavenUtils.getRemoteRepositories(session));
     }
 
-    private TestMetrics getTestMetrics(MavenProject project, ReportTestCase testCase) {
-        return new TestMetrics(project.getArtifactId(), testCase.getFullClassName(), testCase.getName())
-                .setFailureErrorLine(testCase.getFailureErrorLine())
-                .setFailureMessage(testCase.getFailureMessage()).setFailureType(testCase.getFailureType())
-                .setFailure(testCase.hasFailure()).setError(testCase.hasError()).setSkipped(testCase.hasSkipped())
-                .setFailureDetail(testCase.getFailureDetail()).setTime(testCase.getTime());
+    private void analyzeRepository(MavenSession session) {
+        File directory = new File(session.getLocalRepository().getBasedir());
+        try {
+            LocalRepositoryMetrics metrics = LocalRepositoryAnalyzer.create(directory.toPath())
+                    .addTouched(sessionMetrics).analyze();
+            sessionMetrics.setLocalRepositoryMetrics(metrics);
+        } catch (IOException e) {
+            tracker.logFailure("Analyze Repository", e);
+        }
     }
 
     private void openHtmlReport() {
@@ -285,12 +395,27 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
         Resource resource = MavenStorage.getStagingDirectory(session).resolve("build.report.html");
         try {
             ReportBuilder reportBuilder = ReportBuilder.create(sessionMetrics).setFailOnError(false);
+            reportBuilder.getModel().getChartHelper().setMaximumPoints(configuration.getReportChartPoints());
+            if (configuration.isReportHtmlLazy()) {
+                reportBuilder.setDataDirectory(MavenStorage.getStagingDirectory(session)
+                        .resolve("build.report.data", Resource.Type.DIRECTORY));
+            }
             reportBuilder.build(resource);
             reportBuilder.getFragments().stream().filter(f -> f.getThrowable() != null)
                     .forEach(f -> tracker.logFailure("Generate HTML Report / " + f.getName(), f.getThrowable()));
+            reportBuilder.getModel().getViewDurations().forEach((name, duration) ->
+                    mavenLogger.debug("Report view '{}' computed in {}", name, FormatterUtils.formatDuration(duration)));
         } catch (Exception e) {
             tracker.logFailure("Generate HTML Report", e);
         }
+        File baseline = configuration.getReportDiffBaseline();
+        if (baseline != null) {
+            tracker.trackCallable("Generate HTML Diff Report", () -> {
+                DiffBuilder.create(sessionMetrics, ReportGenerator.load(baseline))
+                        .build(MavenStorage.getStagingDirectory(session).resolve(ReportGenerator.DIFF_FILE_NAME));
+                return null;
+            });
+        }
         this.report = configuration.getTargetFile("build.report.html", true);
         if (configuration.isReportConsoleEnabled() && configuration.isVerbose()) {
             mavenLogger.info("");
@@ -298,6 +423,43 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
         }
     }
 
+    private boolean startReportProcess(MavenSession session) {
+        Boolean started = tracker.trackCallable("Start Report Process", () -> {
+            File stagingDirectory = ResourceUtils.toFile(MavenStorage.getStagingDirectory(session));
+            File targetDirectory = ResourceUtils.toFile(configuration.getTargetDirectory(null, true));
+            Properties job = new Properties();
+            job.setProperty(ReportProcess.PARENT_PID, Long.toString(ProcessHandle.current().pid()));
+            job.setProperty(ReportProcess.STAGING_DIRECTORY, stagingDirectory.getAbsolutePath());
+            job.setProperty(ReportProcess.SESSIONS_DIRECTORY, ResourceUtils.toFile(MavenStorage.getLocalSessionsDirectory(session)).getAbsolutePath());
+            job.setProperty(ReportProcess.TARGET_DIRECTORY, targetDirectory.getAbsolutePath());
+            job.setProperty(ReportProcess.PROJECT_ID, MavenStorage.getProjectId(session));
+            job.setProperty(ReportProcess.SESSION_NAME, MavenStorage.getSessionName(session));
+            if (trend != null) job.setProperty(ReportProcess.TREND_FILE, ResourceUtils.toFile(trend).getAbsolutePath());
+            if (configuration.isDashboardEnabled()) {
+                job.setProperty(ReportProcess.DASHBOARD_DIRECTORY, ResourceUtils.toFile(MavenStorage.getStorageDirectory()).getAbsolutePath());
+            }
+            job.setProperty(ReportProcess.REPORT_ENABLED, Boolean.toString(configuration.isReportHtmlEnabled()));
+            job.setProperty(ReportProcess.REPORT_LAZY, Boolean.toString(configuration.isReportHtmlLazy()));
+            job.setProperty(ReportProcess.REPORT_CHART_POINTS, Integer.toString(configuration.getReportChartPoints()));
+            File baseline = configuration.getReportDiffBaseline();
+            if (baseline != null) job.setProperty(ReportProcess.REPORT_DIFF_BASELINE, baseline.getAbsolutePath());
+            job.setProperty(ReportProcess.REPORT_OPEN, Boolean.toString(configuration.isReportHtmlEnabled()
+                    && configuration.isOpenReportEnabled()));
+            Map<String, String> storage = new HashMap<>();
+            for (String property : ReportProcess.STORAGE_PROPERTIES) {
+                storage.put(property, MavenUtils.getProperty(session, property, (String) null));
+            }
+            Process process = ReportProcess.start(job, storage, stagingDirectory, targetDirectory);
+            if (configuration.isReportConsoleEnabled() && configuration.isVerbose()) {
+                mavenLogger.info("");
+                mavenLogger.info("The HTML report is generated in background (process " + process.pid() + "), status available at "
+                        + new File(targetDirectory, ReportProcess.STATUS_FILE_NAME).getAbsolutePath());
+            }
+            return true;
+        });
+        return started != null && started;
+    }
+
     private void copyResults(MavenSession session) {
         // copy results from staging to local sessions
         File sessionTarget = ResourceUtils.toFile(MavenStorage.getLocalSessionsDirectory(session));
@@ -418,6 +580,16 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
         });
     }
 
+    private void startTemplateWarmUp() {
+        if (configuration.isReportBackground()) return;
+        if (!configuration.isReportHtmlEnabled() && !configuration.isDashboardEnabled()) return;
+        Thread thread = new Thread(new TemplateWarmUpTask());
+        thread.setName("Template Warm-Up");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
     private void startTrendsSync(MavenSession session) {
         if (!session.getResult().hasExceptions()) {
             Thread thread = new Thread(new CopyRemoteTrendsTask(session));
@@ -438,6 +610,21 @@ public class ProfilerLifecycleParticipant extends AbstractMavenLifecycleParticip
         MavenStorage.cleanupWorkspace(session);
     }
 
+    static class TemplateWarmUpTask implements Runnable {
+
+        @Override
+        public void run() {
+            long startTime = System.nanoTime();
+            try {
+                int count = Template.warmUp();
+                LOGGER.debug("Warmed up {} templates in {}", count,
+                        FormatterUtils.formatDuration(Duration.ofNanos(System.nanoTime() - startTime)));
+            } catch (Exception e) {
+                LOGGER.warn("Failed to warm up templates, root cause: {}", getRootCauseMessage(e));
+            }
+        }
+    }
+
     class CopyRemoteTrendsTask implements Runnable {
 
         private final MavenSession session;
@@ -6,6 +6,7 @@ import net.microfalx.jvm.model.Os;
 import net.microfalx.jvm.model.Server;
 import net.microfalx.jvm.model.VirtualMachine;
 import net.microfalx.lang.*;
+import net.microfalx.talos.core.LogFile;
 import net.microfalx.talos.core.MavenLogger;
 import net.microfalx.talos.core.MavenTracker;
 import net.microfalx.talos.junit.SurefireTests;
@@ -17,7 +18,6 @@ import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.plugin.Mojo;
 import org.apache.maven.plugin.MojoExecution;
-import org.apache.maven.plugins.surefire.report.ReportTestSuite;
 import org.apache.maven.project.DefaultProjectBuildingRequest;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuildingRequest;
@@ -36,7 +36,7 @@ import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.joining;
@@ -45,6 +45,7 @@ import static net.microfalx.lang.ExceptionUtils.getRootCause;
 import static net.microfalx.lang.ExceptionUtils.getRootCauseMessage;
 import static net.microfalx.lang.FormatterUtils.formatNumber;
 import static net.microfalx.lang.FormatterUtils.formatPercent;
+import static net.microfalx.lang.StringUtils.EMPTY_STRING;
 import static net.microfalx.lang.StringUtils.isNotEmpty;
 import static net.microfalx.lang.TextUtils.insertSpaces;
 import static net.microfalx.talos.core.MavenUtils.*;
@@ -91,6 +92,9 @@ public class ProfilerMetrics {
     @Inject
     protected SurefireTests tests;
 
+    @Inject
+    protected MojoCache mojoCache;
+
     private final MavenTracker tracker = new MavenTracker(ProfilerMetrics.class);
     private MavenConfiguration configuration;
     SessionMetrics sessionMetrics;
@@ -109,6 +113,7 @@ public class ProfilerMetrics {
         sessionMetrics.setDependencies(dependencyMetrics.values());
         sessionMetrics.setMojos(mojoMetrics.values());
         sessionMetrics.setPlugins(pluginMetrics.values());
+        if (mojoCache.getMetrics().isUsed()) sessionMetrics.setCacheMetrics(mojoCache.getMetrics());
         tracker.track("Update Dependencies", t -> updateDependencies());
         tracker.track("Record Failures", t -> {
             sessionMetrics.setExtensionFailures(MavenTracker.getFailures().stream()
@@ -167,10 +172,12 @@ public class ProfilerMetrics {
                                     + session.getTopLevelProject().getName() + " "
                                     + session.getTopLevelProject().getVersion()).toString());
         printSummary();
+        printRegressionSummary();
         printTaskSummary();
         printDependencySummary();
         printPluginSummary();
         printRepositorySummary();
+        printLocalRepositoryAnalysis();
         printTestsSummary();
         if (configuration.isEnvironmentEnabled() || configuration.isVerbose()) printEnvironmentSummary();
         printExtensionSummary();
@@ -201,6 +208,22 @@ public class ProfilerMetrics {
         }
         logNameValue("Local Repository", getRepositoryReport(repositoryMetrics), true, SHORT_NAME_LENGTH);
         logNameValue("Remote Repository", getRepositoryReport(transferMetrics), true, SHORT_NAME_LENGTH);
+        if (mojoCache.getMetrics().isUsed()) logNameValue("Cache", getCacheReport(mojoCache.getMetrics()), true, SHORT_NAME_LENGTH);
+        decreaseIndent();
+    }
+
+    private void printRegressionSummary() {
+        if (sessionMetrics == null || sessionMetrics.getRegressions().isEmpty()) return;
+        LOGGER.info("");
+        infoMain("Regressions (" + buffer().failure(sessionMetrics.getRegressions().size()) + "):");
+        LOGGER.info("");
+        increaseIndent();
+        for (RegressionMetrics regression : sessionMetrics.getRegressions()) {
+            String name = EnumUtils.toLabel(regression.getType()) + " / " + regression.getName();
+            String value = formatDuration(regression.getDuration()) + " (median " + formatDuration(regression.getMedian())
+                           + ", " + buffer().failure(String.format("+%.0f%%", regression.getChange() * 100)) + ")";
+            logNameValue(name, value, false);
+        }
         decreaseIndent();
     }
 
@@ -280,6 +303,33 @@ public class ProfilerMetrics {
         decreaseIndent();
     }
 
+    private void printLocalRepositoryAnalysis() {
+        LocalRepositoryMetrics metrics = sessionMetrics != null ? sessionMetrics.getLocalRepositoryMetrics() : null;
+        if (metrics == null) return;
+        LOGGER.info("");
+        infoMain("Local Repository Analysis (" + FormatterUtils.formatNumber(metrics.getArtifactCount()) + " artifacts, "
+                 + FormatterUtils.formatNumber(metrics.getFileCount()) + " files, "
+                 + formatDuration(metrics.getDuration()) + "):");
+        LOGGER.info("");
+        increaseIndent();
+        logNameValue("Size", formatBytes(metrics.getSize()), false);
+        logNameValue("Stale Snapshots", formatBytes(metrics.getStaleSnapshotSize()) + " ("
+                                        + FormatterUtils.formatNumber(metrics.getStaleSnapshotCount()) + " builds)", false);
+        logNameValue("Multiple Versions", formatBytes(metrics.getMultipleVersionsSize()) + " ("
+                                          + FormatterUtils.formatNumber(metrics.getMultipleVersionsCount()) + " artifacts)", false);
+        logNameValue("Untouched", formatBytes(metrics.getUntouchedSize()) + " ("
+                                  + FormatterUtils.formatNumber(metrics.getUntouchedCount()) + " artifacts)", false);
+        logNameValue("Remote Repositories", FormatterUtils.formatNumber(metrics.getRemoteRepositoriesCount()) + " files, "
+                                            + FormatterUtils.formatNumber(metrics.getRemoteRepositoriesChanged()) + " changed, "
+                                            + FormatterUtils.formatNumber(metrics.getLastUpdatedCount()) + " failed resolutions", false);
+        if (configuration.isVerbose()) {
+            for (LocalRepositoryMetrics.Entry entry : metrics.getMultipleVersions()) {
+                logNameValue(entry.getName() + " (" + entry.getVersions().size() + ")", formatBytes(entry.getSize()), false);
+            }
+        }
+        decreaseIndent();
+    }
+
     private void printEnvironmentSummary() {
         LOGGER.info("");
         infoMain("Environment:");
@@ -319,6 +369,11 @@ public class ProfilerMetrics {
                     logNameValue("Stack Trace", "\n" + getStackTrace(exception), false);
                 }
             }
+            LogFile.Marker firstError = logger.getFirstError();
+            if (firstError != null) {
+                String module = firstError.getModuleId() != null ? " (" + firstError.getModuleId() + ")" : EMPTY_STRING;
+                logNameValue("First Error", "line " + formatNumber(firstError.getLine() + 1) + module);
+            }
         }
         if (!MavenTracker.getFailures().isEmpty()) {
             LOGGER.info("");
@@ -350,14 +405,12 @@ public class ProfilerMetrics {
         LOGGER.info("");
         increaseIndent();
         for (MavenProject project : tests.getProjects()) {
-            Collection<ReportTestSuite> testSuites = tests.getTestSuites(project);
+            Collection<TestMetrics> projectTests = tests.getTests(project);
             StringBuilder buffer = new StringBuilder(128);
             buffer.append(project.getName()).append(' ');
             MavenUtils.appendDots(buffer).append(' ');
-            buffer.append(getTestsReport(getSum(testSuites, ReportTestSuite::getNumberOfTests),
-                    getSum(testSuites, ReportTestSuite::getNumberOfFailures),
-                    getSum(testSuites, ReportTestSuite::getNumberOfErrors),
-                    getSum(testSuites, ReportTestSuite::getNumberOfSkipped)));
+            buffer.append(getTestsReport(projectTests.size(), getCount(projectTests, TestMetrics::isFailure),
+                    getCount(projectTests, TestMetrics::isError), getCount(projectTests, TestMetrics::isSkipped)));
             LOGGER.info(getIndentSpaces() + buffer);
         }
         decreaseIndent();
@@ -520,6 +573,11 @@ public class ProfilerMetrics {
         }
     }
 
+    private String getCacheReport(CacheMetrics metrics) {
+        return formatDuration(metrics.getSavedDuration()) + " saved (hits: " + formatNumber(metrics.getHits())
+               + ", misses: " + formatNumber(metrics.getMisses()) + ", overhead: " + formatDuration(metrics.getOverheadDuration()) + ")";
+    }
+
     private String formatDuration(Duration duration) {
         return buffer().strong(net.microfalx.talos.core.MavenUtils.formatDuration(duration, false, false)).toString();
     }
@@ -538,10 +596,10 @@ public class ProfilerMetrics {
         }
     }
 
-    private int getSum(Collection<ReportTestSuite> testSuites, Function<ReportTestSuite, Integer> function) {
+    private int getCount(Collection<TestMetrics> tests, Predicate<TestMetrics> predicate) {
         int total = 0;
-        for (ReportTestSuite testSuite : testSuites) {
-            total += function.apply(testSuite);
+        for (TestMetrics test : tests) {
+            if (predicate.test(test)) total++;
         }
         return total;
     }
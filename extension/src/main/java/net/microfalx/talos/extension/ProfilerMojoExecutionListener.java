@@ -1,6 +1,7 @@
 package net.microfalx.talos.extension;
 
 import net.microfalx.lang.ObjectUtils;
+import net.microfalx.talos.core.LogContext;
 import net.microfalx.talos.core.MavenLogger;
 import net.microfalx.talos.core.MavenTracker;
 import net.microfalx.talos.core.MavenUtils;
@@ -30,6 +31,9 @@ public class ProfilerMojoExecutionListener implements MojoExecutionListener {
     @Inject
     private MavenLogger logger;
 
+    @Inject
+    private MojoCache mojoCache;
+
     @Inject
     private MavenSession session;
 
@@ -48,7 +52,9 @@ public class ProfilerMojoExecutionListener implements MojoExecutionListener {
     @Override
     public void beforeMojoExecution(MojoExecutionEvent event) throws MojoExecutionException {
         tracker.track("Mojo Execution", t -> {
+            LogContext.set(MavenUtils.getId(event.getProject()), MavenUtils.getId(event.getMojo()));
             profilerMetrics.mojoStarted(event.getMojo(), event.getExecution());
+            mojoCache.beforeMojoExecution(event);
             if (configuration.isQuietAndWithProgress()) printMojo(event);
         }, event.getProject(), event.getMojo());
 
@@ -57,14 +63,18 @@ public class ProfilerMojoExecutionListener implements MojoExecutionListener {
     @Override
     public void afterMojoExecutionSuccess(MojoExecutionEvent event) throws MojoExecutionException {
         tracker.track("Mojo Success", t -> {
+            mojoCache.afterMojoExecutionSuccess(event);
             profilerMetrics.mojoStop(event.getProject(), event.getMojo(), null);
+            LogContext.set(MavenUtils.getId(event.getProject()), null);
         }, event.getProject(), event.getMojo());
     }
 
     @Override
     public void afterExecutionFailure(MojoExecutionEvent event) {
         tracker.track("Mojo Failure", t -> {
+            mojoCache.afterExecutionFailure(event);
             profilerMetrics.mojoStop(event.getProject(), event.getMojo(), event.getCause());
+            LogContext.set(MavenUtils.getId(event.getProject()), null);
         }, event.getProject(), event.getMojo());
     }
 
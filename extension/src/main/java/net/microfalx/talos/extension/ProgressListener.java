@@ -1,26 +1,44 @@
 package net.microfalx.talos.extension;
 
 import net.microfalx.lang.ArgumentUtils;
+import net.microfalx.talos.junit.SurefireTests;
+import net.microfalx.talos.model.TestMetrics;
 import org.apache.maven.execution.AbstractExecutionListener;
 import org.apache.maven.execution.ExecutionEvent;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.project.MavenProject;
 
 import java.io.PrintStream;
-
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static net.microfalx.lang.FormatterUtils.formatNumber;
 import static net.microfalx.lang.StringUtils.EMPTY_STRING;
 import static org.apache.maven.shared.utils.logging.MessageUtils.buffer;
 
 public class ProgressListener extends AbstractExecutionListener {
 
+    private static final Duration TESTS_TIMEOUT = Duration.ofSeconds(5);
+
     private final MavenSession session;
+    private final SurefireTests tests;
     private final MavenConfiguration configuration;
     private final PrintStream output;
+    private final Queue<String> testsSummaries = new ConcurrentLinkedQueue<>();
+    private final Queue<CompletableFuture<Void>> testsFutures = new ConcurrentLinkedQueue<>();
 
-    public ProgressListener(MavenSession session, PrintStream output) {
+    public ProgressListener(MavenSession session, SurefireTests tests, PrintStream output) {
         ArgumentUtils.requireNonNull(session);
+        ArgumentUtils.requireNonNull(tests);
         ArgumentUtils.requireNonNull(output);
         this.session = session;
+        this.tests = tests;
         this.output = output;
         this.configuration = new MavenConfiguration(session);
     }
@@ -29,6 +47,7 @@ public class ProgressListener extends AbstractExecutionListener {
     public void projectStarted(ExecutionEvent event) {
         if (!configuration.isProgress()) return;
         synchronized (output) {
+            printTestsSummaries();
             println();
             MavenProject project = event.getProject();
             StringBuilder buffer = new StringBuilder(128);
@@ -48,11 +67,30 @@ public class ProgressListener extends AbstractExecutionListener {
     public void projectFailed(ExecutionEvent event) {
         if (!configuration.isProgress()) return;
         print(buffer().failure("Failed").toString() + ".");
+        queueTestsSummary(event.getProject());
     }
 
     public void projectEnded(ExecutionEvent event) {
         if (!configuration.isProgress()) return;
         print(buffer().success("Done").toString() + ".");
+        queueTestsSummary(event.getProject());
+    }
+
+    @Override
+    public void sessionEnded(ExecutionEvent event) {
+        if (!configuration.isProgress()) return;
+        // no project is building anymore, the reports still parsed are awaited (for a while)
+        try {
+            CompletableFuture.allOf(testsFutures.toArray(new CompletableFuture[0]))
+                    .get(TESTS_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // the summaries of the tests not parsed in time are not displayed
+        }
+        synchronized (output) {
+            printTestsSummaries();
+        }
     }
 
     void start() {
@@ -64,6 +102,36 @@ public class ProgressListener extends AbstractExecutionListener {
                 + " (" + MavenUtils.getRequestInfo(session) + ")");
     }
 
+    private void queueTestsSummary(MavenProject project) {
+        // the reports of the project are parsed in the background since the project completed, the builder
+        // moves on and the summary is displayed before the next project line
+        testsFutures.add(tests.getTestsAsync(project).thenAccept(projectTests -> {
+            if (!projectTests.isEmpty()) testsSummaries.add(getTestsSummary(project, projectTests));
+        }));
+    }
+
+    private void printTestsSummaries() {
+        String summary;
+        while ((summary = testsSummaries.poll()) != null) {
+            println();
+            print(summary);
+        }
+    }
+
+    private String getTestsSummary(MavenProject project, Collection<TestMetrics> projectTests) {
+        int failed = 0;
+        int skipped = 0;
+        for (TestMetrics test : projectTests) {
+            if (test.isFailureOrError()) failed++;
+            if (test.isSkipped()) skipped++;
+        }
+        StringBuilder buffer = new StringBuilder(MavenUtils.getIndentSpaces(2)).append(project.getName())
+                .append(" (").append(formatNumber(projectTests.size())).append(" tests");
+        if (failed > 0) buffer.append(", ").append(buffer().failure(formatNumber(failed) + " failed"));
+        if (skipped > 0) buffer.append(", ").append(formatNumber(skipped)).append(" skipped");
+        return buffer.append(')').toString();
+    }
+
     private void println(String message) {
         output.println(message);
     }
@@ -0,0 +1,406 @@
+package net.microfalx.talos.extension;
+
+import net.microfalx.lang.FormatterUtils;
+import net.microfalx.resource.Resource;
+import net.microfalx.talos.core.MavenStorage;
+import net.microfalx.talos.model.SessionMetrics;
+import net.microfalx.talos.model.TrendIndex;
+import net.microfalx.talos.report.DashboardGenerator;
+import net.microfalx.talos.report.DiffBuilder;
+import net.microfalx.talos.report.ReportBuilder;
+import net.microfalx.talos.report.ReportGenerator;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Desktop;
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Boolean.parseBoolean;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ExceptionUtils.getRootCauseMessage;
+import static net.microfalx.lang.StringUtils.isNotEmpty;
+
+/**
+ * Generates the HTML report, moves the results and uploads them (with the trend of the session) in a separate
+ * (detached) JVM, after Maven exits. The dashboard of the agent is updated too, when enabled.
+ * <p>
+ * The extension stores the session (<code>build.data</code>) in the staging directory, describes the remaining work
+ * in a job file and starts this class as a new process; the <code>mvn</code> command returns without waiting for the
+ * report. The progress of the process is published in a status file (Java properties), which can be polled by an IDE
+ * or a CI server:
+ * <ul>
+ * <li><code>state</code> - one of {@link State}</li>
+ * <li><code>pid</code> - the process which generates the report</li>
+ * <li><code>report</code> - the path of the HTML report</li>
+ * <li><code>updated</code> - the time of the last change</li>
+ * <li><code>error</code> - the reason of a failure</li>
+ * </ul>
+ * The credentials of the remote storage are passed to the process as environment variables, they are never written
+ * to the job file.
+ */
+public final class ReportProcess {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportProcess.class);
+
+    private static final Duration PARENT_TIMEOUT = Duration.ofMinutes(5);
+
+    static final String STATUS_FILE_NAME = "build.report.status";
+    static final String LOG_FILE_NAME = "build.report.log";
+    static final String JOB_FILE_NAME = "build.job";
+
+    static final String PARENT_PID = "parent.pid";
+    static final String STAGING_DIRECTORY = "staging.directory";
+    static final String SESSIONS_DIRECTORY = "sessions.directory";
+    static final String TARGET_DIRECTORY = "target.directory";
+    static final String PROJECT_ID = "project.id";
+    static final String SESSION_NAME = "session.name";
+    static final String TREND_FILE = "trend.file";
+    static final String DASHBOARD_DIRECTORY = "dashboard.directory";
+    static final String REPORT_ENABLED = "report.enabled";
+    static final String REPORT_LAZY = "report.lazy";
+    static final String REPORT_CHART_POINTS = "report.chart.points";
+    static final String REPORT_OPEN = "report.open";
+    static final String REPORT_DIFF_BASELINE = "report.diff.baseline";
+
+    static final String[] STORAGE_PROPERTIES = {"storage.uri", "storage.username", "storage.password",
+            "storage.s3.bucket", "storage.s3.prefix"};
+
+    private final Properties job;
+    private final File statusFile;
+
+    /**
+     * Starts a process which completes the work of the extension.
+     *
+     * @param job              the job
+     * @param storage          the settings of the remote storage (see {@link #STORAGE_PROPERTIES})
+     * @param stagingDirectory the directory which holds the results of the session
+     * @param targetDirectory  the directory which receives the results (and the status file)
+     * @return the process
+     * @throws IOException if the process cannot be started
+     */
+    static Process start(Properties job, Map<String, String> storage, File stagingDirectory, File targetDirectory) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return start(job, storage, stagingDirectory, targetDirectory, java);
+    }
+
+    static Process start(Properties job, Map<String, String> storage, File stagingDirectory, File targetDirectory,
+                         String java) throws IOException {
+        requireNonNull(job);
+        requireNonNull(storage);
+        requireNonNull(stagingDirectory);
+        requireNonNull(targetDirectory);
+        requireNonNull(java);
+        File jobFile = writeJob(job, stagingDirectory);
+        File statusFile = new File(targetDirectory, STATUS_FILE_NAME);
+        // the process updates the status as soon as it starts, the pending state is published before
+        updateStatus(statusFile, State.PENDING, -1, null, null);
+        ProcessBuilder builder = new ProcessBuilder(java, ReportProcess.class.getName(), jobFile.getAbsolutePath());
+        // the class path is passed as a variable, the command line is limited on some platforms
+        builder.environment().put("CLASSPATH", getClassPath());
+        storage.forEach((name, value) -> {
+            if (isNotEmpty(value)) builder.environment().put(getVariableName(name), value);
+        });
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(new File(targetDirectory, LOG_FILE_NAME));
+        Process process;
+        try {
+            process = builder.start();
+        } catch (IOException e) {
+            // the extension completes the work in the Maven process, nothing is left pending
+            jobFile.delete();
+            statusFile.delete();
+            throw e;
+        }
+        process.getOutputStream().close();
+        return process;
+    }
+
+    /**
+     * Writes the job in the staging directory.
+     *
+     * @param job              the job
+     * @param stagingDirectory the directory which holds the results of the session
+     * @return the job file
+     * @throws IOException if an I/O error occurs
+     */
+    static File writeJob(Properties job, File stagingDirectory) throws IOException {
+        File jobFile = new File(stagingDirectory, JOB_FILE_NAME);
+        try (OutputStream outputStream = new FileOutputStream(jobFile)) {
+            job.store(outputStream, "Talos Report Job");
+        }
+        return jobFile;
+    }
+
+    /**
+     * Reads a job written by {@link #writeJob(Properties, File)}.
+     *
+     * @param jobFile the job file
+     * @return the job
+     * @throws IOException if an I/O error occurs
+     */
+    static Properties readJob(File jobFile) throws IOException {
+        Properties job = new Properties();
+        try (InputStream inputStream = new FileInputStream(jobFile)) {
+            job.load(inputStream);
+        }
+        return job;
+    }
+
+    /**
+     * Runs a job created by the extension.
+     *
+     * @param args the path of the job file
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: " + ReportProcess.class.getName() + " <job file>");
+            System.exit(2);
+        }
+        Properties job = null;
+        try {
+            job = readJob(new File(args[0]));
+        } catch (IOException e) {
+            System.err.println("Failed to load job " + args[0] + ", root cause: " + getRootCauseMessage(e));
+            System.exit(2);
+        }
+        boolean successful = new ReportProcess(job).run();
+        System.exit(successful ? 0 : 1);
+    }
+
+    ReportProcess(Properties job) {
+        requireNonNull(job);
+        this.job = job;
+        this.statusFile = new File(job.getProperty(TARGET_DIRECTORY), STATUS_FILE_NAME);
+    }
+
+    /**
+     * Runs the job.
+     *
+     * @return {@code true} if the job completed, {@code false} otherwise
+     */
+    boolean run() {
+        long startTime = System.nanoTime();
+        File stagingDirectory = new File(job.getProperty(STAGING_DIRECTORY));
+        File targetDirectory = new File(job.getProperty(TARGET_DIRECTORY));
+        File report = new File(targetDirectory, ReportGenerator.REPORT_FILE_NAME);
+        try {
+            updateStatus(statusFile, State.RUNNING, report, null);
+            // the captured log is completed when Maven exits
+            waitForParent();
+            new File(stagingDirectory, JOB_FILE_NAME).delete();
+            if (parseBoolean(job.getProperty(REPORT_ENABLED))) generateReport(stagingDirectory);
+            File sessionsDirectory = new File(job.getProperty(SESSIONS_DIRECTORY));
+            FileUtils.copyDirectory(stagingDirectory, sessionsDirectory);
+            upload(sessionsDirectory);
+            FileUtils.copyDirectory(stagingDirectory, targetDirectory);
+            FileUtils.deleteDirectory(stagingDirectory);
+            updateDashboard();
+            updateStatus(statusFile, State.SUCCESSFUL, report, null);
+            LOGGER.info("Report completed in {}", FormatterUtils.formatDuration(Duration.ofNanos(System.nanoTime() - startTime)));
+        } catch (Throwable e) {
+            LOGGER.error("Failed to generate report", e);
+            try {
+                updateStatus(statusFile, State.FAILED, report, getRootCauseMessage(e));
+            } catch (IOException ex) {
+                LOGGER.error("Failed to update status " + statusFile, ex);
+            }
+            return false;
+        }
+        if (parseBoolean(job.getProperty(REPORT_OPEN)) && report.exists()) open(report);
+        return true;
+    }
+
+    private void waitForParent() throws InterruptedException {
+        String pid = job.getProperty(PARENT_PID);
+        if (pid == null) return;
+        Optional<ProcessHandle> parent = ProcessHandle.of(Long.parseLong(pid));
+        if (parent.isPresent()) {
+            try {
+                parent.get().onExit().get(PARENT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) throw (InterruptedException) e;
+                LOGGER.warn("Maven process {} did not exit in {}, generate the report anyway", pid,
+                        FormatterUtils.formatDuration(PARENT_TIMEOUT));
+            }
+        }
+    }
+
+    private void generateReport(File stagingDirectory) throws IOException {
+        SessionMetrics session = ReportGenerator.load(new File(stagingDirectory, ReportGenerator.SESSION_FILE_NAME));
+        ReportBuilder reportBuilder = ReportBuilder.create(session).setFailOnError(false);
+        String chartPoints = job.getProperty(REPORT_CHART_POINTS);
+        if (chartPoints != null) reportBuilder.getModel().getChartHelper().setMaximumPoints(Integer.parseInt(chartPoints));
+        if (parseBoolean(job.getProperty(REPORT_LAZY))) {
+            reportBuilder.setDataDirectory(Resource.directory(new File(stagingDirectory, ReportGenerator.REPORT_DATA_DIRECTORY_NAME)));
+        }
+        reportBuilder.build(Resource.file(new File(stagingDirectory, ReportGenerator.REPORT_FILE_NAME)));
+        reportBuilder.getFragments().stream().filter(f -> f.getThrowable() != null)
+                .forEach(f -> LOGGER.error("Failed to generate fragment " + f.getName(), f.getThrowable()));
+        String baseline = job.getProperty(REPORT_DIFF_BASELINE);
+        if (baseline != null) {
+            try {
+                DiffBuilder.create(session, ReportGenerator.load(new File(baseline)))
+                        .build(Resource.file(new File(stagingDirectory, ReportGenerator.DIFF_FILE_NAME)));
+            } catch (Exception e) {
+                LOGGER.error("Failed to generate diff report against " + baseline, e);
+            }
+        }
+    }
+
+    private void updateDashboard() {
+        String directory = job.getProperty(DASHBOARD_DIRECTORY);
+        if (directory == null) return;
+        try {
+            DashboardGenerator generator = DashboardGenerator.create(new File(directory));
+            TrendIndex index = generator.update(job.getProperty(PROJECT_ID));
+            generator.generate(index, Resource.file(new File(generator.getDirectory(), DashboardGenerator.DASHBOARD_FILE_NAME)));
+        } catch (Exception e) {
+            LOGGER.error("Failed to update dashboard in {}, root cause: {}", directory, getRootCauseMessage(e));
+        }
+    }
+
+    private void upload(File sessionsDirectory) {
+        String[] values = new String[STORAGE_PROPERTIES.length];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = System.getenv(getVariableName(STORAGE_PROPERTIES[index]));
+        }
+        Resource storage = MavenStorage.getRemoteStorage(values[0], values[1], values[2], values[3], values[4]);
+        if (storage == Resource.NULL) return;
+        String trendFile = job.getProperty(TREND_FILE);
+        if (trendFile != null) {
+            File trend = new File(trendFile);
+            try {
+                MavenStorage.getTrendsDirectory(storage, job.getProperty(PROJECT_ID)).resolve(trend.getName())
+                        .copyFrom(Resource.file(trend));
+            } catch (Exception e) {
+                LOGGER.error("Failed to upload trend to {}, root cause: {}", storage, getRootCauseMessage(e));
+            }
+        }
+        try {
+            MavenStorage.getSessionsDirectory(storage, job.getProperty(PROJECT_ID), job.getProperty(SESSION_NAME))
+                    .copyFrom(Resource.directory(sessionsDirectory));
+        } catch (Exception e) {
+            LOGGER.error("Failed to upload results to {}, root cause: {}", storage, getRootCauseMessage(e));
+        }
+    }
+
+    private void open(File report) {
+        try {
+            Desktop.getDesktop().open(report);
+        } catch (Exception e) {
+            LOGGER.warn("Failed to open {}, root cause: {}", report, getRootCauseMessage(e));
+        }
+    }
+
+    private static String getVariableName(String property) {
+        return "TALOS_" + property.toUpperCase().replace('.', '_');
+    }
+
+    /**
+     * Reads the status of a report process.
+     *
+     * @param statusFile the status file
+     * @return the status, empty if the status file does not exist
+     * @throws IOException if an I/O error occurs
+     */
+    public static Properties readStatus(File statusFile) throws IOException {
+        requireNonNull(statusFile);
+        Properties status = new Properties();
+        if (!statusFile.exists()) return status;
+        try (InputStream inputStream = new FileInputStream(statusFile)) {
+            status.load(inputStream);
+        }
+        return status;
+    }
+
+    private static void updateStatus(File statusFile, State state, File report, String error) throws IOException {
+        updateStatus(statusFile, state, ProcessHandle.current().pid(), report, error);
+    }
+
+    private static void updateStatus(File statusFile, State state, long pid, File report, String error) throws IOException {
+        Properties status = new Properties();
+        status.setProperty("state", state.name());
+        if (pid > 0) status.setProperty("pid", Long.toString(pid));
+        status.setProperty("updated", ZonedDateTime.now().toString());
+        if (report != null) status.setProperty("report", report.getAbsolutePath());
+        if (error != null) status.setProperty("error", error);
+        // the status is replaced atomically, a reader never sees a partial file
+        File temporaryFile = new File(statusFile.getParentFile(), statusFile.getName() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temporaryFile), StandardCharsets.ISO_8859_1)) {
+            status.store(writer, "Talos Report Status");
+        }
+        Files.move(temporaryFile.toPath(), statusFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String getClassPath() {
+        Set<String> entries = new LinkedHashSet<>();
+        ClassLoader classLoader = ReportProcess.class.getClassLoader();
+        while (classLoader != null) {
+            if (classLoader instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+                    if (!"file".equals(url.getProtocol())) continue;
+                    try {
+                        entries.add(new File(url.toURI()).getAbsolutePath());
+                    } catch (URISyntaxException e) {
+                        entries.add(url.getPath());
+                    }
+                }
+            }
+            classLoader = classLoader.getParent();
+        }
+        // Maven core libraries are imported by the extension realm, they are not part of its URLs
+        String mavenHome = System.getProperty("maven.home");
+        if (mavenHome != null) {
+            addLibraries(entries, new File(mavenHome, "lib"));
+            addLibraries(entries, new File(mavenHome, "boot"));
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static void addLibraries(Set<String> entries, File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".jar"));
+        if (files == null) return;
+        Arrays.sort(files);
+        for (File file : files) {
+            entries.add(file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * The state of a report process.
+     */
+    public enum State {
+
+        /**
+         * The process was started, it waits for Maven to exit.
+         */
+        PENDING,
+
+        /**
+         * The report is generated and the results are moved.
+         */
+        RUNNING,
+
+        /**
+         * The report is available.
+         */
+        SUCCESSFUL,
+
+        /**
+         * The report could not be generated, see the log of the process.
+         */
+        FAILED
+    }
+}
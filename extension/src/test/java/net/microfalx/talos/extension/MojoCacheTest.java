@@ -0,0 +1,130 @@
+package net.microfalx.talos.extension;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.MojoExecutionEvent;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.joor.Reflect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MojoCacheTest extends AbstractExtensionTestCase {
+
+    @TempDir
+    Path directory;
+
+    private MojoCache cache;
+    private MavenSession session;
+    private MavenProject project;
+    private Path sources;
+    private Path output;
+
+    @BeforeEach
+    void setup() throws IOException {
+        session = createSession("Cache");
+        project = session.getCurrentProject();
+        sources = directory.resolve("src/main/java");
+        output = directory.resolve("target/classes");
+        project.setFile(directory.resolve("pom.xml").toFile());
+        project.getBuild().setDirectory(directory.resolve("target").toString());
+        project.getBuild().setOutputDirectory(output.toString());
+        project.addCompileSourceRoot(sources.toString());
+        project.getProperties().setProperty("maven.compiler.release", "11");
+        write(sources.resolve("Calculator.java"), "class Calculator {}");
+        cache = new MojoCache();
+        Reflect.on(cache).set("session", session).set("enabled", true).set("directory", directory.resolve("cache"));
+    }
+
+    @Test
+    void hit() throws IOException {
+        assertThat(compile().skipMain).isFalse();
+        Files.delete(output.resolve("Calculator.class"));
+        write(output.resolve("Stale.class"), "stale");
+        assertThat(compile().skipMain).isTrue();
+        assertThat(output.resolve("Calculator.class")).exists();
+        assertThat(output.resolve("Stale.class")).doesNotExist();
+        assertThat(cache.getMetrics().getHits()).isEqualTo(1);
+        assertThat(cache.getMetrics().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void miss() throws IOException {
+        assertThat(compile().skipMain).isFalse();
+        write(sources.resolve("Calculator.java"), "class Calculator { int add(int a, int b) { return a + b; } }");
+        assertThat(compile().skipMain).isFalse();
+        assertThat(cache.getMetrics().getHits()).isEqualTo(0);
+        assertThat(cache.getMetrics().getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void changedProperty() throws IOException {
+        assertThat(compile().skipMain).isFalse();
+        project.getProperties().setProperty("maven.compiler.release", "17");
+        assertThat(compile().skipMain).isFalse();
+        session.getUserProperties().setProperty("maven.compiler.release", "21");
+        assertThat(compile().skipMain).isFalse();
+        assertThat(compile().skipMain).isTrue();
+        assertThat(cache.getMetrics().getMisses()).isEqualTo(3);
+    }
+
+    private CompilerMojo compile() throws IOException {
+        CompilerMojo mojo = new CompilerMojo();
+        MojoExecutionEvent event = new MojoExecutionEvent(session, project, createExecution(), mojo);
+        cache.beforeMojoExecution(event);
+        if (!mojo.skipMain) {
+            write(output.resolve("Calculator.class"), "compiled");
+            cache.afterMojoExecutionSuccess(event);
+        }
+        return mojo;
+    }
+
+    private MojoExecution createExecution() {
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("org.apache.maven.plugins");
+        plugin.setArtifactId("maven-compiler-plugin");
+        plugin.setVersion("3.13.0");
+        PluginDescriptor pluginDescriptor = new PluginDescriptor();
+        pluginDescriptor.setGroupId(plugin.getGroupId());
+        pluginDescriptor.setArtifactId(plugin.getArtifactId());
+        pluginDescriptor.setVersion(plugin.getVersion());
+        pluginDescriptor.setGoalPrefix("compiler");
+        pluginDescriptor.setPlugin(plugin);
+        MojoDescriptor mojoDescriptor = new MojoDescriptor();
+        mojoDescriptor.setGoal("compile");
+        mojoDescriptor.setPluginDescriptor(pluginDescriptor);
+        MojoExecution execution = new MojoExecution(mojoDescriptor, "default-compile");
+        Xpp3Dom configuration = new Xpp3Dom("configuration");
+        Xpp3Dom release = new Xpp3Dom("release");
+        release.setValue("${maven.compiler.release}");
+        configuration.addChild(release);
+        execution.setConfiguration(configuration);
+        return execution;
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    public static class CompilerMojo extends AbstractMojo {
+
+        private boolean skipMain;
+
+        @Override
+        public void execute() {
+            // the cache only changes the skip field
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package net.microfalx.talos.extension;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReportProcessTest {
+
+    @TempDir
+    Path directory;
+
+    private File stagingDirectory;
+    private File sessionsDirectory;
+    private File targetDirectory;
+
+    @BeforeEach
+    void setup() throws IOException {
+        stagingDirectory = Files.createDirectories(directory.resolve("staging")).toFile();
+        sessionsDirectory = directory.resolve("sessions").toFile();
+        targetDirectory = Files.createDirectories(directory.resolve("target")).toFile();
+    }
+
+    @Test
+    void job() throws IOException {
+        Properties job = createJob();
+        File jobFile = ReportProcess.writeJob(job, stagingDirectory);
+        assertThat(jobFile).hasName(ReportProcess.JOB_FILE_NAME).hasParent(stagingDirectory);
+        assertThat(ReportProcess.readJob(jobFile)).isEqualTo(job);
+    }
+
+    @Test
+    void successful() throws IOException {
+        Files.writeString(stagingDirectory.toPath().resolve("build.data"), "session");
+        ReportProcess.writeJob(createJob(), stagingDirectory);
+        assertThat(new ReportProcess(createJob()).run()).isTrue();
+        Properties status = ReportProcess.readStatus(new File(targetDirectory, ReportProcess.STATUS_FILE_NAME));
+        assertThat(status.getProperty("state")).isEqualTo(ReportProcess.State.SUCCESSFUL.name());
+        assertThat(status.getProperty("pid")).isEqualTo(Long.toString(ProcessHandle.current().pid()));
+        assertThat(status.getProperty("error")).isNull();
+        assertThat(new File(sessionsDirectory, "build.data")).exists();
+        assertThat(new File(targetDirectory, "build.data")).exists();
+        assertThat(new File(targetDirectory, ReportProcess.JOB_FILE_NAME)).doesNotExist();
+        assertThat(stagingDirectory).doesNotExist();
+    }
+
+    @Test
+    void failed() throws IOException {
+        Files.delete(stagingDirectory.toPath());
+        assertThat(new ReportProcess(createJob()).run()).isFalse();
+        Properties status = ReportProcess.readStatus(new File(targetDirectory, ReportProcess.STATUS_FILE_NAME));
+        assertThat(status.getProperty("state")).isEqualTo(ReportProcess.State.FAILED.name());
+        assertThat(status.getProperty("error")).isNotEmpty();
+    }
+
+    @Test
+    void failedToStart() {
+        File java = directory.resolve("missing").resolve("java").toFile();
+        assertThatThrownBy(() -> ReportProcess.start(createJob(), Map.of(), stagingDirectory, targetDirectory,
+                java.getAbsolutePath())).isInstanceOf(IOException.class);
+        assertThat(new File(stagingDirectory, ReportProcess.JOB_FILE_NAME)).doesNotExist();
+        assertThat(new File(targetDirectory, ReportProcess.STATUS_FILE_NAME)).doesNotExist();
+    }
+
+    private Properties createJob() {
+        Properties job = new Properties();
+        job.setProperty(ReportProcess.STAGING_DIRECTORY, stagingDirectory.getAbsolutePath());
+        job.setProperty(ReportProcess.SESSIONS_DIRECTORY, sessionsDirectory.getAbsolutePath());
+        job.setProperty(ReportProcess.TARGET_DIRECTORY, targetDirectory.getAbsolutePath());
+        job.setProperty(ReportProcess.PROJECT_ID, "test");
+        job.setProperty(ReportProcess.SESSION_NAME, "session");
+        job.setProperty(ReportProcess.REPORT_ENABLED, "false");
+        job.setProperty(ReportProcess.REPORT_OPEN, "false");
+        return job;
+    }
+}
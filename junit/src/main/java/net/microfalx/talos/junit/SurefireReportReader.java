@@ -0,0 +1,194 @@
+package net.microfalx.talos.junit;
+
+import net.microfalx.talos.model.TestMetrics;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.StringUtils.isEmpty;
+
+/**
+ * Reads Surefire XML reports (<code>TEST-*.xml</code>) with a streaming (StAX) parser and produces
+ * {@link TestMetrics} directly, without building an intermediate object graph.
+ * <p>
+ * The reader is thread-safe, the same instance can be used to parse reports in parallel.
+ */
+public final class SurefireReportReader {
+
+    private static final String TEST_SUITE = "testsuite";
+    private static final String TEST_CASE = "testcase";
+    private static final String FAILURE = "failure";
+    private static final String ERROR = "error";
+    private static final String SKIPPED = "skipped";
+
+    private final XMLInputFactory factory;
+
+    public static SurefireReportReader create() {
+        return new SurefireReportReader();
+    }
+
+    private SurefireReportReader() {
+        factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Returns whether the file is a Surefire XML report.
+     *
+     * @param file the file
+     * @return {@code true} if a report, {@code false} otherwise
+     */
+    public static boolean isReport(File file) {
+        String fileName = file.getName();
+        return fileName.startsWith("TEST-") && fileName.endsWith(".xml");
+    }
+
+    /**
+     * Reads all reports available in a directory.
+     *
+     * @param moduleId  the module which executed the tests
+     * @param directory the directory with reports
+     * @return a non-null instance
+     * @throws IOException if an I/O error occurs
+     */
+    public Collection<TestMetrics> readDirectory(String moduleId, File directory) throws IOException {
+        requireNonNull(directory);
+        Collection<TestMetrics> tests = new ArrayList<>();
+        File[] files = directory.listFiles(SurefireReportReader::isReport);
+        if (files == null) return tests;
+        for (File file : files) {
+            tests.addAll(read(moduleId, file));
+        }
+        return tests;
+    }
+
+    /**
+     * Reads a report file.
+     *
+     * @param moduleId the module which executed the tests
+     * @param file     the report
+     * @return a non-null instance
+     * @throws IOException if an I/O error occurs
+     */
+    public Collection<TestMetrics> read(String moduleId, File file) throws IOException {
+        requireNonNull(file);
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            return read(moduleId, inputStream);
+        } catch (IOException e) {
+            throw new IOException("Failed to read Surefire report '" + file + "'", e);
+        }
+    }
+
+    /**
+     * Reads a report from a stream.
+     *
+     * @param moduleId    the module which executed the tests
+     * @param inputStream the stream
+     * @return a non-null instance
+     * @throws IOException if an I/O error occurs
+     */
+    public Collection<TestMetrics> read(String moduleId, InputStream inputStream) throws IOException {
+        requireNonNull(moduleId);
+        requireNonNull(inputStream);
+        Collection<TestMetrics> tests = new ArrayList<>();
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(inputStream);
+            String suiteName = null;
+            while (reader.hasNext()) {
+                if (reader.next() != START_ELEMENT) continue;
+                String element = reader.getLocalName();
+                if (TEST_SUITE.equals(element)) {
+                    suiteName = reader.getAttributeValue(null, "name");
+                } else if (TEST_CASE.equals(element)) {
+                    tests.add(readTestCase(moduleId, suiteName, reader));
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // not important
+                }
+            }
+        }
+        return tests;
+    }
+
+    private TestMetrics readTestCase(String moduleId, String suiteName, XMLStreamReader reader) throws XMLStreamException {
+        String className = reader.getAttributeValue(null, "classname");
+        if (isEmpty(className)) className = suiteName != null ? suiteName : "";
+        String name = reader.getAttributeValue(null, "name");
+        TestMetrics test = new TestMetrics(moduleId, className, name != null ? name : "")
+                .setTime(parseTime(reader.getAttributeValue(null, "time")));
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == END_ELEMENT) {
+                depth--;
+            } else if (event == START_ELEMENT) {
+                String element = reader.getLocalName();
+                if (depth == 1 && (FAILURE.equals(element) || ERROR.equals(element))) {
+                    test.setFailure(FAILURE.equals(element)).setError(ERROR.equals(element))
+                            .setFailureMessage(reader.getAttributeValue(null, "message"))
+                            .setFailureType(reader.getAttributeValue(null, "type"));
+                    String detail = reader.getElementText();
+                    test.setFailureDetail(detail).setFailureErrorLine(getErrorLine(className, detail));
+                } else if (depth == 1 && SKIPPED.equals(element)) {
+                    test.setSkipped(true).setFailureMessage(reader.getAttributeValue(null, "message"));
+                    skipElement(reader);
+                } else {
+                    depth++;
+                }
+            }
+        }
+        return test;
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                depth++;
+            } else if (event == END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static float parseTime(String value) {
+        if (isEmpty(value)) return 0;
+        try {
+            return Float.parseFloat(value.replace(",", ""));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String getErrorLine(String className, String detail) {
+        if (isEmpty(detail) || isEmpty(className)) return null;
+        String frame = "at " + className + ".";
+        int index = detail.indexOf(frame);
+        if (index == -1) return null;
+        int end = detail.indexOf(')', index);
+        int start = end == -1 ? -1 : detail.lastIndexOf(':', end);
+        if (start == -1 || start < index) return null;
+        String line = detail.substring(start + 1, end);
+        for (int i = 0; i < line.length(); i++) {
+            if (!Character.isDigit(line.charAt(i))) return null;
+        }
+        return line.isEmpty() ? null : line;
+    }
+}
@@ -1,9 +1,7 @@
 package net.microfalx.talos.junit;
 
+import net.microfalx.talos.model.TestMetrics;
 import org.apache.maven.execution.MavenSession;
-import org.apache.maven.plugin.surefire.log.api.NullConsoleLogger;
-import org.apache.maven.plugins.surefire.report.ReportTestSuite;
-import org.apache.maven.plugins.surefire.report.SurefireReportParser;
 import org.apache.maven.project.MavenProject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,14 +9,17 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableCollection;
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ExceptionUtils.getRootCauseMessage;
 
 @Named("surefire")
 @Singleton
@@ -26,7 +27,10 @@ public class SurefireTests {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SurefireTests.class);
 
-    private final Map<MavenProject, Collection<ReportTestSuite>> testSuites = new ConcurrentHashMap<>();
+    private final SurefireReportReader reader = SurefireReportReader.create();
+    private final Map<MavenProject, Collection<TestMetrics>> tests = new ConcurrentHashMap<>();
+    private final Map<MavenProject, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+    private ExecutorService executor;
     private int totalCount;
     private int successfulCount;
     private int failedCount;
@@ -85,46 +89,90 @@ public class SurefireTests {
      * @return a non-null instance
      */
     public Collection<MavenProject> getProjects() {
-        return unmodifiableCollection(testSuites.keySet());
+        return unmodifiableCollection(tests.keySet());
     }
 
     /**
-     * Returns the test suites for a project.
+     * Returns the tests for a project.
      *
      * @param project the project;
      * @return the tests
      */
-    public Collection<ReportTestSuite> getTestSuites(MavenProject project) {
+    public Collection<TestMetrics> getTests(MavenProject project) {
         requireNonNull(project);
-        Collection<ReportTestSuite> testSuitesForProject = testSuites.get(project);
-        return testSuitesForProject == null ? emptyList() : testSuitesForProject;
+        Collection<TestMetrics> testsForProject = tests.get(project);
+        return testsForProject == null ? emptyList() : unmodifiableCollection(testsForProject);
+    }
+
+    /**
+     * Returns the tests for a project loaded in the background (see {@link #load(MavenProject)}), once its reports
+     * are parsed.
+     * <p>
+     * The method does not wait for the reports to be parsed.
+     *
+     * @param project the project
+     * @return a future completed with the tests, empty if the project has no tests
+     */
+    public CompletableFuture<Collection<TestMetrics>> getTestsAsync(MavenProject project) {
+        requireNonNull(project);
+        CompletableFuture<Void> future = pending.get(project);
+        if (future == null) return CompletableFuture.completedFuture(getTests(project));
+        return future.handle((result, throwable) -> getTests(project));
+    }
+
+    /**
+     * Loads (in the background) the tests of a project which completed its build.
+     * <p>
+     * Tests are available with {@link #getTests(MavenProject)} as soon as the reports are parsed, while other
+     * projects are still building.
+     *
+     * @param project the project
+     */
+    public synchronized void load(MavenProject project) {
+        requireNonNull(project);
+        if (loaded || !getReportsDirectory(project).exists()) return;
+        pending.put(project, CompletableFuture.runAsync(() -> parse(project), getExecutor()));
     }
 
     /**
      * Loads tests for a session.
+     * <p>
+     * Tests of projects already loaded (see {@link #load(MavenProject)}) are merged, reports of the remaining
+     * projects are parsed in parallel with a streaming parser.
      *
      * @param session the session
      */
-    public void load(MavenSession session) {
+    public synchronized void load(MavenSession session) {
         requireNonNull(session);
         if (loaded) return;
         LOGGER.debug("Load surefire test suites");
-        for (MavenProject project : session.getProjects()) {
-            SurefireReportParser parser = createParser(session, project);
-            if (parser == null) continue;
-            List<ReportTestSuite> reportTestSuites = parser.parseXMLReportFiles();
-            testSuites.put(project, reportTestSuites);
-            updateStat(project, reportTestSuites);
+        awaitPending();
+        List<MavenProject> projects = session.getProjects().stream().filter(p -> !tests.containsKey(p))
+                .filter(p -> getReportsDirectory(p).exists()).collect(Collectors.toList());
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(projects.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            pool.submit(() -> projects.parallelStream().forEach(this::parse)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.error("Failed to load surefire test suites, root cause: " + getRootCauseMessage(e));
+        } finally {
+            pool.shutdown();
+        }
+        for (Map.Entry<MavenProject, Collection<TestMetrics>> entry : tests.entrySet()) {
+            updateStat(entry.getKey(), entry.getValue());
         }
-        LOGGER.debug("Loaded {} projects with tests", testSuites.size());
+        LOGGER.debug("Loaded {} projects with tests", tests.size());
         loaded = true;
     }
 
     /**
      * Resets the state.
      */
-    public void reset() {
-        testSuites.clear();
+    public synchronized void reset() {
+        pending.values().forEach(future -> future.cancel(true));
+        pending.clear();
+        tests.clear();
         totalCount = 0;
         failedCount = 0;
         skippedCount = 0;
@@ -133,21 +181,57 @@ public class SurefireTests {
         loaded = false;
     }
 
-    private SurefireReportParser createParser(MavenSession session, MavenProject project) {
-        File directory = new File(new File(project.getBuild().getDirectory()), "surefire-reports");
+    private void awaitPending() {
+        for (Map.Entry<MavenProject, CompletableFuture<Void>> entry : pending.entrySet()) {
+            try {
+                entry.getValue().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | CancellationException e) {
+                LOGGER.error("Failed to load tests for project " + entry.getKey().getName() + ", root cause: " + getRootCauseMessage(e));
+            }
+        }
+        pending.clear();
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Talos Tests");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    private void parse(MavenProject project) {
+        File directory = getReportsDirectory(project);
         LOGGER.debug("Load tests for project {} from {}", project.getName(), directory);
-        if (!directory.exists()) return null;
-        return new SurefireReportParser(List.of(directory), new NullConsoleLogger());
-    }
-
-    private void updateStat(MavenProject project, List<ReportTestSuite> suites) {
-        for (ReportTestSuite suite : suites) {
-            LOGGER.debug("{} / {} = {}", project.getName(), suite.getName(), suite.getNumberOfTests());
-            totalCount += suite.getNumberOfTests();
-            failedCount += suite.getNumberOfFailures();
-            skippedCount += suite.getNumberOfSkipped();
-            errorCount += suite.getNumberOfErrors();
-            successfulCount += suite.getNumberOfTests() - suite.getNumberOfErrors() - suite.getNumberOfFailures();
+        try {
+            tests.put(project, reader.readDirectory(project.getArtifactId(), directory));
+        } catch (IOException e) {
+            LOGGER.error("Failed to load tests for project " + project.getName() + ", root cause: " + getRootCauseMessage(e));
+        }
+    }
+
+    private File getReportsDirectory(MavenProject project) {
+        return new File(new File(project.getBuild().getDirectory()), "surefire-reports");
+    }
+
+    private void updateStat(MavenProject project, Collection<TestMetrics> tests) {
+        LOGGER.debug("{} = {}", project.getName(), tests.size());
+        for (TestMetrics test : tests) {
+            totalCount++;
+            if (test.isFailure()) failedCount++;
+            if (test.isError()) errorCount++;
+            if (test.isSkipped()) skippedCount++;
+            if (!test.isFailureOrError()) successfulCount++;
         }
     }
 }
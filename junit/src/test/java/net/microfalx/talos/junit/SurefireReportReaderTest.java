@@ -0,0 +1,53 @@
+package net.microfalx.talos.junit;
+
+import net.microfalx.talos.model.TestMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SurefireReportReaderTest {
+
+    @Test
+    void read() throws IOException {
+        List<TestMetrics> tests = read("TEST-net.microfalx.demo.CalculatorTest.xml");
+        assertEquals(4, tests.size());
+
+        TestMetrics add = tests.get(0);
+        assertEquals("demo", add.getModuleId());
+        assertEquals("net.microfalx.demo.CalculatorTest", add.getClassName());
+        assertEquals("add", add.getName());
+        assertEquals(0.012f, add.getTime(), 0.0001);
+        assertFalse(add.isFailureOrError());
+        assertFalse(add.isSkipped());
+
+        TestMetrics divide = tests.get(1);
+        assertTrue(divide.isFailure());
+        assertFalse(divide.isError());
+        assertEquals(1200.5f, divide.getTime(), 0.0001);
+        assertEquals("expected: <2> but was: <3>", divide.getFailureMessage());
+        assertEquals("org.opentest4j.AssertionFailedError", divide.getFailureType());
+        assertEquals("42", divide.getFailureErrorLine());
+        assertTrue(divide.getFailureDetail().contains("CalculatorTest.java:42"));
+
+        TestMetrics multiply = tests.get(2);
+        assertEquals("net.microfalx.demo.CalculatorTest", multiply.getClassName());
+        assertTrue(multiply.isError());
+        assertEquals("boom", multiply.getFailureMessage());
+
+        TestMetrics subtract = tests.get(3);
+        assertTrue(subtract.isSkipped());
+        assertFalse(subtract.isFailureOrError());
+    }
+
+    private List<TestMetrics> read(String fileName) throws IOException {
+        try (InputStream inputStream = SurefireReportReaderTest.class.getClassLoader().getResourceAsStream(fileName)) {
+            assertNotNull(inputStream);
+            return new ArrayList<>(SurefireReportReader.create().read("demo", inputStream));
+        }
+    }
+}
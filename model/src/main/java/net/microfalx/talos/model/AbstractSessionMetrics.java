@@ -123,7 +123,7 @@ public abstract class AbstractSessionMetrics<T extends AbstractSessionMetrics<T>
         this.remoteRepositories.addAll(remoteRepositories);
     }
 
-    public ProjectMetrics getModule(String id) {
+    public synchronized ProjectMetrics getModule(String id) {
         requireNonNull(id);
         if (modulesById == null) {
             modulesById = new HashMap<>();
@@ -153,7 +153,7 @@ public abstract class AbstractSessionMetrics<T extends AbstractSessionMetrics<T>
         return unmodifiableCollection(mojos);
     }
 
-    public MojoMetrics getMojo(String id) {
+    public synchronized MojoMetrics getMojo(String id) {
         requireNonNull(id);
         if (mojosById == null) {
             mojosById = new HashMap<>();
@@ -175,7 +175,7 @@ public abstract class AbstractSessionMetrics<T extends AbstractSessionMetrics<T>
         return lifecycles;
     }
 
-    public LifecycleMetrics getLifecycle(String id) {
+    public synchronized LifecycleMetrics getLifecycle(String id) {
         requireNonNull(id);
         if (lifeCyclesById == null) {
             lifeCyclesById = new HashMap<>();
@@ -328,6 +328,13 @@ public abstract class AbstractSessionMetrics<T extends AbstractSessionMetrics<T>
         kryo.register(TestSummaryMetrics.class, SERIALIZATION_ID + 28);
         kryo.register(LifecycleMetrics.class, SERIALIZATION_ID + 29);
         kryo.register(FailureMetrics.class, SERIALIZATION_ID + 30);
+        kryo.register(LocalRepositoryMetrics.class, SERIALIZATION_ID + 31);
+        kryo.register(LocalRepositoryMetrics.Entry.class, SERIALIZATION_ID + 32);
+        kryo.register(CacheMetrics.class, SERIALIZATION_ID + 33);
+        kryo.register(RegressionMetrics.class, SERIALIZATION_ID + 34);
+        kryo.register(RegressionMetrics.Type.class, SERIALIZATION_ID + 35);
+        kryo.register(TestTrendMetrics.class, SERIALIZATION_ID + 36);
+        kryo.register(TestStore.class, SERIALIZATION_ID + 37);
 
         kryo.register(AbstractTimeAwareMetrics.ActiveIntervalImpl.class, SERIALIZATION_ID + 40);
 
@@ -381,6 +388,11 @@ public abstract class AbstractSessionMetrics<T extends AbstractSessionMetrics<T>
         kryo.register(AtomicInteger.class, SERIALIZATION_ID + 120);
         kryo.register(AtomicLong.class, SERIALIZATION_ID + 121);
 
+        kryo.register(int[].class, SERIALIZATION_ID + 130);
+        kryo.register(long[].class, SERIALIZATION_ID + 131);
+        kryo.register(float[].class, SERIALIZATION_ID + 132);
+        kryo.register(String[].class, SERIALIZATION_ID + 133);
+
         return kryo;
     }
 }
@@ -11,6 +11,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static java.lang.System.nanoTime;
+import static java.util.Collections.unmodifiableSet;
 import static java.time.Duration.ofNanos;
 
 /**
@@ -61,6 +62,10 @@ public final class ArtifactMetrics extends Dependency {
         super(metadata.getGroupId(), metadata.getArtifactId(), metadata.getVersion());
     }
 
+    public Set<String> getVersions() {
+        return unmodifiableSet(versions);
+    }
+
     public long getSize() {
         return size;
     }
@@ -0,0 +1,143 @@
+package net.microfalx.talos.model;
+
+import java.time.Duration;
+import java.util.StringJoiner;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Holds metrics about the local Mojo output cache (hits, misses and time saved).
+ */
+public final class CacheMetrics {
+
+    private int hits;
+    private int misses;
+    private int stores;
+    private long restoredSize;
+    private long storedSize;
+    private Duration savedDuration = Duration.ZERO;
+    private Duration overheadDuration = Duration.ZERO;
+
+    public CacheMetrics() {
+    }
+
+    /**
+     * Returns the number of Mojo executions restored from the cache.
+     *
+     * @return a positive integer
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of cacheable Mojo executions which were not found in the cache.
+     *
+     * @return a positive integer
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of Mojo executions stored in the cache.
+     *
+     * @return a positive integer
+     */
+    public synchronized int getStores() {
+        return stores;
+    }
+
+    /**
+     * Returns the ratio between hits and cacheable executions.
+     *
+     * @return a value between 0 and 1
+     */
+    public synchronized float getHitRatio() {
+        int total = hits + misses;
+        return total == 0 ? 0 : (float) hits / total;
+    }
+
+    /**
+     * Returns the size of outputs restored from the cache.
+     *
+     * @return a positive integer
+     */
+    public synchronized long getRestoredSize() {
+        return restoredSize;
+    }
+
+    /**
+     * Returns the size of outputs stored in the cache.
+     *
+     * @return a positive integer
+     */
+    public synchronized long getStoredSize() {
+        return storedSize;
+    }
+
+    /**
+     * Returns the duration of the original Mojo executions which were restored from the cache.
+     *
+     * @return a non-null instance
+     */
+    public synchronized Duration getSavedDuration() {
+        return savedDuration;
+    }
+
+    /**
+     * Returns the time spent to fingerprint, restore and store Mojo executions.
+     *
+     * @return a non-null instance
+     */
+    public synchronized Duration getOverheadDuration() {
+        return overheadDuration;
+    }
+
+    /**
+     * Returns whether the cache was used during the session.
+     *
+     * @return {@code true} if used, {@code false} otherwise
+     */
+    public synchronized boolean isUsed() {
+        return hits + misses > 0;
+    }
+
+    public synchronized CacheMetrics registerHit(Duration savedDuration, long size, Duration overhead) {
+        requireNonNull(savedDuration);
+        requireNonNull(overhead);
+        this.hits++;
+        this.restoredSize += size;
+        this.savedDuration = this.savedDuration.plus(savedDuration);
+        this.overheadDuration = this.overheadDuration.plus(overhead);
+        return this;
+    }
+
+    public synchronized CacheMetrics registerMiss(Duration overhead) {
+        requireNonNull(overhead);
+        this.misses++;
+        this.overheadDuration = this.overheadDuration.plus(overhead);
+        return this;
+    }
+
+    public synchronized CacheMetrics registerStore(long size, Duration overhead) {
+        requireNonNull(overhead);
+        this.stores++;
+        this.storedSize += size;
+        this.overheadDuration = this.overheadDuration.plus(overhead);
+        return this;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return new StringJoiner(", ", CacheMetrics.class.getSimpleName() + "[", "]")
+                .add("hits=" + hits)
+                .add("misses=" + misses)
+                .add("stores=" + stores)
+                .add("restoredSize=" + restoredSize)
+                .add("storedSize=" + storedSize)
+                .add("savedDuration=" + savedDuration)
+                .add("overheadDuration=" + overheadDuration)
+                .toString();
+    }
+}
@@ -0,0 +1,360 @@
+package net.microfalx.talos.model;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.lang.System.nanoTime;
+import static java.time.Duration.ofNanos;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Walks the local repository (in parallel) and extracts statistics about its content.
+ * <p>
+ * The analyzer expects the standard repository layout (<code>group/artifact/version/files</code>) and reports
+ * the total size, stale snapshot builds, artifacts with multiple versions, <code>_remote.repositories</code> churn
+ * and artifacts which were never touched by the session.
+ */
+public final class LocalRepositoryAnalyzer {
+
+    private static final String REMOTE_REPOSITORIES_FILE = "_remote.repositories";
+    private static final String LAST_UPDATED_EXTENSION = ".lastUpdated";
+    private static final String SNAPSHOT_SUFFIX = "-SNAPSHOT";
+    private static final Pattern SNAPSHOT_TIMESTAMP = Pattern.compile("^(\\d{8}\\.\\d{6}-\\d+)");
+    private static final Pattern SNAPSHOT_VERSION = Pattern.compile("^(.+)-\\d{8}\\.\\d{6}-\\d+$");
+
+    private final Path directory;
+    private final Set<String> touched = new HashSet<>();
+    private ZonedDateTime since;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int maximumEntries = 20;
+
+    public static LocalRepositoryAnalyzer create(Path directory) {
+        return new LocalRepositoryAnalyzer(directory);
+    }
+
+    private LocalRepositoryAnalyzer(Path directory) {
+        requireNonNull(directory);
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the local repository directory.
+     *
+     * @return a non-null instance
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Changes the timestamp used to detect changes in <code>_remote.repositories</code> files.
+     *
+     * @param since the timestamp, usually the start of the session
+     * @return self
+     */
+    public LocalRepositoryAnalyzer setSince(ZonedDateTime since) {
+        this.since = since;
+        return this;
+    }
+
+    /**
+     * Changes the number of threads used to walk the repository.
+     *
+     * @param parallelism the number of threads
+     * @return self
+     */
+    public LocalRepositoryAnalyzer setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * Changes the maximum number of entries (largest first) kept for each category.
+     *
+     * @param maximumEntries the maximum number of entries
+     * @return self
+     */
+    public LocalRepositoryAnalyzer setMaximumEntries(int maximumEntries) {
+        this.maximumEntries = Math.max(0, maximumEntries);
+        return this;
+    }
+
+    /**
+     * Registers an artifact used by the session.
+     *
+     * @param groupId    the group
+     * @param artifactId the artifact
+     * @param version    the version
+     * @return self
+     */
+    public LocalRepositoryAnalyzer addTouched(String groupId, String artifactId, String version) {
+        if (groupId != null && artifactId != null && version != null) {
+            touched.add(getKey(groupId, artifactId, version));
+            Matcher matcher = SNAPSHOT_VERSION.matcher(version);
+            if (matcher.matches()) touched.add(getKey(groupId, artifactId, matcher.group(1) + SNAPSHOT_SUFFIX));
+        }
+        return this;
+    }
+
+    /**
+     * Registers all artifacts, dependencies and plugins used by a session.
+     *
+     * @param metrics the session metrics
+     * @return self
+     */
+    public LocalRepositoryAnalyzer addTouched(SessionMetrics metrics) {
+        requireNonNull(metrics);
+        for (ArtifactMetrics artifact : metrics.getArtifacts()) {
+            addTouched(artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion());
+            for (String version : artifact.getVersions()) {
+                addTouched(artifact.getGroupId(), artifact.getArtifactId(), version);
+            }
+        }
+        for (DependencyMetrics dependency : metrics.getDependencies()) {
+            for (String version : dependency.getVersions()) {
+                addTouched(dependency.getGroupId(), dependency.getArtifactId(), version);
+            }
+        }
+        for (PluginMetrics plugin : metrics.getPlugins()) {
+            addTouched(plugin.getGroupId(), plugin.getArtifactId(), plugin.getVersion());
+            for (String version : plugin.getVersions()) {
+                addTouched(plugin.getGroupId(), plugin.getArtifactId(), version);
+            }
+        }
+        if (since == null) since = metrics.getStartTime();
+        return this;
+    }
+
+    /**
+     * Walks the repository and extracts the statistics.
+     *
+     * @return a non-null instance
+     * @throws IOException if an I/O error occurs
+     */
+    public LocalRepositoryMetrics analyze() throws IOException {
+        long startTime = nanoTime();
+        LocalRepositoryMetrics metrics = new LocalRepositoryMetrics();
+        if (!Files.isDirectory(directory)) return metrics.setDuration(ofNanos(nanoTime() - startTime));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Walk walk;
+        try {
+            walk = pool.submit(new WalkTask(directory)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while analyzing local repository " + directory, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to analyze local repository " + directory, e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        update(metrics, walk);
+        return metrics.setDuration(ofNanos(nanoTime() - startTime));
+    }
+
+    private void update(LocalRepositoryMetrics metrics, Walk walk) {
+        metrics.setSize(walk.size, walk.fileCount, walk.versions.size());
+        metrics.setRemoteRepositories(walk.remoteRepositoriesCount, walk.remoteRepositoriesChanged, walk.lastUpdatedCount);
+        int staleCount = 0;
+        long staleSize = 0;
+        Map<String, List<Version>> versionsByArtifact = new HashMap<>();
+        for (Version version : walk.versions) {
+            staleCount += version.staleCount;
+            staleSize += version.staleSize;
+            versionsByArtifact.computeIfAbsent(version.groupId + ":" + version.artifactId, k -> new ArrayList<>()).add(version);
+        }
+        metrics.setStaleSnapshots(staleCount, staleSize);
+        List<LocalRepositoryMetrics.Entry> multipleVersions = new ArrayList<>();
+        long multipleVersionsSize = 0;
+        for (List<Version> versions : versionsByArtifact.values()) {
+            if (versions.size() < 2) continue;
+            LocalRepositoryMetrics.Entry entry = createEntry(versions);
+            multipleVersionsSize += entry.getSize();
+            multipleVersions.add(entry);
+        }
+        metrics.setMultipleVersions(multipleVersions.size(), multipleVersionsSize, getLargest(multipleVersions));
+        if (!touched.isEmpty()) {
+            List<LocalRepositoryMetrics.Entry> untouched = new ArrayList<>();
+            long untouchedSize = 0;
+            for (Version version : walk.versions) {
+                if (touched.contains(getKey(version.groupId, version.artifactId, version.version))) continue;
+                LocalRepositoryMetrics.Entry entry = createEntry(Collections.singletonList(version));
+                untouchedSize += entry.getSize();
+                untouched.add(entry);
+            }
+            metrics.setUntouched(untouched.size(), untouchedSize, getLargest(untouched));
+        }
+    }
+
+    private LocalRepositoryMetrics.Entry createEntry(List<Version> versions) {
+        Version first = versions.get(0);
+        long size = versions.stream().mapToLong(v -> v.size).sum();
+        List<String> names = versions.stream().map(v -> v.version).sorted().collect(Collectors.toList());
+        return new LocalRepositoryMetrics.Entry(first.groupId, first.artifactId, names, size);
+    }
+
+    private Collection<LocalRepositoryMetrics.Entry> getLargest(List<LocalRepositoryMetrics.Entry> entries) {
+        entries.sort(Comparator.comparingLong(LocalRepositoryMetrics.Entry::getSize).reversed());
+        return entries.subList(0, Math.min(maximumEntries, entries.size()));
+    }
+
+    private static String getKey(String groupId, String artifactId, String version) {
+        return groupId + ":" + artifactId + ":" + version;
+    }
+
+    /**
+     * Walks a directory: its files are accumulated in place and each sub-directory is walked by its own task, so
+     * large groups (like <code>org</code>) are split all the way down to the version directories.
+     */
+    private class WalkTask extends RecursiveTask<Walk> {
+
+        private final Path directory;
+
+        private WalkTask(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected Walk compute() {
+            Walk walk = new Walk();
+            Version version = new Version(directory);
+            List<WalkTask> tasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path path : stream) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (attrs.isDirectory()) {
+                        tasks.add(new WalkTask(path));
+                    } else {
+                        visitFile(walk, version, path.getFileName().toString(), attrs);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // directories which cannot be read are skipped, like the files which cannot be visited
+            }
+            if (version.complete()) walk.versions.add(version);
+            for (WalkTask task : invokeAll(tasks)) {
+                walk.addAll(task.join());
+            }
+            return walk;
+        }
+
+        private void visitFile(Walk walk, Version version, String fileName, BasicFileAttributes attrs) {
+            long size = attrs.size();
+            walk.size += size;
+            walk.fileCount++;
+            if (REMOTE_REPOSITORIES_FILE.equals(fileName)) {
+                walk.remoteRepositoriesCount++;
+                if (since != null && attrs.lastModifiedTime().toInstant().isAfter(since.toInstant())) {
+                    walk.remoteRepositoriesChanged++;
+                }
+            } else if (fileName.endsWith(LAST_UPDATED_EXTENSION)) {
+                walk.lastUpdatedCount++;
+            }
+            version.add(fileName, size);
+        }
+    }
+
+    /**
+     * Holds the content of a directory which might be a version directory.
+     */
+    private class Version {
+
+        private final Path directory;
+        private String groupId;
+        private String artifactId;
+        private String version;
+        private long size;
+        private boolean artifact;
+        private final Map<String, Long> builds = new HashMap<>();
+        private int staleCount;
+        private long staleSize;
+
+        private Version(Path directory) {
+            this.directory = directory;
+            Path relative = LocalRepositoryAnalyzer.this.directory.relativize(directory);
+            int count = relative.getNameCount();
+            if (count >= 3) {
+                version = relative.getName(count - 1).toString();
+                artifactId = relative.getName(count - 2).toString();
+                StringJoiner joiner = new StringJoiner(".");
+                for (int i = 0; i < count - 2; i++) {
+                    joiner.add(relative.getName(i).toString());
+                }
+                groupId = joiner.toString();
+            }
+        }
+
+        private void add(String fileName, long size) {
+            this.size += size;
+            if (version == null) return;
+            String prefix = artifactId + "-";
+            if (!fileName.startsWith(prefix)) return;
+            artifact = true;
+            if (!version.endsWith(SNAPSHOT_SUFFIX)) return;
+            String baseVersion = version.substring(0, version.length() - SNAPSHOT_SUFFIX.length());
+            String buildPrefix = prefix + baseVersion + "-";
+            if (!fileName.startsWith(buildPrefix)) return;
+            Matcher matcher = SNAPSHOT_TIMESTAMP.matcher(fileName.substring(buildPrefix.length()));
+            if (matcher.find()) builds.merge(matcher.group(1), size, Long::sum);
+        }
+
+        private boolean complete() {
+            if (!artifact) return false;
+            if (builds.size() > 1) {
+                String latest = Collections.max(builds.keySet(), Comparator.comparing(LocalRepositoryAnalyzer::getBuildOrder));
+                for (Map.Entry<String, Long> entry : builds.entrySet()) {
+                    if (entry.getKey().equals(latest)) continue;
+                    staleCount++;
+                    staleSize += entry.getValue();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return directory.toString();
+        }
+    }
+
+    private static String getBuildOrder(String build) {
+        int index = build.lastIndexOf('-');
+        String number = build.substring(index + 1);
+        return build.substring(0, index) + "-" + "0".repeat(Math.max(0, 10 - number.length())) + number;
+    }
+
+    /**
+     * Holds partial results for a sub-tree of the repository.
+     */
+    private static class Walk {
+
+        private long size;
+        private int fileCount;
+        private int remoteRepositoriesCount;
+        private int remoteRepositoriesChanged;
+        private int lastUpdatedCount;
+        private final List<Version> versions = new ArrayList<>();
+
+        private void addAll(Walk other) {
+            size += other.size;
+            fileCount += other.fileCount;
+            remoteRepositoriesCount += other.remoteRepositoriesCount;
+            remoteRepositoriesChanged += other.remoteRepositoriesChanged;
+            lastUpdatedCount += other.lastUpdatedCount;
+            versions.addAll(other.versions);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package net.microfalx.talos.model;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.StringJoiner;
+
+import static java.util.Collections.unmodifiableCollection;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
+
+/**
+ * Holds metrics about the content of the local repository, as discovered by {@link LocalRepositoryAnalyzer}.
+ */
+public final class LocalRepositoryMetrics {
+
+    private long size;
+    private int fileCount;
+    private int artifactCount;
+
+    private int staleSnapshotCount;
+    private long staleSnapshotSize;
+
+    private int remoteRepositoriesCount;
+    private int remoteRepositoriesChanged;
+    private int lastUpdatedCount;
+
+    private int multipleVersionsCount;
+    private long multipleVersionsSize;
+
+    private int untouchedCount;
+    private long untouchedSize;
+
+    private Duration duration = Duration.ZERO;
+
+    private final Collection<Entry> multipleVersions = new ArrayList<>();
+    private final Collection<Entry> untouched = new ArrayList<>();
+
+    protected LocalRepositoryMetrics() {
+    }
+
+    /**
+     * Returns the total size of the local repository.
+     *
+     * @return a positive integer
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of files stored in the local repository.
+     *
+     * @return a positive integer
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * Returns the number of artifacts (group, artifact, version) stored in the local repository.
+     *
+     * @return a positive integer
+     */
+    public int getArtifactCount() {
+        return artifactCount;
+    }
+
+    /**
+     * Returns the number of files which belong to snapshots builds superseded by a newer timestamp.
+     *
+     * @return a positive integer
+     */
+    public int getStaleSnapshotCount() {
+        return staleSnapshotCount;
+    }
+
+    /**
+     * Returns the size of files which belong to snapshots builds superseded by a newer timestamp.
+     *
+     * @return a positive integer
+     */
+    public long getStaleSnapshotSize() {
+        return staleSnapshotSize;
+    }
+
+    /**
+     * Returns the number of <code>_remote.repositories</code> files.
+     *
+     * @return a positive integer
+     */
+    public int getRemoteRepositoriesCount() {
+        return remoteRepositoriesCount;
+    }
+
+    /**
+     * Returns the number of <code>_remote.repositories</code> files changed since the session started.
+     *
+     * @return a positive integer
+     */
+    public int getRemoteRepositoriesChanged() {
+        return remoteRepositoriesChanged;
+    }
+
+    /**
+     * Returns the number of <code>*.lastUpdated</code> files (failed or pending resolutions).
+     *
+     * @return a positive integer
+     */
+    public int getLastUpdatedCount() {
+        return lastUpdatedCount;
+    }
+
+    /**
+     * Returns the number of artifacts (group, artifact) with more than one version.
+     *
+     * @return a positive integer
+     */
+    public int getMultipleVersionsCount() {
+        return multipleVersionsCount;
+    }
+
+    /**
+     * Returns the size of artifacts (group, artifact) with more than one version.
+     *
+     * @return a positive integer
+     */
+    public long getMultipleVersionsSize() {
+        return multipleVersionsSize;
+    }
+
+    /**
+     * Returns the number of artifacts (group, artifact, version) never used by the session.
+     *
+     * @return a positive integer
+     */
+    public int getUntouchedCount() {
+        return untouchedCount;
+    }
+
+    /**
+     * Returns the size of artifacts (group, artifact, version) never used by the session.
+     *
+     * @return a positive integer
+     */
+    public long getUntouchedSize() {
+        return untouchedSize;
+    }
+
+    /**
+     * Returns how long it took to analyze the local repository.
+     *
+     * @return a non-null instance
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the largest artifacts (group, artifact) with more than one version.
+     *
+     * @return a non-null instance
+     */
+    public Collection<Entry> getMultipleVersions() {
+        return unmodifiableCollection(multipleVersions);
+    }
+
+    /**
+     * Returns the largest artifacts (group, artifact, version) never used by the session.
+     *
+     * @return a non-null instance
+     */
+    public Collection<Entry> getUntouched() {
+        return unmodifiableCollection(untouched);
+    }
+
+    LocalRepositoryMetrics setSize(long size, int fileCount, int artifactCount) {
+        this.size = size;
+        this.fileCount = fileCount;
+        this.artifactCount = artifactCount;
+        return this;
+    }
+
+    LocalRepositoryMetrics setStaleSnapshots(int count, long size) {
+        this.staleSnapshotCount = count;
+        this.staleSnapshotSize = size;
+        return this;
+    }
+
+    LocalRepositoryMetrics setRemoteRepositories(int count, int changed, int lastUpdatedCount) {
+        this.remoteRepositoriesCount = count;
+        this.remoteRepositoriesChanged = changed;
+        this.lastUpdatedCount = lastUpdatedCount;
+        return this;
+    }
+
+    LocalRepositoryMetrics setMultipleVersions(int count, long size, Collection<Entry> entries) {
+        requireNonNull(entries);
+        this.multipleVersionsCount = count;
+        this.multipleVersionsSize = size;
+        this.multipleVersions.addAll(entries);
+        return this;
+    }
+
+    LocalRepositoryMetrics setUntouched(int count, long size, Collection<Entry> entries) {
+        requireNonNull(entries);
+        this.untouchedCount = count;
+        this.untouchedSize = size;
+        this.untouched.addAll(entries);
+        return this;
+    }
+
+    LocalRepositoryMetrics setDuration(Duration duration) {
+        requireNonNull(duration);
+        this.duration = duration;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", LocalRepositoryMetrics.class.getSimpleName() + "[", "]")
+                .add("size=" + size)
+                .add("fileCount=" + fileCount)
+                .add("artifactCount=" + artifactCount)
+                .add("staleSnapshotCount=" + staleSnapshotCount)
+                .add("staleSnapshotSize=" + staleSnapshotSize)
+                .add("remoteRepositoriesCount=" + remoteRepositoriesCount)
+                .add("remoteRepositoriesChanged=" + remoteRepositoriesChanged)
+                .add("lastUpdatedCount=" + lastUpdatedCount)
+                .add("multipleVersionsCount=" + multipleVersionsCount)
+                .add("untouchedCount=" + untouchedCount)
+                .add("duration=" + duration)
+                .toString();
+    }
+
+    /**
+     * Holds the versions and size of an artifact (group, artifact) stored in the local repository.
+     */
+    public static final class Entry {
+
+        private String groupId;
+        private String artifactId;
+        private final Collection<String> versions = new ArrayList<>();
+        private long size;
+
+        protected Entry() {
+        }
+
+        Entry(String groupId, String artifactId, Collection<String> versions, long size) {
+            requireNotEmpty(groupId);
+            requireNotEmpty(artifactId);
+            requireNonNull(versions);
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.versions.addAll(versions);
+            this.size = size;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public String getArtifactId() {
+            return artifactId;
+        }
+
+        public Collection<String> getVersions() {
+            return unmodifiableCollection(versions);
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getName() {
+            return groupId + ":" + artifactId;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Entry.class.getSimpleName() + "[", "]")
+                    .add("groupId='" + groupId + "'")
+                    .add("artifactId='" + artifactId + "'")
+                    .add("versions=" + versions)
+                    .add("size=" + size)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package net.microfalx.talos.model;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Detects statistically significant slowdowns of a session compared with a rolling baseline built from trends.
+ * <p>
+ * For each lifecycle, mojo, module and test module, the baseline is described by the median and the median absolute
+ * deviation (MAD) of the most recent builds. A duration is considered a regression when its robust z-score
+ * (<code>(duration - median) / (1.4826 * MAD)</code>) exceeds the threshold and the slowdown is relevant both in
+ * absolute and relative terms.
+ */
+public final class RegressionDetector {
+
+    private static final double MAD_SCALE = 1.4826;
+    private static final double MINIMUM_SCALE = 0.05;
+
+    static final int DEFAULT_BASELINE_SIZE = 10;
+    static final int DEFAULT_MINIMUM_SAMPLES = 5;
+    static final float DEFAULT_THRESHOLD = 3.5f;
+    static final float DEFAULT_MINIMUM_CHANGE = 0.1f;
+    static final Duration DEFAULT_MINIMUM_DURATION = ofSeconds(1);
+
+    private final SessionMetrics session;
+    private final Collection<TrendMetrics> trends = new ArrayList<>();
+
+    private int baselineSize = DEFAULT_BASELINE_SIZE;
+    private int minimumSamples = DEFAULT_MINIMUM_SAMPLES;
+    private float threshold = DEFAULT_THRESHOLD;
+    private float minimumChange = DEFAULT_MINIMUM_CHANGE;
+    private Duration minimumDuration = DEFAULT_MINIMUM_DURATION;
+
+    public static RegressionDetector create(SessionMetrics session) {
+        return new RegressionDetector(session);
+    }
+
+    private RegressionDetector(SessionMetrics session) {
+        requireNonNull(session);
+        this.session = session;
+        this.trends.addAll(session.getTrends());
+    }
+
+    /**
+     * Changes the maximum number of (most recent) trends used to build the baseline.
+     *
+     * @param baselineSize the number of trends
+     * @return self
+     */
+    public RegressionDetector setBaselineSize(int baselineSize) {
+        this.baselineSize = Math.max(1, baselineSize);
+        return this;
+    }
+
+    /**
+     * Changes the minimum number of samples required in the baseline before a regression can be reported.
+     *
+     * @param minimumSamples the number of samples
+     * @return self
+     */
+    public RegressionDetector setMinimumSamples(int minimumSamples) {
+        this.minimumSamples = Math.max(1, minimumSamples);
+        return this;
+    }
+
+    /**
+     * Changes the robust z-score above which a slowdown is considered significant.
+     *
+     * @param threshold the threshold
+     * @return self
+     */
+    public RegressionDetector setThreshold(float threshold) {
+        this.threshold = threshold;
+        return this;
+    }
+
+    /**
+     * Changes the minimum relative slowdown (0.1 means 10% slower) for a regression.
+     *
+     * @param minimumChange the minimum change
+     * @return self
+     */
+    public RegressionDetector setMinimumChange(float minimumChange) {
+        this.minimumChange = minimumChange;
+        return this;
+    }
+
+    /**
+     * Changes the minimum absolute slowdown for a regression.
+     *
+     * @param minimumDuration the minimum duration
+     * @return self
+     */
+    public RegressionDetector setMinimumDuration(Duration minimumDuration) {
+        requireNonNull(minimumDuration);
+        this.minimumDuration = minimumDuration;
+        return this;
+    }
+
+    /**
+     * Compares the session with the baseline and returns the regressions, the largest slowdown first.
+     *
+     * @return a non-null instance
+     */
+    public Collection<RegressionMetrics> detect() {
+        List<TrendMetrics> baseline = getBaseline();
+        if (baseline.size() < minimumSamples) return Collections.emptyList();
+        List<RegressionMetrics> regressions = new ArrayList<>();
+        detect(regressions, RegressionMetrics.Type.LIFECYCLE, baseline, RegressionDetector::getLifecycles);
+        detect(regressions, RegressionMetrics.Type.MOJO, baseline, RegressionDetector::getMojos);
+        detect(regressions, RegressionMetrics.Type.MODULE, baseline, RegressionDetector::getModules);
+        detect(regressions, RegressionMetrics.Type.TESTS, baseline, RegressionDetector::getTests);
+        regressions.sort(Comparator.comparing(RegressionMetrics::getIncrease).reversed());
+        return regressions;
+    }
+
+    private void detect(Collection<RegressionMetrics> regressions, RegressionMetrics.Type type, List<TrendMetrics> baseline,
+                        Function<AbstractSessionMetrics<?>, Map<String, Sample>> extractor) {
+        Map<String, Sample> current = extractor.apply(session);
+        Map<String, List<Long>> history = new HashMap<>();
+        for (TrendMetrics trend : baseline) {
+            for (Map.Entry<String, Sample> entry : extractor.apply(trend).entrySet()) {
+                history.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry.getValue().duration);
+            }
+        }
+        for (Map.Entry<String, Sample> entry : current.entrySet()) {
+            List<Long> values = history.get(entry.getKey());
+            if (values == null || values.size() < minimumSamples) continue;
+            long[] samples = values.stream().mapToLong(Long::longValue).toArray();
+            Sample sample = entry.getValue();
+            RegressionMetrics regression = evaluate(type, entry.getKey(), sample.name, sample.duration, samples,
+                    threshold, minimumChange, minimumDuration);
+            if (regression != null) regressions.add(regression);
+        }
+    }
+
+    /**
+     * Compares a duration with the baseline samples.
+     *
+     * @return the regression, null if the duration is not a significant slowdown
+     */
+    static RegressionMetrics evaluate(RegressionMetrics.Type type, String id, String name, long duration, long[] samples,
+                                      float threshold, float minimumChange, Duration minimumDuration) {
+        long median = median(samples);
+        long[] deviations = new long[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            deviations[i] = Math.abs(samples[i] - median);
+        }
+        long mad = median(deviations);
+        double scale = Math.max(Math.max(MAD_SCALE * mad, MINIMUM_SCALE * median), 1);
+        long increase = duration - median;
+        double score = increase / scale;
+        if (score < threshold) return null;
+        if (increase < minimumDuration.toMillis()) return null;
+        if (median > 0 && (double) increase / median < minimumChange) return null;
+        return new RegressionMetrics(type, id, name, ofMillis(duration), ofMillis(median), ofMillis(mad),
+                (float) score, samples.length);
+    }
+
+    private List<TrendMetrics> getBaseline() {
+        ZonedDateTime startTime = session.getStartTime();
+        return trends.stream().filter(t -> t.getStartTime() != null)
+                .filter(t -> startTime == null || t.getStartTime().isBefore(startTime))
+                .sorted(Comparator.comparing(TrendMetrics::getStartTime).reversed())
+                .limit(baselineSize).collect(Collectors.toList());
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    private static Map<String, Sample> getLifecycles(AbstractSessionMetrics<?> metrics) {
+        Map<String, Sample> samples = new HashMap<>();
+        for (LifecycleMetrics lifecycle : metrics.getLifecycles()) {
+            samples.put(lifecycle.getId(), new Sample(lifecycle.getName(), lifecycle.getActiveDuration()));
+        }
+        return samples;
+    }
+
+    private static Map<String, Sample> getMojos(AbstractSessionMetrics<?> metrics) {
+        Map<String, Sample> samples = new HashMap<>();
+        for (MojoMetrics mojo : metrics.getMojos()) {
+            samples.put(mojo.getId(), new Sample(mojo.getName(), mojo.getActiveDuration()));
+        }
+        return samples;
+    }
+
+    private static Map<String, Sample> getModules(AbstractSessionMetrics<?> metrics) {
+        Map<String, Sample> samples = new HashMap<>();
+        for (ProjectMetrics module : metrics.getModules()) {
+            if (module.getStartTime() == null) continue;
+            samples.put(module.getId(), new Sample(module.getName(), module.getDuration()));
+        }
+        return samples;
+    }
+
+    private static Map<String, Sample> getTests(AbstractSessionMetrics<?> metrics) {
+        Collection<TestSummaryMetrics> tests;
+        if (metrics instanceof SessionMetrics) {
+            tests = TestSummaryMetrics.from(((SessionMetrics) metrics).getTestStore());
+        } else if (metrics instanceof TrendMetrics) {
+            tests = ((TrendMetrics) metrics).getTests();
+        } else {
+            tests = Collections.emptyList();
+        }
+        Map<String, Sample> samples = new HashMap<>();
+        for (TestSummaryMetrics test : tests) {
+            samples.put(test.getModuleId(), new Sample(test.getName(), test.getDuration()));
+        }
+        return samples;
+    }
+
+    private static class Sample {
+
+        private final String name;
+        private final long duration;
+
+        private Sample(String name, Duration duration) {
+            this.name = name;
+            this.duration = duration.toMillis();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package net.microfalx.talos.model;
+
+import net.microfalx.lang.NamedIdentityAware;
+
+import java.time.Duration;
+import java.util.StringJoiner;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
+import static net.microfalx.lang.StringUtils.toIdentifier;
+
+/**
+ * Holds a (statistically significant) slowdown of a lifecycle, mojo, module or tests compared with the trend baseline.
+ */
+public final class RegressionMetrics extends NamedIdentityAware<String> {
+
+    private Type type;
+    private Duration duration;
+    private Duration median;
+    private Duration deviation;
+    private float score;
+    private int samples;
+
+    protected RegressionMetrics() {
+    }
+
+    RegressionMetrics(Type type, String id, String name, Duration duration, Duration median, Duration deviation,
+                      float score, int samples) {
+        requireNonNull(type);
+        requireNotEmpty(id);
+        requireNonNull(duration);
+        requireNonNull(median);
+        requireNonNull(deviation);
+        setId(toIdentifier(type.name(), id));
+        setName(name);
+        this.type = type;
+        this.duration = duration;
+        this.median = median;
+        this.deviation = deviation;
+        this.score = score;
+        this.samples = samples;
+    }
+
+    /**
+     * Returns the type of the metric which regressed.
+     *
+     * @return a non-null instance
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the duration in the current session.
+     *
+     * @return a non-null instance
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the median duration of the baseline.
+     *
+     * @return a non-null instance
+     */
+    public Duration getMedian() {
+        return median;
+    }
+
+    /**
+     * Returns the median absolute deviation (MAD) of the baseline.
+     *
+     * @return a non-null instance
+     */
+    public Duration getDeviation() {
+        return deviation;
+    }
+
+    /**
+     * Returns the difference between the current duration and the median of the baseline.
+     *
+     * @return a non-null instance
+     */
+    public Duration getIncrease() {
+        return duration.minus(median);
+    }
+
+    /**
+     * Returns the relative change compared with the median of the baseline.
+     *
+     * @return the change, 0.5 means 50% slower
+     */
+    public float getChange() {
+        long median = this.median.toMillis();
+        return median == 0 ? 0 : (float) (duration.toMillis() - median) / median;
+    }
+
+    /**
+     * Returns the robust z-score (number of scaled MADs above the median).
+     *
+     * @return a positive number
+     */
+    public float getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the number of builds in the baseline.
+     *
+     * @return a positive integer
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", RegressionMetrics.class.getSimpleName() + "[", "]")
+                .add("type=" + type)
+                .add("name=" + getName())
+                .add("duration=" + duration)
+                .add("median=" + median)
+                .add("deviation=" + deviation)
+                .add("score=" + score)
+                .add("samples=" + samples)
+                .toString();
+    }
+
+    public enum Type {
+        LIFECYCLE,
+        MOJO,
+        MODULE,
+        TESTS,
+        SESSION
+    }
+}
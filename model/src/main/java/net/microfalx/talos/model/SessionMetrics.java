@@ -10,6 +10,8 @@ import org.apache.maven.execution.MavenSession;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.unmodifiableCollection;
@@ -29,6 +31,20 @@ public class SessionMetrics extends AbstractSessionMetrics<SessionMetrics> {
     private final Collection<TrendMetrics> trends = new ArrayList<>();
     @VersionFieldSerializer.Since(2)
     private final Collection<LifecycleMetrics> extensionEvents = new ArrayList<>();
+    @VersionFieldSerializer.Since(3)
+    private LocalRepositoryMetrics localRepositoryMetrics;
+    @VersionFieldSerializer.Since(3)
+    private CacheMetrics cacheMetrics;
+    @VersionFieldSerializer.Since(3)
+    private final Collection<RegressionMetrics> regressions = new ArrayList<>();
+    @VersionFieldSerializer.Since(3)
+    private final Collection<TestTrendMetrics> growingTests = new ArrayList<>();
+    @VersionFieldSerializer.Since(3)
+    private final Collection<TestTrendMetrics> variableTests = new ArrayList<>();
+    @VersionFieldSerializer.Since(3)
+    private final Map<String, String> failureDetails = new HashMap<>();
+    @VersionFieldSerializer.Since(3)
+    private TestStore testStore;
 
     private VirtualMachine virtualMachine;
     private final Map<String, String> systemProperties = new HashMap<>();
@@ -38,7 +54,9 @@ public class SessionMetrics extends AbstractSessionMetrics<SessionMetrics> {
     private SeriesStore serverMetrics = SeriesStore.memory();
 
     private String logs;
-    private transient boolean testsUpdated;
+    @VersionFieldSerializer.Since(3)
+    private String logFileName;
+    private transient Resource logResource;
 
     public static SessionMetrics load(Resource resource) throws IOException {
         return AbstractSessionMetrics.load(resource, SessionMetrics.class);
@@ -101,17 +119,86 @@ public class SessionMetrics extends AbstractSessionMetrics<SessionMetrics> {
         this.trends.addAll(trends);
     }
 
+    /**
+     * Returns all tests.
+     * <p>
+     * A new instance is created for each test, use {@link #visitTests(Consumer)} or {@link #getTestStore()} to
+     * iterate over large number of tests.
+     *
+     * @return a non-null instance
+     */
     public Collection<TestMetrics> getTests() {
-        if (!testsUpdated) {
-            tests.forEach(this::updateTestMetrics);
-            testsUpdated = true;
-        }
+        return getTests(test -> true);
+    }
+
+    /**
+     * Returns the tests which match a predicate.
+     *
+     * @param predicate the predicate, which receives a reused instance
+     * @return a non-null instance
+     * @see TestStore#filter(Predicate)
+     */
+    public Collection<TestMetrics> getTests(Predicate<TestMetrics> predicate) {
+        List<TestMetrics> tests = getTestStore().filter(predicate);
+        tests.forEach(this::updateTestMetrics);
         return unmodifiableCollection(tests);
     }
 
+    /**
+     * Visits all tests with a reused instance (flyweight).
+     *
+     * @param consumer the consumer
+     * @see TestStore#visit(Consumer)
+     */
+    public void visitTests(Consumer<TestMetrics> consumer) {
+        requireNonNull(consumer);
+        getTestStore().visit(test -> {
+            updateTestMetrics(test);
+            consumer.accept(test);
+        });
+    }
+
+    /**
+     * Returns the number of tests.
+     *
+     * @return a positive integer
+     */
+    public int getTestCount() {
+        return getTestStore().size();
+    }
+
+    /**
+     * Returns the (columnar) store which holds the tests.
+     *
+     * @return a non-null instance
+     */
+    public synchronized TestStore getTestStore() {
+        if (testStore == null) {
+            testStore = TestStore.create();
+            // sessions stored before the columnar store was available
+            testStore.addAll(tests);
+            tests.clear();
+        }
+        return testStore;
+    }
+
     public void setTests(Collection<TestMetrics> tests) {
         requireNonNull(tests);
-        this.tests.addAll(tests);
+        getTestStore().addAll(tests);
+    }
+
+    /**
+     * Returns the unique failure details (stack traces) of tests, shared by tests with the same failure.
+     *
+     * @return a non-null instance
+     */
+    public Map<String, String> getFailureDetails() {
+        return unmodifiableMap(failureDetails);
+    }
+
+    public void setFailureDetails(Map<String, String> failureDetails) {
+        requireNonNull(failureDetails);
+        this.failureDetails.putAll(failureDetails);
     }
 
     public Collection<LifecycleMetrics> getExtensionEvents() {
@@ -139,6 +226,49 @@ public class SessionMetrics extends AbstractSessionMetrics<SessionMetrics> {
         this.server = server;
     }
 
+    public LocalRepositoryMetrics getLocalRepositoryMetrics() {
+        return localRepositoryMetrics;
+    }
+
+    public void setLocalRepositoryMetrics(LocalRepositoryMetrics localRepositoryMetrics) {
+        this.localRepositoryMetrics = localRepositoryMetrics;
+    }
+
+    public CacheMetrics getCacheMetrics() {
+        return cacheMetrics;
+    }
+
+    public void setCacheMetrics(CacheMetrics cacheMetrics) {
+        this.cacheMetrics = cacheMetrics;
+    }
+
+    public Collection<RegressionMetrics> getRegressions() {
+        return unmodifiableCollection(regressions);
+    }
+
+    public void setRegressions(Collection<RegressionMetrics> regressions) {
+        requireNonNull(regressions);
+        this.regressions.addAll(regressions);
+    }
+
+    public Collection<TestTrendMetrics> getGrowingTests() {
+        return unmodifiableCollection(growingTests);
+    }
+
+    public void setGrowingTests(Collection<TestTrendMetrics> growingTests) {
+        requireNonNull(growingTests);
+        this.growingTests.addAll(growingTests);
+    }
+
+    public Collection<TestTrendMetrics> getVariableTests() {
+        return unmodifiableCollection(variableTests);
+    }
+
+    public void setVariableTests(Collection<TestTrendMetrics> variableTests) {
+        requireNonNull(variableTests);
+        this.variableTests.addAll(variableTests);
+    }
+
     public Map<String, String> getSystemProperties() {
         return unmodifiableMap(systemProperties);
     }
@@ -174,10 +304,50 @@ public class SessionMetrics extends AbstractSessionMetrics<SessionMetrics> {
         this.logs = logs;
     }
 
+    /**
+     * Returns whether the session has logs, embedded (older sessions) or stored as a separate log file.
+     *
+     * @return {@code true} if logs are available, {@code false} otherwise
+     */
+    public boolean hasLogs() {
+        return (logs != null && !logs.isEmpty()) || logResource != null;
+    }
+
+    /**
+     * Returns the name of the log file stored next to the session data.
+     *
+     * @return the file name, null if the logs are not stored separately
+     */
+    public String getLogFileName() {
+        return logFileName;
+    }
+
+    /**
+     * Returns the resource which holds the logs.
+     * <p>
+     * The logs are stored as a {@link net.microfalx.talos.core.LogFile} next to the session data and they are not
+     * serialized with the session; after a session is loaded, the resource needs to be attached again
+     * (see {@link #getLogFileName()}).
+     *
+     * @return the resource, null if not available
+     */
+    public Resource getLogResource() {
+        return logResource;
+    }
+
+    public void setLogResource(Resource logResource) {
+        requireNonNull(logResource);
+        this.logResource = logResource;
+        this.logFileName = logResource.getFileName();
+    }
+
     private void updateTestMetrics(TestMetrics test) {
         if (test.getModuleId() != null && test.getModule() == null) {
             test.module = getModule(test.getModuleId());
         }
+        if (test.failureDetailId != null && test.sharedFailureDetail == null) {
+            test.sharedFailureDetail = failureDetails.get(test.failureDetailId);
+        }
     }
 
     @Override
@@ -187,7 +357,7 @@ public class SessionMetrics extends AbstractSessionMetrics<SessionMetrics> {
                 .add("artifacts=" + artifacts.size())
                 .add("dependencies=" + dependencies.size())
                 .add("plugins=" + plugins.size())
-                .add("log='" + (logs != null ? logs.length() : NA_STRING) + "'")
+                .add("log='" + (logs != null ? logs.length() : logFileName != null ? logFileName : NA_STRING) + "'")
                 .toString();
     }
 
@@ -0,0 +1,145 @@
+package net.microfalx.talos.model;
+
+import java.time.Duration;
+import java.util.*;
+
+import static java.time.Duration.ofMillis;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Distributes test classes into a number of shards (forks or CI jobs) with similar durations.
+ * <p>
+ * The assignment uses the <i>Longest Processing Time</i> heuristic: classes are sorted by their (historical)
+ * duration, the longest first, and each class is assigned to the shard with the smallest total duration.
+ * Classes without history are assumed to take the median duration of the known classes.
+ */
+public final class TestBalancer {
+
+    private static final float DEFAULT_DURATION = 1;
+
+    private final int shardCount;
+    private final Map<String, Float> durations = new HashMap<>();
+    private final Set<String> unknown = new HashSet<>();
+
+    public static TestBalancer create(int shardCount) {
+        return new TestBalancer(shardCount);
+    }
+
+    private TestBalancer(int shardCount) {
+        this.shardCount = Math.max(1, shardCount);
+    }
+
+    /**
+     * Registers a test class with a known duration.
+     *
+     * @param className the class name
+     * @param duration  the duration in seconds
+     * @return self
+     */
+    public TestBalancer add(String className, float duration) {
+        requireNonNull(className);
+        durations.put(className, Math.max(0, duration));
+        unknown.remove(className);
+        return this;
+    }
+
+    /**
+     * Registers a test class without history.
+     *
+     * @param className the class name
+     * @return self
+     */
+    public TestBalancer add(String className) {
+        requireNonNull(className);
+        if (!durations.containsKey(className)) unknown.add(className);
+        return this;
+    }
+
+    /**
+     * Assigns the registered test classes to shards.
+     *
+     * @return a non-null instance, with exactly one entry per shard
+     */
+    public List<Shard> balance() {
+        float defaultDuration = getMedian();
+        List<Map.Entry<String, Float>> classes = new ArrayList<>(durations.entrySet());
+        for (String className : unknown) {
+            classes.add(new AbstractMap.SimpleEntry<>(className, defaultDuration));
+        }
+        classes.sort(Map.Entry.<String, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<Shard> shards = new ArrayList<>(shardCount);
+        PriorityQueue<Shard> queue = new PriorityQueue<>(Comparator.comparingDouble((Shard s) -> s.duration)
+                .thenComparingInt(s -> s.index));
+        for (int i = 0; i < shardCount; i++) {
+            Shard shard = new Shard(i);
+            shards.add(shard);
+            queue.add(shard);
+        }
+        for (Map.Entry<String, Float> entry : classes) {
+            Shard shard = queue.poll();
+            shard.classes.add(entry.getKey());
+            shard.duration += entry.getValue();
+            queue.add(shard);
+        }
+        return shards;
+    }
+
+    private float getMedian() {
+        if (durations.isEmpty()) return DEFAULT_DURATION;
+        float[] values = new float[durations.size()];
+        int index = 0;
+        for (Float duration : durations.values()) values[index++] = duration;
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    /**
+     * Holds the test classes assigned to a shard.
+     */
+    public static final class Shard {
+
+        private final int index;
+        private final List<String> classes = new ArrayList<>();
+        private float duration;
+
+        private Shard(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Returns the index of the shard, starting with 0.
+         *
+         * @return a positive integer
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the test classes assigned to the shard.
+         *
+         * @return a non-null instance
+         */
+        public List<String> getClasses() {
+            return Collections.unmodifiableList(classes);
+        }
+
+        /**
+         * Returns the estimated duration of the shard.
+         *
+         * @return a non-null instance
+         */
+        public Duration getDuration() {
+            return ofMillis((long) (duration * 1000));
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Shard.class.getSimpleName() + "[", "]")
+                    .add("index=" + index)
+                    .add("classes=" + classes.size())
+                    .add("duration=" + duration)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package net.microfalx.talos.model;
+
+import net.microfalx.lang.Hashing;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Deduplicates and bounds the failure details (stack traces) of tests.
+ * <p>
+ * Stack traces are normalized (framework frames are collapsed) and stored once, keyed by a hash which ignores
+ * volatile parts (object identities, lambda names). Full details are kept for the first unique failures, within a
+ * byte budget; the remaining failures keep only the first line of the stack trace. Messages, types and error lines
+ * are interned, so identical failures share the same strings.
+ */
+public final class TestFailures {
+
+    private static final String[] FRAMEWORK_FRAMES = {
+            "at org.junit.", "at junit.framework.", "at org.testng.", "at org.apache.maven.surefire.",
+            "at jdk.internal.reflect.", "at java.base/jdk.internal.reflect.", "at sun.reflect.",
+            "at java.lang.reflect.Method.", "at java.base/java.lang.reflect.Method.",
+            "at java.util.ArrayList.forEach", "at java.base/java.util.ArrayList.forEach",
+            "at java.util.stream.", "at java.base/java.util.stream."
+    };
+    private static final String FRAMEWORK_FRAMES_LINE = "\t...";
+    private static final String OMITTED_LINE = "\n\t... (details omitted)";
+    private static final int MAXIMUM_SUMMARY_LENGTH = 512;
+
+    private static final Pattern IDENTITY_PATTERN = Pattern.compile("@[0-9a-f]{4,16}\\b");
+    private static final Pattern LAMBDA_PATTERN = Pattern.compile("\\$\\$Lambda\\$?[0-9]*/(0x)?[0-9a-f]+");
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, String> details = new HashMap<>();
+
+    private int maximumDetails = 100;
+    private long maximumSize = 1024 * 1024;
+    private int uniqueCount;
+    private long size;
+
+    public static TestFailures create() {
+        return new TestFailures();
+    }
+
+    private TestFailures() {
+    }
+
+    /**
+     * Changes the maximum number of unique failures which keep full details.
+     *
+     * @param maximumDetails the number of failures
+     * @return self
+     */
+    public TestFailures setMaximumDetails(int maximumDetails) {
+        this.maximumDetails = Math.max(0, maximumDetails);
+        return this;
+    }
+
+    /**
+     * Changes the maximum size (in characters) of all failure details which are kept.
+     *
+     * @param maximumSize the size
+     * @return self
+     */
+    public TestFailures setMaximumSize(long maximumSize) {
+        this.maximumSize = Math.max(0, maximumSize);
+        return this;
+    }
+
+    /**
+     * Returns the number of unique failures.
+     *
+     * @return a positive integer
+     */
+    public int getUniqueCount() {
+        return details.size();
+    }
+
+    /**
+     * Returns the total size of the failure details which are kept.
+     *
+     * @return a positive integer
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Deduplicates the failures of the given tests.
+     * <p>
+     * The details are removed from each test and replaced with a reference to a shared (unique) failure detail.
+     *
+     * @param tests the tests
+     * @return the unique failure details, indexed by identifier
+     */
+    public Map<String, String> process(Collection<TestMetrics> tests) {
+        requireNonNull(tests);
+        for (TestMetrics test : tests) {
+            test.setFailureMessage(intern(test.getFailureMessage()));
+            test.setFailureType(intern(test.getFailureType()));
+            test.setFailureErrorLine(intern(test.getFailureErrorLine()));
+            String detail = test.getFailureDetail();
+            if (detail == null) continue;
+            String normalizedDetail = normalize(detail);
+            String id = getId(normalizedDetail);
+            String sharedDetail = details.get(id);
+            if (sharedDetail == null) {
+                if (uniqueCount < maximumDetails && size + normalizedDetail.length() <= maximumSize) {
+                    sharedDetail = normalizedDetail;
+                    uniqueCount++;
+                } else {
+                    sharedDetail = summarize(normalizedDetail);
+                }
+                size += sharedDetail.length();
+                details.put(id, sharedDetail);
+            }
+            test.setFailureDetail(null);
+            test.failureDetailId = id;
+            test.sharedFailureDetail = sharedDetail;
+        }
+        return Collections.unmodifiableMap(details);
+    }
+
+    private String intern(String value) {
+        if (value == null) return null;
+        String existing = strings.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    private static String normalize(String detail) {
+        StringBuilder builder = new StringBuilder(detail.length());
+        boolean collapsed = false;
+        for (String line : detail.split("\\r?\\n")) {
+            String trimmedLine = line.trim();
+            if (trimmedLine.isEmpty()) continue;
+            if (isFrameworkFrame(trimmedLine)) {
+                if (!collapsed) appendLine(builder, FRAMEWORK_FRAMES_LINE);
+                collapsed = true;
+            } else {
+                appendLine(builder, stripTrailing(line));
+                collapsed = false;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String summarize(String detail) {
+        int index = detail.indexOf('\n');
+        String firstLine = index == -1 ? detail : detail.substring(0, index);
+        if (firstLine.length() > MAXIMUM_SUMMARY_LENGTH) firstLine = firstLine.substring(0, MAXIMUM_SUMMARY_LENGTH);
+        return firstLine + OMITTED_LINE;
+    }
+
+    private static String getId(String detail) {
+        String key = IDENTITY_PATTERN.matcher(detail).replaceAll("@");
+        key = LAMBDA_PATTERN.matcher(key).replaceAll("\\$\\$Lambda");
+        Hashing hashing = Hashing.create();
+        hashing.update(key);
+        return hashing.asString();
+    }
+
+    private static boolean isFrameworkFrame(String line) {
+        for (String frame : FRAMEWORK_FRAMES) {
+            if (line.startsWith(frame)) return true;
+        }
+        return false;
+    }
+
+    private static void appendLine(StringBuilder builder, String line) {
+        if (builder.length() > 0) builder.append('\n');
+        builder.append(line);
+    }
+
+    private static String stripTrailing(String line) {
+        int end = line.length();
+        while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) end--;
+        return line.substring(0, end);
+    }
+}
@@ -0,0 +1,366 @@
+package net.microfalx.talos.model;
+
+import net.microfalx.lang.IOUtils;
+
+import java.io.*;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Holds the duration and outcome of individual tests across builds.
+ * <p>
+ * Test identifiers (module, class and name) are interned into a dictionary and each build keeps its tests as
+ * primitive arrays (dictionary index, duration and outcome), which keeps the history compact even for projects
+ * with tens of thousands of tests.
+ */
+public final class TestHistory {
+
+    public static final byte PASSED = 0;
+    public static final byte FAILURE = 1;
+    public static final byte ERROR = 2;
+    public static final byte SKIPPED = 3;
+
+    private static final int MAGIC = 0x54484953;
+    private static final int VERSION = 1;
+    private static final char SEPARATOR = '\u0000';
+    private static final int MAXIMUM_NAME_LENGTH = 4096;
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<Build> builds = new ArrayList<>();
+
+    private int minimumSamples = 3;
+    private float minimumDuration = 0.05f;
+
+    public static TestHistory create() {
+        return new TestHistory();
+    }
+
+    public static TestHistory load(InputStream inputStream) throws IOException {
+        requireNonNull(inputStream);
+        TestHistory history = new TestHistory();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(IOUtils.getComporessedInputStream(inputStream)))) {
+            if (input.readInt() != MAGIC) throw new IOException("Invalid test history");
+            int version = input.readInt();
+            if (version != VERSION) throw new IOException("Unsupported test history version " + version);
+            int dictionarySize = input.readInt();
+            for (int i = 0; i < dictionarySize; i++) {
+                history.intern(input.readUTF());
+            }
+            int buildCount = input.readInt();
+            for (int i = 0; i < buildCount; i++) {
+                long timestamp = input.readLong();
+                int count = input.readInt();
+                Build build = new Build(timestamp, count);
+                for (int j = 0; j < count; j++) build.tests[j] = input.readInt();
+                for (int j = 0; j < count; j++) build.durations[j] = input.readFloat();
+                input.readFully(build.outcomes);
+                history.builds.add(build);
+            }
+        }
+        return history;
+    }
+
+    private TestHistory() {
+    }
+
+    /**
+     * Returns the number of builds in the history.
+     *
+     * @return a positive integer
+     */
+    public int getBuildCount() {
+        return builds.size();
+    }
+
+    /**
+     * Returns the number of distinct tests in the history.
+     *
+     * @return a positive integer
+     */
+    public int getTestCount() {
+        return dictionary.size();
+    }
+
+    /**
+     * Changes the minimum number of builds which executed a test before the test is analyzed.
+     *
+     * @param minimumSamples the minimum number of samples
+     * @return self
+     */
+    public TestHistory setMinimumSamples(int minimumSamples) {
+        this.minimumSamples = Math.max(2, minimumSamples);
+        return this;
+    }
+
+    /**
+     * Changes the minimum average duration (in seconds) of a test to be considered variable.
+     *
+     * @param minimumDuration the minimum duration in seconds
+     * @return self
+     */
+    public TestHistory setMinimumDuration(float minimumDuration) {
+        this.minimumDuration = minimumDuration;
+        return this;
+    }
+
+    /**
+     * Registers the tests of a build.
+     *
+     * @param timestamp the start time of the build
+     * @param tests     the tests
+     * @return self
+     */
+    public TestHistory add(ZonedDateTime timestamp, Collection<TestMetrics> tests) {
+        requireNonNull(timestamp);
+        requireNonNull(tests);
+        Build build = new Build(timestamp.toInstant().toEpochMilli(), tests.size());
+        int index = 0;
+        for (TestMetrics test : tests) {
+            build.tests[index] = intern(getKey(test.getModuleId(), test.getClassName(), test.getName()));
+            build.durations[index] = test.getTime();
+            build.outcomes[index] = getOutcome(test.isSkipped(), test.isError(), test.isFailure());
+            index++;
+        }
+        builds.add(build);
+        builds.sort(Comparator.comparingLong(b -> b.timestamp));
+        return this;
+    }
+
+    /**
+     * Registers the tests of a build.
+     *
+     * @param timestamp the start time of the build
+     * @param store     the tests
+     * @return self
+     */
+    public TestHistory add(ZonedDateTime timestamp, TestStore store) {
+        requireNonNull(timestamp);
+        requireNonNull(store);
+        Build build = new Build(timestamp.toInstant().toEpochMilli(), store.size());
+        for (int index = 0; index < store.size(); index++) {
+            build.tests[index] = intern(getKey(store.getModuleId(index), store.getClassName(index), store.getName(index)));
+            build.durations[index] = store.getTime(index);
+            build.outcomes[index] = getOutcome(store.isSkipped(index), store.isError(index), store.isFailure(index));
+        }
+        builds.add(build);
+        builds.sort(Comparator.comparingLong(b -> b.timestamp));
+        return this;
+    }
+
+    /**
+     * Removes builds older than a given timestamp and tests which are not referenced anymore.
+     *
+     * @param oldest the timestamp of the oldest build to keep
+     * @return self
+     */
+    public TestHistory retain(ZonedDateTime oldest) {
+        requireNonNull(oldest);
+        long timestamp = oldest.toInstant().toEpochMilli();
+        builds.removeIf(build -> build.timestamp < timestamp);
+        compact();
+        return this;
+    }
+
+    /**
+     * Returns the tests with the largest growth of duration over the history window.
+     *
+     * @param limit the maximum number of tests
+     * @return a non-null instance
+     */
+    public List<TestTrendMetrics> getGrowing(int limit) {
+        List<TestTrendMetrics> tests = new ArrayList<>(analyze());
+        tests.removeIf(t -> t.getGrowth().toMillis() <= 0);
+        tests.sort(Comparator.comparing(TestTrendMetrics::getGrowthSeconds).reversed());
+        return tests.subList(0, Math.min(limit, tests.size()));
+    }
+
+    /**
+     * Returns the tests with the most variable duration (largest standard deviation).
+     *
+     * @param limit the maximum number of tests
+     * @return a non-null instance
+     */
+    public List<TestTrendMetrics> getVariable(int limit) {
+        List<TestTrendMetrics> tests = new ArrayList<>(analyze());
+        tests.removeIf(t -> t.getAverage().toMillis() < minimumDuration * 1000 || t.getDeviation().toMillis() <= 0);
+        tests.sort(Comparator.comparing(TestTrendMetrics::getDeviationSeconds).reversed());
+        return tests.subList(0, Math.min(limit, tests.size()));
+    }
+
+    /**
+     * Returns the average duration (in seconds) of each test class of a module, across the builds which executed
+     * the class.
+     *
+     * @param moduleId the module identifier
+     * @return a non-null instance
+     */
+    public Map<String, Float> getClassDurations(String moduleId) {
+        requireNonNull(moduleId);
+        String prefix = moduleId + SEPARATOR;
+        Map<String, float[]> totals = new HashMap<>();
+        for (Build build : builds) {
+            Map<String, Float> classes = new HashMap<>();
+            for (int i = 0; i < build.tests.length; i++) {
+                if (build.outcomes[i] == SKIPPED) continue;
+                String key = dictionary.get(build.tests[i]);
+                if (!key.startsWith(prefix)) continue;
+                String className = key.substring(prefix.length(), key.indexOf(SEPARATOR, prefix.length()));
+                classes.merge(className, build.durations[i], Float::sum);
+            }
+            for (Map.Entry<String, Float> entry : classes.entrySet()) {
+                float[] total = totals.computeIfAbsent(entry.getKey(), k -> new float[2]);
+                total[0] += entry.getValue();
+                total[1]++;
+            }
+        }
+        Map<String, Float> durations = new HashMap<>();
+        for (Map.Entry<String, float[]> entry : totals.entrySet()) {
+            durations.put(entry.getKey(), entry.getValue()[0] / entry.getValue()[1]);
+        }
+        return durations;
+    }
+
+    /**
+     * Returns the timestamp of the oldest build.
+     *
+     * @return the timestamp, null if there are no builds
+     */
+    public Instant getOldest() {
+        return builds.isEmpty() ? null : Instant.ofEpochMilli(builds.get(0).timestamp);
+    }
+
+    public void store(OutputStream outputStream) throws IOException {
+        requireNonNull(outputStream);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(IOUtils.getCompressedOutputStream(outputStream)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(dictionary.size());
+            for (String key : dictionary) {
+                output.writeUTF(key);
+            }
+            output.writeInt(builds.size());
+            for (Build build : builds) {
+                output.writeLong(build.timestamp);
+                output.writeInt(build.tests.length);
+                for (int test : build.tests) output.writeInt(test);
+                for (float duration : build.durations) output.writeFloat(duration);
+                output.write(build.outcomes);
+            }
+        }
+    }
+
+    private Collection<TestTrendMetrics> analyze() {
+        int size = dictionary.size();
+        int[] count = new int[size];
+        int[] firstBuild = new int[size];
+        int[] lastBuild = new int[size];
+        float[] first = new float[size];
+        float[] last = new float[size];
+        double[] sumX = new double[size];
+        double[] sumY = new double[size];
+        double[] sumXY = new double[size];
+        double[] sumXX = new double[size];
+        double[] sumYY = new double[size];
+        for (int x = 0; x < builds.size(); x++) {
+            Build build = builds.get(x);
+            for (int i = 0; i < build.tests.length; i++) {
+                if (build.outcomes[i] == SKIPPED) continue;
+                int test = build.tests[i];
+                float y = build.durations[i];
+                if (count[test] == 0) {
+                    firstBuild[test] = x;
+                    first[test] = y;
+                }
+                lastBuild[test] = x;
+                last[test] = y;
+                count[test]++;
+                sumX[test] += x;
+                sumY[test] += y;
+                sumXY[test] += x * y;
+                sumXX[test] += (double) x * x;
+                sumYY[test] += (double) y * y;
+            }
+        }
+        Collection<TestTrendMetrics> tests = new ArrayList<>();
+        for (int test = 0; test < size; test++) {
+            int n = count[test];
+            if (n < minimumSamples) continue;
+            double average = sumY[test] / n;
+            double variance = Math.max(0, sumYY[test] / n - average * average);
+            double denominator = n * sumXX[test] - sumX[test] * sumX[test];
+            double slope = denominator == 0 ? 0 : (n * sumXY[test] - sumX[test] * sumY[test]) / denominator;
+            double growth = slope * (lastBuild[test] - firstBuild[test]);
+            String[] parts = dictionary.get(test).split(String.valueOf(SEPARATOR), 3);
+            tests.add(new TestTrendMetrics(parts[0], parts[1], parts[2])
+                    .update(n, first[test], last[test], (float) average, (float) growth, (float) Math.sqrt(variance)));
+        }
+        return tests;
+    }
+
+    private void compact() {
+        boolean[] used = new boolean[dictionary.size()];
+        for (Build build : builds) {
+            for (int test : build.tests) used[test] = true;
+        }
+        int[] remap = new int[dictionary.size()];
+        List<String> keys = new ArrayList<>(dictionary);
+        dictionary.clear();
+        indexes.clear();
+        for (int i = 0; i < keys.size(); i++) {
+            remap[i] = used[i] ? intern(keys.get(i)) : -1;
+        }
+        for (Build build : builds) {
+            for (int i = 0; i < build.tests.length; i++) build.tests[i] = remap[build.tests[i]];
+        }
+    }
+
+    private int intern(String key) {
+        Integer index = indexes.get(key);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.add(key);
+            indexes.put(key, index);
+        }
+        return index;
+    }
+
+    private static String getKey(String moduleId, String className, String name) {
+        // each part is truncated on its own, so the key always holds both separators
+        return truncate(moduleId) + SEPARATOR + truncate(className) + SEPARATOR + truncate(name);
+    }
+
+    private static String truncate(String value) {
+        return value.length() > MAXIMUM_NAME_LENGTH ? value.substring(0, MAXIMUM_NAME_LENGTH) : value;
+    }
+
+    private static byte getOutcome(boolean skipped, boolean error, boolean failure) {
+        if (skipped) {
+            return SKIPPED;
+        } else if (error) {
+            return ERROR;
+        } else if (failure) {
+            return FAILURE;
+        } else {
+            return PASSED;
+        }
+    }
+
+    private static class Build {
+
+        private final long timestamp;
+        private final int[] tests;
+        private final float[] durations;
+        private final byte[] outcomes;
+
+        private Build(long timestamp, int count) {
+            this.timestamp = timestamp;
+            this.tests = new int[count];
+            this.durations = new float[count];
+            this.outcomes = new byte[count];
+        }
+    }
+}
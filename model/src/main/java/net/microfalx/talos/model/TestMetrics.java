@@ -1,5 +1,6 @@
 package net.microfalx.talos.model;
 
+import com.esotericsoftware.kryo.serializers.VersionFieldSerializer;
 import net.microfalx.lang.Hashing;
 import net.microfalx.lang.NamedIdentityAware;
 
@@ -21,8 +22,11 @@ public class TestMetrics extends NamedIdentityAware<String> {
     private boolean failure;
     private boolean error;
     private boolean skipped;
+    @VersionFieldSerializer.Since(3)
+    String failureDetailId;
 
     transient ProjectMetrics module;
+    transient String sharedFailureDetail;
 
     protected TestMetrics() {
     }
@@ -34,11 +38,7 @@ public class TestMetrics extends NamedIdentityAware<String> {
         this.moduleId = moduleId;
         this.className = className;
         setName(name);
-        Hashing hashing = Hashing.create();
-        hashing.update(moduleId);
-        hashing.update(className);
-        hashing.update(name);
-        setId(hashing.asString());
+        setId(createId(moduleId, className, name));
     }
 
     public ProjectMetrics getModule() {
@@ -95,7 +95,17 @@ public class TestMetrics extends NamedIdentityAware<String> {
     }
 
     public String getFailureDetail() {
-        return failureDetail;
+        return failureDetail != null ? failureDetail : sharedFailureDetail;
+    }
+
+    /**
+     * Returns the identifier of the (deduplicated) failure detail shared with other tests.
+     *
+     * @return the identifier, null if the failure detail is not shared
+     * @see TestFailures
+     */
+    public String getFailureDetailId() {
+        return failureDetailId;
     }
 
     public TestMetrics setFailureDetail(String failureDetail) {
@@ -138,6 +148,42 @@ public class TestMetrics extends NamedIdentityAware<String> {
         return this;
     }
 
+    /**
+     * Reinitializes the test, used by {@link TestStore} to reuse the same instance (flyweight) while iterating.
+     *
+     * @param moduleId  the module identifier
+     * @param className the class name
+     * @param name      the test name
+     * @param identity  {@code true} to calculate the identifier, {@code false} otherwise
+     * @return self
+     */
+    TestMetrics reset(String moduleId, String className, String name, boolean identity) {
+        this.moduleId = moduleId;
+        this.className = className;
+        setName(name);
+        if (identity) setId(createId(moduleId, className, name));
+        time = 0;
+        failureMessage = null;
+        failureType = null;
+        failureErrorLine = null;
+        failureDetail = null;
+        failureDetailId = null;
+        failure = false;
+        error = false;
+        skipped = false;
+        module = null;
+        sharedFailureDetail = null;
+        return this;
+    }
+
+    private static String createId(String moduleId, String className, String name) {
+        Hashing hashing = Hashing.create();
+        hashing.update(moduleId);
+        hashing.update(className);
+        hashing.update(name);
+        return hashing.asString();
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", TestMetrics.class.getSimpleName() + "[", "]")
@@ -0,0 +1,303 @@
+package net.microfalx.talos.model;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * A compact (columnar) store for test results.
+ * <p>
+ * Modules and classes are dictionary encoded, durations are kept in a float array and outcomes in bitsets. Failure
+ * information is sparse and it is only kept for tests which have such information.
+ * <p>
+ * Tests can be accessed without creating objects, with the accessors which take an index, or with
+ * {@link #visit(Consumer)}, which reuses the same {@link TestMetrics} instance (flyweight) for all tests.
+ * The {@link #iterator()} and {@link #get(int)} create a new instance for each test.
+ */
+public final class TestStore implements Iterable<TestMetrics> {
+
+    private final List<String> modules = new ArrayList<>();
+    private final List<String> classes = new ArrayList<>();
+
+    private int size;
+    private int[] moduleIndexes = new int[0];
+    private int[] classIndexes = new int[0];
+    private String[] names = new String[0];
+    private float[] durations = new float[0];
+    private long[] failures = new long[0];
+    private long[] errors = new long[0];
+    private long[] skipped = new long[0];
+
+    private int failureCount;
+    private int[] failureIndexes = new int[0];
+    private String[] failureMessages = new String[0];
+    private String[] failureTypes = new String[0];
+    private String[] failureErrorLines = new String[0];
+    private String[] failureDetails = new String[0];
+    private String[] failureDetailIds = new String[0];
+
+    private transient Map<String, Integer> moduleDictionary;
+    private transient Map<String, Integer> classDictionary;
+
+    public static TestStore create() {
+        return new TestStore();
+    }
+
+    protected TestStore() {
+    }
+
+    /**
+     * Returns the number of tests.
+     *
+     * @return a positive integer
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the store has no tests.
+     *
+     * @return {@code true} if empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Registers a test.
+     *
+     * @param test the test
+     * @return self
+     */
+    public TestStore add(TestMetrics test) {
+        requireNonNull(test);
+        ensureCapacity(Math.max(size + 1, size * 2));
+        doAdd(test);
+        return this;
+    }
+
+    /**
+     * Registers a collection of tests.
+     *
+     * @param tests the tests
+     * @return self
+     */
+    public TestStore addAll(Collection<TestMetrics> tests) {
+        requireNonNull(tests);
+        ensureCapacity(size + tests.size());
+        for (TestMetrics test : tests) {
+            doAdd(test);
+        }
+        return this;
+    }
+
+    public String getModuleId(int index) {
+        return modules.get(moduleIndexes[checkIndex(index)]);
+    }
+
+    public String getClassName(int index) {
+        return classes.get(classIndexes[checkIndex(index)]);
+    }
+
+    public String getName(int index) {
+        return names[checkIndex(index)];
+    }
+
+    public float getTime(int index) {
+        return durations[checkIndex(index)];
+    }
+
+    public boolean isFailure(int index) {
+        return isSet(failures, checkIndex(index));
+    }
+
+    public boolean isError(int index) {
+        return isSet(errors, checkIndex(index));
+    }
+
+    public boolean isFailureOrError(int index) {
+        return isFailure(index) || isError(index);
+    }
+
+    public boolean isSkipped(int index) {
+        return isSet(skipped, checkIndex(index));
+    }
+
+    /**
+     * Returns a test.
+     *
+     * @param index the index of the test
+     * @return a new instance
+     */
+    public TestMetrics get(int index) {
+        return load(new TestMetrics(), checkIndex(index), true);
+    }
+
+    /**
+     * Visits all tests with the same (reused) instance.
+     * <p>
+     * The instance passed to the consumer is only valid during the call and its identifier is not calculated;
+     * use {@link #get(int)} for a test which needs to be retained.
+     *
+     * @param consumer the consumer
+     */
+    public void visit(Consumer<TestMetrics> consumer) {
+        requireNonNull(consumer);
+        TestMetrics view = new TestMetrics();
+        for (int index = 0; index < size; index++) {
+            consumer.accept(load(view, index, false));
+        }
+    }
+
+    /**
+     * Returns the tests which match a predicate.
+     * <p>
+     * The predicate receives a reused instance (see {@link #visit(Consumer)}), only the matching tests are created.
+     *
+     * @param predicate the predicate
+     * @return a non-null instance
+     */
+    public List<TestMetrics> filter(Predicate<TestMetrics> predicate) {
+        requireNonNull(predicate);
+        List<TestMetrics> tests = new ArrayList<>();
+        TestMetrics view = new TestMetrics();
+        for (int index = 0; index < size; index++) {
+            if (predicate.test(load(view, index, false))) tests.add(get(index));
+        }
+        return tests;
+    }
+
+    @Override
+    public Iterator<TestMetrics> iterator() {
+        return new Iterator<>() {
+
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public TestMetrics next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return get(index++);
+            }
+        };
+    }
+
+    private void doAdd(TestMetrics test) {
+        int index = size++;
+        moduleIndexes[index] = intern(modules, getModuleDictionary(), test.getModuleId());
+        classIndexes[index] = intern(classes, getClassDictionary(), test.getClassName());
+        names[index] = test.getName();
+        durations[index] = test.getTime();
+        if (test.isFailure()) set(failures, index);
+        if (test.isError()) set(errors, index);
+        if (test.isSkipped()) set(skipped, index);
+        if (test.getFailureMessage() != null || test.getFailureType() != null || test.getFailureErrorLine() != null
+            || test.failureDetailId != null || test.getFailureDetail() != null) {
+            addFailure(index, test);
+        }
+    }
+
+    private void addFailure(int index, TestMetrics test) {
+        if (failureCount == failureIndexes.length) {
+            int capacity = Math.max(16, failureCount * 2);
+            failureIndexes = Arrays.copyOf(failureIndexes, capacity);
+            failureMessages = Arrays.copyOf(failureMessages, capacity);
+            failureTypes = Arrays.copyOf(failureTypes, capacity);
+            failureErrorLines = Arrays.copyOf(failureErrorLines, capacity);
+            failureDetails = Arrays.copyOf(failureDetails, capacity);
+            failureDetailIds = Arrays.copyOf(failureDetailIds, capacity);
+        }
+        int failureIndex = failureCount++;
+        failureIndexes[failureIndex] = index;
+        failureMessages[failureIndex] = test.getFailureMessage();
+        failureTypes[failureIndex] = test.getFailureType();
+        failureErrorLines[failureIndex] = test.getFailureErrorLine();
+        failureDetailIds[failureIndex] = test.failureDetailId;
+        // shared details are stored once, in the session
+        failureDetails[failureIndex] = test.failureDetailId == null ? test.getFailureDetail() : null;
+    }
+
+    private TestMetrics load(TestMetrics test, int index, boolean identity) {
+        test.reset(modules.get(moduleIndexes[index]), classes.get(classIndexes[index]), names[index], identity)
+                .setTime(durations[index]).setFailure(isSet(failures, index)).setError(isSet(errors, index))
+                .setSkipped(isSet(skipped, index));
+        int failureIndex = Arrays.binarySearch(failureIndexes, 0, failureCount, index);
+        if (failureIndex >= 0) {
+            test.setFailureMessage(failureMessages[failureIndex]).setFailureType(failureTypes[failureIndex])
+                    .setFailureErrorLine(failureErrorLines[failureIndex])
+                    .setFailureDetail(failureDetails[failureIndex]);
+            test.failureDetailId = failureDetailIds[failureIndex];
+        }
+        return test;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= names.length) return;
+        moduleIndexes = Arrays.copyOf(moduleIndexes, capacity);
+        classIndexes = Arrays.copyOf(classIndexes, capacity);
+        names = Arrays.copyOf(names, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        int words = (capacity + 63) >> 6;
+        failures = Arrays.copyOf(failures, words);
+        errors = Arrays.copyOf(errors, words);
+        skipped = Arrays.copyOf(skipped, words);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        return index;
+    }
+
+    private Map<String, Integer> getModuleDictionary() {
+        if (moduleDictionary == null) moduleDictionary = createDictionary(modules);
+        return moduleDictionary;
+    }
+
+    private Map<String, Integer> getClassDictionary() {
+        if (classDictionary == null) classDictionary = createDictionary(classes);
+        return classDictionary;
+    }
+
+    private static Map<String, Integer> createDictionary(List<String> values) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            dictionary.put(values.get(i), i);
+        }
+        return dictionary;
+    }
+
+    private static int intern(List<String> values, Map<String, Integer> dictionary, String value) {
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            index = values.size();
+            values.add(value);
+            dictionary.put(value, index);
+        }
+        return index;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >> 6] |= 1L << index;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", TestStore.class.getSimpleName() + "[", "]")
+                .add("size=" + size)
+                .add("modules=" + modules.size())
+                .add("classes=" + classes.size())
+                .add("failures=" + failureCount)
+                .toString();
+    }
+}
@@ -105,6 +105,16 @@ public class TestSummaryMetrics extends NamedIdentityAware<String> {
         return new ArrayList<>(summaryMetrics.values());
     }
 
+    public static Collection<TestSummaryMetrics> from(TestStore store) {
+        requireNonNull(store);
+        Map<String, TestSummaryMetrics> summaryMetrics = new HashMap<>();
+        store.visit(metric -> {
+            TestSummaryMetrics summary = summaryMetrics.computeIfAbsent(metric.getModuleId(), TestSummaryMetrics::new);
+            summary.add(metric);
+        });
+        return new ArrayList<>(summaryMetrics.values());
+    }
+
     void add(TestMetrics metrics) {
         total++;
         duration = duration.plus(metrics.getDuration());
@@ -0,0 +1,146 @@
+package net.microfalx.talos.model;
+
+import net.microfalx.lang.NamedIdentityAware;
+
+import java.time.Duration;
+import java.util.StringJoiner;
+
+import static java.time.Duration.ofMillis;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.StringUtils.toIdentifier;
+
+/**
+ * Holds the evolution of the duration of a test across builds, extracted from {@link TestHistory}.
+ */
+public final class TestTrendMetrics extends NamedIdentityAware<String> {
+
+    private String moduleId;
+    private String className;
+    private int samples;
+    private float first;
+    private float last;
+    private float average;
+    private float growth;
+    private float deviation;
+
+    protected TestTrendMetrics() {
+    }
+
+    TestTrendMetrics(String moduleId, String className, String name) {
+        requireNonNull(moduleId);
+        requireNonNull(className);
+        requireNonNull(name);
+        this.moduleId = moduleId;
+        this.className = className;
+        setId(toIdentifier(moduleId, className, name));
+        setName(name);
+    }
+
+    public String getModuleId() {
+        return moduleId;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the number of builds which executed the test.
+     *
+     * @return a positive integer
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Returns the duration of the test in the oldest build.
+     *
+     * @return a non-null instance
+     */
+    public Duration getFirst() {
+        return toDuration(first);
+    }
+
+    /**
+     * Returns the duration of the test in the most recent build.
+     *
+     * @return a non-null instance
+     */
+    public Duration getLast() {
+        return toDuration(last);
+    }
+
+    /**
+     * Returns the average duration of the test.
+     *
+     * @return a non-null instance
+     */
+    public Duration getAverage() {
+        return toDuration(average);
+    }
+
+    /**
+     * Returns the growth of the duration over the history window (based on a linear fit).
+     *
+     * @return a non-null instance
+     */
+    public Duration getGrowth() {
+        return toDuration(growth);
+    }
+
+    /**
+     * Returns the standard deviation of the duration.
+     *
+     * @return a non-null instance
+     */
+    public Duration getDeviation() {
+        return toDuration(deviation);
+    }
+
+    /**
+     * Returns the coefficient of variation (standard deviation relative to average).
+     *
+     * @return a positive number
+     */
+    public float getVariation() {
+        return average > 0 ? deviation / average : 0;
+    }
+
+    TestTrendMetrics update(int samples, float first, float last, float average, float growth, float deviation) {
+        this.samples = samples;
+        this.first = first;
+        this.last = last;
+        this.average = average;
+        this.growth = growth;
+        this.deviation = deviation;
+        return this;
+    }
+
+    float getGrowthSeconds() {
+        return growth;
+    }
+
+    float getDeviationSeconds() {
+        return deviation;
+    }
+
+    private static Duration toDuration(float seconds) {
+        return ofMillis((long) (seconds * 1000));
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", TestTrendMetrics.class.getSimpleName() + "[", "]")
+                .add("moduleId='" + moduleId + "'")
+                .add("className='" + className + "'")
+                .add("name='" + getName() + "'")
+                .add("samples=" + samples)
+                .add("first=" + first)
+                .add("last=" + last)
+                .add("average=" + average)
+                .add("growth=" + growth)
+                .add("deviation=" + deviation)
+                .toString();
+    }
+}
@@ -0,0 +1,444 @@
+package net.microfalx.talos.model;
+
+import net.microfalx.lang.IOUtils;
+import net.microfalx.lang.Nameable;
+import net.microfalx.resource.Resource;
+
+import java.io.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+import static java.time.Duration.ofMillis;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Holds a summary of the most recent builds of all projects which stored trends (<code>trends/&lt;project&gt;</code>).
+ * <p>
+ * The index is incremental: each project remembers the trends already indexed, so an update only loads the trends
+ * stored since the previous update (the directories of the projects are listed, but only new trends are read). Each
+ * project keeps the last builds (duration, outcome and task durations), enough to render build durations, failure
+ * rates and regressions for all the projects without reading their trends.
+ */
+public final class TrendIndex {
+
+    private static final int MAGIC = 0x54494458;
+    private static final int VERSION = 1;
+    private static final String TREND_EXTENSION = ".data";
+
+    private final Map<String, ProjectSummary> projects = new HashMap<>();
+    private int maximumBuilds = 30;
+
+    public static TrendIndex create() {
+        return new TrendIndex();
+    }
+
+    public static TrendIndex load(InputStream inputStream) throws IOException {
+        requireNonNull(inputStream);
+        TrendIndex index = new TrendIndex();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(IOUtils.getComporessedInputStream(inputStream)))) {
+            if (input.readInt() != MAGIC) throw new IOException("Invalid trend index");
+            int version = input.readInt();
+            if (version != VERSION) throw new IOException("Unsupported trend index version " + version);
+            int projectCount = input.readInt();
+            for (int i = 0; i < projectCount; i++) {
+                ProjectSummary project = new ProjectSummary(input.readUTF(), input.readUTF());
+                int mojoCount = input.readInt();
+                String[] mojos = new String[mojoCount];
+                for (int j = 0; j < mojoCount; j++) {
+                    mojos[j] = input.readUTF();
+                    project.mojoNames.put(mojos[j], input.readUTF());
+                }
+                int buildCount = input.readInt();
+                for (int j = 0; j < buildCount; j++) {
+                    Build build = new Build(input.readUTF(), input.readLong(), input.readLong(), input.readBoolean(),
+                            input.readInt());
+                    for (int k = 0; k < build.mojos.length; k++) {
+                        build.mojos[k] = mojos[input.readInt()];
+                        build.mojoDurations[k] = input.readLong();
+                    }
+                    project.trends.add(build.name);
+                    project.builds.add(build);
+                }
+                index.projects.put(project.id, project);
+            }
+        }
+        return index;
+    }
+
+    private TrendIndex() {
+    }
+
+    /**
+     * Changes the maximum number of (most recent) builds kept for each project.
+     *
+     * @param maximumBuilds the number of builds
+     * @return self
+     */
+    public TrendIndex setMaximumBuilds(int maximumBuilds) {
+        this.maximumBuilds = Math.max(2, maximumBuilds);
+        for (ProjectSummary project : projects.values()) {
+            project.trim(this.maximumBuilds);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the projects, the most recently built first.
+     *
+     * @return a non-null instance
+     */
+    public List<ProjectSummary> getProjects() {
+        List<ProjectSummary> projects = new ArrayList<>(this.projects.values());
+        projects.removeIf(project -> project.builds.isEmpty());
+        projects.sort(Comparator.comparing((ProjectSummary project) -> project.getLastBuild().timestamp).reversed());
+        return projects;
+    }
+
+    /**
+     * Returns a project.
+     *
+     * @param id the project identifier
+     * @return the project, null if not indexed
+     */
+    public ProjectSummary getProject(String id) {
+        requireNonNull(id);
+        return projects.get(id);
+    }
+
+    /**
+     * Returns whether a trend was already indexed (or it is too old to be indexed).
+     *
+     * @param projectId the project identifier
+     * @param trendName the name of the trend (file name)
+     * @return {@code true} if the trend does not need to be loaded, {@code false} otherwise
+     */
+    public boolean isIndexed(String projectId, String trendName) {
+        requireNonNull(projectId);
+        requireNonNull(trendName);
+        ProjectSummary project = projects.get(projectId);
+        if (project == null) return false;
+        if (project.trends.contains(trendName)) return true;
+        // trend names are timestamped, anything older than the oldest kept build is dropped anyway
+        return project.builds.size() >= maximumBuilds && trendName.compareTo(project.builds.get(0).name) < 0;
+    }
+
+    /**
+     * Registers the trend of a build.
+     *
+     * @param projectId the project identifier
+     * @param trendName the name of the trend (file name)
+     * @param trend     the trend
+     * @return {@code true} if the trend was added, {@code false} if it was already indexed
+     */
+    public boolean add(String projectId, String trendName, AbstractSessionMetrics<?> trend) {
+        requireNonNull(trend);
+        if (isIndexed(projectId, trendName) || trend.getStartTime() == null) return false;
+        ProjectSummary project = projects.computeIfAbsent(projectId, id -> new ProjectSummary(id, trend.getName()));
+        if (trend.getName() != null) project.name = trend.getName();
+        Collection<MojoMetrics> mojos = trend.getMojos();
+        Build build = new Build(trendName, trend.getStartTime().toInstant().toEpochMilli(), trend.getDuration().toMillis(),
+                !trend.getProjectFailures().isEmpty(), mojos.size());
+        int index = 0;
+        for (MojoMetrics mojo : mojos) {
+            build.mojos[index] = mojo.getId();
+            build.mojoDurations[index] = mojo.getActiveDuration().toMillis();
+            project.mojoNames.put(mojo.getId(), mojo.getName());
+            index++;
+        }
+        project.add(build);
+        project.trim(maximumBuilds);
+        return true;
+    }
+
+    /**
+     * Indexes the trends of all projects stored in a directory (one subdirectory for each project).
+     *
+     * @param directory the trends directory
+     * @return the number of trends added to the index
+     * @throws IOException if an I/O error occurs
+     */
+    public int update(Resource directory) throws IOException {
+        requireNonNull(directory);
+        if (!directory.exists()) return 0;
+        int count = 0;
+        for (Resource child : directory.list()) {
+            if (child.isFile()) continue;
+            count += update(getName(child), child);
+        }
+        return count;
+    }
+
+    /**
+     * Indexes the trends of a project.
+     *
+     * @param projectId the project identifier
+     * @param directory the directory which holds the trends of the project
+     * @return the number of trends added to the index
+     * @throws IOException if an I/O error occurs
+     */
+    public int update(String projectId, Resource directory) throws IOException {
+        requireNonNull(projectId);
+        requireNonNull(directory);
+        if (!directory.exists()) return 0;
+        int count = 0;
+        for (Resource resource : directory.list()) {
+            String trendName = resource.getFileName();
+            if (!resource.isFile() || !trendName.endsWith(TREND_EXTENSION) || isIndexed(projectId, trendName)) continue;
+            TrendMetrics trend;
+            try {
+                trend = TrendMetrics.load(resource);
+            } catch (Exception e) {
+                // a trend which cannot be read (partially uploaded or from an incompatible version) is skipped
+                continue;
+            }
+            if (add(projectId, trendName, trend)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the regressions of the last build of each project, the largest slowdown first.
+     * <p>
+     * The last build is compared with the previous builds of the project, with the same rules used for a session
+     * (see {@link RegressionDetector}).
+     *
+     * @param limit the maximum number of regressions
+     * @return a non-null instance
+     */
+    public List<Regression> getRegressions(int limit) {
+        List<Regression> regressions = new ArrayList<>();
+        for (ProjectSummary project : projects.values()) {
+            project.detect(regressions);
+        }
+        regressions.sort(Comparator.comparing((Regression regression) -> regression.getMetrics().getIncrease()).reversed());
+        return regressions.subList(0, Math.min(limit, regressions.size()));
+    }
+
+    public void store(OutputStream outputStream) throws IOException {
+        requireNonNull(outputStream);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(IOUtils.getCompressedOutputStream(outputStream)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(projects.size());
+            for (ProjectSummary project : projects.values()) {
+                output.writeUTF(project.id);
+                output.writeUTF(project.name);
+                // only the tasks still referenced by builds are stored
+                Map<String, Integer> mojos = new LinkedHashMap<>();
+                for (Build build : project.builds) {
+                    for (String mojo : build.mojos) mojos.putIfAbsent(mojo, mojos.size());
+                }
+                output.writeInt(mojos.size());
+                for (String mojo : mojos.keySet()) {
+                    output.writeUTF(mojo);
+                    output.writeUTF(project.mojoNames.getOrDefault(mojo, mojo));
+                }
+                output.writeInt(project.builds.size());
+                for (Build build : project.builds) {
+                    output.writeUTF(build.name);
+                    output.writeLong(build.timestamp);
+                    output.writeLong(build.duration);
+                    output.writeBoolean(build.failed);
+                    output.writeInt(build.mojos.length);
+                    for (int i = 0; i < build.mojos.length; i++) {
+                        output.writeInt(mojos.get(build.mojos[i]));
+                        output.writeLong(build.mojoDurations[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String getName(Resource resource) {
+        String name = resource.getFileName();
+        return name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+    }
+
+    /**
+     * Holds the builds of a project.
+     */
+    public static final class ProjectSummary implements Nameable {
+
+        private final String id;
+        private String name;
+        private final List<Build> builds = new ArrayList<>();
+        private final Set<String> trends = new HashSet<>();
+        private final Map<String, String> mojoNames = new HashMap<>();
+
+        private ProjectSummary(String id, String name) {
+            requireNonNull(id);
+            this.id = id;
+            this.name = name != null ? name : id;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the builds, the oldest first.
+         *
+         * @return a non-null instance
+         */
+        public List<Build> getBuilds() {
+            return Collections.unmodifiableList(builds);
+        }
+
+        /**
+         * Returns the most recent build.
+         *
+         * @return the build, null if there are no builds
+         */
+        public Build getLastBuild() {
+            return builds.isEmpty() ? null : builds.get(builds.size() - 1);
+        }
+
+        /**
+         * Returns the ratio of failed builds.
+         *
+         * @return the failure rate, between 0 and 1
+         */
+        public float getFailureRate() {
+            if (builds.isEmpty()) return 0;
+            return (float) builds.stream().filter(Build::isFailed).count() / builds.size();
+        }
+
+        /**
+         * Returns the median duration of the builds.
+         *
+         * @return a non-null instance
+         */
+        public Duration getMedianDuration() {
+            if (builds.isEmpty()) return Duration.ZERO;
+            long[] durations = builds.stream().mapToLong(build -> build.duration).sorted().toArray();
+            int middle = durations.length / 2;
+            return ofMillis(durations.length % 2 == 1 ? durations[middle] : (durations[middle - 1] + durations[middle]) / 2);
+        }
+
+        private void add(Build build) {
+            trends.add(build.name);
+            builds.add(build);
+            builds.sort(Comparator.comparingLong((Build b) -> b.timestamp).thenComparing(b -> b.name));
+        }
+
+        private void trim(int maximumBuilds) {
+            while (builds.size() > maximumBuilds) {
+                trends.remove(builds.remove(0).name);
+            }
+        }
+
+        private void detect(Collection<Regression> regressions) {
+            int size = builds.size();
+            if (size <= RegressionDetector.DEFAULT_MINIMUM_SAMPLES) return;
+            Build last = builds.get(size - 1);
+            List<Build> baseline = builds.subList(Math.max(0, size - 1 - RegressionDetector.DEFAULT_BASELINE_SIZE), size - 1);
+            evaluate(regressions, RegressionMetrics.Type.SESSION, id, name, last.duration,
+                    baseline.stream().mapToLong(build -> build.duration).toArray());
+            for (int i = 0; i < last.mojos.length; i++) {
+                String mojo = last.mojos[i];
+                long[] samples = baseline.stream().mapToLong(build -> build.getMojoDuration(mojo))
+                        .filter(duration -> duration >= 0).toArray();
+                if (samples.length < RegressionDetector.DEFAULT_MINIMUM_SAMPLES) continue;
+                evaluate(regressions, RegressionMetrics.Type.MOJO, mojo, mojoNames.getOrDefault(mojo, mojo),
+                        last.mojoDurations[i], samples);
+            }
+        }
+
+        private void evaluate(Collection<Regression> regressions, RegressionMetrics.Type type, String id, String name,
+                              long duration, long[] samples) {
+            RegressionMetrics metrics = RegressionDetector.evaluate(type, id, name, duration, samples,
+                    RegressionDetector.DEFAULT_THRESHOLD, RegressionDetector.DEFAULT_MINIMUM_CHANGE,
+                    RegressionDetector.DEFAULT_MINIMUM_DURATION);
+            if (metrics != null) regressions.add(new Regression(this, metrics));
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", ProjectSummary.class.getSimpleName() + "[", "]")
+                    .add("id='" + id + "'")
+                    .add("name='" + name + "'")
+                    .add("builds=" + builds.size())
+                    .toString();
+        }
+    }
+
+    /**
+     * Holds a summary of a build.
+     */
+    public static final class Build {
+
+        private final String name;
+        private final long timestamp;
+        private final long duration;
+        private final boolean failed;
+        private final String[] mojos;
+        private final long[] mojoDurations;
+
+        private Build(String name, long timestamp, long duration, boolean failed, int mojoCount) {
+            this.name = name;
+            this.timestamp = timestamp;
+            this.duration = duration;
+            this.failed = failed;
+            this.mojos = new String[mojoCount];
+            this.mojoDurations = new long[mojoCount];
+        }
+
+        /**
+         * Returns the name of the trend which registered the build.
+         *
+         * @return a non-null instance
+         */
+        public String getName() {
+            return name;
+        }
+
+        public ZonedDateTime getStartTime() {
+            return Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault());
+        }
+
+        public Duration getDuration() {
+            return ofMillis(duration);
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        private long getMojoDuration(String mojo) {
+            for (int i = 0; i < mojos.length; i++) {
+                if (mojos[i].equals(mojo)) return mojoDurations[i];
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Holds a regression of the last build of a project.
+     */
+    public static final class Regression {
+
+        private final ProjectSummary project;
+        private final RegressionMetrics metrics;
+
+        private Regression(ProjectSummary project, RegressionMetrics metrics) {
+            this.project = project;
+            this.metrics = metrics;
+        }
+
+        public ProjectSummary getProject() {
+            return project;
+        }
+
+        public RegressionMetrics getMetrics() {
+            return metrics;
+        }
+    }
+}
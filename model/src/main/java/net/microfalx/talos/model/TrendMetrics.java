@@ -1,5 +1,6 @@
 package net.microfalx.talos.model;
 
+import com.esotericsoftware.kryo.serializers.VersionFieldSerializer;
 import net.microfalx.metrics.SeriesStore;
 import net.microfalx.resource.Resource;
 import org.apache.maven.execution.MavenSession;
@@ -15,6 +16,8 @@ public class TrendMetrics extends AbstractSessionMetrics<TrendMetrics> {
 
     private Collection<TestSummaryMetrics> tests;
     private Collection<ArtifactSummaryMetrics> artifacts;
+    @VersionFieldSerializer.Since(3)
+    private CacheMetrics cacheMetrics;
 
     private SeriesStore virtualMachineMetrics = SeriesStore.memory();
     private SeriesStore serverMetrics = SeriesStore.memory();
@@ -35,11 +38,15 @@ public class TrendMetrics extends AbstractSessionMetrics<TrendMetrics> {
     }
 
     public Collection<TestSummaryMetrics> getTests() {
-        return unmodifiableCollection(tests);
+        return tests != null ? unmodifiableCollection(tests) : Collections.emptyList();
     }
 
     public Collection<ArtifactSummaryMetrics> getArtifacts() {
-        return unmodifiableCollection(artifacts);
+        return artifacts != null ? unmodifiableCollection(artifacts) : Collections.emptyList();
+    }
+
+    public CacheMetrics getCacheMetrics() {
+        return cacheMetrics;
     }
 
     public SeriesStore getVirtualMachineMetrics() {
@@ -55,8 +62,9 @@ public class TrendMetrics extends AbstractSessionMetrics<TrendMetrics> {
         copy(sessionMetrics, trendMetrics);
         trendMetrics.virtualMachineMetrics = getAverageStore(sessionMetrics.getVirtualMachineMetrics());
         trendMetrics.serverMetrics = getAverageStore(sessionMetrics.getServerMetrics());
-        trendMetrics.tests = TestSummaryMetrics.from(sessionMetrics.getTests());
+        trendMetrics.tests = TestSummaryMetrics.from(sessionMetrics.getTestStore());
         trendMetrics.artifacts = ArtifactSummaryMetrics.from(sessionMetrics.getArtifacts());
+        trendMetrics.cacheMetrics = sessionMetrics.getCacheMetrics();
         return trendMetrics;
     }
 
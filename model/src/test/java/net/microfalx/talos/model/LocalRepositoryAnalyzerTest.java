@@ -0,0 +1,54 @@
+package net.microfalx.talos.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LocalRepositoryAnalyzerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void empty() throws IOException {
+        LocalRepositoryMetrics metrics = LocalRepositoryAnalyzer.create(directory).analyze();
+        assertEquals(0, metrics.getSize());
+        assertEquals(0, metrics.getArtifactCount());
+    }
+
+    @Test
+    void analyze() throws IOException {
+        createFile("org/acme/lib/1.0/lib-1.0.jar", 100);
+        createFile("org/acme/lib/1.0/_remote.repositories", 10);
+        createFile("org/acme/lib/2.0/lib-2.0.jar", 200);
+        createFile("org/acme/lib/2.0/lib-2.0.pom.lastUpdated", 5);
+        createFile("org/acme/app/1.0-SNAPSHOT/app-1.0-20240101.101010-1.jar", 50);
+        createFile("org/acme/app/1.0-SNAPSHOT/app-1.0-20240102.101010-2.jar", 60);
+        createFile("org/acme/app/1.0-SNAPSHOT/app-1.0-SNAPSHOT.jar", 60);
+        LocalRepositoryMetrics metrics = LocalRepositoryAnalyzer.create(directory)
+                .addTouched("org.acme", "lib", "2.0").addTouched("org.acme", "app", "1.0-20240102.101010-2")
+                .analyze();
+        assertEquals(485, metrics.getSize());
+        assertEquals(7, metrics.getFileCount());
+        assertEquals(3, metrics.getArtifactCount());
+        assertEquals(1, metrics.getStaleSnapshotCount());
+        assertEquals(50, metrics.getStaleSnapshotSize());
+        assertEquals(1, metrics.getRemoteRepositoriesCount());
+        assertEquals(1, metrics.getLastUpdatedCount());
+        assertEquals(1, metrics.getMultipleVersionsCount());
+        assertEquals(315, metrics.getMultipleVersionsSize());
+        assertEquals(1, metrics.getUntouchedCount());
+        assertEquals(110, metrics.getUntouchedSize());
+    }
+
+    private void createFile(String path, int size) throws IOException {
+        Path file = directory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+    }
+}
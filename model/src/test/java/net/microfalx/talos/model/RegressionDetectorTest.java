@@ -0,0 +1,57 @@
+package net.microfalx.talos.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static java.time.Duration.ofMillis;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegressionDetectorTest extends AbstractMetricsTest {
+
+    private final ZonedDateTime startTime = ZonedDateTime.now();
+
+    @Test
+    void noBaseline() {
+        SessionMetrics session = createSession(ofMillis(20_000), 0);
+        assertTrue(RegressionDetector.create(session).detect().isEmpty());
+    }
+
+    @Test
+    void stable() {
+        SessionMetrics session = createSession(ofMillis(10_300), 8);
+        assertTrue(RegressionDetector.create(session).detect().isEmpty());
+    }
+
+    @Test
+    void regression() {
+        SessionMetrics session = createSession(ofMillis(20_000), 8);
+        Collection<RegressionMetrics> regressions = RegressionDetector.create(session).detect();
+        assertEquals(1, regressions.size());
+        RegressionMetrics regression = regressions.iterator().next();
+        assertEquals(RegressionMetrics.Type.LIFECYCLE, regression.getType());
+        assertEquals("Compile", regression.getName());
+        assertEquals(8, regression.getSamples());
+        assertTrue(regression.getChange() > 0.9);
+    }
+
+    private SessionMetrics createSession(Duration duration, int trendCount) {
+        SessionMetrics session = create();
+        session.setStartTime(startTime);
+        session.setLifeCycles(List.of(new LifecycleMetrics("Compile").addActiveDuration(duration)));
+        Collection<TrendMetrics> trends = new ArrayList<>();
+        for (int i = 0; i < trendCount; i++) {
+            TrendMetrics trend = new TrendMetrics(createSession("Single"));
+            trend.setStartTime(startTime.minusDays(i + 1));
+            trend.setLifeCycles(List.of(new LifecycleMetrics("Compile").addActiveDuration(ofMillis(10_000 + (i % 3) * 100))));
+            trends.add(trend);
+        }
+        session.setTrends(trends);
+        return session;
+    }
+}
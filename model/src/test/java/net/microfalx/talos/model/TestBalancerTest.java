@@ -0,0 +1,48 @@
+package net.microfalx.talos.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestBalancerTest {
+
+    @Test
+    void empty() {
+        List<TestBalancer.Shard> shards = TestBalancer.create(3).balance();
+        assertEquals(3, shards.size());
+        assertTrue(shards.get(0).getClasses().isEmpty());
+    }
+
+    @Test
+    void balance() {
+        List<TestBalancer.Shard> shards = TestBalancer.create(2)
+                .add("A", 8).add("B", 7).add("C", 6).add("D", 5).add("E", 4)
+                .balance();
+        assertEquals(List.of("A", "D", "E"), shards.get(0).getClasses());
+        assertEquals(List.of("B", "C"), shards.get(1).getClasses());
+        assertEquals(17_000, shards.get(0).getDuration().toMillis());
+        assertEquals(13_000, shards.get(1).getDuration().toMillis());
+    }
+
+    @Test
+    void unknown() {
+        List<TestBalancer.Shard> shards = TestBalancer.create(2)
+                .add("A", 10).add("B", 2).add("C", 1).add("D")
+                .balance();
+        assertEquals(List.of("A"), shards.get(0).getClasses());
+        assertEquals(List.of("B", "D", "C"), shards.get(1).getClasses());
+    }
+
+    @Test
+    void classDurations() {
+        TestHistory history = TestHistory.create();
+        history.add(ZonedDateTime.now(), List.of(new TestMetrics("m1", "c1", "t1").setTime(1),
+                new TestMetrics("m1", "c1", "t2").setTime(2), new TestMetrics("m2", "c2", "t1").setTime(4)));
+        assertEquals(3f, history.getClassDurations("m1").get("c1"));
+        assertEquals(1, history.getClassDurations("m1").size());
+    }
+}
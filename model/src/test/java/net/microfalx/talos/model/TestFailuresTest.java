@@ -0,0 +1,50 @@
+package net.microfalx.talos.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestFailuresTest {
+
+    private static final String DETAIL = "java.lang.IllegalStateException: Fixture not available: Database@1a2b3c4d\n"
+                                         + "\tat net.microfalx.demo.Fixture.start(Fixture.java:10)\n"
+                                         + "\tat net.microfalx.demo.CalculatorTest.add(CalculatorTest.java:20)\n"
+                                         + "\tat java.base/jdk.internal.reflect.NativeMethodAccessorImpl.invoke0(Native Method)\n"
+                                         + "\tat java.base/java.lang.reflect.Method.invoke(Method.java:568)\n"
+                                         + "\tat org.junit.platform.commons.util.ReflectionUtils.invokeMethod(ReflectionUtils.java:727)\n";
+
+    @Test
+    void deduplicate() {
+        List<TestMetrics> tests = List.of(createTest("t1", DETAIL), createTest("t2", DETAIL.replace("1a2b3c4d", "5e6f7a8b")),
+                createTest("t3", null));
+        Map<String, String> details = TestFailures.create().process(tests);
+        assertEquals(1, details.size());
+        assertEquals(tests.get(0).getFailureDetailId(), tests.get(1).getFailureDetailId());
+        assertSame(tests.get(0).getFailureDetail(), tests.get(1).getFailureDetail());
+        assertSame(tests.get(0).getFailureMessage(), tests.get(1).getFailureMessage());
+        assertNull(tests.get(2).getFailureDetailId());
+        String detail = tests.get(0).getFailureDetail();
+        assertTrue(detail.contains("CalculatorTest.java:20"));
+        assertFalse(detail.contains("reflect"));
+        assertTrue(detail.endsWith("\t..."));
+    }
+
+    @Test
+    void budget() {
+        List<TestMetrics> tests = List.of(createTest("t1", DETAIL), createTest("t2", DETAIL.replace("Fixture.java:10", "Fixture.java:11")));
+        TestFailures failures = TestFailures.create().setMaximumDetails(1);
+        failures.process(tests);
+        assertEquals(2, failures.getUniqueCount());
+        assertTrue(tests.get(0).getFailureDetail().contains("CalculatorTest.java:20"));
+        assertTrue(tests.get(1).getFailureDetail().startsWith("java.lang.IllegalStateException"));
+        assertTrue(tests.get(1).getFailureDetail().endsWith("(details omitted)"));
+    }
+
+    private TestMetrics createTest(String name, String detail) {
+        return new TestMetrics("m1", "net.microfalx.demo.CalculatorTest", name).setError(detail != null)
+                .setFailureMessage(new String("Fixture not available")).setFailureDetail(detail);
+    }
+}
@@ -0,0 +1,94 @@
+package net.microfalx.talos.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestHistoryTest {
+
+    private final ZonedDateTime startTime = ZonedDateTime.now();
+
+    @Test
+    void empty() {
+        TestHistory history = TestHistory.create();
+        assertEquals(0, history.getBuildCount());
+        assertTrue(history.getGrowing(10).isEmpty());
+        assertTrue(history.getVariable(10).isEmpty());
+    }
+
+    @Test
+    void growing() {
+        TestHistory history = createHistory();
+        List<TestTrendMetrics> tests = history.getGrowing(10);
+        assertEquals(1, tests.size());
+        TestTrendMetrics test = tests.get(0);
+        assertEquals("slow", test.getName());
+        assertEquals(5, test.getSamples());
+        assertEquals(1000, test.getFirst().toMillis());
+        assertEquals(5000, test.getLast().toMillis());
+        assertEquals(4000, test.getGrowth().toMillis());
+    }
+
+    @Test
+    void variable() {
+        TestHistory history = createHistory();
+        List<TestTrendMetrics> tests = history.getVariable(10);
+        assertEquals(2, tests.size());
+        assertEquals("flaky", tests.get(0).getName());
+        assertEquals("slow", tests.get(1).getName());
+    }
+
+    @Test
+    void retain() {
+        TestHistory history = createHistory();
+        history.add(startTime.plusDays(1), List.of(new TestMetrics("m1", "c1", "new")));
+        history.retain(startTime.plusHours(1));
+        assertEquals(1, history.getBuildCount());
+        assertEquals(1, history.getTestCount());
+    }
+
+    @Test
+    void longName() throws IOException {
+        TestHistory history = TestHistory.create();
+        String name = "parameterized" + "x".repeat(10_000);
+        for (int i = 0; i < 5; i++) {
+            history.add(startTime.minusDays(5 - i), List.of(new TestMetrics("m1", "c1", name).setTime(i + 1)));
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        history.store(outputStream);
+        TestHistory loaded = TestHistory.load(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals("c1", loaded.getGrowing(10).get(0).getClassName());
+        assertEquals(4096, loaded.getGrowing(10).get(0).getName().length());
+        assertEquals(3, loaded.getClassDurations("m1").get("c1"), 0.001);
+    }
+
+    @Test
+    void storeAndLoad() throws IOException {
+        TestHistory history = createHistory();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        history.store(outputStream);
+        TestHistory loaded = TestHistory.load(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals(history.getBuildCount(), loaded.getBuildCount());
+        assertEquals(history.getTestCount(), loaded.getTestCount());
+        assertEquals(4000, loaded.getGrowing(10).get(0).getGrowth().toMillis());
+    }
+
+    private TestHistory createHistory() {
+        TestHistory history = TestHistory.create();
+        for (int i = 0; i < 5; i++) {
+            history.add(startTime.minusDays(5 - i), List.of(
+                    new TestMetrics("m1", "c1", "stable").setTime(0.5f),
+                    new TestMetrics("m1", "c1", "slow").setTime(i + 1),
+                    new TestMetrics("m1", "c2", "flaky").setTime(i % 2 == 0 ? 0.1f : 8f),
+                    new TestMetrics("m1", "c2", "skipped").setTime(0).setSkipped(true)));
+        }
+        return history;
+    }
+}
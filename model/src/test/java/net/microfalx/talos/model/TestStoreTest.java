@@ -0,0 +1,76 @@
+package net.microfalx.talos.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestStoreTest {
+
+    @Test
+    void empty() {
+        TestStore store = TestStore.create();
+        assertTrue(store.isEmpty());
+        assertFalse(store.iterator().hasNext());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(0));
+    }
+
+    @Test
+    void add() {
+        TestStore store = createStore(100);
+        assertEquals(100, store.size());
+        assertEquals("m1", store.getModuleId(0));
+        assertEquals("m2", store.getModuleId(99));
+        assertEquals("c9", store.getClassName(99));
+        assertEquals("t99", store.getName(99));
+        assertEquals(9.9f, store.getTime(99), 0.001);
+        assertTrue(store.isFailure(70));
+        assertFalse(store.isFailure(71));
+        assertTrue(store.isSkipped(65));
+        assertTrue(store.isError(64));
+    }
+
+    @Test
+    void get() {
+        TestStore store = createStore(100);
+        TestMetrics test = store.get(70);
+        assertEquals(new TestMetrics("m2", "c7", "t70").getId(), test.getId());
+        assertTrue(test.isFailure());
+        assertEquals("Failed t70", test.getFailureMessage());
+        assertEquals("java.lang.AssertionError", test.getFailureType());
+        assertEquals("Detail t70", test.getFailureDetail());
+        assertNull(store.get(71).getFailureMessage());
+    }
+
+    @Test
+    void visit() {
+        TestStore store = createStore(100);
+        List<TestMetrics> views = new ArrayList<>();
+        int[] failures = new int[1];
+        store.visit(test -> {
+            views.add(test);
+            if (test.isFailure()) failures[0]++;
+        });
+        assertEquals(100, views.size());
+        assertSame(views.get(0), views.get(99));
+        assertEquals(10, failures[0]);
+        assertEquals(10, store.filter(TestMetrics::isFailure).size());
+    }
+
+    private TestStore createStore(int count) {
+        TestStore store = TestStore.create();
+        for (int i = 0; i < count; i++) {
+            TestMetrics test = new TestMetrics(i < 50 ? "m1" : "m2", "c" + (i / 10), "t" + i).setTime(i / 10f);
+            if (i % 10 == 0) {
+                test.setFailure(true).setFailureMessage("Failed t" + i).setFailureType("java.lang.AssertionError")
+                        .setFailureDetail("Detail t" + i);
+            }
+            if (i == 64) test.setError(true);
+            if (i == 65) test.setSkipped(true);
+            store.add(test);
+        }
+        return store;
+    }
+}
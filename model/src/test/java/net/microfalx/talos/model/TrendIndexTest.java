@@ -0,0 +1,77 @@
+package net.microfalx.talos.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendIndexTest extends AbstractMetricsTest {
+
+    private final ZonedDateTime startTime = ZonedDateTime.now().minusDays(30);
+
+    @Test
+    void add() {
+        TrendIndex index = TrendIndex.create();
+        assertTrue(index.add("single", "trend_1.data", createTrend(0, 10_000)));
+        assertFalse(index.add("single", "trend_1.data", createTrend(0, 10_000)));
+        assertTrue(index.isIndexed("single", "trend_1.data"));
+        assertFalse(index.isIndexed("single", "trend_2.data"));
+        assertEquals(1, index.getProjects().size());
+        assertEquals(10_000, index.getProject("single").getLastBuild().getDuration().toMillis());
+    }
+
+    @Test
+    void retention() {
+        TrendIndex index = TrendIndex.create().setMaximumBuilds(5);
+        for (int i = 10; i < 20; i++) {
+            index.add("single", "trend_" + i + ".data", createTrend(i, 10_000));
+        }
+        TrendIndex.ProjectSummary project = index.getProject("single");
+        assertEquals(5, project.getBuilds().size());
+        assertEquals("trend_15.data", project.getBuilds().get(0).getName());
+        assertTrue(index.isIndexed("single", "trend_11.data"));
+    }
+
+    @Test
+    void regressions() {
+        TrendIndex index = TrendIndex.create();
+        for (int i = 10; i < 18; i++) {
+            index.add("single", "trend_" + i + ".data", createTrend(i, 10_000 + (i % 3) * 100));
+        }
+        assertTrue(index.getRegressions(10).isEmpty());
+        index.add("single", "trend_18.data", createTrend(18, 20_000));
+        List<TrendIndex.Regression> regressions = index.getRegressions(10);
+        assertEquals(1, regressions.size());
+        assertEquals(RegressionMetrics.Type.SESSION, regressions.get(0).getMetrics().getType());
+        assertEquals("single", regressions.get(0).getProject().getId());
+    }
+
+    @Test
+    void storeAndLoad() throws IOException {
+        TrendIndex index = TrendIndex.create();
+        for (int i = 10; i < 13; i++) {
+            index.add("single", "trend_" + i + ".data", createTrend(i, 10_000 + i));
+        }
+        index.add("other", "trend_10.data", createTrend(10, 5_000));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        index.store(outputStream);
+        TrendIndex loaded = TrendIndex.load(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals(2, loaded.getProjects().size());
+        assertEquals(3, loaded.getProject("single").getBuilds().size());
+        assertEquals(10_012, loaded.getProject("single").getLastBuild().getDuration().toMillis());
+        assertTrue(loaded.isIndexed("single", "trend_11.data"));
+        assertFalse(loaded.getProject("other").getLastBuild().isFailed());
+    }
+
+    private TrendMetrics createTrend(int day, long duration) {
+        TrendMetrics trend = new TrendMetrics(createSession("Single"));
+        ZonedDateTime start = startTime.plusDays(day);
+        trend.updateInterval(start, start.plusNanos(duration * 1_000_000));
+        return trend;
+    }
+}
@@ -0,0 +1,81 @@
+package net.microfalx.talos.plugin;
+
+import net.microfalx.lang.FormatterUtils;
+import net.microfalx.resource.Resource;
+import net.microfalx.talos.model.LocalRepositoryAnalyzer;
+import net.microfalx.talos.model.LocalRepositoryMetrics;
+import net.microfalx.talos.model.SessionMetrics;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+
+import static net.microfalx.lang.ExceptionUtils.getRootCauseMessage;
+
+/**
+ * Analyzes the local repository and reports size, stale snapshots, artifacts with multiple versions,
+ * <code>_remote.repositories</code> churn and artifacts not used by the last build.
+ */
+@Mojo(name = "analyze-repository", requiresProject = false, aggregator = true, threadSafe = true)
+public class AnalyzeRepositoryMojo extends AbstractMojo {
+
+    /**
+     * The session data of the last build, used to detect artifacts never touched by the build.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/build.data", property = "talos.repository.session")
+    private File sessionFile;
+
+    /**
+     * The maximum number of artifacts (largest first) displayed for each category.
+     */
+    @Parameter(defaultValue = "20", property = "talos.repository.entries")
+    private int maximumEntries;
+
+    @Override
+    public void execute() throws MojoFailureException {
+        File directory = new File(session.getLocalRepository().getBasedir());
+        getLog().info("Analyze local repository '" + directory + "'");
+        LocalRepositoryAnalyzer analyzer = LocalRepositoryAnalyzer.create(directory.toPath()).setMaximumEntries(maximumEntries);
+        if (sessionFile != null && sessionFile.exists()) {
+            try {
+                analyzer.addTouched(SessionMetrics.load(Resource.file(sessionFile)));
+                getLog().info("Untouched artifacts are based on '" + sessionFile + "'");
+            } catch (IOException e) {
+                getLog().warn("Failed to load session from '" + sessionFile + "', root cause: " + getRootCauseMessage(e));
+            }
+        }
+        LocalRepositoryMetrics metrics;
+        try {
+            metrics = analyzer.analyze();
+        } catch (IOException e) {
+            throw new MojoFailureException("Failed to analyze local repository '" + directory + "'", e);
+        }
+        logMetrics(metrics);
+    }
+
+    private void logMetrics(LocalRepositoryMetrics metrics) {
+        getLog().info("Size: " + FormatterUtils.formatBytes(metrics.getSize()) + ", artifacts: "
+                      + FormatterUtils.formatNumber(metrics.getArtifactCount()) + ", files: "
+                      + FormatterUtils.formatNumber(metrics.getFileCount()) + ", duration: "
+                      + FormatterUtils.formatDuration(metrics.getDuration()));
+        getLog().info("Stale snapshots: " + FormatterUtils.formatBytes(metrics.getStaleSnapshotSize())
+                      + " (" + FormatterUtils.formatNumber(metrics.getStaleSnapshotCount()) + " builds)");
+        getLog().info("Remote repositories: " + FormatterUtils.formatNumber(metrics.getRemoteRepositoriesCount())
+                      + " files, " + FormatterUtils.formatNumber(metrics.getRemoteRepositoriesChanged()) + " changed, "
+                      + FormatterUtils.formatNumber(metrics.getLastUpdatedCount()) + " failed resolutions");
+        getLog().info("Multiple versions: " + FormatterUtils.formatBytes(metrics.getMultipleVersionsSize())
+                      + " (" + FormatterUtils.formatNumber(metrics.getMultipleVersionsCount()) + " artifacts)");
+        for (LocalRepositoryMetrics.Entry entry : metrics.getMultipleVersions()) {
+            getLog().info(" - " + entry.getName() + " " + entry.getVersions() + ", " + FormatterUtils.formatBytes(entry.getSize()));
+        }
+        if (metrics.getUntouchedCount() > 0) {
+            getLog().info("Untouched: " + FormatterUtils.formatBytes(metrics.getUntouchedSize())
+                          + " (" + FormatterUtils.formatNumber(metrics.getUntouchedCount()) + " artifacts)");
+            for (LocalRepositoryMetrics.Entry entry : metrics.getUntouched()) {
+                getLog().info(" - " + entry.getName() + " " + entry.getVersions() + ", " + FormatterUtils.formatBytes(entry.getSize()));
+            }
+        }
+    }
+}
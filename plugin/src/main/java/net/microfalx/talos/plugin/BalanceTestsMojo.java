@@ -0,0 +1,170 @@
+package net.microfalx.talos.plugin;
+
+import net.microfalx.lang.FormatterUtils;
+import net.microfalx.resource.Resource;
+import net.microfalx.talos.core.MavenStorage;
+import net.microfalx.talos.model.TestBalancer;
+import net.microfalx.talos.model.TestHistory;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static net.microfalx.lang.ExceptionUtils.getRootCauseMessage;
+import static org.apache.maven.plugins.annotations.LifecyclePhase.PROCESS_TEST_CLASSES;
+
+/**
+ * Distributes the test classes of a module into shards with similar (historical) durations.
+ * <p>
+ * Each shard is written as a Surefire include file (<code>shard-N.txt</code>). When a shard is selected
+ * (<code>talos.tests.shard</code>), the <code>surefire.includesFile</code> property of the project points to its
+ * include file, so the following <code>surefire:test</code> execution runs only the classes of that shard.
+ */
+@Mojo(name = "balance-tests", defaultPhase = PROCESS_TEST_CLASSES, threadSafe = true)
+public class BalanceTestsMojo extends AbstractMojo {
+
+    private static final String[] TEST_SUFFIXES = {"Test", "Tests", "TestCase"};
+    private static final String TEST_PREFIX = "Test";
+    private static final String CLASS_EXTENSION = ".class";
+
+    /**
+     * The number of shards (forks or CI jobs).
+     */
+    @Parameter(defaultValue = "2", property = "talos.tests.shards")
+    private int shards;
+
+    /**
+     * The shard executed by this build (starting with 0), -1 to only generate the include files.
+     */
+    @Parameter(defaultValue = "-1", property = "talos.tests.shard")
+    private int shard;
+
+    /**
+     * The directory where include files are generated.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/talos/shards", property = "talos.tests.shards.directory")
+    private File outputDirectory;
+
+    @Override
+    public void execute() throws MojoFailureException {
+        Collection<String> classes = getTestClasses();
+        if (classes.isEmpty()) {
+            getLog().info("No test classes, balancing skipped");
+            return;
+        }
+        Map<String, Float> durations = getClassDurations();
+        TestBalancer balancer = TestBalancer.create(shards);
+        for (String className : classes) {
+            Float duration = durations.get(className);
+            if (duration != null) {
+                balancer.add(className, duration);
+            } else {
+                balancer.add(className);
+            }
+        }
+        List<TestBalancer.Shard> result = balancer.balance();
+        try {
+            write(result);
+        } catch (IOException e) {
+            throw new MojoFailureException("Failed to write test shards to '" + outputDirectory + "'", e);
+        }
+        logShards(result, classes.size(), durations.keySet().stream().filter(classes::contains).count());
+        if (shard >= 0) {
+            if (shard >= result.size()) {
+                throw new MojoFailureException("Invalid shard " + shard + ", expected a value between 0 and " + (result.size() - 1));
+            }
+            File includesFile = getIncludesFile(shard);
+            project.getProperties().setProperty("surefire.includesFile", includesFile.getAbsolutePath());
+            getLog().info("Run shard " + shard + " (" + includesFile + ")");
+        }
+    }
+
+    private Collection<String> getTestClasses() throws MojoFailureException {
+        Path directory = new File(project.getBuild().getTestOutputDirectory()).toPath();
+        if (!Files.isDirectory(directory)) return Collections.emptyList();
+        try (Stream<Path> stream = Files.walk(directory)) {
+            return stream.filter(Files::isRegularFile).map(path -> directory.relativize(path).toString())
+                    .filter(BalanceTestsMojo::isTestClass)
+                    .map(path -> path.substring(0, path.length() - CLASS_EXTENSION.length()).replace(File.separatorChar, '.'))
+                    .sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new MojoFailureException("Failed to list test classes from '" + directory + "'", e);
+        }
+    }
+
+    private Map<String, Float> getClassDurations() {
+        Resource resource = MavenStorage.getLocalTestHistory(session);
+        try {
+            if (!resource.exists()) {
+                getLog().info("No test history available, test classes are distributed evenly");
+                return Collections.emptyMap();
+            }
+            try (InputStream inputStream = resource.getInputStream()) {
+                return TestHistory.load(inputStream).getClassDurations(project.getArtifactId());
+            }
+        } catch (IOException e) {
+            getLog().warn("Failed to load test history from '" + resource.toURI() + "', root cause: " + getRootCauseMessage(e));
+            return Collections.emptyMap();
+        }
+    }
+
+    private void write(List<TestBalancer.Shard> shards) throws IOException {
+        Files.createDirectories(outputDirectory.toPath());
+        Properties properties = new Properties();
+        properties.setProperty("shards", Integer.toString(shards.size()));
+        for (TestBalancer.Shard shard : shards) {
+            File file = getIncludesFile(shard.getIndex());
+            try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                for (String className : shard.getClasses()) {
+                    writer.write(className.replace('.', '/'));
+                    writer.write(".java\n");
+                }
+            }
+            properties.setProperty("shard." + shard.getIndex() + ".includesFile", file.getAbsolutePath());
+            properties.setProperty("shard." + shard.getIndex() + ".classes", Integer.toString(shard.getClasses().size()));
+            properties.setProperty("shard." + shard.getIndex() + ".duration", Long.toString(shard.getDuration().toMillis()));
+        }
+        try (Writer writer = Files.newBufferedWriter(new File(outputDirectory, "shards.properties").toPath(), StandardCharsets.UTF_8)) {
+            properties.store(writer, "Test shards");
+        }
+    }
+
+    private void logShards(List<TestBalancer.Shard> shards, int classCount, long knownCount) {
+        Duration total = shards.stream().map(TestBalancer.Shard::getDuration).reduce(Duration.ZERO, Duration::plus);
+        Duration longest = shards.stream().map(TestBalancer.Shard::getDuration).max(Comparator.naturalOrder()).orElse(Duration.ZERO);
+        getLog().info("Balanced " + FormatterUtils.formatNumber(classCount) + " test classes ("
+                      + FormatterUtils.formatNumber(knownCount) + " with history) into " + shards.size()
+                      + " shards, estimated duration " + FormatterUtils.formatDuration(longest) + " (ideal "
+                      + FormatterUtils.formatDuration(total.dividedBy(shards.size())) + ")");
+        for (TestBalancer.Shard shard : shards) {
+            getLog().info(" - shard " + shard.getIndex() + ": " + FormatterUtils.formatNumber(shard.getClasses().size())
+                          + " classes, " + FormatterUtils.formatDuration(shard.getDuration()));
+        }
+    }
+
+    private File getIncludesFile(int index) {
+        return new File(outputDirectory, "shard-" + index + ".txt");
+    }
+
+    private static boolean isTestClass(String path) {
+        if (!path.endsWith(CLASS_EXTENSION) || path.indexOf('$') >= 0) return false;
+        String fileName = new File(path).getName();
+        String simpleName = fileName.substring(0, fileName.length() - CLASS_EXTENSION.length());
+        if (simpleName.startsWith(TEST_PREFIX)) return true;
+        for (String suffix : TEST_SUFFIXES) {
+            if (simpleName.endsWith(suffix)) return true;
+        }
+        return false;
+    }
+}
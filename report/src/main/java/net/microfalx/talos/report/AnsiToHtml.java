@@ -5,7 +5,10 @@ import net.microfalx.resource.Resource;
 
 import java.awt.*;
 import java.io.IOException;
-import java.io.LineNumberReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
@@ -14,7 +17,12 @@ import java.util.Set;
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 
 /**
- * Converts a text with ANSI escape characters to HTML
+ * Converts a text with ANSI escape characters to HTML.
+ * <p>
+ * The conversion is streaming: the text is read in chunks, parsed with a state machine and the HTML is written in
+ * chunks, with reused buffers, so the memory does not depend on the size of the text.
+ * <p>
+ * Lines can be marked with anchors (<code>log-line-N</code>), which allows the HTML to link to specific lines.
  */
 public class AnsiToHtml {
 
@@ -22,18 +30,46 @@ public class AnsiToHtml {
     private static final char SECOND_ESC_CHAR = '[';
 
     private static final char CSS_STYLE_SEPARATOR = ';';
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAXIMUM_TOKEN = 1_000_000;
 
-    private final StringBuilder builder = new StringBuilder();
-    private final StringBuilder lineBuilder = new StringBuilder();
+    private static final int STATE_TEXT = 0;
+    private static final int STATE_ESCAPE = 1;
+    private static final int STATE_SEQUENCE = 2;
 
-    private boolean escaped = false;
-    private char[] buffer;
-    private int bufferIndex;
+    private final char[] inputBuffer = new char[BUFFER_SIZE];
+    private final char[] outputBuffer = new char[BUFFER_SIZE];
+    private int outputLength;
+    private Writer writer;
+
+    private int state = STATE_TEXT;
+    private int token;
+    private boolean tokenAvailable;
+    private boolean lineStarted;
+    private boolean skipLineFeed;
+    private long[] anchors = new long[0];
+    private int anchorIndex;
+    private long line;
 
     private final Set<GraphicsMode> graphicsModes = EnumSet.noneOf(GraphicsMode.class);
     private Color foregroundColor;
     private Color backgroundColor;
 
+    /**
+     * Registers the lines which receive an anchor (an element with the identifier <code>log-line-N</code>).
+     * <p>
+     * Lines are counted by their terminator (<code>\n</code>), starting with 0.
+     *
+     * @param lines the lines
+     * @return self
+     */
+    public AnsiToHtml setAnchors(long[] lines) {
+        requireNonNull(lines);
+        this.anchors = lines.clone();
+        Arrays.sort(this.anchors);
+        return this;
+    }
+
     /**
      * Parses and Transforms the ANSI text.
      *
@@ -43,39 +79,147 @@ public class AnsiToHtml {
      */
     public Resource transform(Resource resource) throws IOException {
         requireNonNull(resource);
-        LineNumberReader lineReader = new LineNumberReader(resource.getReader());
-        String line;
-        while ((line = lineReader.readLine()) != null) {
-            line = transform(line);
-            builder.append(line).append("\n");
+        return transform(resource.getReader());
+    }
+
+    /**
+     * Parses and Transforms the ANSI text.
+     *
+     * @param reader the content to parse
+     * @return the HTML output
+     * @throws IOException if an I/O error occurs
+     */
+    public Resource transform(Reader reader) throws IOException {
+        requireNonNull(reader);
+        StringWriter writer = new StringWriter();
+        transform(reader, writer);
+        return Resource.text(writer.toString());
+    }
+
+    /**
+     * Parses and Transforms the ANSI text, writing the HTML as it is produced.
+     * <p>
+     * Lines are terminated with a new line (<code>\n</code>), including the last line.
+     *
+     * @param reader the content to parse
+     * @param writer the writer which receives the HTML
+     * @throws IOException if an I/O error occurs
+     */
+    public void transform(Reader reader, Writer writer) throws IOException {
+        requireNonNull(reader);
+        requireNonNull(writer);
+        this.writer = writer;
+        try {
+            int count;
+            while ((count = reader.read(inputBuffer)) != -1) {
+                for (int index = 0; index < count; index++) {
+                    process(inputBuffer[index]);
+                }
+            }
+            if (lineStarted) appendLine();
+            flushOutput();
+        } finally {
+            this.writer = null;
+            outputLength = 0;
+            state = STATE_TEXT;
+            lineStarted = false;
+            skipLineFeed = false;
+            anchorIndex = 0;
+            line = 0;
         }
-        return Resource.text(builder.toString());
-    }
-
-    private String transform(String line) {
-        lineBuilder.setLength(0);
-        bufferIndex = 0;
-        buffer = line.toCharArray();
-        while (bufferIndex < buffer.length) {
-            char c = buffer[bufferIndex++];
-            if (c == FIRST_ESC_CHAR) {
-                escaped = true;
-                c = buffer[bufferIndex++];
+    }
+
+    private void process(char c) throws IOException {
+        if (c == '\n' || c == '\r') {
+            if (c == '\n') line++;
+            state = STATE_TEXT;
+            if (c == '\n' && skipLineFeed) {
+                skipLineFeed = false;
+            } else {
+                skipLineFeed = c == '\r';
+                appendLine();
+            }
+            return;
+        }
+        skipLineFeed = false;
+        if (!lineStarted && anchorIndex < anchors.length) appendAnchors();
+        lineStarted = true;
+        switch (state) {
+            case STATE_TEXT:
+                if (c == FIRST_ESC_CHAR) {
+                    state = STATE_ESCAPE;
+                } else {
+                    append(c);
+                }
+                break;
+            case STATE_ESCAPE:
                 if (c == SECOND_ESC_CHAR) {
-                    while (escaped) {
-                        collectEscapes();
-                    }
-                    if (hasStyles()) {
-                        lineBuilder.append("<span style='").append(getHtmlStyle()).append("'>");
-                    } else {
-                        lineBuilder.append("</span>");
-                    }
+                    state = STATE_SEQUENCE;
+                    token = 0;
+                    tokenAvailable = false;
+                } else {
+                    state = STATE_TEXT;
+                    append(c);
+                }
+                break;
+            default:
+                processSequence(c);
+        }
+    }
+
+    private void processSequence(char c) throws IOException {
+        if (c >= '0' && c <= '9') {
+            if (token < MAXIMUM_TOKEN) token = token * 10 + (c - '0');
+            tokenAvailable = true;
+        } else if (c == ';' || c == 'm') {
+            if (tokenAvailable) applyMode(token);
+            token = 0;
+            tokenAvailable = false;
+            if (c == 'm') {
+                state = STATE_TEXT;
+                if (hasStyles()) {
+                    append("<span style='");
+                    append(getHtmlStyle());
+                    append("'>");
+                } else {
+                    append("</span>");
                 }
-            } else {
-                lineBuilder.append(c);
             }
+        } else if (c >= '@' && c <= '~') {
+            // other control sequences (cursor, erase) have no equivalent in HTML
+            state = STATE_TEXT;
+        }
+    }
+
+    private void appendAnchors() throws IOException {
+        while (anchorIndex < anchors.length && anchors[anchorIndex] < line) anchorIndex++;
+        if (anchorIndex < anchors.length && anchors[anchorIndex] == line) {
+            append("<span id='log-line-");
+            append(Long.toString(line));
+            append("'></span>");
+            anchorIndex++;
         }
-        return lineBuilder.toString();
+    }
+
+    private void appendLine() throws IOException {
+        append('\n');
+        lineStarted = false;
+    }
+
+    private void append(char c) throws IOException {
+        if (outputLength == outputBuffer.length) flushOutput();
+        outputBuffer[outputLength++] = c;
+    }
+
+    private void append(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            append(value.charAt(i));
+        }
+    }
+
+    private void flushOutput() throws IOException {
+        if (outputLength > 0) writer.write(outputBuffer, 0, outputLength);
+        outputLength = 0;
     }
 
     private String getHtmlStyle() {
@@ -113,10 +257,6 @@ public class AnsiToHtml {
         return org.apache.commons.lang3.StringUtils.leftPad(Integer.toHexString(value), 2, '0');
     }
 
-    private char peek() {
-        return buffer[bufferIndex];
-    }
-
     private void resetStyles() {
         foregroundColor = null;
         backgroundColor = null;
@@ -127,22 +267,18 @@ public class AnsiToHtml {
         return foregroundColor != null || backgroundColor != null || !graphicsModes.isEmpty();
     }
 
-    private void collectEscapes() {
-        String nextToken = getNextToken();
-        Integer mode = toInt(nextToken);
-        if (mode != null) {
-            GraphicsMode graphicsMode = SET_GRAPHICS_MODES.get(mode);
+    private void applyMode(int mode) {
+        GraphicsMode graphicsMode = SET_GRAPHICS_MODES.get(mode);
+        if (graphicsMode != null) {
+            graphicsModes.add(graphicsMode);
+        } else {
+            graphicsMode = RESET_GRAPHICS_MODES.get(mode);
             if (graphicsMode != null) {
-                graphicsModes.add(graphicsMode);
-            } else {
-                graphicsMode = RESET_GRAPHICS_MODES.get(mode);
-                if (graphicsMode != null) {
-                    graphicsModes.remove(graphicsMode);
-                } else if (mode >= 30 && mode <= 39) {
-                    foregroundColor = getColor(mode - 30);
-                } else if (mode >= 40 && mode <= 49) {
-                    backgroundColor = getColor(mode - 40);
-                }
+                graphicsModes.remove(graphicsMode);
+            } else if (mode >= 30 && mode <= 39) {
+                foregroundColor = getColor(mode - 30);
+            } else if (mode >= 40 && mode <= 49) {
+                backgroundColor = getColor(mode - 40);
             }
         }
     }
@@ -153,28 +289,6 @@ public class AnsiToHtml {
         return color;
     }
 
-    private String getNextToken() {
-        StringBuilder tokenBuilder = new StringBuilder();
-        while (bufferIndex < buffer.length) {
-            char c = buffer[bufferIndex++];
-            if (c == ';' || c == 'm') {
-                if (c == 'm') escaped = false;
-                break;
-            } else {
-                tokenBuilder.append(c);
-            }
-        }
-        return tokenBuilder.toString();
-    }
-
-    private Integer toInt(String value) {
-        try {
-            return Integer.parseInt(value);
-        } catch (NumberFormatException e) {
-            return null;
-        }
-    }
-
     enum GraphicsMode {
         RESET,
         BOLD,
@@ -23,12 +23,15 @@ import static net.microfalx.lang.TimeUtils.toMillis;
 
 public class ChartHelper {
 
+    static final int DEFAULT_MAXIMUM_POINTS = 500;
+
     private static final long offsetMillis = ZonedDateTime.now().getOffset().getTotalSeconds() * TimeUtils.MILLISECONDS_IN_SECOND;
 
     private final SessionMetrics session;
     private final ReportHelper reportHelper;
     private final TrendHelper trendHelper;
     private final CodeCoverageHelper codeCoverageHelper;
+    private int maximumPoints = DEFAULT_MAXIMUM_POINTS;
 
     public ChartHelper(SessionMetrics session, ReportHelper reportHelper, TrendHelper trendHelper, CodeCoverageHelper codeCoverageHelper) {
         requireNonNull(session);
@@ -41,6 +44,23 @@ public class ChartHelper {
         this.codeCoverageHelper = codeCoverageHelper;
     }
 
+    public int getMaximumPoints() {
+        return maximumPoints;
+    }
+
+    /**
+     * Changes the maximum number of points displayed for each series of a time series chart.
+     * <p>
+     * Longer series are downsampled (Largest-Triangle-Three-Buckets), which keeps the shape of the series.
+     *
+     * @param maximumPoints the number of points
+     * @return self
+     */
+    public ChartHelper setMaximumPoints(int maximumPoints) {
+        this.maximumPoints = Math.max(3, maximumPoints);
+        return this;
+    }
+
     public PieChart<Integer> getTotalTestsPieChart(String id) {
         PieChart<Integer> chart = new PieChart<>(id, "Total");
         chart.getLegend().setShow(false);
@@ -141,7 +161,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getServerCpu(String id, SeriesStore store) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "CPU");
+        AreaChart<Long, Float> chart = createAreaChart(id, "CPU");
         chart.add(convert("System", store.get(ServerMetrics.CPU_SYSTEM)));
         chart.add(convert("User", store.get(ServerMetrics.CPU_USER)));
         chart.add(convert("Nice", store.get(ServerMetrics.CPU_NICE)));
@@ -160,7 +180,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getServerLoad(String id, SeriesStore store) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "Load");
+        AreaChart<Long, Float> chart = createAreaChart(id, "Load");
         chart.add(convert("Load", store.get(ServerMetrics.LOAD_1)));
         chart.setStacked(true);
         return chart;
@@ -175,7 +195,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getServerKernel(String id, SeriesStore store) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "Kernel");
+        AreaChart<Long, Float> chart = createAreaChart(id, "Kernel");
         chart.add(convert("Context Switches", store.get(ServerMetrics.CONTEXT_SWITCHES)));
         chart.add(convert("Interrupts", store.get(ServerMetrics.INTERRUPTS)));
         return chart;
@@ -190,7 +210,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getServerIOCounts(String id, SeriesStore store) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "IO / Activity");
+        AreaChart<Long, Float> chart = createAreaChart(id, "IO / Activity");
         chart.add(convert("Reads", store.get(ServerMetrics.IO_READS)));
         chart.add(convert("Writes", store.get(ServerMetrics.IO_WRITES)));
         return chart;
@@ -205,7 +225,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getServerIOBytes(String id, SeriesStore store) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "IO / Bytes");
+        AreaChart<Long, Float> chart = createAreaChart(id, "IO / Bytes");
         chart.add(convert("Read Bytes", store.get(ServerMetrics.IO_READ_BYTES)));
         chart.add(convert("Write Bytes", store.get(ServerMetrics.IO_WRITE_BYTES)));
         chart.getYaxis().setUnit(Unit.BYTE);
@@ -221,7 +241,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getServerMemory(String id, SeriesStore store) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "Memory");
+        AreaChart<Long, Float> chart = createAreaChart(id, "Memory");
         chart.add(convert("Maximum", store.get(ServerMetrics.MEMORY_MAX)));
         chart.add(convert("Used", store.get(ServerMetrics.MEMORY_USED)));
         chart.getYaxis().setUnit(Unit.BYTE);
@@ -237,7 +257,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getProcessCpu(String id, SeriesStore store) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "CPU");
+        AreaChart<Long, Float> chart = createAreaChart(id, "CPU");
         chart.add(convert("System", store.get(VirtualMachineMetrics.CPU_SYSTEM)));
         chart.add(convert("User", store.get(VirtualMachineMetrics.CPU_USER)));
         chart.setStacked(true);
@@ -254,7 +274,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getProcessMemory(String id, SeriesStore store) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "Memory");
+        AreaChart<Long, Float> chart = createAreaChart(id, "Memory");
         chart.add(convert("Heap", store.get(VirtualMachineMetrics.MEMORY_HEAP_USED)));
         chart.add(convert("Non-Heap", store.get(VirtualMachineMetrics.MEMORY_NON_HEAP_USED)));
         chart.setStacked(true);
@@ -271,7 +291,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getProcessThreads(String id, SeriesStore store) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "Threads");
+        AreaChart<Long, Float> chart = createAreaChart(id, "Threads");
         chart.add(convert("Daemon", store.get(VirtualMachineMetrics.THREAD_DAEMON)));
         chart.add(convert("Non-Daemon", store.get(VirtualMachineMetrics.THREAD_NON_DAEMON)));
         chart.setStacked(true);
@@ -287,7 +307,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getProcessIO(String id, SeriesStore store) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "IO");
+        AreaChart<Long, Float> chart = createAreaChart(id, "IO");
         chart.add(convert("Read Bytes", store.get(VirtualMachineMetrics.IO_READ_BYTES)));
         chart.add(convert("Write Bytes", store.get(VirtualMachineMetrics.IO_WRITE_BYTES)));
         chart.setStacked(true);
@@ -304,7 +324,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getProcessGcCounts(String id, SeriesStore store) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "GC / Collections");
+        AreaChart<Long, Float> chart = createAreaChart(id, "GC / Collections");
         chart.add(convert("Eden", store.get(VirtualMachineMetrics.GC_EDEN_COUNT)));
         chart.add(convert("Tenured", store.get(VirtualMachineMetrics.GC_TENURED_COUNT)));
         chart.setStacked(true);
@@ -320,7 +340,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getProcessGcDuration(String id, SeriesStore store) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "GC / Durations");
+        AreaChart<Long, Float> chart = createAreaChart(id, "GC / Durations");
         chart.add(convert("Eden", store.get(VirtualMachineMetrics.GC_EDEN_DURATION)));
         chart.add(convert("Tenured", store.get(VirtualMachineMetrics.GC_TENURED_DURATION)));
         chart.getYaxis().setUnit(Unit.DURATION);
@@ -345,7 +365,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getTrendSessionDuration(String id) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "Sessions");
+        AreaChart<Long, Float> chart = createAreaChart(id, "Sessions");
         chart.add(convert("Duration", reportHelper.getTrends(), m -> toMillis(m.getStartTime()),
                 m -> (float) m.getDuration().toMillis()));
         chart.setHeight(300);
@@ -355,7 +375,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getTrendEventsDuration(String id) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "Events");
+        AreaChart<Long, Float> chart = createAreaChart(id, "Events");
         for (LifecycleMetrics metrics : trendHelper.getLifecycleMetricsTypes()) {
             chart.add(convert(metrics.getName(), trendHelper.getLifecycleMetrics(metrics.getId()), m -> toMillis(m.getStartTime()),
                     m -> (float) m.getActiveDuration().toMillis()));
@@ -366,7 +386,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getTrendTasksDuration(String id) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "Tasks");
+        AreaChart<Long, Float> chart = createAreaChart(id, "Tasks");
         for (MojoMetrics metrics : trendHelper.getMojoMetricsTypes()) {
             chart.add(convert(metrics.getName(), trendHelper.getMojoMetrics(metrics.getId()), m -> toMillis(m.getStartTime()),
                     m -> (float) m.getActiveDuration().toMillis()));
@@ -377,7 +397,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getTrendTestCounts(String id) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "Tests Summary");
+        AreaChart<Long, Float> chart = createAreaChart(id, "Tests Summary");
         Collection<TestSummaryMetrics> testCountsMetrics = trendHelper.getTestCountsMetrics();
         chart.add(convert("Passed", testCountsMetrics, m -> toMillis(m.getStartTime()),
                 m -> (float) m.getPassed()));
@@ -392,7 +412,7 @@ public class ChartHelper {
     }
 
     public AreaChart<Long, Float> getTrendTestFailuresByModuleCounts(String id) {
-        AreaChart<Long, Float> chart = new AreaChart<>(id, "Tests Failures");
+        AreaChart<Long, Float> chart = createAreaChart(id, "Tests Failures");
         Map<ProjectMetrics, Collection<TrendHelper.ModuleFailures>> testFailuresByModule = trendHelper.getTestFailuresByModule();
         for (Map.Entry<ProjectMetrics, Collection<TrendHelper.ModuleFailures>> entry : testFailuresByModule.entrySet()) {
             ProjectMetrics module = entry.getKey();
@@ -404,6 +424,34 @@ public class ChartHelper {
         return chart;
     }
 
+    public AreaChart<Long, Float> getTrendCacheCounts(String id) {
+        AreaChart<Long, Float> chart = createAreaChart(id, "Cache");
+        Collection<TrendMetrics> cacheMetrics = trendHelper.getCacheMetrics();
+        chart.add(convert("Hits", cacheMetrics, m -> toMillis(m.getStartTime()),
+                m -> (float) m.getCacheMetrics().getHits()));
+        chart.add(convert("Misses", cacheMetrics, m -> toMillis(m.getStartTime()),
+                m -> (float) m.getCacheMetrics().getMisses()));
+        chart.setStacked(true);
+        return chart;
+    }
+
+    public AreaChart<Long, Float> getTrendCacheDurations(String id) {
+        AreaChart<Long, Float> chart = createAreaChart(id, "Cache / Durations");
+        Collection<TrendMetrics> cacheMetrics = trendHelper.getCacheMetrics();
+        chart.add(convert("Saved", cacheMetrics, m -> toMillis(m.getStartTime()),
+                m -> (float) m.getCacheMetrics().getSavedDuration().toMillis()));
+        chart.add(convert("Overhead", cacheMetrics, m -> toMillis(m.getStartTime()),
+                m -> (float) m.getCacheMetrics().getOverheadDuration().toMillis()));
+        chart.getYaxis().setUnit(Unit.DURATION);
+        return chart;
+    }
+
+    private AreaChart<Long, Float> createAreaChart(String id, String name) {
+        AreaChart<Long, Float> chart = new AreaChart<>(id, name);
+        chart.setMaximumPoints(maximumPoints);
+        return chart;
+    }
+
     private static Series<Long, Float> convert(String name, net.microfalx.metrics.Series metricsSeries) {
         Series<Long, Float> series = new Series<>(name);
         for (Value value : metricsSeries.getValues()) {
@@ -629,13 +677,69 @@ public class ChartHelper {
     public static abstract class MultiSeriesChart<X, Y extends Number> extends Chart {
 
         private final List<Series<X, Y>> series = new ArrayList<>();
+        private int maximumPoints = DEFAULT_MAXIMUM_POINTS;
 
         public MultiSeriesChart(String id, String name) {
             super(id, name);
         }
 
+        /**
+         * Returns the series of the chart, each series reduced to the maximum number of points.
+         * <p>
+         * Series which share the same X values (stacked series) are reduced to the same points, selected from the
+         * sum of the series.
+         *
+         * @return a non-null instance
+         */
         public List<Series<X, Y>> getSeries() {
-            return unmodifiableList(series);
+            if (series.stream().noneMatch(s -> s.getData().size() > maximumPoints)) return unmodifiableList(series);
+            List<Series<X, Y>> downsampled = new ArrayList<>();
+            if (isAligned()) {
+                List<List<Data<X, Y>>> values = new ArrayList<>();
+                for (Series<X, Y> s : series) {
+                    values.add(new ArrayList<>(s.getData()));
+                }
+                int length = values.get(0).size();
+                double[] x = new double[length];
+                double[] y = new double[length];
+                for (int index = 0; index < length; index++) {
+                    x[index] = toDouble(values.get(0).get(index).getX(), index);
+                    for (List<Data<X, Y>> data : values) {
+                        y[index] += toDouble(data.get(index).getY(), 0);
+                    }
+                }
+                int[] indexes = Downsampler.select(x, y, maximumPoints);
+                for (int index = 0; index < series.size(); index++) {
+                    downsampled.add(select(series.get(index).getName(), values.get(index), indexes));
+                }
+            } else {
+                for (Series<X, Y> s : series) {
+                    List<Data<X, Y>> data = new ArrayList<>(s.getData());
+                    double[] x = new double[data.size()];
+                    double[] y = new double[data.size()];
+                    for (int index = 0; index < data.size(); index++) {
+                        x[index] = toDouble(data.get(index).getX(), index);
+                        y[index] = toDouble(data.get(index).getY(), 0);
+                    }
+                    downsampled.add(select(s.getName(), data, Downsampler.select(x, y, maximumPoints)));
+                }
+            }
+            return unmodifiableList(downsampled);
+        }
+
+        public int getMaximumPoints() {
+            return maximumPoints;
+        }
+
+        /**
+         * Changes the maximum number of points displayed for each series.
+         *
+         * @param maximumPoints the number of points, at least 3
+         * @return self
+         */
+        public MultiSeriesChart<X, Y> setMaximumPoints(int maximumPoints) {
+            this.maximumPoints = Math.max(3, maximumPoints);
+            return this;
         }
 
         public String getXDataType() {
@@ -655,6 +759,32 @@ public class ChartHelper {
             this.series.add(series);
             return this;
         }
+
+        private boolean isAligned() {
+            if (series.size() < 2) return false;
+            List<Data<X, Y>> first = new ArrayList<>(series.get(0).getData());
+            for (int index = 1; index < series.size(); index++) {
+                Collection<Data<X, Y>> data = series.get(index).getData();
+                if (data.size() != first.size()) return false;
+                Iterator<Data<X, Y>> firstIterator = first.iterator();
+                for (Data<X, Y> value : data) {
+                    if (!value.getX().equals(firstIterator.next().getX())) return false;
+                }
+            }
+            return true;
+        }
+
+        private Series<X, Y> select(String name, List<Data<X, Y>> data, int[] indexes) {
+            Series<X, Y> selected = new Series<>(name);
+            for (int index : indexes) {
+                selected.add(data.get(index));
+            }
+            return selected;
+        }
+
+        private static double toDouble(Object value, double defaultValue) {
+            return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+        }
     }
 
     public static abstract class SingleSeriesChart<N extends Number> extends Chart {
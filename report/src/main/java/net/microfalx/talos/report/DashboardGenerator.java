@@ -0,0 +1,229 @@
+package net.microfalx.talos.report;
+
+import net.microfalx.resource.Resource;
+import net.microfalx.talos.core.MavenStorage;
+import net.microfalx.talos.model.TrendIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Callable;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ExceptionUtils.getRootCauseMessage;
+
+/**
+ * Renders an overview of all the projects which stored trends in a storage directory (local or a copy of the remote
+ * storage): the last build durations, failure rates and the regressions of the last build of each project.
+ * <p>
+ * The dashboard is backed by an incremental index (see {@link TrendIndex}) stored next to the trends, so an update
+ * only reads the trends stored since the previous update. Updates of the index are serialized with a file lock, so
+ * concurrent builds on the same agent do not lose trends.
+ * <p>
+ * The generator can be used from the command line:
+ * <pre>
+ * java -cp ... net.microfalx.talos.report.DashboardGenerator [--builds N] [--output FILE] DIRECTORY
+ * </pre>
+ */
+public final class DashboardGenerator {
+
+    public static final String INDEX_FILE_NAME = "trends.index";
+    public static final String DASHBOARD_FILE_NAME = "dashboard.html";
+
+    private static final String LOCK_FILE_NAME = "trends.index.lock";
+
+    private final File directory;
+    private int maximumBuilds = 30;
+    private int regressionLimit = 20;
+
+    public static DashboardGenerator create(File directory) {
+        return new DashboardGenerator(directory);
+    }
+
+    private DashboardGenerator(File directory) {
+        requireNonNull(directory);
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the storage directory (which holds the <code>trends</code> directory).
+     *
+     * @return a non-null instance
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Changes the maximum number of (most recent) builds kept for each project.
+     *
+     * @param maximumBuilds the number of builds
+     * @return self
+     */
+    public DashboardGenerator setMaximumBuilds(int maximumBuilds) {
+        this.maximumBuilds = maximumBuilds;
+        return this;
+    }
+
+    /**
+     * Changes the maximum number of regressions displayed in the dashboard.
+     *
+     * @param regressionLimit the number of regressions
+     * @return self
+     */
+    public DashboardGenerator setRegressionLimit(int regressionLimit) {
+        this.regressionLimit = regressionLimit;
+        return this;
+    }
+
+    /**
+     * Indexes the new trends of all projects.
+     *
+     * @return the updated index
+     * @throws IOException if an I/O error occurs
+     */
+    public TrendIndex update() throws IOException {
+        return update(index -> index.update(Resource.directory(getTrendsDirectory())));
+    }
+
+    /**
+     * Indexes the new trends of a project.
+     *
+     * @param projectId the project identifier
+     * @return the updated index
+     * @throws IOException if an I/O error occurs
+     */
+    public TrendIndex update(String projectId) throws IOException {
+        requireNonNull(projectId);
+        return update(index -> index.update(projectId, Resource.directory(new File(getTrendsDirectory(), projectId))));
+    }
+
+    /**
+     * Renders the dashboard.
+     *
+     * @param index    the index
+     * @param resource the resource which receives the dashboard
+     * @throws IOException if an I/O error occurs
+     */
+    public void generate(TrendIndex index, Resource resource) throws IOException {
+        requireNonNull(index);
+        requireNonNull(resource);
+        Template.create("dashboard").addVariable("pageTitle", "Dashboard")
+                .addVariable("dashboard", new DashboardHelper(index, regressionLimit))
+                .render(resource);
+    }
+
+    /**
+     * Indexes the new trends of all projects and renders the dashboard in the storage directory.
+     *
+     * @return the file which holds the dashboard
+     * @throws IOException if an I/O error occurs
+     */
+    public File generate() throws IOException {
+        File file = new File(directory, DASHBOARD_FILE_NAME);
+        generate(update(), Resource.file(file));
+        return file;
+    }
+
+    private TrendIndex update(Updater updater) throws IOException {
+        return locked(() -> {
+            TrendIndex index = load();
+            if (updater.update(index) > 0) store(index);
+            return index;
+        });
+    }
+
+    private File getTrendsDirectory() {
+        return new File(directory, MavenStorage.TRENDS_DIRECTORY_NAME);
+    }
+
+    private TrendIndex load() throws IOException {
+        Path file = directory.toPath().resolve(INDEX_FILE_NAME);
+        if (Files.exists(file)) {
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                return TrendIndex.load(inputStream).setMaximumBuilds(maximumBuilds);
+            } catch (IOException e) {
+                // an index which cannot be read (or from another version) is rebuilt from the trends
+            }
+        }
+        return TrendIndex.create().setMaximumBuilds(maximumBuilds);
+    }
+
+    private void store(TrendIndex index) throws IOException {
+        Path file = directory.toPath().resolve(INDEX_FILE_NAME);
+        Path temporary = Files.createTempFile(directory.toPath(), INDEX_FILE_NAME, ".tmp");
+        try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+            index.store(outputStream);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private <T> T locked(Callable<T> callable) throws IOException {
+        Files.createDirectories(directory.toPath());
+        try (FileChannel channel = FileChannel.open(directory.toPath().resolve(LOCK_FILE_NAME),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            return callable.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to update trend index", e);
+        }
+    }
+
+    public static void main(String[] args) {
+        File directory = null;
+        File output = null;
+        int builds = 30;
+        try {
+            for (int index = 0; index < args.length; index++) {
+                String arg = args[index];
+                switch (arg) {
+                    case "--builds":
+                        builds = Integer.parseInt(getValue(args, ++index));
+                        break;
+                    case "--output":
+                        output = new File(getValue(args, ++index));
+                        break;
+                    default:
+                        if (arg.startsWith("--")) throw new IllegalArgumentException("Unknown option '" + arg + "'");
+                        directory = new File(arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            directory = null;
+        }
+        if (directory == null || !directory.isDirectory()) {
+            System.err.println("Usage: " + DashboardGenerator.class.getName() + " [--builds N] [--output FILE] DIRECTORY");
+            System.exit(2);
+        }
+        DashboardGenerator generator = DashboardGenerator.create(directory).setMaximumBuilds(builds);
+        try {
+            File file = output != null ? output : new File(directory, DASHBOARD_FILE_NAME);
+            generator.generate(generator.update(), Resource.file(file));
+            System.out.println("Generated " + file);
+            System.exit(0);
+        } catch (Exception e) {
+            System.err.println("Failed to generate dashboard, root cause: " + getRootCauseMessage(e));
+            System.exit(1);
+        }
+    }
+
+    private static String getValue(String[] args, int index) {
+        if (index >= args.length) throw new IllegalArgumentException("Option '" + args[index - 1] + "' requires a value");
+        return args[index];
+    }
+
+    private interface Updater {
+
+        int update(TrendIndex index) throws IOException;
+    }
+}
@@ -0,0 +1,74 @@
+package net.microfalx.talos.report;
+
+import net.microfalx.lang.EnumUtils;
+import net.microfalx.lang.FormatterUtils;
+import net.microfalx.talos.core.MavenUtils;
+import net.microfalx.talos.model.TrendIndex;
+
+import java.time.Duration;
+import java.util.List;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Exposes a {@link TrendIndex} to the dashboard template.
+ */
+public class DashboardHelper {
+
+    private static final int SPARKLINE_WIDTH = 120;
+    private static final int SPARKLINE_HEIGHT = 24;
+
+    private final TrendIndex index;
+    private final int regressionLimit;
+
+    public DashboardHelper(TrendIndex index, int regressionLimit) {
+        requireNonNull(index);
+        this.index = index;
+        this.regressionLimit = regressionLimit;
+    }
+
+    public List<TrendIndex.ProjectSummary> getProjects() {
+        return index.getProjects();
+    }
+
+    public List<TrendIndex.Regression> getRegressions() {
+        return index.getRegressions(regressionLimit);
+    }
+
+    public String formatDateTime(Object temporal) {
+        return FormatterUtils.formatDateTime(temporal);
+    }
+
+    public String formatPercent(Number value) {
+        return FormatterUtils.formatPercent(value);
+    }
+
+    public String formatDuration(Duration duration) {
+        return MavenUtils.formatDuration(duration, false, false);
+    }
+
+    public String toLabel(Enum<?> value) {
+        return EnumUtils.toLabel(value);
+    }
+
+    /**
+     * Returns the points (SVG polyline) of the build durations of a project, scaled to the sparkline.
+     *
+     * @param project the project
+     * @return a non-null instance
+     */
+    public String getSparkline(TrendIndex.ProjectSummary project) {
+        requireNonNull(project);
+        List<TrendIndex.Build> builds = project.getBuilds();
+        long maximum = builds.stream().mapToLong(build -> build.getDuration().toMillis()).max().orElse(0);
+        StringBuilder points = new StringBuilder();
+        for (int index = 0; index < builds.size(); index++) {
+            double x = builds.size() == 1 ? SPARKLINE_WIDTH : (double) index * SPARKLINE_WIDTH / (builds.size() - 1);
+            double y = maximum == 0 ? SPARKLINE_HEIGHT : SPARKLINE_HEIGHT
+                    - (double) builds.get(index).getDuration().toMillis() * (SPARKLINE_HEIGHT - 2) / maximum - 1;
+            if (points.length() > 0) points.append(' ');
+            points.append(Math.round(x)).append(',').append(Math.round(y));
+        }
+        return points.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package net.microfalx.talos.report;
+
+import net.microfalx.resource.Resource;
+import net.microfalx.talos.model.SessionMetrics;
+
+import java.io.IOException;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Builds an HTML report which compares the metrics of a Maven session with the metrics of a baseline session
+ * (for example, the build of a pull request with the latest build of the main branch).
+ *
+ * @see DiffHelper
+ */
+public class DiffBuilder {
+
+    private final SessionMetrics session;
+    private final SessionMetrics baseline;
+    private final ReportModel model;
+    private final ReportModel baselineModel;
+
+    public static DiffBuilder create(SessionMetrics session, SessionMetrics baseline) {
+        return new DiffBuilder(session, baseline);
+    }
+
+    private DiffBuilder(SessionMetrics session, SessionMetrics baseline) {
+        requireNonNull(session);
+        requireNonNull(baseline);
+        this.session = session;
+        this.baseline = baseline;
+        this.model = ReportModel.create(session);
+        this.baselineModel = ReportModel.create(baseline);
+    }
+
+    public SessionMetrics getSession() {
+        return session;
+    }
+
+    public SessionMetrics getBaseline() {
+        return baseline;
+    }
+
+    /**
+     * Renders the report.
+     *
+     * @param resource the resource
+     * @throws IOException if an I/O error occurs
+     */
+    public void build(Resource resource) throws IOException {
+        requireNonNull(resource);
+        DiffHelper diffHelper = new DiffHelper(session, model.getReportHelper(), baseline, baselineModel.getReportHelper());
+        Template.create("diff").setModel(model)
+                .addVariable("baseline", baseline)
+                .addVariable("diff", diffHelper)
+                .render(resource);
+    }
+}
@@ -0,0 +1,446 @@
+package net.microfalx.talos.report;
+
+import net.microfalx.jvm.ServerMetrics;
+import net.microfalx.jvm.VirtualMachineMetrics;
+import net.microfalx.lang.FormatterUtils;
+import net.microfalx.lang.Nameable;
+import net.microfalx.metrics.Metric;
+import net.microfalx.metrics.SeriesStore;
+import net.microfalx.talos.core.MavenUtils;
+import net.microfalx.talos.model.*;
+import net.microfalx.talos.report.ChartHelper.Unit;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Compares two sessions (usually a build and its baseline) and exposes the differences to the diff report.
+ * <p>
+ * Entities (modules, mojos, dependencies, tests) are matched by identifier; an entity present in only one of the
+ * sessions is reported as added or removed. Each list of changes is sorted by the absolute difference, the largest
+ * changes first.
+ */
+public class DiffHelper {
+
+    private final SessionMetrics current;
+    private final SessionMetrics baseline;
+    private final ReportHelper currentHelper;
+    private final ReportHelper baselineHelper;
+    private final ReportViews views = new ReportViews();
+
+    public DiffHelper(SessionMetrics current, SessionMetrics baseline) {
+        this(current, new ReportHelper(current), baseline, new ReportHelper(baseline));
+    }
+
+    DiffHelper(SessionMetrics current, ReportHelper currentHelper, SessionMetrics baseline, ReportHelper baselineHelper) {
+        requireNonNull(current);
+        requireNonNull(currentHelper);
+        requireNonNull(baseline);
+        requireNonNull(baselineHelper);
+        this.current = current;
+        this.currentHelper = currentHelper;
+        this.baseline = baseline;
+        this.baselineHelper = baselineHelper;
+    }
+
+    public SessionMetrics getCurrent() {
+        return current;
+    }
+
+    public SessionMetrics getBaseline() {
+        return baseline;
+    }
+
+    /**
+     * Returns the differences of the session totals (duration, modules, tests, dependencies).
+     *
+     * @return a non-null instance
+     */
+    public List<Delta> getSummary() {
+        return views.get("summary", () -> {
+            List<Delta> deltas = new ArrayList<>();
+            deltas.add(Delta.of("duration", "Build Time", baseline.getDuration(), current.getDuration()));
+            deltas.add(Delta.of("tasks", "Tasks Time", baselineHelper.getTasksDuration(), currentHelper.getTasksDuration()));
+            deltas.add(new Delta("modules", "Modules", baseline.getModules().size(), current.getModules().size(), Unit.COUNT));
+            deltas.add(new Delta("tests", "Tests", baseline.getTestCount(), current.getTestCount(), Unit.COUNT));
+            deltas.add(new Delta("dependencies", "Dependencies", baseline.getDependencies().size(),
+                    current.getDependencies().size(), Unit.COUNT));
+            deltas.add(new Delta("dependenciesSize", "Dependencies Size", getSize(baseline.getDependencies()),
+                    getSize(current.getDependencies()), Unit.BYTE));
+            return deltas;
+        });
+    }
+
+    /**
+     * Returns the changes of module durations.
+     *
+     * @return a non-null instance
+     */
+    public List<Delta> getModules() {
+        return views.get("modules", () -> diff(baseline.getModules(), current.getModules(),
+                ProjectMetrics::getId, ProjectMetrics::getName, m -> millis(m.getDuration()), Unit.DURATION));
+    }
+
+    /**
+     * Returns the changes of mojo (active) durations.
+     *
+     * @return a non-null instance
+     */
+    public List<Delta> getMojos() {
+        return views.get("mojos", () -> diff(baseline.getMojos(), current.getMojos(),
+                MojoMetrics::getId, MojoMetrics::getName, m -> millis(m.getActiveDuration()), Unit.DURATION));
+    }
+
+    /**
+     * Returns the changes of test counts and durations, by module.
+     *
+     * @return a non-null instance
+     */
+    public List<TestDelta> getTests() {
+        return views.get("tests", () -> {
+            Map<String, ReportHelper.TestDetails> baselineTests = index(baselineHelper.getTestDetails(), ReportHelper.TestDetails::getModule);
+            Map<String, ReportHelper.TestDetails> currentTests = index(currentHelper.getTestDetails(), ReportHelper.TestDetails::getModule);
+            Set<String> modules = new LinkedHashSet<>(currentTests.keySet());
+            modules.addAll(baselineTests.keySet());
+            List<TestDelta> deltas = new ArrayList<>();
+            for (String module : modules) {
+                ReportHelper.TestDetails before = baselineTests.get(module);
+                ReportHelper.TestDetails after = currentTests.get(module);
+                String name = after != null ? after.getName() : before.getName();
+                deltas.add(new TestDelta(
+                        new Delta(module, name, before != null ? before.getTotal() : 0, after != null ? after.getTotal() : 0, Unit.COUNT),
+                        new Delta(module, name, before != null ? before.getFailed() + before.getError() : 0,
+                                after != null ? after.getFailed() + after.getError() : 0, Unit.COUNT),
+                        new Delta(module, name, before != null ? millis(before.getDuration()) : 0,
+                                after != null ? millis(after.getDuration()) : 0, Unit.DURATION)));
+            }
+            deltas.sort(Comparator.comparing((TestDelta delta) -> Math.abs(delta.getDuration().getDifference())).reversed());
+            return deltas;
+        });
+    }
+
+    /**
+     * Returns the dependencies which were added, removed or changed their version.
+     *
+     * @return a non-null instance
+     */
+    public List<DependencyChange> getDependencies() {
+        return views.get("dependencies", () -> {
+            Map<String, DependencyMetrics> before = index(baseline.getDependencies(), DependencyMetrics::getId);
+            Map<String, DependencyMetrics> after = index(current.getDependencies(), DependencyMetrics::getId);
+            List<DependencyChange> changes = new ArrayList<>();
+            for (DependencyMetrics dependency : after.values()) {
+                DependencyMetrics previous = before.get(dependency.getId());
+                if (previous == null) {
+                    changes.add(new DependencyChange(dependency, null));
+                } else if (!Objects.equals(previous.getVersion(), dependency.getVersion())) {
+                    changes.add(new DependencyChange(dependency, previous));
+                }
+            }
+            for (DependencyMetrics dependency : before.values()) {
+                if (!after.containsKey(dependency.getId())) changes.add(new DependencyChange(null, dependency));
+            }
+            changes.sort(Comparator.comparing(DependencyChange::getType).thenComparing(DependencyChange::getName));
+            return changes;
+        });
+    }
+
+    /**
+     * Returns the download cost (size and duration) of the dependencies added by the current session.
+     *
+     * @return a non-null instance
+     */
+    public List<Delta> getDependencyCost() {
+        return views.get("dependencyCost", () -> {
+            Collection<DependencyMetrics> added = getDependencies().stream().filter(c -> c.getType() == ChangeType.ADDED)
+                    .map(DependencyChange::getCurrent).collect(Collectors.toList());
+            return Arrays.asList(new Delta("addedSize", "Size", 0, getSize(added), Unit.BYTE),
+                    Delta.of("addedDuration", "Download", Duration.ZERO, added.stream().map(DependencyMetrics::getDuration)
+                            .filter(Objects::nonNull).reduce(Duration.ZERO, Duration::plus)));
+        });
+    }
+
+    /**
+     * Returns the changes of the resources used by the build (process and server).
+     *
+     * @return a non-null instance
+     */
+    public List<Delta> getResources() {
+        return views.get("resources", () -> {
+            List<Delta> deltas = new ArrayList<>();
+            deltas.add(average("processCpu", "Process CPU", VirtualMachineMetrics.CPU_TOTAL, true, Unit.PERCENT));
+            deltas.add(average("processHeap", "Process Heap", VirtualMachineMetrics.MEMORY_HEAP_USED, true, Unit.BYTE));
+            deltas.add(average("serverCpu", "Server CPU", ServerMetrics.CPU_TOTAL, false, Unit.PERCENT));
+            deltas.add(average("serverMemory", "Server Memory", ServerMetrics.MEMORY_USED, false, Unit.BYTE));
+            deltas.add(average("serverLoad", "Server Load", ServerMetrics.LOAD_1, false, Unit.COUNT));
+            return deltas;
+        });
+    }
+
+    private Delta average(String id, String name, Metric metric, boolean process, Unit unit) {
+        SeriesStore before = process ? baseline.getVirtualMachineMetrics() : baseline.getServerMetrics();
+        SeriesStore after = process ? current.getVirtualMachineMetrics() : current.getServerMetrics();
+        return new Delta(id, name, before.getAverage(metric, Duration.ofDays(1)).orElse(0),
+                after.getAverage(metric, Duration.ofDays(1)).orElse(0), unit);
+    }
+
+    private static <T> List<Delta> diff(Collection<T> before, Collection<T> after, Function<T, String> idFunction,
+                                        Function<T, String> nameFunction, ToDoubleFunction<T> valueFunction, Unit unit) {
+        Map<String, T> beforeIndex = index(before, idFunction);
+        Map<String, T> afterIndex = index(after, idFunction);
+        Set<String> ids = new LinkedHashSet<>(afterIndex.keySet());
+        ids.addAll(beforeIndex.keySet());
+        List<Delta> deltas = new ArrayList<>();
+        for (String id : ids) {
+            T previous = beforeIndex.get(id);
+            T next = afterIndex.get(id);
+            String name = nameFunction.apply(next != null ? next : previous);
+            Delta delta = new Delta(id, name, previous != null ? valueFunction.applyAsDouble(previous) : 0,
+                    next != null ? valueFunction.applyAsDouble(next) : 0, unit);
+            delta.type = previous == null ? ChangeType.ADDED : next == null ? ChangeType.REMOVED : ChangeType.CHANGED;
+            deltas.add(delta);
+        }
+        deltas.sort(Comparator.comparing((Delta delta) -> Math.abs(delta.getDifference())).reversed());
+        return deltas;
+    }
+
+    private static <T> Map<String, T> index(Collection<T> values, Function<T, String> idFunction) {
+        Map<String, T> index = new LinkedHashMap<>();
+        for (T value : values) {
+            index.putIfAbsent(idFunction.apply(value), value);
+        }
+        return index;
+    }
+
+    private static long getSize(Collection<DependencyMetrics> dependencies) {
+        return dependencies.stream().mapToLong(DependencyMetrics::getSize).filter(size -> size > 0).sum();
+    }
+
+    private static double millis(Duration duration) {
+        return duration != null ? duration.toMillis() : 0;
+    }
+
+    /**
+     * The type of change of an entity.
+     */
+    public enum ChangeType {
+        ADDED,
+        REMOVED,
+        CHANGED
+    }
+
+    /**
+     * Holds the value of a metric in both sessions.
+     */
+    public static class Delta implements Nameable {
+
+        private final String id;
+        private final String name;
+        private final double baseline;
+        private final double current;
+        private final Unit unit;
+        private ChangeType type = ChangeType.CHANGED;
+
+        static Delta of(String id, String name, Duration baseline, Duration current) {
+            return new Delta(id, name, millis(baseline), millis(current), Unit.DURATION);
+        }
+
+        Delta(String id, String name, double baseline, double current, Unit unit) {
+            requireNonNull(id);
+            requireNonNull(unit);
+            this.id = id;
+            this.name = name;
+            this.baseline = baseline;
+            this.current = current;
+            this.unit = unit;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        public double getBaseline() {
+            return baseline;
+        }
+
+        public double getCurrent() {
+            return current;
+        }
+
+        public double getDifference() {
+            return current - baseline;
+        }
+
+        /**
+         * Returns the relative change.
+         *
+         * @return the change (0.1 means 10% more), NaN if there is no baseline
+         */
+        public double getChange() {
+            return baseline != 0 ? (current - baseline) / Math.abs(baseline) : Double.NaN;
+        }
+
+        public boolean isIncrease() {
+            return current > baseline;
+        }
+
+        public boolean isDecrease() {
+            return current < baseline;
+        }
+
+        public String getBaselineText() {
+            return type == ChangeType.ADDED ? "-" : format(baseline);
+        }
+
+        public String getCurrentText() {
+            return type == ChangeType.REMOVED ? "-" : format(current);
+        }
+
+        public String getDifferenceText() {
+            double difference = getDifference();
+            if (difference == 0) return "-";
+            return (difference > 0 ? "+" : "-") + format(Math.abs(difference));
+        }
+
+        public String getChangeText() {
+            double change = getChange();
+            if (Double.isNaN(change) || change == 0) return "-";
+            return (change > 0 ? "+" : "") + FormatterUtils.formatNumber(change * 100, 1, "") + "%";
+        }
+
+        private String format(double value) {
+            switch (unit) {
+                case DURATION:
+                    return MavenUtils.formatDuration(Duration.ofMillis((long) value), false, false);
+                case BYTE:
+                    return FormatterUtils.formatBytes(value);
+                case PERCENT:
+                    return FormatterUtils.formatPercent(value);
+                default:
+                    return FormatterUtils.formatNumber(value, 1, "");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Delta.class.getSimpleName() + "[", "]")
+                    .add("id='" + id + "'")
+                    .add("name='" + name + "'")
+                    .add("type=" + type)
+                    .add("baseline=" + baseline)
+                    .add("current=" + current)
+                    .toString();
+        }
+    }
+
+    /**
+     * Holds the changes of the tests of a module.
+     */
+    public static class TestDelta implements Nameable {
+
+        private final Delta total;
+        private final Delta failed;
+        private final Delta duration;
+
+        TestDelta(Delta total, Delta failed, Delta duration) {
+            this.total = total;
+            this.failed = failed;
+            this.duration = duration;
+        }
+
+        @Override
+        public String getName() {
+            return total.getName();
+        }
+
+        public Delta getTotal() {
+            return total;
+        }
+
+        public Delta getFailed() {
+            return failed;
+        }
+
+        public Delta getDuration() {
+            return duration;
+        }
+    }
+
+    /**
+     * Holds a dependency which was added, removed or changed its version.
+     */
+    public static class DependencyChange implements Nameable {
+
+        private final DependencyMetrics current;
+        private final DependencyMetrics baseline;
+
+        DependencyChange(DependencyMetrics current, DependencyMetrics baseline) {
+            this.current = current;
+            this.baseline = baseline;
+        }
+
+        public ChangeType getType() {
+            if (baseline == null) {
+                return ChangeType.ADDED;
+            } else if (current == null) {
+                return ChangeType.REMOVED;
+            } else {
+                return ChangeType.CHANGED;
+            }
+        }
+
+        @Override
+        public String getName() {
+            DependencyMetrics dependency = current != null ? current : baseline;
+            return dependency.getGroupId() + ":" + dependency.getArtifactId();
+        }
+
+        public DependencyMetrics getCurrent() {
+            return current;
+        }
+
+        public DependencyMetrics getBaseline() {
+            return baseline;
+        }
+
+        public String getCurrentVersion() {
+            return current != null ? current.getVersion() : "-";
+        }
+
+        public String getBaselineVersion() {
+            return baseline != null ? baseline.getVersion() : "-";
+        }
+
+        /**
+         * Returns the size of the (current) dependency.
+         *
+         * @return the size in bytes, -1 if not known or the dependency was removed
+         */
+        public long getSize() {
+            return current != null ? current.getSize() : -1;
+        }
+
+        /**
+         * Returns the time spent to download the (current) dependency.
+         *
+         * @return the duration, null if not downloaded
+         */
+        public Duration getDuration() {
+            return current != null ? current.getDuration() : null;
+        }
+    }
+}
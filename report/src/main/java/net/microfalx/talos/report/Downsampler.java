@@ -0,0 +1,75 @@
+package net.microfalx.talos.report;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Reduces the number of points of a time series with the Largest-Triangle-Three-Buckets algorithm.
+ * <p>
+ * The first and the last points are always kept; the other points are split in buckets and, from each bucket, the
+ * point which forms the largest triangle with the point selected from the previous bucket and the average of the next
+ * bucket is kept. Peaks and valleys survive, so the shape of the series is preserved with a fraction of the points.
+ */
+final class Downsampler {
+
+    private Downsampler() {
+    }
+
+    /**
+     * Selects the points to keep.
+     *
+     * @param x         the (ascending) X values
+     * @param y         the Y values
+     * @param threshold the maximum number of points
+     * @return the (ascending) indexes of the points to keep
+     */
+    static int[] select(double[] x, double[] y, int threshold) {
+        requireNonNull(x);
+        requireNonNull(y);
+        if (x.length != y.length) throw new IllegalArgumentException("X and Y must have the same length");
+        int length = x.length;
+        if (threshold >= length || threshold < 3) {
+            int[] indexes = new int[length];
+            for (int index = 0; index < length; index++) {
+                indexes[index] = index;
+            }
+            return indexes;
+        }
+        int[] indexes = new int[threshold];
+        int count = 0;
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        int selected = 0;
+        indexes[count++] = selected;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // the average of the next bucket is the third point of the triangle
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, length);
+            double averageX = 0;
+            double averageY = 0;
+            for (int index = nextStart; index < nextEnd; index++) {
+                averageX += x[index];
+                averageY += y[index];
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+            // pick the point of the current bucket with the largest triangle
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double selectedX = x[selected];
+            double selectedY = y[selected];
+            double maximumArea = -1;
+            int next = start;
+            for (int index = start; index < end; index++) {
+                double area = Math.abs((selectedX - averageX) * (y[index] - selectedY)
+                        - (selectedX - x[index]) * (averageY - selectedY));
+                if (area > maximumArea) {
+                    maximumArea = area;
+                    next = index;
+                }
+            }
+            selected = next;
+            indexes[count++] = selected;
+        }
+        indexes[count] = length - 1;
+        return indexes;
+    }
+}
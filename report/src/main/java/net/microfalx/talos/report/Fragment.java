@@ -4,6 +4,7 @@ import net.microfalx.lang.*;
 import net.microfalx.resource.Resource;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.StringJoiner;
 
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
@@ -16,7 +17,8 @@ public class Fragment implements Identifiable<String>, Nameable {
     private final String id;
     private final Type type;
     Resource content;
-    Throwable throwable;
+    FragmentBuffer buffer;
+    volatile Throwable throwable;
 
     public static Fragment create(Type type) {
         return new Fragment(type);
@@ -98,10 +100,20 @@ public class Fragment implements Identifiable<String>, Nameable {
         return content;
     }
 
+    /**
+     * Returns the placeholder of the fragment, replaced with the output of the fragment when the report is written.
+     *
+     * @return a non-null instance
+     */
+    public String getPlaceholder() {
+        return PlaceholderWriter.getPlaceholder(id);
+    }
+
     public String getContent() {
         try {
+            if (buffer != null) return buffer.toString();
             return content.loadAsString();
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             return "<div class=\"alert alert-primary\" role=\"alert\">\n" +
                    "Failed to load fragment " + type + ", root cause: " + ExceptionUtils.getRootCauseMessage(e) +
                    "    </div>";
@@ -112,7 +124,7 @@ public class Fragment implements Identifiable<String>, Nameable {
     public String toString() {
         return new StringJoiner(", ", Fragment.class.getSimpleName() + "[", "]")
                 .add("type=" + type)
-                .add("content=" + content.getName())
+                .add("content=" + (content != null ? content.getName() : null))
                 .toString();
     }
 
@@ -0,0 +1,120 @@
+package net.microfalx.talos.report;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Holds the output of a fragment rendered ahead of its position in the report.
+ * <p>
+ * The output is kept in memory up to a threshold, larger fragments (like the build log) are spilled to a temporary
+ * file. Either way, the output is streamed into the report with {@link #writeTo(Writer)}, never loaded as a whole.
+ */
+final class FragmentBuffer extends Writer {
+
+    private static final int MAXIMUM_MEMORY_SIZE = 1024 * 1024;
+
+    private final String name;
+    private final StringBuilder memory = new StringBuilder();
+    private File spillFile;
+    private Writer spillWriter;
+    private boolean closed;
+
+    FragmentBuffer(String name) {
+        requireNonNull(name);
+        this.name = name;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (closed) throw new IOException("Buffer closed");
+        if (spillWriter == null && memory.length() + len > MAXIMUM_MEMORY_SIZE) spill();
+        if (spillWriter != null) {
+            spillWriter.write(cbuf, off, len);
+        } else {
+            memory.append(cbuf, off, len);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        if (closed) throw new IOException("Buffer closed");
+        if (spillWriter == null && memory.length() + len > MAXIMUM_MEMORY_SIZE) spill();
+        if (spillWriter != null) {
+            spillWriter.write(str, off, len);
+        } else {
+            memory.append(str, off, off + len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (spillWriter != null) spillWriter.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (spillWriter != null) spillWriter.close();
+    }
+
+    /**
+     * Writes the output of the fragment.
+     *
+     * @param writer the writer which receives the output
+     * @throws IOException if an I/O error occurs
+     */
+    void writeTo(Writer writer) throws IOException {
+        requireNonNull(writer);
+        if (spillFile == null) {
+            writer.append(memory);
+            return;
+        }
+        if (!closed) spillWriter.flush();
+        try (Reader reader = Files.newBufferedReader(spillFile.toPath(), StandardCharsets.UTF_8)) {
+            char[] chars = new char[8192];
+            int count;
+            while ((count = reader.read(chars)) != -1) writer.write(chars, 0, count);
+        }
+    }
+
+    /**
+     * Releases the memory and the temporary file.
+     */
+    void release() {
+        memory.setLength(0);
+        memory.trimToSize();
+        if (spillFile == null) return;
+        try {
+            if (spillWriter != null) spillWriter.close();
+        } catch (IOException e) {
+            // not important
+        }
+        spillFile.delete();
+        spillWriter = null;
+        spillFile = null;
+    }
+
+    @Override
+    public String toString() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeTo(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    private void spill() throws IOException {
+        spillFile = File.createTempFile("talos_report_" + name + "_", ".html");
+        spillFile.deleteOnExit();
+        spillWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(spillFile), StandardCharsets.UTF_8));
+        spillWriter.append(memory);
+        memory.setLength(0);
+        memory.trimToSize();
+    }
+}
@@ -5,6 +5,7 @@ import net.microfalx.resource.Resource;
 import net.microfalx.talos.model.SessionMetrics;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.StringJoiner;
 
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
@@ -15,7 +16,8 @@ import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 public class FragmentBuilder {
 
     private final Fragment fragment;
-    private final SessionMetrics session;
+    private final ReportModel model;
+    private boolean lazy;
 
     /**
      * Creates a new fragment builder.
@@ -25,14 +27,39 @@ public class FragmentBuilder {
      * @return a non-null instance
      */
     public static FragmentBuilder create(Fragment fragment, SessionMetrics session) {
-        return new FragmentBuilder(fragment, session);
+        return new FragmentBuilder(fragment, ReportModel.create(session));
     }
 
-    private FragmentBuilder(Fragment fragment, SessionMetrics session) {
+    /**
+     * Creates a new fragment builder which shares the model of a report.
+     *
+     * @param fragment the fragment
+     * @param model    the model of the report
+     * @return a non-null instance
+     */
+    public static FragmentBuilder create(Fragment fragment, ReportModel model) {
+        return new FragmentBuilder(fragment, model);
+    }
+
+    private FragmentBuilder(Fragment fragment, ReportModel model) {
         requireNonNull(fragment);
-        requireNonNull(session);
+        requireNonNull(model);
         this.fragment = fragment;
-        this.session = session;
+        this.model = model;
+    }
+
+    /**
+     * Changes whether the fragment is rendered for a lazy report.
+     * <p>
+     * In a lazy report, large tables do not render their rows, the rows are embedded as data and rendered by the
+     * browser.
+     *
+     * @param lazy <code>true</code> to render for a lazy report, <code>false</code> otherwise
+     * @return self
+     */
+    public FragmentBuilder setLazy(boolean lazy) {
+        this.lazy = lazy;
+        return this;
     }
 
     /**
@@ -45,19 +72,55 @@ public class FragmentBuilder {
         requireNonNull(resource);
         String name = fragment.getType().name().toLowerCase();
         fragment.content = resource;
+        try (Writer writer = resource.getWriter()) {
+            render(name, writer);
+        } catch (Exception e) {
+            fragment.throwable = e;
+            ExceptionUtils.throwException(e);
+        }
+    }
+
+    /**
+     * Renders the template for this fragment into a writer.
+     * <p>
+     * The writer is not closed.
+     *
+     * @param writer the writer
+     * @throws IOException if an I/O error occurs
+     */
+    public void build(Writer writer) throws IOException {
+        requireNonNull(writer);
+        String name = fragment.getType().name().toLowerCase();
         try {
-            Template.create(name).setSession(session).setSelector(name).render(resource);
+            render(name, writer);
         } catch (Exception e) {
             fragment.throwable = e;
             ExceptionUtils.throwException(e);
         }
     }
 
+    private void render(String name, Writer writer) throws IOException {
+        PlaceholderWriter placeholderWriter = new PlaceholderWriter(writer, this::writePlaceholder);
+        createTemplate(name).render(placeholderWriter);
+        placeholderWriter.finish();
+    }
+
+    private void writePlaceholder(String id, Writer writer) throws IOException {
+        // the log is streamed into the fragment, the template engine never holds it
+        if (!model.getReportHelper().writePlaceholder(id, writer)) {
+            writer.write(PlaceholderWriter.getPlaceholder(id));
+        }
+    }
+
+    private Template createTemplate(String name) {
+        return Template.create(name).setModel(model).setSelector(name).addVariable("lazy", lazy);
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", FragmentBuilder.class.getSimpleName() + "[", "]")
                 .add("fragment=" + fragment)
-                .add("session=" + session)
+                .add("session=" + model.getSession())
                 .toString();
     }
 }
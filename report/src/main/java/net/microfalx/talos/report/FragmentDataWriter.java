@@ -0,0 +1,78 @@
+package net.microfalx.talos.report;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * A writer which stores the output of a fragment as data for a lazy report.
+ * <p>
+ * The output is compressed (zlib), encoded as Base64 and wrapped in a script
+ * (<code>Talos.loaded("ID", "DATA");</code>), which is loaded by the report when the fragment is displayed. A script
+ * (and not a plain data file) is used because browsers do not allow pages opened from the file system to fetch
+ * other files.
+ * <p>
+ * The output is streamed into the stream as it is written, it is never held in memory as a whole.
+ */
+final class FragmentDataWriter extends Writer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream output;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Writer writer;
+    private boolean closed;
+
+    FragmentDataWriter(String id, OutputStream output) throws IOException {
+        requireNonNull(id);
+        requireNonNull(output);
+        this.output = new BufferedOutputStream(output, BUFFER_SIZE);
+        this.output.write(("Talos.loaded(\"" + id + "\", \"").getBytes(StandardCharsets.US_ASCII));
+        OutputStream encoder = Base64.getEncoder().wrap(new FilterOutputStream(this.output) {
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                // the script is completed after the data
+                flush();
+            }
+        });
+        this.writer = new OutputStreamWriter(new DeflaterOutputStream(encoder, deflater, BUFFER_SIZE), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        writer.write(cbuf, off, len);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        writer.write(str, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            writer.close();
+            output.write("\");\n".getBytes(StandardCharsets.US_ASCII));
+            output.close();
+        } finally {
+            deflater.end();
+        }
+    }
+}
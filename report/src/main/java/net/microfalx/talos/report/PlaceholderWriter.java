@@ -0,0 +1,126 @@
+package net.microfalx.talos.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * A writer which replaces placeholders (<code>&lt;!--talos-fragment:ID--&gt;</code>) with the output of fragments.
+ * <p>
+ * The page of the report is rendered with placeholders and each placeholder is replaced, while the page is
+ * written, with the output of its fragment. The output of the fragments never passes through the template engine
+ * of the page. Fragments use the same mechanism for large content, like the build log.
+ */
+final class PlaceholderWriter extends Writer {
+
+    static final String PREFIX = "<!--talos-fragment:";
+    static final String SUFFIX = "-->";
+
+    private static final int MAXIMUM_ID_LENGTH = 64;
+
+    private final Writer writer;
+    private final Handler handler;
+    private final StringBuilder pending = new StringBuilder();
+    private int matched;
+
+    /**
+     * Returns the placeholder of a fragment.
+     *
+     * @param id the identifier of the fragment
+     * @return a non-null instance
+     */
+    static String getPlaceholder(String id) {
+        return PREFIX + id + SUFFIX;
+    }
+
+    PlaceholderWriter(Writer writer, Handler handler) {
+        requireNonNull(writer);
+        requireNonNull(handler);
+        this.writer = writer;
+        this.handler = handler;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int start = off;
+        for (int i = off, end = off + len; i < end; i++) {
+            char c = cbuf[i];
+            if (matched == 0 && c != '<') continue;
+            // the text before a (possible) placeholder is written as is
+            if (i > start) writer.write(cbuf, start, i - start);
+            start = i + 1;
+            process(c);
+        }
+        if (start < off + len) writer.write(cbuf, start, off + len - start);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        writer.close();
+    }
+
+    /**
+     * Writes the text held for a (possible) placeholder, without closing the writer.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void finish() throws IOException {
+        writePending();
+    }
+
+    private void process(char c) throws IOException {
+        if (matched < PREFIX.length()) {
+            if (c == PREFIX.charAt(matched)) {
+                pending.append(c);
+                matched++;
+            } else {
+                writePending();
+                if (c == PREFIX.charAt(0)) {
+                    pending.append(c);
+                    matched = 1;
+                } else {
+                    writer.write(c);
+                }
+            }
+        } else {
+            pending.append(c);
+            int length = pending.length();
+            if (length >= PREFIX.length() + SUFFIX.length() && pending.lastIndexOf(SUFFIX) == length - SUFFIX.length()) {
+                String id = pending.substring(PREFIX.length(), length - SUFFIX.length());
+                pending.setLength(0);
+                matched = 0;
+                handler.write(id, writer);
+            } else if (length > PREFIX.length() + MAXIMUM_ID_LENGTH) {
+                writePending();
+            }
+        }
+    }
+
+    private void writePending() throws IOException {
+        if (pending.length() > 0) writer.append(pending);
+        pending.setLength(0);
+        matched = 0;
+    }
+
+    /**
+     * Writes the output of a fragment in place of its placeholder.
+     */
+    interface Handler {
+
+        /**
+         * Invoked when a placeholder was found.
+         *
+         * @param id     the identifier of the fragment
+         * @param writer the writer which receives the output
+         * @throws IOException if an I/O error occurs
+         */
+        void write(String id, Writer writer) throws IOException;
+    }
+}
@@ -2,24 +2,43 @@ package net.microfalx.talos.report;
 
 import net.microfalx.lang.ExceptionUtils;
 import net.microfalx.resource.Resource;
+import net.microfalx.resource.ResourceUtils;
 import net.microfalx.talos.model.SessionMetrics;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.StringJoiner;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.unmodifiableCollection;
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 
 /**
  * Builds an HTML report out of metrics of a Maven session.
+ * <p>
+ * Fragments are rendered concurrently, on a bounded pool of threads, and streamed into the report in the order of
+ * their types. All fragments share the same {@link ReportModel}.
  */
 public class ReportBuilder {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private final SessionMetrics session;
+    private final ReportModel model;
     private boolean failOnError;
+    private int parallelism = Math.min(Fragment.Type.values().length, Runtime.getRuntime().availableProcessors());
+    private Resource dataDirectory;
     private final Collection<Fragment> fragments = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
 
     public static ReportBuilder create(SessionMetrics session) {
         return new ReportBuilder(session);
@@ -27,6 +46,19 @@ public class ReportBuilder {
 
     private ReportBuilder(SessionMetrics session) {
         this.session = session;
+        this.model = ReportModel.create(session);
+        for (Fragment.Type type : Fragment.Type.values()) {
+            fragments.add(Fragment.create(type));
+        }
+    }
+
+    /**
+     * Returns the model shared by all the fragments of the report.
+     *
+     * @return a non-null instance
+     */
+    public ReportModel getModel() {
+        return model;
     }
 
     /**
@@ -49,38 +81,172 @@ public class ReportBuilder {
     }
 
     /**
-     * Renders the template for this fragment.
+     * Changes the maximum number of fragments rendered at the same time.
+     *
+     * @param parallelism the number of threads, 1 to render the fragments in the current thread
+     * @return self
+     */
+    public ReportBuilder setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * Changes the directory which receives the data of the fragments, for a lazy report.
+     * <p>
+     * A lazy report is a lightweight page which loads (and renders) each fragment only when the fragment is
+     * displayed. The data of the fragments is stored in this directory, which should be a sibling of the report
+     * (the report refers to it by name).
+     *
+     * @param dataDirectory the directory, <code>null</code> to render all fragments in the report
+     * @return self
+     */
+    public ReportBuilder setDataDirectory(Resource dataDirectory) {
+        this.dataDirectory = dataDirectory;
+        return this;
+    }
+
+    /**
+     * Renders the report.
+     * <p>
+     * The page is rendered with placeholders, which are replaced with the output of the fragments while the page is
+     * written. Fragments rendered in parallel are buffered until their turn comes; without parallelism, each fragment
+     * is rendered directly into the report.
+     * <p>
+     * If a data directory is set, the report is lazy: the page holds no fragments and each fragment is written, in
+     * parallel, in its own data file.
+     * <p>
+     * When the report fails on errors, the first failure is thrown after the report was written.
      *
      * @param resource the resource
      * @throws IOException if an I/O error occurs
      */
     public void build(Resource resource) throws IOException {
         requireNonNull(resource);
-        buildFragments();
-        Template template = Template.create("report").setSession(session);
-        template.addVariable("fragments", fragments);
+        failure.set(null);
+        for (Fragment fragment : fragments) {
+            fragment.throwable = null;
+            fragment.buffer = null;
+        }
+        if (dataDirectory != null) {
+            buildLazy(resource);
+            return;
+        }
+        ExecutorService executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism, new ReportThreadFactory()) : null;
+        Map<String, Future<?>> futures = new HashMap<>();
         try {
-            template.render(resource);
+            if (executor != null) {
+                for (Fragment fragment : fragments) {
+                    fragment.buffer = new FragmentBuffer(fragment.getId());
+                    futures.put(fragment.getId(), executor.submit(() -> {
+                        try (Writer writer = fragment.buffer) {
+                            buildFragment(fragment, writer);
+                        }
+                        return null;
+                    }));
+                }
+            }
+            Template template = Template.create("report").setModel(model);
+            template.addVariable("fragments", fragments);
+            try (Writer writer = new PlaceholderWriter(new BufferedWriter(resource.getWriter(), BUFFER_SIZE),
+                    (id, target) -> writeFragment(id, target, futures.get(id)))) {
+                template.render(writer);
+            }
+            throwFailure();
         } finally {
+            if (executor != null) executor.shutdownNow();
             cleanup();
         }
     }
 
-    private void buildFragments() throws IOException {
-        for (Fragment.Type type : Fragment.Type.values()) {
-            Fragment fragment = Fragment.create(type);
-            fragments.add(fragment);
-            Resource temporary = Resource.temporary("talos_report_" + type.name().toLowerCase() + "_", ".html");
-            try {
-                FragmentBuilder.create(fragment, session).build(temporary);
-            } catch (Exception e) {
-                if (failOnError) ExceptionUtils.throwException(e);
+    private void buildLazy(Resource resource) throws IOException {
+        ResourceUtils.toFile(dataDirectory).mkdirs();
+        ExecutorService executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism, new ReportThreadFactory()) : null;
+        Collection<Future<?>> futures = new ArrayList<>();
+        try {
+            for (Fragment fragment : fragments) {
+                Resource data = dataDirectory.resolve(fragment.getId() + ".js", Resource.Type.FILE);
+                Callable<Object> task = () -> {
+                    try (Writer writer = new FragmentDataWriter(fragment.getId(), data.getOutputStream())) {
+                        buildFragment(fragment, writer, true);
+                    }
+                    return null;
+                };
+                if (executor != null) {
+                    futures.add(executor.submit(task));
+                } else {
+                    call(task);
+                }
+            }
+            Template template = Template.create("report").setModel(model);
+            template.addVariable("fragments", fragments);
+            template.addVariable("lazy", true);
+            template.addVariable("dataPath", dataDirectory.getFileName());
+            try (Writer writer = new BufferedWriter(resource.getWriter(), BUFFER_SIZE)) {
+                template.render(writer);
+            }
+            for (Future<?> future : futures) {
+                call(future::get);
             }
+            throwFailure();
+        } finally {
+            if (executor != null) executor.shutdownNow();
+            cleanup();
+        }
+    }
+
+    private void call(Callable<?> callable) throws IOException {
+        try {
+            callable.call();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering fragments");
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, e.getCause());
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private void writeFragment(String id, Writer writer, Future<?> future) throws IOException {
+        Fragment fragment = fragments.stream().filter(f -> f.getId().equals(id)).findFirst().orElse(null);
+        if (fragment == null) return;
+        if (future == null) {
+            buildFragment(fragment, writer);
+            return;
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering fragment " + fragment.getName());
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, e.getCause());
+        }
+        fragment.buffer.writeTo(writer);
+    }
+
+    private void buildFragment(Fragment fragment, Writer writer) {
+        buildFragment(fragment, writer, false);
+    }
+
+    private void buildFragment(Fragment fragment, Writer writer, boolean lazy) {
+        try {
+            FragmentBuilder.create(fragment, model).setLazy(lazy).build(writer);
+        } catch (Exception e) {
+            // the failure is kept with the fragment (see Fragment.getThrowable())
+            failure.compareAndSet(null, e);
         }
     }
 
+    private void throwFailure() {
+        Throwable throwable = failure.get();
+        if (failOnError && throwable != null) ExceptionUtils.throwException(throwable);
+    }
+
     private void cleanup() {
         for (Fragment fragment : fragments) {
+            if (fragment.buffer != null) fragment.buffer.release();
             if (fragment.getResource() != null) {
                 try {
                     fragment.getResource().delete();
@@ -91,6 +257,18 @@ public class ReportBuilder {
         }
     }
 
+    private static class ReportThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger index = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Talos Report " + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", ReportBuilder.class.getSimpleName() + "[", "]")
@@ -0,0 +1,350 @@
+package net.microfalx.talos.report;
+
+import net.microfalx.lang.FormatterUtils;
+import net.microfalx.resource.Resource;
+import net.microfalx.talos.model.SessionMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.unmodifiableCollection;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ExceptionUtils.getRootCauseMessage;
+
+/**
+ * Regenerates HTML reports out of stored sessions (<code>build.data</code>), without running Maven.
+ * <p>
+ * Sessions are rendered in parallel, one session per thread, and all reports share the same template engine (templates
+ * are parsed once). By default, each report is written next to its session.
+ * <p>
+ * The generator can be used from the command line:
+ * <pre>
+ * java -cp ... net.microfalx.talos.report.ReportGenerator [--parallelism N] [--lazy] [--chart-points N] [--output DIR] [--baseline FILE] FILE|DIRECTORY...
+ * </pre>
+ * A directory is searched (recursively) for sessions, so the whole local storage of sessions can be regenerated at once.
+ * <p>
+ * When a baseline session is given, a diff report (see {@link DiffBuilder}) is also written next to each report.
+ */
+public final class ReportGenerator {
+
+    public static final String SESSION_FILE_NAME = "build.data";
+    public static final String REPORT_FILE_NAME = "build.report.html";
+    public static final String REPORT_DATA_DIRECTORY_NAME = "build.report.data";
+    public static final String DIFF_FILE_NAME = "build.diff.html";
+
+    private final Collection<File> sessions = new LinkedHashSet<>();
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean lazy;
+    private int chartPoints = ChartHelper.DEFAULT_MAXIMUM_POINTS;
+    private File outputDirectory;
+    private File baseline;
+
+    public static ReportGenerator create() {
+        return new ReportGenerator();
+    }
+
+    private ReportGenerator() {
+    }
+
+    /**
+     * Loads a stored session and attaches its logs, if stored next to the session.
+     *
+     * @param file the session file
+     * @return a non-null instance
+     * @throws IOException if an I/O error occurs
+     */
+    public static SessionMetrics load(File file) throws IOException {
+        requireNonNull(file);
+        SessionMetrics session = SessionMetrics.load(Resource.file(file));
+        String logFileName = session.getLogFileName();
+        if (logFileName != null) {
+            File logFile = new File(file.getParentFile(), logFileName);
+            if (logFile.exists()) session.setLogResource(Resource.file(logFile));
+        }
+        return session;
+    }
+
+    /**
+     * Returns the sessions registered with the generator.
+     *
+     * @return a non-null instance
+     */
+    public Collection<File> getSessions() {
+        return unmodifiableCollection(sessions);
+    }
+
+    /**
+     * Registers a session file, or all the sessions found (recursively) in a directory.
+     *
+     * @param file a session file or a directory
+     * @return self
+     */
+    public ReportGenerator add(File file) {
+        requireNonNull(file);
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null) return this;
+            Arrays.sort(children);
+            for (File child : children) {
+                if (child.isDirectory() || SESSION_FILE_NAME.equals(child.getName())) add(child);
+            }
+        } else if (file.isFile()) {
+            sessions.add(file.getAbsoluteFile());
+        } else {
+            throw new IllegalArgumentException("Session '" + file + "' does not exist");
+        }
+        return this;
+    }
+
+    /**
+     * Changes the maximum number of sessions rendered at the same time.
+     *
+     * @param parallelism the number of threads
+     * @return self
+     */
+    public ReportGenerator setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * Changes whether the reports are lazy (see {@link ReportBuilder#setDataDirectory(Resource)}).
+     *
+     * @param lazy <code>true</code> to generate lazy reports, <code>false</code> otherwise
+     * @return self
+     */
+    public ReportGenerator setLazy(boolean lazy) {
+        this.lazy = lazy;
+        return this;
+    }
+
+    /**
+     * Changes the maximum number of points displayed for each series of a time series chart.
+     *
+     * @param chartPoints the number of points
+     * @return self
+     */
+    public ReportGenerator setChartPoints(int chartPoints) {
+        this.chartPoints = chartPoints;
+        return this;
+    }
+
+    /**
+     * Changes the directory which receives the reports.
+     * <p>
+     * Each report is written in a subdirectory named after the directory of its session; when directories of
+     * sessions share a name, a suffix (<code>-2</code>, <code>-3</code>, etc.) tells the reports apart.
+     *
+     * @param outputDirectory the directory, <code>null</code> to write each report next to its session
+     * @return self
+     */
+    public ReportGenerator setOutputDirectory(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+        return this;
+    }
+
+    /**
+     * Changes the session used as baseline for diff reports.
+     *
+     * @param baseline the baseline session file, <code>null</code> to skip the diff reports
+     * @return self
+     */
+    public ReportGenerator setBaseline(File baseline) {
+        if (baseline != null && !baseline.isFile()) {
+            throw new IllegalArgumentException("Baseline '" + baseline + "' does not exist");
+        }
+        this.baseline = baseline;
+        return this;
+    }
+
+    /**
+     * Generates the reports.
+     *
+     * @return the results, in the order of the sessions
+     */
+    public Collection<Result> generate() {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, sessions.size())),
+                new GeneratorThreadFactory());
+        try {
+            SessionMetrics baselineSession = baseline != null ? load(baseline) : null;
+            Collection<Future<Result>> futures = new ArrayList<>();
+            Set<File> reportFiles = new HashSet<>();
+            for (File session : sessions) {
+                File reportFile = getReportFile(session, reportFiles);
+                if (reportFiles.add(reportFile)) {
+                    futures.add(executor.submit(() -> generate(session, reportFile, baselineSession)));
+                } else {
+                    // sessions stored in the same directory would overwrite each other's report
+                    futures.add(CompletableFuture.completedFuture(new Result(session, reportFile, Duration.ZERO,
+                            new IOException("Report '" + reportFile + "' is generated from another session"))));
+                }
+            }
+            Collection<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while generating reports", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Unexpected failure while generating reports", e.getCause());
+                }
+            }
+            return results;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load baseline '" + baseline + "'", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result generate(File sessionFile, File reportFile, SessionMetrics baselineSession) {
+        long startTime = System.nanoTime();
+        try {
+            SessionMetrics session = load(sessionFile);
+            // sessions are already rendered in parallel
+            ReportBuilder builder = ReportBuilder.create(session).setParallelism(1).setFailOnError(true);
+            builder.getModel().getChartHelper().setMaximumPoints(chartPoints);
+            if (lazy) {
+                builder.setDataDirectory(Resource.directory(new File(reportFile.getParentFile(), REPORT_DATA_DIRECTORY_NAME)));
+            }
+            reportFile.getParentFile().mkdirs();
+            builder.build(Resource.file(reportFile));
+            if (baselineSession != null) {
+                DiffBuilder.create(session, baselineSession).build(Resource.file(new File(reportFile.getParentFile(), DIFF_FILE_NAME)));
+            }
+            return new Result(sessionFile, reportFile, Duration.ofNanos(System.nanoTime() - startTime), null);
+        } catch (Throwable e) {
+            return new Result(sessionFile, reportFile, Duration.ofNanos(System.nanoTime() - startTime), e);
+        }
+    }
+
+    private File getReportFile(File sessionFile, Set<File> reportFiles) {
+        File sessionDirectory = sessionFile.getParentFile();
+        if (outputDirectory == null) return new File(sessionDirectory, REPORT_FILE_NAME);
+        String name = sessionDirectory.getName();
+        File reportFile = new File(new File(outputDirectory, name), REPORT_FILE_NAME);
+        for (int index = 2; reportFiles.contains(reportFile); index++) {
+            reportFile = new File(new File(outputDirectory, name + "-" + index), REPORT_FILE_NAME);
+        }
+        return reportFile;
+    }
+
+    public static void main(String[] args) {
+        ReportGenerator generator = ReportGenerator.create();
+        try {
+            for (int index = 0; index < args.length; index++) {
+                String arg = args[index];
+                switch (arg) {
+                    case "--parallelism":
+                        generator.setParallelism(Integer.parseInt(getValue(args, ++index)));
+                        break;
+                    case "--lazy":
+                        generator.setLazy(true);
+                        break;
+                    case "--chart-points":
+                        generator.setChartPoints(Integer.parseInt(getValue(args, ++index)));
+                        break;
+                    case "--output":
+                        generator.setOutputDirectory(new File(getValue(args, ++index)));
+                        break;
+                    case "--baseline":
+                        generator.setBaseline(new File(getValue(args, ++index)));
+                        break;
+                    default:
+                        if (arg.startsWith("--")) throw new IllegalArgumentException("Unknown option '" + arg + "'");
+                        generator.add(new File(arg));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            args = new String[0];
+        }
+        if (args.length == 0 || generator.getSessions().isEmpty()) {
+            System.err.println("Usage: " + ReportGenerator.class.getName() + " [--parallelism N] [--lazy] [--chart-points N] "
+                    + "[--output DIR] [--baseline FILE] FILE|DIRECTORY...");
+            System.exit(2);
+        }
+        int failures = 0;
+        for (Result result : generator.generate()) {
+            if (result.getThrowable() == null) {
+                System.out.println("Generated " + result.getReport() + " in " + FormatterUtils.formatDuration(result.getDuration()));
+            } else {
+                failures++;
+                System.err.println("Failed to generate " + result.getReport() + " from " + result.getSession()
+                        + ", root cause: " + getRootCauseMessage(result.getThrowable()));
+            }
+        }
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static String getValue(String[] args, int index) {
+        if (index >= args.length) throw new IllegalArgumentException("Option '" + args[index - 1] + "' requires a value");
+        return args[index];
+    }
+
+    /**
+     * Holds the outcome of a report.
+     */
+    public static final class Result {
+
+        private final File session;
+        private final File report;
+        private final Duration duration;
+        private final Throwable throwable;
+
+        private Result(File session, File report, Duration duration, Throwable throwable) {
+            this.session = session;
+            this.report = report;
+            this.duration = duration;
+            this.throwable = throwable;
+        }
+
+        public File getSession() {
+            return session;
+        }
+
+        public File getReport() {
+            return report;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        /**
+         * Returns the failure of the report.
+         *
+         * @return the failure, null if the report was generated
+         */
+        public Throwable getThrowable() {
+            return throwable;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Result.class.getSimpleName() + "[", "]")
+                    .add("session=" + session)
+                    .add("report=" + report)
+                    .add("duration=" + duration)
+                    .add("throwable=" + throwable)
+                    .toString();
+        }
+    }
+
+    private static class GeneratorThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger index = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Talos Report Generator " + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -3,11 +3,17 @@ package net.microfalx.talos.report;
 import net.microfalx.jvm.ServerMetrics;
 import net.microfalx.jvm.VirtualMachineMetrics;
 import net.microfalx.lang.*;
-import net.microfalx.resource.Resource;
+import net.microfalx.resource.ResourceUtils;
+import net.microfalx.talos.core.LogFile;
 import net.microfalx.talos.core.MavenUtils;
 import net.microfalx.talos.model.*;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.*;
@@ -18,13 +24,18 @@ import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 public class ReportHelper {
 
     private final SessionMetrics session;
+    private final ReportViews views;
     private final ZonedDateTime startupTime = ZonedDateTime.now();
 
-    private List<TestDetails> testDetails;
-
     public ReportHelper(SessionMetrics session) {
+        this(session, new ReportViews());
+    }
+
+    ReportHelper(SessionMetrics session, ReportViews views) {
         requireNonNull(session);
+        requireNonNull(views);
         this.session = session;
+        this.views = views;
     }
 
     public ZonedDateTime getStartupTime() {
@@ -68,6 +79,10 @@ public class ReportHelper {
         return StringUtils.isEmpty(text) ? "-" : text;
     }
 
+    public String toLabel(Enum<?> value) {
+        return EnumUtils.toLabel(value);
+    }
+
     public String toHtmlId(Object value) {
         if (value == null) return null;
         return "#" + ObjectUtils.toString(value);
@@ -78,7 +93,8 @@ public class ReportHelper {
     }
 
     public Duration getTasksDuration() {
-        return session.getMojos().stream().map(MojoMetrics::getDuration).reduce(Duration.ZERO, Duration::plus);
+        return views.get("tasksDuration", () -> session.getMojos().stream().map(MojoMetrics::getDuration)
+                .reduce(Duration.ZERO, Duration::plus));
     }
 
     public long getProjectCount() {
@@ -86,7 +102,7 @@ public class ReportHelper {
     }
 
     public boolean hasTests() {
-        return !session.getTests().isEmpty();
+        return session.getTestCount() > 0;
     }
 
     public boolean hasFailures() {
@@ -118,33 +134,67 @@ public class ReportHelper {
     }
 
     public Collection<TestMetrics> getTests(boolean onlyFailing) {
-        return session.getTests().stream()
-                .filter(testMetrics -> filter(testMetrics, onlyFailing))
+        return views.get("tests[" + onlyFailing + "]", () -> session.getTests(testMetrics -> filter(testMetrics, onlyFailing)).stream()
                 .sorted(Comparator.comparing(TestMetrics::getModuleId).thenComparing(TestMetrics::getClassName)
                         .thenComparing(TestMetrics::getName))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Returns the rows of the tests table as a JSON array (one array of HTML cells per test).
+     * <p>
+     * Used by lazy reports, where large tables are rendered by the browser, one page at a time.
+     *
+     * @param onlyFailing <code>true</code> to return only failed tests
+     * @return a non-null instance
+     */
+    public String getTestRows(boolean onlyFailing) {
+        return views.get("testRows[" + onlyFailing + "]", () -> {
+            StringBuilder builder = new StringBuilder("[");
+            for (TestMetrics test : getTests(onlyFailing)) {
+                if (builder.length() > 1) builder.append(',');
+                builder.append('[');
+                appendJson(builder, escapeHtml(test.getModule().getName())).append(',');
+                appendJson(builder, escapeHtml(test.getClassName())).append(',');
+                appendJson(builder, escapeHtml(test.getName())).append(',');
+                appendJson(builder, test.isFailureOrError() ? CHECKED_HTML : UNCHECKED_HTML).append(',');
+                appendJson(builder, escapeHtml(formatDuration(test.getDuration()))).append(',');
+                appendJson(builder, escapeHtml(test.getFailureMessage()));
+                builder.append(']');
+            }
+            return builder.append(']').toString();
+        });
     }
 
     public Collection<MojoMetrics> getMojos() {
-        List<MojoMetrics> mojos = new ArrayList<>(session.getMojos());
-        mojos.sort(Comparator.comparing(MojoMetrics::getActiveDuration).reversed());
-        return mojos;
+        return views.get("mojos", () -> {
+            List<MojoMetrics> mojos = new ArrayList<>(session.getMojos());
+            mojos.sort(Comparator.comparing(MojoMetrics::getActiveDuration).reversed());
+            return mojos;
+        });
     }
 
     public Collection<PluginMetrics> getPlugins() {
-        List<PluginMetrics> plugins = new ArrayList<>(session.getPlugins());
-        plugins.sort(Comparator.comparing(Dependency::getGroupId).thenComparing(Dependency::getArtifactId));
-        return plugins;
+        return views.get("plugins", () -> {
+            List<PluginMetrics> plugins = new ArrayList<>(session.getPlugins());
+            plugins.sort(Comparator.comparing(Dependency::getGroupId).thenComparing(Dependency::getArtifactId));
+            return plugins;
+        });
     }
 
     public Collection<DependencyMetrics> getDependencies(boolean transitive) {
-        return session.getDependencies().stream()
+        return views.get("dependencies[" + transitive + "]", () -> session.getDependencies().stream()
                 .filter(dependencyMetrics -> filter(dependencyMetrics, transitive))
                 .sorted(Comparator.comparing(Dependency::getGroupId).thenComparing(Dependency::getArtifactId))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     public Collection<DependencyDetails> getDependencyDetails(boolean transitive, boolean sortByCount) {
+        return views.get("dependencyDetails[" + transitive + ", " + sortByCount + "]",
+                () -> createDependencyDetails(transitive, sortByCount));
+    }
+
+    private Collection<DependencyDetails> createDependencyDetails(boolean transitive, boolean sortByCount) {
         Map<String, ReportHelper.DependencyDetails> dependencies = new HashMap<>();
         for (DependencyMetrics dependencyMetrics : getDependencies(transitive)) {
             DependencyDetails dependencyDetails = dependencies.computeIfAbsent(dependencyMetrics.getGroupId(), DependencyDetails::new);
@@ -161,48 +211,62 @@ public class ReportHelper {
     }
 
     public Collection<ArtifactMetrics> getArtifacts() {
-        List<ArtifactMetrics> artifacts = new ArrayList<>(session.getArtifacts());
-        artifacts.sort(Comparator.comparing(Dependency::getGroupId).thenComparing(Dependency::getArtifactId));
-        return artifacts;
+        return views.get("artifacts", () -> {
+            List<ArtifactMetrics> artifacts = new ArrayList<>(session.getArtifacts());
+            artifacts.sort(Comparator.comparing(Dependency::getGroupId).thenComparing(Dependency::getArtifactId));
+            return artifacts;
+        });
     }
 
     public Collection<ProjectMetrics> getModules() {
-        List<ProjectMetrics> artifacts = new ArrayList<>(session.getModules());
-        artifacts.sort(Comparator.comparing(NamedIdentityAware::getName));
-        return artifacts;
+        return views.get("modules", () -> {
+            List<ProjectMetrics> artifacts = new ArrayList<>(session.getModules());
+            artifacts.sort(Comparator.comparing(NamedIdentityAware::getName));
+            return artifacts;
+        });
     }
 
     public Collection<LifecycleMetrics> getLifeCycles() {
-        List<LifecycleMetrics> lifeCycle = new ArrayList<>(session.getLifecycles());
-        lifeCycle.sort(Comparator.comparing(LifecycleMetrics::getActiveDuration).reversed());
-        return lifeCycle;
+        return views.get("lifeCycles", () -> {
+            List<LifecycleMetrics> lifeCycle = new ArrayList<>(session.getLifecycles());
+            lifeCycle.sort(Comparator.comparing(LifecycleMetrics::getActiveDuration).reversed());
+            return lifeCycle;
+        });
     }
 
     public Collection<LifecycleMetrics> getExtensionEvents() {
-        List<LifecycleMetrics> extensionEvents = new ArrayList<>(session.getExtensionEvents());
-        extensionEvents.sort(Comparator.comparing(LifecycleMetrics::getActiveDuration).reversed());
-        return extensionEvents;
+        return views.get("extensionEvents", () -> {
+            List<LifecycleMetrics> extensionEvents = new ArrayList<>(session.getExtensionEvents());
+            extensionEvents.sort(Comparator.comparing(LifecycleMetrics::getActiveDuration).reversed());
+            return extensionEvents;
+        });
     }
 
     public Collection<TrendMetrics> getTrends() {
-        List<TrendMetrics> trends = new ArrayList<>(session.getTrends());
-        trends.sort(Comparator.comparing(AbstractSessionMetrics::getStartTime));
-        return trends;
+        return views.get("trends", () -> {
+            List<TrendMetrics> trends = new ArrayList<>(session.getTrends());
+            trends.sort(Comparator.comparing(AbstractSessionMetrics::getStartTime));
+            return trends;
+        });
     }
 
     public Collection<Property> getSystemProperties() {
-        return session.getSystemProperties().entrySet().stream()
+        return views.get("systemProperties", () -> session.getSystemProperties().entrySet().stream()
                 .map(e -> new Property(e.getKey(), e.getValue())).sorted(Comparator.comparing(Property::getName))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     public Collection<Property> getProperties() {
-        return session.getProject().getProperties().entrySet().stream()
+        return views.get("properties", () -> session.getProject().getProperties().entrySet().stream()
                 .map(e -> new Property(e.getKey(), e.getValue())).sorted(Comparator.comparing(Property::getName))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     public Collection<ProjectDetails> getProjectDetails() {
+        return views.get("projectDetails", this::createProjectDetails);
+    }
+
+    private Collection<ProjectDetails> createProjectDetails() {
         Map<Project, ProjectDetails> projectDetails = new HashMap<>();
         for (PluginMetrics pluginMetrics : session.getPlugins()) {
             for (Project project : pluginMetrics.getProjects()) {
@@ -216,6 +280,10 @@ public class ReportHelper {
     }
 
     public TestSummary getTestSummary() {
+        return views.get("testSummary", this::createTestSummary);
+    }
+
+    private TestSummary createTestSummary() {
         TestSummary summary = new TestSummary();
         for (TestDetails testDetail : getTestDetails()) {
             summary.total += testDetail.total;
@@ -228,38 +296,50 @@ public class ReportHelper {
     }
 
     public List<TestDetails> getTestDetails() {
-        if (testDetails != null) return testDetails;
+        return views.get("testDetails", this::createTestDetails);
+    }
+
+    private List<TestDetails> createTestDetails() {
         Map<String, TestDetails> testDetails = new HashMap<>();
-        for (TestMetrics testMetrics : session.getTests()) {
-            TestDetails tests = testDetails.computeIfAbsent(testMetrics.getModuleId(), s -> new TestDetails(s, session.getModule(s).getName()));
+        TestStore store = session.getTestStore();
+        for (int index = 0; index < store.size(); index++) {
+            TestDetails tests = testDetails.computeIfAbsent(store.getModuleId(index), s -> new TestDetails(s, session.getModule(s).getName()));
             tests.total++;
-            tests.duration = tests.duration.plus(Duration.ofMillis((long) (testMetrics.getTime() * 1000L)));
-            if (testMetrics.isFailure()) tests.failed++;
-            if (testMetrics.isError()) tests.error++;
-            if (testMetrics.isSkipped()) tests.skipped++;
+            tests.duration = tests.duration.plus(Duration.ofMillis((long) (store.getTime(index) * 1000L)));
+            if (store.isFailure(index)) tests.failed++;
+            if (store.isError(index)) tests.error++;
+            if (store.isSkipped(index)) tests.skipped++;
         }
-        this.testDetails = new ArrayList<>(testDetails.values());
-        this.testDetails.sort(Comparator.comparing(TestDetails::getModule));
-        return this.testDetails;
+        List<TestDetails> sortedTestDetails = new ArrayList<>(testDetails.values());
+        sortedTestDetails.sort(Comparator.comparing(TestDetails::getModule));
+        return sortedTestDetails;
     }
 
     public List<TestFailureType> getTestFailureTypes() {
+        return views.get("testFailureTypes", this::createTestFailureTypes);
+    }
+
+    private List<TestFailureType> createTestFailureTypes() {
         Map<String, TestFailureType> testDetails = new HashMap<>();
-        List<TestMetrics> tests = session.getTests().stream().filter(TestMetrics::isFailureOrError)
-                .filter(t -> StringUtils.isNotEmpty(t.getFailureType())).collect(Collectors.toUnmodifiableList());
-        for (TestMetrics testMetrics : tests) {
+        session.getTestStore().visit(testMetrics -> {
+            if (!testMetrics.isFailureOrError() || StringUtils.isEmpty(testMetrics.getFailureType())) return;
             TestFailureType failureType = testDetails.computeIfAbsent(testMetrics.getFailureType(), TestFailureType::new);
             failureType.total++;
-        }
+        });
         List<TestFailureType> testFailureTypes = new ArrayList<>(testDetails.values());
         testFailureTypes.sort(Comparator.comparing(TestFailureType::getName));
         return testFailureTypes;
     }
 
     public List<Integer> getTestDurationDistribution() {
+        return views.get("testDurationDistribution", this::createTestDurationDistribution);
+    }
+
+    private List<Integer> createTestDurationDistribution() {
         int[] buckets = new int[DURATION_BUCKETS_LENGTH];
-        for (TestMetrics testMetrics : session.getTests()) {
-            long duration = (long) (testMetrics.getTime() * 1000);
+        TestStore store = session.getTestStore();
+        for (int i = 0; i < store.size(); i++) {
+            long duration = (long) (store.getTime(i) * 1000);
             if (duration > DURATION_BUCKETS[DURATION_BUCKETS_LENGTH - 1]) {
                 buckets[DURATION_BUCKETS_LENGTH - 1]++;
             } else if (duration < DURATION_BUCKETS[0]) {
@@ -276,16 +356,149 @@ public class ReportHelper {
         return Arrays.stream(buckets).boxed().collect(Collectors.toList());
     }
 
-    public String getLogAsHtml() {
+    public boolean hasLogs() {
+        return session.hasLogs();
+    }
+
+    public boolean hasLogMarkers() {
+        return !getLogMarkers().isEmpty();
+    }
+
+    public int getLogMarkerCount(String type) {
+        return getLogIndex().counts.getOrDefault(LogFile.Marker.Type.valueOf(type), 0);
+    }
+
+    public List<LogFile.Marker> getLogErrors() {
+        return getLogMarkers().stream().filter(marker -> marker.getType() != LogFile.Marker.Type.WARNING)
+                .limit(MAXIMUM_LOG_MARKERS).collect(Collectors.toList());
+    }
+
+    public List<LogFile.Marker> getLogWarnings() {
+        return getLogMarkers().stream().filter(marker -> marker.getType() == LogFile.Marker.Type.WARNING)
+                .limit(MAXIMUM_LOG_MARKERS).collect(Collectors.toList());
+    }
+
+    public String getLogMarkerName(LogFile.Marker marker) {
+        String name = StringUtils.capitalizeWords(marker.getType().name().replace('_', ' ').toLowerCase());
+        String module = marker.getModuleId() != null ? " (" + marker.getModuleId() + ")" : StringUtils.EMPTY_STRING;
+        return name + ", line " + formatNumber(marker.getLine() + 1) + module;
+    }
+
+    /**
+     * Returns whether the log tells apart the output of more than one module.
+     *
+     * @return {@code true} if the output of each module can be displayed, {@code false} otherwise
+     */
+    public boolean hasLogModules() {
+        return getLogModules().size() > 1;
+    }
+
+    /**
+     * Returns the modules which have output in the log, in the order of their first output.
+     *
+     * @return a non-null instance
+     */
+    public List<String> getLogModules() {
+        return getLogIndex().modules;
+    }
+
+    /**
+     * Returns the placeholder replaced with the (HTML) log, while the fragment is written.
+     *
+     * @return a non-null instance
+     * @see #writePlaceholder(String, Writer)
+     */
+    public String getLogPlaceholder() {
+        return PlaceholderWriter.getPlaceholder(LOG_PLACEHOLDER);
+    }
+
+    /**
+     * Returns the placeholder replaced with the (HTML) output of a module, while the fragment is written.
+     *
+     * @param module the index of the module (see {@link #getLogModules()})
+     * @return a non-null instance
+     * @see #writePlaceholder(String, Writer)
+     */
+    public String getLogPlaceholder(int module) {
+        return PlaceholderWriter.getPlaceholder(LOG_PLACEHOLDER + "-" + module);
+    }
+
+    /**
+     * Writes the content of a placeholder (the log or the output of a module).
+     *
+     * @param id     the identifier of the placeholder
+     * @param writer the writer which receives the HTML
+     * @return {@code true} if the placeholder is known, {@code false} otherwise
+     * @throws IOException if the HTML cannot be written
+     */
+    boolean writePlaceholder(String id, Writer writer) throws IOException {
+        requireNonNull(id);
+        requireNonNull(writer);
+        if (LOG_PLACEHOLDER.equals(id)) {
+            writeLog(null, writer);
+            return true;
+        } else if (id.startsWith(LOG_PLACEHOLDER + "-")) {
+            int module = Integer.parseInt(id.substring(LOG_PLACEHOLDER.length() + 1));
+            writeLog(getLogModules().get(module), writer);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Converts the log (or the output of a module) to HTML, into a writer.
+     * <p>
+     * The log is decompressed block by block and converted while it is written, it is never held in memory. The
+     * output of a module is read from the segments of the module, only the blocks which hold them are decompressed.
+     *
+     * @param moduleId the module, null for the whole log
+     * @param writer   the writer which receives the HTML
+     * @throws IOException if the HTML cannot be written
+     */
+    private void writeLog(String moduleId, Writer writer) throws IOException {
         AnsiToHtml ansiToHtml = new AnsiToHtml();
-        try {
-            Resource resource = ansiToHtml.transform(Resource.text(session.getLogs()));
-            return resource.loadAsString();
-        } catch (IOException e) {
-            return "#ERROR: " + ExceptionUtils.getRootCauseMessage(e);
+        // the markers refer to the lines of the whole log
+        if (moduleId == null) ansiToHtml.setAnchors(getLogMarkers().stream().mapToLong(LogFile.Marker::getLine).toArray());
+        if (session.getLogResource() != null) {
+            LogFile logFile;
+            try {
+                logFile = LogFile.open(ResourceUtils.toFile(session.getLogResource()));
+            } catch (IOException e) {
+                writer.write("#ERROR: " + ExceptionUtils.getRootCauseMessage(e));
+                return;
+            }
+            try (logFile) {
+                InputStream inputStream = moduleId != null ? logFile.getInputStream(moduleId, null) : logFile.getInputStream();
+                ansiToHtml.transform(new InputStreamReader(inputStream, StandardCharsets.UTF_8), writer);
+            }
+        } else if (moduleId == null) {
+            ansiToHtml.transform(new StringReader(session.getLogs()), writer);
         }
     }
 
+    private List<LogFile.Marker> getLogMarkers() {
+        return getLogIndex().markers;
+    }
+
+    private LogIndex getLogIndex() {
+        return views.get("logIndex", () -> {
+            LogIndex index = new LogIndex();
+            if (session.getLogResource() == null) return index;
+            // the markers are stored with the index of the log, the log itself is not read
+            try (LogFile logFile = LogFile.open(ResourceUtils.toFile(session.getLogResource()))) {
+                index.markers = logFile.getMarkers();
+                index.modules = new ArrayList<>(logFile.getModules());
+                for (LogFile.Marker.Type type : LogFile.Marker.Type.values()) {
+                    index.counts.put(type, logFile.getMarkerCount(type));
+                }
+            } catch (IOException e) {
+                // the report is rendered without navigation
+            }
+            return index;
+        });
+    }
+
     private boolean filter(DependencyMetrics dependencyMetrics, boolean transitive) {
         return transitive || !dependencyMetrics.isTransitive();
     }
@@ -294,12 +507,63 @@ public class ReportHelper {
         return !onlyFailing || testMetrics.isFailureOrError();
     }
 
+    private static StringBuilder appendJson(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < ' ' || c == '<' || c == '>' || c == '&') {
+                // HTML sensitive characters are escaped too, the JSON is embedded in a script
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"');
+    }
+
+    private static String escapeHtml(String value) {
+        if (value == null) return StringUtils.EMPTY_STRING;
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    builder.append("&lt;");
+                    break;
+                case '>':
+                    builder.append("&gt;");
+                    break;
+                case '&':
+                    builder.append("&amp;");
+                    break;
+                case '"':
+                    builder.append("&quot;");
+                    break;
+                case '\'':
+                    builder.append("&#39;");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
     private static String getDomain(String groupId) {
         String[] parts = StringUtils.split(groupId, ".");
         if (parts.length < 2) return groupId;
         return parts[0] + "." + parts[1];
     }
 
+    private static class LogIndex {
+
+        private List<LogFile.Marker> markers = Collections.emptyList();
+        private List<String> modules = Collections.emptyList();
+        private final Map<LogFile.Marker.Type, Integer> counts = new EnumMap<>(LogFile.Marker.Type.class);
+    }
+
     public static class ProjectDetails {
 
         private final Project project;
@@ -465,6 +729,11 @@ public class ReportHelper {
     };
     private static final int DURATION_BUCKETS_LENGTH = DURATION_BUCKETS.length;
 
+    private static final int MAXIMUM_LOG_MARKERS = 100;
+    static final String LOG_PLACEHOLDER = "log";
+    private static final String CHECKED_HTML = "<i class=\"fa-regular fa-square-check\"></i>";
+    private static final String UNCHECKED_HTML = "<i class=\"fa-regular fa-square\"></i>";
+
     static final String[] DURATION_BUCKET_NAMES = new String[]{
             "<1ms", "5ms", "10ms", "20ms", "50ms", "100ms", "200ms", "500ms", "1s", "2s", "5s", "10s", "20s", "30s", ">60s"
     };
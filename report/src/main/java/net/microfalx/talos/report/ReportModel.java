@@ -0,0 +1,77 @@
+package net.microfalx.talos.report;
+
+import net.microfalx.talos.model.SessionMetrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * The model of a report: the metrics of a Maven session and the helpers used by templates.
+ * <p>
+ * The model is created once per report and shared by all the templates (and threads) which render the report. The
+ * views derived from the session (sorted mojos, grouped dependencies, merged trends, test summaries, etc) are
+ * computed once, on first use, and the time spent to compute each view is recorded.
+ */
+public final class ReportModel {
+
+    private final SessionMetrics session;
+    private final ReportViews views = new ReportViews();
+    private final ReportHelper reportHelper;
+    private final TrendHelper trendHelper;
+    private final CodeCoverageHelper codeCoverageHelper;
+    private final ChartHelper chartHelper;
+
+    public static ReportModel create(SessionMetrics session) {
+        return new ReportModel(session);
+    }
+
+    private ReportModel(SessionMetrics session) {
+        requireNonNull(session);
+        this.session = session;
+        this.reportHelper = new ReportHelper(session, views);
+        this.trendHelper = new TrendHelper(session, reportHelper, views);
+        this.codeCoverageHelper = new CodeCoverageHelper(session, reportHelper);
+        this.chartHelper = new ChartHelper(session, reportHelper, trendHelper, codeCoverageHelper);
+    }
+
+    public SessionMetrics getSession() {
+        return session;
+    }
+
+    public ReportHelper getReportHelper() {
+        return reportHelper;
+    }
+
+    public TrendHelper getTrendHelper() {
+        return trendHelper;
+    }
+
+    public CodeCoverageHelper getCodeCoverageHelper() {
+        return codeCoverageHelper;
+    }
+
+    public ChartHelper getChartHelper() {
+        return chartHelper;
+    }
+
+    /**
+     * Returns the time spent to compute each view of the session, the slowest views first.
+     * <p>
+     * The time of a view includes the time spent to compute the views it depends on.
+     *
+     * @return a non-null instance
+     */
+    public Map<String, Duration> getViewDurations() {
+        return views.getDurations();
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ReportModel.class.getSimpleName() + "[", "]")
+                .add("session=" + session)
+                .toString();
+    }
+}
@@ -0,0 +1,83 @@
+package net.microfalx.talos.report;
+
+import net.microfalx.lang.ExceptionUtils;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Holds the views derived from a session (sorted, grouped or merged data), computed once on first use.
+ * <p>
+ * The views are safe to be requested by many threads: a view is computed by the first thread which requests it,
+ * other threads wait for the result. A view can use other views while it is computed, the time recorded for a view
+ * includes the time spent to compute the views it used.
+ */
+final class ReportViews {
+
+    private final ConcurrentMap<String, FutureTask<Object>> views = new ConcurrentHashMap<>();
+    private final Map<String, Duration> durations = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a view, computing it if it was not requested before.
+     *
+     * @param name     the name of the view, including its parameters
+     * @param supplier the supplier which computes the view
+     * @param <T>      the type of the view
+     * @return the view
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(String name, Supplier<T> supplier) {
+        requireNonNull(name);
+        requireNonNull(supplier);
+        FutureTask<Object> task = views.get(name);
+        if (task == null) {
+            FutureTask<Object> newTask = new FutureTask<>(() -> compute(name, supplier));
+            task = views.putIfAbsent(name, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+        try {
+            return (T) task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for view '" + name + "'", e);
+        } catch (ExecutionException e) {
+            // failures are not cached, the view is computed again on next request
+            views.remove(name, task);
+            return ExceptionUtils.throwException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns the time spent to compute each view, the slowest views first.
+     *
+     * @return a non-null instance
+     */
+    Map<String, Duration> getDurations() {
+        List<Map.Entry<String, Duration>> entries = new ArrayList<>(durations.entrySet());
+        entries.sort(Map.Entry.<String, Duration>comparingByValue().reversed());
+        Map<String, Duration> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, Duration> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return Collections.unmodifiableMap(sorted);
+    }
+
+    private Object compute(String name, Supplier<?> supplier) {
+        long startTime = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            durations.put(name, Duration.ofNanos(System.nanoTime() - startTime));
+        }
+    }
+}
@@ -7,7 +7,9 @@ import net.microfalx.talos.model.SessionMetrics;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.TemplateSpec;
 import org.thymeleaf.cache.StandardCacheManager;
+import org.thymeleaf.cache.TemplateCacheKey;
 import org.thymeleaf.context.Context;
+import org.thymeleaf.engine.TemplateModel;
 import org.thymeleaf.linkbuilder.StandardLinkBuilder;
 import org.thymeleaf.standard.StandardDialect;
 import org.thymeleaf.templatemode.TemplateMode;
@@ -30,8 +32,11 @@ public class Template implements Nameable {
     private final String name;
     private final Map<String, Object> variables = new HashMap<>();
     private SessionMetrics session;
+    private ReportModel model;
     private String selector;
 
+    private static final String[] PAGES = {"report", "diff", "dashboard"};
+
     private static volatile TemplateEngine templateEngine;
 
     public static Template create(String name) {
@@ -66,6 +71,26 @@ public class Template implements Nameable {
         return this;
     }
 
+    public ReportModel getModel() {
+        return model;
+    }
+
+    /**
+     * Changes the model (session and helpers) used to render the template.
+     * <p>
+     * The same model should be used by all the templates of a report, the views derived from the session are
+     * computed only once.
+     *
+     * @param model the model
+     * @return self
+     */
+    public Template setModel(ReportModel model) {
+        requireNonNull(model);
+        this.model = model;
+        this.session = model.getSession();
+        return this;
+    }
+
     public Template addVariable(String name, Object value) {
         requireNonNull(name);
         variables.put(name, value);
@@ -79,12 +104,67 @@ public class Template implements Nameable {
      */
     public void render(Resource resource) throws IOException {
         requireNonNull(resource);
+        try (Writer writer = resource.getWriter()) {
+            render(writer);
+        }
+    }
+
+    /**
+     * Renders a template into a writer.
+     * <p>
+     * The writer is not closed.
+     *
+     * @param writer the writer
+     * @throws IOException if an I/O error occurs
+     */
+    public void render(Writer writer) throws IOException {
+        requireNonNull(writer);
         initEngine();
         Context context = initContext();
-        TemplateSpec template = initTemplate();
-        try (Writer writer = resource.getWriter()) {
-            templateEngine.process(template, context, writer);
+        TemplateSpec template = createTemplateSpec(name, selector);
+        templateEngine.process(template, context, writer);
+    }
+
+    /**
+     * Initializes the template engine and parses the templates of a report, before the report is rendered.
+     * <p>
+     * The initialization of the engine (dialects, processors, expression parsers) and the first parse of each
+     * template are the expensive parts of the first report; a warm-up started at the beginning of the build moves them
+     * off the end of the build. Pages are parsed as a whole and fragments with their own selector, the same way
+     * they are rendered, so the renders find them in the template cache. The templates are parsed without being
+     * processed, so no expression is evaluated (the templates need a session to be rendered).
+     *
+     * @return the number of templates parsed
+     */
+    public static int warmUp() {
+        initEngine();
+        Context context = new Context();
+        int count = 0;
+        for (String page : PAGES) {
+            templateEngine.processThrottled(createTemplateSpec(page, null), context);
+            count++;
+        }
+        for (Fragment.Type type : Fragment.Type.values()) {
+            String name = type.name().toLowerCase();
+            templateEngine.processThrottled(createTemplateSpec(name, name), context);
+            count++;
         }
+        return count;
+    }
+
+    /**
+     * Returns the parsed template from the template cache.
+     *
+     * @param name     the name of the template
+     * @param selector the selector, null for the whole template
+     * @return the template, null if not cached
+     */
+    static TemplateModel getCachedTemplate(String name, String selector) {
+        initEngine();
+        TemplateSpec template = createTemplateSpec(name, selector);
+        TemplateCacheKey key = new TemplateCacheKey(null, template.getTemplate(), template.getTemplateSelectors(),
+                0, 0, template.getTemplateMode(), template.getTemplateResolutionAttributes());
+        return templateEngine.getCacheManager().getTemplateCache().get(key);
     }
 
     private static synchronized void initEngine() {
@@ -107,27 +187,26 @@ public class Template implements Nameable {
     private Context initContext() {
         Context context = new Context();
         if (session != null) {
-            ReportHelper helper = new ReportHelper(session);
-            TrendHelper trendHelper = new TrendHelper(session, helper);
-            CodeCoverageHelper codeCoverageHelper = new CodeCoverageHelper(session, helper);
+            if (model == null || model.getSession() != session) model = ReportModel.create(session);
+            ReportHelper helper = model.getReportHelper();
             context.setVariable("session", session);
             context.setVariable("project", session.getProject());
             context.setVariable("mojos", helper.getMojos());
-            context.setVariable("tests", session.getTests());
+            context.setVariable("tests", session.getTestStore());
             context.setVariable("modules", helper.getModules());
             context.setVariable("artifacts", helper.getArtifacts());
             context.setVariable("dependencies", helper.getDependencies(true));
             context.setVariable("plugins", helper.getPlugins());
             context.setVariable("helper", helper);
-            context.setVariable("trendHelper", trendHelper);
-            context.setVariable("codeCoverageHelper", codeCoverageHelper);
-            context.setVariable("chartHelper", new ChartHelper(session, helper, trendHelper, codeCoverageHelper));
+            context.setVariable("trendHelper", model.getTrendHelper());
+            context.setVariable("codeCoverageHelper", model.getCodeCoverageHelper());
+            context.setVariable("chartHelper", model.getChartHelper());
         }
         context.setVariables(variables);
         return context;
     }
 
-    private TemplateSpec initTemplate() {
+    private static TemplateSpec createTemplateSpec(String name, String selector) {
         if (StringUtils.isEmpty(selector)) {
             return new TemplateSpec(name, TemplateMode.HTML);
         } else {
@@ -7,6 +7,7 @@ import net.microfalx.talos.model.*;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 
@@ -14,15 +15,19 @@ public class TrendHelper {
 
     private final SessionMetrics session;
     private final ReportHelper reportHelper;
-
-    private SeriesStore virtualMachineMetrics;
-    private SeriesStore serverMetrics;
+    private final ReportViews views;
 
     public TrendHelper(SessionMetrics session, ReportHelper reportHelper) {
+        this(session, reportHelper, new ReportViews());
+    }
+
+    TrendHelper(SessionMetrics session, ReportHelper reportHelper, ReportViews views) {
         requireNonNull(session);
         requireNonNull(reportHelper);
+        requireNonNull(views);
         this.session = session;
         this.reportHelper = reportHelper;
+        this.views = views;
     }
 
     public boolean hasTrends() {
@@ -30,44 +35,57 @@ public class TrendHelper {
     }
 
     public SeriesStore getVirtualMachineMetrics() {
-        if (virtualMachineMetrics == null) {
-            virtualMachineMetrics = SeriesStore.memory();
+        return views.get("trends.virtualMachineMetrics", () -> {
+            SeriesStore virtualMachineMetrics = SeriesStore.memory();
             session.getTrends().stream().map(TrendMetrics::getVirtualMachineMetrics)
                     .forEach(store -> virtualMachineMetrics.add(store));
-        }
-        return virtualMachineMetrics;
+            return virtualMachineMetrics;
+        });
     }
 
     public SeriesStore getServerMetrics() {
-        if (serverMetrics == null) {
-            serverMetrics = SeriesStore.memory();
+        return views.get("trends.serverMetrics", () -> {
+            SeriesStore serverMetrics = SeriesStore.memory();
             session.getTrends().stream().map(TrendMetrics::getServerMetrics)
                     .forEach(store -> serverMetrics.add(store));
-        }
-        return serverMetrics;
+            return serverMetrics;
+        });
     }
 
     public Collection<LifecycleMetrics> getLifecycleMetricsTypes() {
-        return getTypes(AbstractSessionMetrics::getLifecycles);
+        return views.get("trends.lifecycleTypes", () -> getTypes(AbstractSessionMetrics::getLifecycles));
     }
 
     public Collection<LifecycleMetrics> getLifecycleMetrics(String id) {
-        return getMetrics(id, (trend) -> trend.getLifecycle(id));
+        return views.get("trends.lifecycle[" + id + "]", () -> getMetrics(id, (trend) -> trend.getLifecycle(id)));
     }
 
     public Collection<MojoMetrics> getMojoMetricsTypes() {
-        return getTypes(AbstractSessionMetrics::getMojos);
+        return views.get("trends.mojoTypes", () -> getTypes(AbstractSessionMetrics::getMojos));
     }
 
     public Collection<MojoMetrics> getMojoMetrics(String id) {
-        return getMetrics(id, (trend) -> trend.getMojo(id));
+        return views.get("trends.mojo[" + id + "]", () -> getMetrics(id, (trend) -> trend.getMojo(id)));
     }
 
     public Collection<TestSummaryMetrics> getTestCountsMetrics() {
-        return TestSummaryMetrics.summaries(reportHelper.getTrends());
+        return views.get("trends.testCounts", () -> TestSummaryMetrics.summaries(reportHelper.getTrends()));
+    }
+
+    public boolean hasCacheMetrics() {
+        return !getCacheMetrics().isEmpty();
+    }
+
+    public Collection<TrendMetrics> getCacheMetrics() {
+        return views.get("trends.cache", () -> reportHelper.getTrends().stream()
+                .filter(trend -> trend.getCacheMetrics() != null).collect(Collectors.toList()));
     }
 
     public Map<ProjectMetrics, Collection<ModuleFailures>> getTestFailuresByModule() {
+        return views.get("trends.testFailuresByModule", this::createTestFailuresByModule);
+    }
+
+    private Map<ProjectMetrics, Collection<ModuleFailures>> createTestFailuresByModule() {
         Map<ProjectMetrics, Collection<ModuleFailures>> failures = new HashMap<>();
         Set<ProjectMetrics> toKeep = new HashSet<>();
         for (TrendMetrics trendMetrics : reportHelper.getTrends()) {
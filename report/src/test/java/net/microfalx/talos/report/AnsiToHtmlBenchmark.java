@@ -0,0 +1,102 @@
+package net.microfalx.talos.report;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversion of large (hundreds of MB) logs to HTML.
+ * <p>
+ * The {@code read} benchmark only reads the log and it is the baseline for the conversion.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xmx512m"})
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class AnsiToHtmlBenchmark {
+
+    private static final String[] LINES = {
+            "[\u001b[1;34mINFO\u001b[m] Compiling 125 source files with javac [debug release 17] to target/classes",
+            "[\u001b[1;33mWARNING\u001b[m] /src/main/java/net/microfalx/demo/Calculator.java: uses unchecked or unsafe operations.",
+            "[\u001b[1;34mINFO\u001b[m] Tests run: 12, Failures: 0, Errors: 0, Skipped: 0, Time elapsed: 0.152 s - in net.microfalx.demo.CalculatorTest",
+            "[\u001b[1;31mERROR\u001b[m] Failed to execute goal \u001b[32morg.apache.maven.plugins:maven-surefire-plugin:3.2.5:test\u001b[m \u001b[1m(default-test)\u001b[m",
+            "\tat net.microfalx.demo.CalculatorTest.add(CalculatorTest.java:25)"
+    };
+
+    @Param({"200", "500"})
+    private int size;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = File.createTempFile("talos_benchmark_", ".log");
+        long limit = size * 1024L * 1024L;
+        long written = 0;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (int index = 0; written < limit; index++) {
+                String line = LINES[index % LINES.length];
+                writer.write(line);
+                writer.write('\n');
+                written += line.length() + 1;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        CountingWriter writer = new CountingWriter();
+        try (Reader reader = createReader()) {
+            reader.transferTo(writer);
+        }
+        return writer.count;
+    }
+
+    @Benchmark
+    public long transform() throws IOException {
+        CountingWriter writer = new CountingWriter();
+        try (Reader reader = createReader()) {
+            new AnsiToHtml().transform(reader, writer);
+        }
+        return writer.count;
+    }
+
+    private Reader createReader() throws IOException {
+        return new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AnsiToHtmlBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static class CountingWriter extends Writer {
+
+        private long count;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -5,6 +5,8 @@ import net.microfalx.resource.Resource;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 
 import static org.apache.maven.shared.utils.logging.MessageUtils.buffer;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -24,4 +26,21 @@ class AnsiToHtmlTest {
                      "[<span style='font-weight: bold;color: ff0000'>ERROR</span>] Internal error: java.lang.IllegalArgumentException: version can neither be null, empty nor blank -> <span style='font-weight: bold'>[Help 1]</span>\n", resource.loadAsString());
     }
 
-}
\ No newline at end of file
+    @Test
+    void transformStreaming() throws IOException {
+        AnsiToHtml ansiToHtml = new AnsiToHtml();
+        StringWriter writer = new StringWriter();
+        ansiToHtml.transform(new StringReader("[\u001b[1mINFO\u001b[m] Line 1\r\nLine 2\rLine \u001b[2K3"), writer);
+        assertEquals("[<span style='font-weight: bold'>INFO</span>] Line 1\nLine 2\nLine 3\n", writer.toString());
+    }
+
+    @Test
+    void transformWithAnchors() throws IOException {
+        AnsiToHtml ansiToHtml = new AnsiToHtml().setAnchors(new long[]{2, 0});
+        StringWriter writer = new StringWriter();
+        ansiToHtml.transform(new StringReader("[ERROR] Line 1\nLine 2\n[WARNING] Line 3\n"), writer);
+        assertEquals("<span id='log-line-0'></span>[ERROR] Line 1\nLine 2\n<span id='log-line-2'></span>[WARNING] Line 3\n",
+                writer.toString());
+    }
+
+}
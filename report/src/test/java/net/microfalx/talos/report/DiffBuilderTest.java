@@ -0,0 +1,38 @@
+package net.microfalx.talos.report;
+
+import net.microfalx.resource.Resource;
+import net.microfalx.talos.model.SessionMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiffBuilderTest extends AbstractFragmentBuilder {
+
+    @Test
+    void build() throws IOException {
+        DiffBuilder builder = DiffBuilder.create(createMultiModuleProject(), createSingleModuleProject());
+        Resource resource = Resource.memory();
+        builder.build(resource);
+        assertThat(resource.loadAsString()).contains("html").contains("Baseline");
+    }
+
+    @Test
+    void sameSession() throws IOException {
+        SessionMetrics session = createSingleModuleProject();
+        DiffHelper helper = new DiffHelper(session, session);
+        assertThat(helper.getSummary()).allMatch(delta -> delta.getDifference() == 0);
+        assertThat(helper.getModules()).allMatch(delta -> delta.getType() == DiffHelper.ChangeType.CHANGED);
+        assertThat(helper.getDependencies()).isEmpty();
+    }
+
+    @Test
+    void differentSessions() throws IOException {
+        DiffHelper helper = new DiffHelper(createMultiModuleProject(), createSingleModuleProject());
+        assertThat(helper.getSummary()).isNotEmpty();
+        assertThat(helper.getModules()).anyMatch(delta -> delta.getType() != DiffHelper.ChangeType.CHANGED);
+        assertThat(helper.getDependencyCost()).hasSize(2);
+        assertThat(helper.getResources()).hasSize(5);
+    }
+}
@@ -0,0 +1,49 @@
+package net.microfalx.talos.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DownsamplerTest {
+
+    @Test
+    void shortSeries() {
+        double[] values = {1, 2, 3, 4};
+        assertThat(Downsampler.select(values, values, 10)).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    void longSeries() {
+        int length = 10_000;
+        double[] x = new double[length];
+        double[] y = new double[length];
+        for (int index = 0; index < length; index++) {
+            x[index] = index;
+            y[index] = index == 5_000 ? 100 : Math.sin(index / 100.0);
+        }
+        int[] indexes = Downsampler.select(x, y, 100);
+        assertThat(indexes).hasSize(100).startsWith(0).endsWith(length - 1).contains(5_000);
+        for (int index = 1; index < indexes.length; index++) {
+            assertThat(indexes[index]).isGreaterThan(indexes[index - 1]);
+        }
+    }
+
+    @Test
+    void alignedSeries() {
+        ChartHelper.AreaChart<Long, Float> chart = new ChartHelper.AreaChart<>("test", "Test");
+        chart.setMaximumPoints(50);
+        ChartHelper.Series<Long, Float> first = new ChartHelper.Series<>("First");
+        ChartHelper.Series<Long, Float> second = new ChartHelper.Series<>("Second");
+        for (long index = 0; index < 1_000; index++) {
+            first.add(index, (float) (index % 7));
+            second.add(index, (float) (index % 13));
+        }
+        chart.add(first).add(second);
+        assertThat(chart.getSeries()).hasSize(2).allMatch(series -> series.getData().size() == 50);
+        assertThat(chart.getSeries().get(0).getData()).extracting(ChartHelper.Data::getX)
+                .containsExactlyElementsOf(chart.getSeries().get(1).getData().stream().map(ChartHelper.Data::getX)
+                        .collect(Collectors.toList()));
+    }
+}
@@ -5,6 +5,7 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.StringWriter;
 
 class FragmentBuilderTest extends AbstractFragmentBuilder {
 
@@ -24,4 +25,12 @@ class FragmentBuilderTest extends AbstractFragmentBuilder {
         Assertions.assertThat(resource.loadAsString()).contains("div");
     }
 
+    @Test
+    void logs() throws IOException {
+        FragmentBuilder builder = FragmentBuilder.create(Fragment.create(Fragment.Type.LOGS), createSingleModuleProject());
+        StringWriter writer = new StringWriter();
+        builder.build(writer);
+        Assertions.assertThat(writer.toString()).contains("div").doesNotContain(PlaceholderWriter.PREFIX);
+    }
+
 }
\ No newline at end of file
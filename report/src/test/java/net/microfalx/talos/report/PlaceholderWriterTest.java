@@ -0,0 +1,37 @@
+package net.microfalx.talos.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PlaceholderWriterTest {
+
+    private static final String PAGE = "<html><!-- comment --><div>" + PlaceholderWriter.getPlaceholder("summary")
+                                       + "</div><" + PlaceholderWriter.getPlaceholder("logs") + "<!--talos-fragment</html>";
+
+    @Test
+    void replace() throws IOException {
+        assertEquals("<html><!-- comment --><div>[summary]</div><[logs]<!--talos-fragment</html>", write(PAGE.length()));
+    }
+
+    @Test
+    void replaceSplitWrites() throws IOException {
+        String expected = write(PAGE.length());
+        for (int chunk = 1; chunk < 32; chunk++) {
+            assertEquals(expected, write(chunk));
+        }
+    }
+
+    private String write(int chunk) throws IOException {
+        StringWriter output = new StringWriter();
+        try (PlaceholderWriter writer = new PlaceholderWriter(output, (id, target) -> target.write("[" + id + "]"))) {
+            for (int index = 0; index < PAGE.length(); index += chunk) {
+                writer.write(PAGE, index, Math.min(chunk, PAGE.length() - index));
+            }
+        }
+        return output.toString();
+    }
+}
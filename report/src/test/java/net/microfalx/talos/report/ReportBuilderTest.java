@@ -4,10 +4,12 @@ import net.microfalx.lang.JvmUtils;
 import net.microfalx.resource.Resource;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 
 class ReportBuilderTest extends AbstractFragmentBuilder {
@@ -17,7 +19,7 @@ class ReportBuilderTest extends AbstractFragmentBuilder {
         ReportBuilder builder = ReportBuilder.create(createSingleModuleProject());
         Resource resource = Resource.memory();
         builder.build(resource);
-        Assertions.assertThat(resource.loadAsString()).contains("html");
+        Assertions.assertThat(resource.loadAsString()).contains("html").doesNotContain(PlaceholderWriter.PREFIX);
     }
 
     @Test
@@ -37,6 +39,40 @@ class ReportBuilderTest extends AbstractFragmentBuilder {
         Assertions.assertThat(resource.loadAsString()).contains("div");
     }
 
+    @Test
+    void multiModuleSequential() throws IOException {
+        ReportBuilder builder = ReportBuilder.create(createMultiModuleProject()).setParallelism(1);
+        Resource resource = Resource.memory();
+        builder.build(resource);
+        Assertions.assertThat(resource.loadAsString()).contains("div").doesNotContain(PlaceholderWriter.PREFIX);
+        Assertions.assertThat(builder.getFragments()).hasSize(Fragment.Type.values().length)
+                .allMatch(fragment -> fragment.getThrowable() == null);
+    }
+
+    @Test
+    void multiModuleTwice() throws IOException {
+        ReportBuilder builder = ReportBuilder.create(createMultiModuleProject());
+        builder.build(Resource.memory());
+        Resource resource = Resource.memory();
+        builder.build(resource);
+        Assertions.assertThat(resource.loadAsString()).contains("div").doesNotContain(PlaceholderWriter.PREFIX);
+        Assertions.assertThat(builder.getFragments()).extracting(Fragment::getType)
+                .containsExactly(Fragment.Type.values());
+    }
+
+    @Test
+    void multiModuleLazy(@TempDir File directory) throws IOException {
+        ReportBuilder builder = ReportBuilder.create(createMultiModuleProject())
+                .setDataDirectory(Resource.directory(directory));
+        Resource resource = Resource.memory();
+        builder.build(resource);
+        Assertions.assertThat(resource.loadAsString()).contains("talos-lazy").doesNotContain(PlaceholderWriter.PREFIX);
+        for (Fragment fragment : builder.getFragments()) {
+            Assertions.assertThat(Files.readString(new File(directory, fragment.getId() + ".js").toPath()))
+                    .startsWith("Talos.loaded(\"" + fragment.getId() + "\"");
+        }
+    }
+
     @Test
     void multiModuleOpen() throws IOException {
         ReportBuilder builder = ReportBuilder.create(createMultiModuleProject());
@@ -52,6 +88,8 @@ class ReportBuilderTest extends AbstractFragmentBuilder {
         Resource resource = Resource.memory();
         builder.build(resource);
         Assertions.assertThat(resource.loadAsString()).contains("div");
+        Assertions.assertThat(builder.getFragments()).extracting(Fragment::getType)
+                .containsExactly(Fragment.Type.values());
     }
 
     @Test
@@ -0,0 +1,70 @@
+package net.microfalx.talos.report;
+
+import net.microfalx.resource.ClassPathResource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportGeneratorTest {
+
+    @TempDir
+    File directory;
+
+    @TempDir
+    File output;
+
+    @Test
+    void generate() throws IOException {
+        createSession(new File(directory, "jvm"), "model/jvm.metrics");
+        createSession(new File(directory, "resource"), "model/resource.metrics");
+        ReportGenerator generator = ReportGenerator.create().add(directory);
+        assertThat(generator.getSessions()).hasSize(2);
+        assertThat(generator.generate()).hasSize(2).allSatisfy(result -> {
+            assertThat(result.getThrowable()).isNull();
+            assertThat(result.getReport()).exists()
+                    .hasParent(result.getSession().getParentFile());
+        });
+    }
+
+    @Test
+    void generateLazyInOutputDirectory() throws IOException {
+        createSession(new File(directory, "jvm"), "model/jvm.metrics");
+        assertThat(ReportGenerator.create().add(directory).setOutputDirectory(output).setLazy(true).generate())
+                .hasSize(1).allSatisfy(result -> assertThat(result.getThrowable()).isNull());
+        assertThat(new File(output, "jvm/" + ReportGenerator.REPORT_FILE_NAME)).exists();
+        assertThat(new File(output, "jvm/" + ReportGenerator.REPORT_DATA_DIRECTORY_NAME)).isDirectory();
+    }
+
+    @Test
+    void generateInOutputDirectoryWithSameNames() throws IOException {
+        createSession(new File(directory, "main/jvm"), "model/jvm.metrics");
+        createSession(new File(directory, "release/jvm"), "model/jvm.metrics");
+        assertThat(ReportGenerator.create().add(directory).setOutputDirectory(output).generate())
+                .hasSize(2).allSatisfy(result -> assertThat(result.getThrowable()).isNull());
+        assertThat(new File(output, "jvm/" + ReportGenerator.REPORT_FILE_NAME)).exists();
+        assertThat(new File(output, "jvm-2/" + ReportGenerator.REPORT_FILE_NAME)).exists();
+    }
+
+    @Test
+    void generateSameDirectory() throws IOException {
+        createSession(new File(directory, "jvm"), "model/jvm.metrics");
+        File other = new File(directory, "jvm/other.data");
+        Files.copy(new File(directory, "jvm/" + ReportGenerator.SESSION_FILE_NAME).toPath(), other.toPath());
+        ReportGenerator generator = ReportGenerator.create().add(new File(directory, "jvm/" + ReportGenerator.SESSION_FILE_NAME))
+                .add(other);
+        assertThat(generator.generate()).extracting(result -> result.getThrowable() == null).containsExactly(true, false);
+    }
+
+    private void createSession(File directory, String path) throws IOException {
+        directory.mkdirs();
+        try (InputStream inputStream = ClassPathResource.file(path).getInputStream()) {
+            Files.copy(inputStream, new File(directory, ReportGenerator.SESSION_FILE_NAME).toPath());
+        }
+    }
+}
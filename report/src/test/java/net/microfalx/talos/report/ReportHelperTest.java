@@ -1,13 +1,26 @@
 package net.microfalx.talos.report;
 
+import net.microfalx.resource.Resource;
+import net.microfalx.talos.core.LogContext;
+import net.microfalx.talos.core.LogFile;
+import net.microfalx.talos.model.SessionMetrics;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 class ReportHelperTest extends AbstractFragmentBuilder {
 
+    @TempDir
+    File directory;
+
     @Test
     void getTestDurationDistributionSingle() throws IOException {
         ReportHelper helper = new ReportHelper(createSingleModuleProject());
@@ -20,4 +33,35 @@ class ReportHelperTest extends AbstractFragmentBuilder {
         assertEquals(15, helper.getTestDurationDistribution().size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void logModules() throws IOException {
+        File file = new File(directory, "build.output.data");
+        try (LogFile.Writer writer = LogFile.writer(new FileOutputStream(file))) {
+            write(writer, "core", "core started\n");
+            write(writer, "model", "model started\n");
+            write(writer, "core", "core ended\n");
+        }
+        SessionMetrics session = createSingleModuleProject();
+        session.setLogResource(Resource.file(file));
+        ReportHelper helper = new ReportHelper(session);
+        assertTrue(helper.hasLogModules());
+        assertEquals(List.of("core", "model"), helper.getLogModules());
+        StringWriter writer = new StringWriter();
+        assertTrue(helper.writePlaceholder("log-0", writer));
+        assertTrue(writer.toString().contains("core started"));
+        assertTrue(writer.toString().contains("core ended"));
+        assertFalse(writer.toString().contains("model started"));
+        assertFalse(helper.writePlaceholder("summary", new StringWriter()));
+    }
+
+    private void write(LogFile.Writer writer, String moduleId, String text) throws IOException {
+        LogContext.set(moduleId, null);
+        try {
+            byte[] data = text.getBytes(StandardCharsets.UTF_8);
+            writer.write(LogContext.get(), data, 0, data.length);
+        } finally {
+            LogContext.clear();
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package net.microfalx.talos.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportModelTest extends AbstractFragmentBuilder {
+
+    @Test
+    void viewsAreComputedOnce() throws IOException {
+        ReportModel model = ReportModel.create(createMultiModuleProject());
+        ReportHelper helper = model.getReportHelper();
+        assertSame(helper.getMojos(), helper.getMojos());
+        assertSame(helper.getTestDetails(), helper.getTestDetails());
+        assertSame(helper.getDependencies(true), helper.getDependencies(true));
+        assertNotSame(helper.getDependencies(true), helper.getDependencies(false));
+        assertTrue(model.getViewDurations().containsKey("mojos"));
+        assertTrue(model.getViewDurations().containsKey("testDetails"));
+        assertTrue(model.getViewDurations().containsKey("dependencies[false]"));
+    }
+
+    @Test
+    void sharedByTemplates() throws IOException {
+        ReportModel model = ReportModel.create(createSingleModuleProject());
+        Template template = Template.create("report").setModel(model);
+        assertSame(model, template.getModel());
+        assertSame(model.getSession(), template.getSession());
+    }
+}
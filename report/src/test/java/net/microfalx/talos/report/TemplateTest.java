@@ -2,13 +2,14 @@ package net.microfalx.talos.report;
 
 import net.microfalx.resource.Resource;
 import org.junit.jupiter.api.Test;
+import org.thymeleaf.engine.TemplateModel;
 
 import java.io.IOException;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
-class TemplateTest {
+class TemplateTest extends AbstractFragmentBuilder {
 
     @Test
     void invalid() throws IOException {
@@ -48,6 +49,18 @@ class TemplateTest {
                      "</html>", resource.loadAsString());
     }
 
+    @Test
+    void warmUp() throws IOException {
+        assertEquals(Fragment.Type.values().length + 3, Template.warmUp());
+        assertNotNull(Template.getCachedTemplate("report", null));
+        TemplateModel summary = Template.getCachedTemplate("summary", "summary");
+        assertNotNull(summary);
+        Resource resource = Resource.memory();
+        FragmentBuilder.create(Fragment.create(Fragment.Type.SUMMARY), createSingleModuleProject()).build(resource);
+        assertTrue(resource.loadAsString().contains("div"));
+        assertSame(summary, Template.getCachedTemplate("summary", "summary"));
+    }
+
     @Test
     void fragments() throws IOException {
         Resource resource = Resource.memory();